@@ -14,12 +14,15 @@ import com.microsoft.azure.spring.cloud.autoconfigure.telemetry.TelemetryCollect
 import com.microsoft.azure.spring.cloud.context.core.api.EnvironmentProvider;
 import com.microsoft.azure.spring.cloud.context.core.api.ResourceManagerProvider;
 import com.microsoft.azure.spring.cloud.context.core.storage.StorageConnectionStringProvider;
+import com.microsoft.azure.spring.integration.eventhub.api.CheckpointStoreProvider;
 import com.microsoft.azure.spring.integration.eventhub.api.EventHubClientFactory;
 import com.microsoft.azure.spring.integration.eventhub.api.EventHubOperation;
 import com.microsoft.azure.spring.integration.eventhub.factory.DefaultEventHubClientFactory;
 import com.microsoft.azure.spring.integration.eventhub.factory.EventHubConnectionStringProvider;
 import com.microsoft.azure.spring.integration.eventhub.impl.EventHubTemplate;
+import com.microsoft.azure.spring.integration.eventhub.store.FileCheckpointStoreProvider;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -31,6 +34,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.util.StringUtils;
 
 import javax.annotation.PostConstruct;
+import java.nio.file.Paths;
 
 /**
  * An auto-configuration for Event Hub, which provides {@link EventHubOperation}
@@ -56,8 +60,11 @@ public class AzureEventHubAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public EventHubOperation eventHubOperation(EventHubClientFactory clientFactory) {
-        return new EventHubTemplate(clientFactory);
+    public EventHubOperation eventHubOperation(EventHubClientFactory clientFactory,
+            AzureEventHubProperties eventHubProperties) {
+        EventHubTemplate eventHubTemplate = new EventHubTemplate(clientFactory);
+        eventHubTemplate.setClientPartitionRouting(eventHubProperties.isClientPartitionRouting());
+        return eventHubTemplate;
     }
 
     @Bean
@@ -81,10 +88,24 @@ public class AzureEventHubAutoConfiguration {
         }
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty("spring.cloud.azure.eventhub.checkpoint-store-directory")
+    public CheckpointStoreProvider checkpointStoreProvider(AzureEventHubProperties eventHubProperties) {
+        return new FileCheckpointStoreProvider(Paths.get(eventHubProperties.getCheckpointStoreDirectory()));
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public EventHubClientFactory clientFactory(EventHubConnectionStringProvider connectionStringProvider,
-            AzureEventHubProperties eventHubProperties, EnvironmentProvider environmentProvider) {
+            AzureEventHubProperties eventHubProperties, EnvironmentProvider environmentProvider,
+            ObjectProvider<CheckpointStoreProvider> checkpointStoreProvider) {
+        CheckpointStoreProvider storeProvider = checkpointStoreProvider.getIfAvailable();
+        if (storeProvider != null) {
+            return configure(new DefaultEventHubClientFactory(connectionStringProvider, storeProvider),
+                    eventHubProperties);
+        }
+
         String checkpointConnectionString;
         if (resourceManagerProvider != null) {
             StorageAccount checkpointStorageAccount = resourceManagerProvider.getStorageAccountManager().getOrCreate(
@@ -97,6 +118,16 @@ public class AzureEventHubAutoConfiguration {
                             eventHubProperties.getCheckpointAccessKey(), environmentProvider.getEnvironment());
         }
 
-        return new DefaultEventHubClientFactory(connectionStringProvider, checkpointConnectionString);
+        return configure(new DefaultEventHubClientFactory(connectionStringProvider, checkpointConnectionString),
+                eventHubProperties);
+    }
+
+    private static EventHubClientFactory configure(DefaultEventHubClientFactory clientFactory,
+            AzureEventHubProperties eventHubProperties) {
+        clientFactory.setConnectionsPerEventHub(eventHubProperties.getConnectionsPerEventHub());
+        if (eventHubProperties.getSchedulerPoolSize() != null) {
+            clientFactory.setSchedulerPoolSize(eventHubProperties.getSchedulerPoolSize());
+        }
+        return clientFactory;
     }
 }
@@ -30,6 +30,27 @@ public class AzureEventHubProperties {
 
     private String checkpointAccessKey;
 
+    /**
+     * Local directory to store checkpoints in, instead of checkpoint storage account. Only for development and
+     * benchmark, since consumers of other processes are not balanced against.
+     */
+    private String checkpointStoreDirectory;
+
+    /**
+     * Count of AMQP connections per event hub. Partition senders are spread across them.
+     */
+    private int connectionsPerEventHub = 1;
+
+    /**
+     * Thread count of scheduler shared by all event hub clients. Default to count of available processors.
+     */
+    private Integer schedulerPoolSize;
+
+    /**
+     * Whether to resolve partition of partition key on client side and send to the partition directly.
+     */
+    private boolean clientPartitionRouting = false;
+
     public String getNamespace() {
         return namespace;
     }
@@ -62,6 +83,38 @@ public class AzureEventHubProperties {
         this.checkpointAccessKey = checkpointAccessKey;
     }
 
+    public String getCheckpointStoreDirectory() {
+        return checkpointStoreDirectory;
+    }
+
+    public void setCheckpointStoreDirectory(String checkpointStoreDirectory) {
+        this.checkpointStoreDirectory = checkpointStoreDirectory;
+    }
+
+    public int getConnectionsPerEventHub() {
+        return connectionsPerEventHub;
+    }
+
+    public void setConnectionsPerEventHub(int connectionsPerEventHub) {
+        this.connectionsPerEventHub = connectionsPerEventHub;
+    }
+
+    public Integer getSchedulerPoolSize() {
+        return schedulerPoolSize;
+    }
+
+    public void setSchedulerPoolSize(Integer schedulerPoolSize) {
+        this.schedulerPoolSize = schedulerPoolSize;
+    }
+
+    public boolean isClientPartitionRouting() {
+        return clientPartitionRouting;
+    }
+
+    public void setClientPartitionRouting(boolean clientPartitionRouting) {
+        this.clientPartitionRouting = clientPartitionRouting;
+    }
+
     @PostConstruct
     public void validate() {
         if (!StringUtils.hasText(namespace) && !StringUtils.hasText(connectionString)) {
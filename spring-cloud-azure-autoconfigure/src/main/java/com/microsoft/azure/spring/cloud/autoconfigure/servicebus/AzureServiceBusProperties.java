@@ -23,6 +23,12 @@ public class AzureServiceBusProperties {
 
     private String connectionString;
 
+    /**
+     * Max count of threads shared by message handlers of all subscriptions. Non-positive value means total
+     * concurrency of subscriptions.
+     */
+    private int handlerPoolSize = 0;
+
     public String getNamespace() {
         return namespace;
     }
@@ -39,6 +45,14 @@ public class AzureServiceBusProperties {
         this.connectionString = connectionString;
     }
 
+    public int getHandlerPoolSize() {
+        return handlerPoolSize;
+    }
+
+    public void setHandlerPoolSize(int handlerPoolSize) {
+        this.handlerPoolSize = handlerPoolSize;
+    }
+
     @PostConstruct
     public void validate() {
         if (!StringUtils.hasText(namespace) && !StringUtils.hasText(connectionString)) {
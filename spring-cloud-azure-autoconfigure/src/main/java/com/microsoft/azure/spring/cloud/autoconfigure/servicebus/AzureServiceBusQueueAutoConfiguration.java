@@ -65,7 +65,10 @@ public class AzureServiceBusQueueAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public ServiceBusQueueOperation queueOperation(ServiceBusQueueClientFactory factory) {
-        return new ServiceBusQueueTemplate(factory);
+    public ServiceBusQueueOperation queueOperation(ServiceBusQueueClientFactory factory,
+            AzureServiceBusProperties serviceBusProperties) {
+        ServiceBusQueueTemplate template = new ServiceBusQueueTemplate(factory);
+        template.setHandlerPoolSize(serviceBusProperties.getHandlerPoolSize());
+        return template;
     }
 }
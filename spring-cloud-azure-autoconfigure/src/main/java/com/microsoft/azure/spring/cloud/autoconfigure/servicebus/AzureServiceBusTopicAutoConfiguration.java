@@ -65,7 +65,10 @@ public class AzureServiceBusTopicAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public ServiceBusTopicOperation topicOperation(ServiceBusTopicClientFactory factory) {
-        return new ServiceBusTopicTemplate(factory);
+    public ServiceBusTopicOperation topicOperation(ServiceBusTopicClientFactory factory,
+            AzureServiceBusProperties serviceBusProperties) {
+        ServiceBusTopicTemplate template = new ServiceBusTopicTemplate(factory);
+        template.setHandlerPoolSize(serviceBusProperties.getHandlerPoolSize());
+        return template;
     }
 }
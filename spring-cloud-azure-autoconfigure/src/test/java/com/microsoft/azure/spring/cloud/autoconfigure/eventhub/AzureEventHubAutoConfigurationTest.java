@@ -7,9 +7,11 @@
 package com.microsoft.azure.spring.cloud.autoconfigure.eventhub;
 
 import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.spring.integration.eventhub.api.CheckpointStoreProvider;
 import com.microsoft.azure.spring.integration.eventhub.api.EventHubClientFactory;
 import com.microsoft.azure.spring.integration.eventhub.api.EventHubOperation;
 import com.microsoft.azure.spring.integration.eventhub.factory.EventHubConnectionStringProvider;
+import com.microsoft.azure.spring.integration.eventhub.store.FileCheckpointStoreProvider;
 import org.junit.Test;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.test.context.FilteredClassLoader;
@@ -63,6 +65,17 @@ public class AzureEventHubAutoConfigurationTest {
         });
     }
 
+    @Test
+    public void testCheckpointStoreDirectoryConfigured() {
+        this.contextRunner.withPropertyValues("spring.cloud.azure.eventhub.namespace=ns1")
+                          .withPropertyValues("spring.cloud.azure.eventhub.checkpoint-store-directory=target/cp")
+                          .run(context -> {
+                              assertThat(context).hasSingleBean(CheckpointStoreProvider.class);
+                              assertThat(context.getBean(CheckpointStoreProvider.class))
+                                      .isInstanceOf(FileCheckpointStoreProvider.class);
+                          });
+    }
+
     @Configuration
     static class TestConfiguration {
 
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.example;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.spring.integration.core.converter.CompressionType;
+import com.microsoft.azure.spring.integration.eventhub.converter.EventHubMessageConverter;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compare CPU cost of each compression against bytes it saves, by converting JSON events with
+ * {@link EventHubMessageConverter} in process. No event hub is needed. Usage: {@code [eventCount] [eventSize]}
+ *
+ * @author Warren Zhu
+ */
+public class CompressionBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+
+    public static void main(String[] args) {
+        int eventCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int eventSize = args.length > 1 ? Integer.parseInt(args[1]) : 2048;
+        List<Message<String>> messages = buildMessages(eventCount, eventSize);
+
+        System.out.printf("%-8s %12s %12s %8s %16s %16s%n", "codec", "raw bytes", "sent bytes", "ratio",
+                "compress us/op", "decompress us/op");
+        for (CompressionType type : CompressionType.values()) {
+            EventHubMessageConverter converter = new EventHubMessageConverter();
+            converter.setCompressionCodec(type.createCodec());
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                run(converter, messages);
+            }
+
+            Result result = run(converter, messages);
+            long rawBytes = (long) eventCount * eventSize;
+            System.out.printf("%-8s %12d %12d %8.2f %16.2f %16.2f%n", type, rawBytes, result.sentBytes,
+                    (double) rawBytes / result.sentBytes, result.compressNanos / 1000.0 / eventCount,
+                    result.decompressNanos / 1000.0 / eventCount);
+        }
+    }
+
+    private static Result run(EventHubMessageConverter converter, List<Message<String>> messages) {
+        Result result = new Result();
+        List<EventData> events = new ArrayList<>(messages.size());
+
+        long start = System.nanoTime();
+        for (Message<String> message : messages) {
+            events.add(converter.fromMessage(message, EventData.class));
+        }
+        result.compressNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (EventData event : events) {
+            converter.toMessage(event, String.class).getPayload();
+        }
+        result.decompressNanos = System.nanoTime() - start;
+
+        events.forEach(e -> result.sentBytes += e.getBytes().length);
+        return result;
+    }
+
+    /**
+     * JSON events with repeated field names and a small set of values, like typical telemetry
+     */
+    private static List<Message<String>> buildMessages(int eventCount, int eventSize) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Message<String>> messages = new ArrayList<>(eventCount);
+
+        for (int i = 0; i < eventCount; i++) {
+            StringBuilder json = new StringBuilder("{\"id\":").append(i).append(",\"readings\":[");
+            while (json.length() < eventSize - 64) {
+                json.append("{\"sensor\":\"sensor-").append(random.nextInt(16)).append("\",\"value\":")
+                    .append(random.nextInt(1000)).append(",\"unit\":\"celsius\"},");
+            }
+            json.setLength(json.length() - 1);
+            json.append("]}");
+            while (json.length() < eventSize) {
+                json.append(' ');
+            }
+            messages.add(MessageBuilder.withPayload(json.toString()).build());
+        }
+
+        return messages;
+    }
+
+    private static class Result {
+        private long sentBytes;
+        private long compressNanos;
+        private long decompressNanos;
+    }
+}
@@ -9,23 +9,41 @@ package com.microsoft.azure.eventhub.stream.binder;
 import com.microsoft.azure.eventhub.stream.binder.properties.EventHubConsumerProperties;
 import com.microsoft.azure.eventhub.stream.binder.properties.EventHubExtendedBindingProperties;
 import com.microsoft.azure.eventhub.stream.binder.properties.EventHubProducerProperties;
+import com.microsoft.azure.eventhub.stream.binder.properties.EventHubTransport;
 import com.microsoft.azure.eventhub.stream.binder.provisioning.EventHubChannelProvisioner;
+import com.microsoft.azure.eventhubs.EventPosition;
 import com.microsoft.azure.spring.integration.core.DefaultMessageHandler;
+import com.microsoft.azure.spring.integration.core.api.BatchConfig;
 import com.microsoft.azure.spring.integration.core.api.CheckpointConfig;
+import com.microsoft.azure.spring.integration.core.api.ReceiveConfig;
+import com.microsoft.azure.spring.integration.core.api.SendOperation;
 import com.microsoft.azure.spring.integration.core.api.StartPosition;
+import com.microsoft.azure.spring.integration.core.converter.CompressionType;
 import com.microsoft.azure.spring.integration.eventhub.api.EventHubOperation;
+import com.microsoft.azure.spring.integration.eventhub.converter.EventHubMessageConverter;
 import com.microsoft.azure.spring.integration.eventhub.inbound.EventHubInboundChannelAdapter;
+import com.microsoft.azure.spring.integration.eventhub.kafka.EventHubKafkaTemplate;
+import com.microsoft.azure.spring.integration.eventhub.metrics.PartitionMetrics;
+import com.microsoft.azure.spring.integration.eventhub.util.ExpressionEventSelector;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.springframework.cloud.stream.binder.*;
 import org.springframework.cloud.stream.provisioning.ConsumerDestination;
 import org.springframework.cloud.stream.provisioning.ProducerDestination;
 import org.springframework.integration.core.MessageProducer;
-import org.springframework.integration.expression.FunctionExpression;
-import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHandler;
+import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * @author Warren Zhu
@@ -37,6 +55,10 @@ public class EventHubMessageChannelBinder extends
 
     private final EventHubOperation eventHubOperation;
 
+    private final List<EventHubOperation> consumerOperations = new CopyOnWriteArrayList<>();
+
+    private EventHubKafkaTemplate kafkaOperation;
+
     private EventHubExtendedBindingProperties bindingProperties = new EventHubExtendedBindingProperties();
 
     public EventHubMessageChannelBinder(String[] headersToEmbed, EventHubChannelProvisioner provisioningProvider,
@@ -48,7 +70,32 @@ public class EventHubMessageChannelBinder extends
     @Override
     protected MessageHandler createProducerMessageHandler(ProducerDestination destination,
             ExtendedProducerProperties<EventHubProducerProperties> producerProperties, MessageChannel errorChannel) {
-        DefaultMessageHandler handler = new DefaultMessageHandler(destination.getName(), this.eventHubOperation);
+        EventHubProducerProperties extension = producerProperties.getExtension();
+        SendOperation sendOperation;
+        if (extension.getTransport() == EventHubTransport.KAFKA) {
+            // Kafka producer batches by itself
+            EventHubKafkaTemplate operation = getKafkaOperation().newOperation();
+            if (extension.getCompression() != CompressionType.NONE) {
+                operation.setMessageConverter(buildMessageConverter(operation.getMessageConverter(), extension));
+            }
+            sendOperation = operation;
+        } else {
+            EventHubOperation operation = this.eventHubOperation.newOperation();
+            if (extension.getBatchSize() > 0) {
+                operation.setBatchConfig(BatchConfig.builder().batchSize(extension.getBatchSize())
+                                                    .lingerTime(Duration.ofMillis(extension.getLingerMs()))
+                                                    .maxInFlightBatches(extension.getMaxInFlightBatches()).build());
+            }
+            if (!producerProperties.isPartitioned()) {
+                operation.setPartitionKeyStrategy(extension.getPartitionKeyStrategy());
+            }
+            if (extension.getCompression() != CompressionType.NONE) {
+                operation.setMessageConverter(buildMessageConverter(operation.getMessageConverter(), extension));
+            }
+            sendOperation = operation;
+        }
+
+        DefaultMessageHandler handler = new DefaultMessageHandler(destination.getName(), sendOperation);
         handler.setBeanFactory(getBeanFactory());
         handler.setSync(producerProperties.getExtension().isSync());
         handler.setSendTimeout(producerProperties.getExtension().getSendTimeout());
@@ -57,7 +104,7 @@ public class EventHubMessageChannelBinder extends
             handler.setPartitionKeyExpressionString(
                     "'partitionKey-' + headers['" + BinderHeaders.PARTITION_HEADER + "']");
         } else {
-            handler.setPartitionKeyExpression(new FunctionExpression<Message<?>>(m -> m.getPayload().hashCode()));
+            handler.setPartitionKeyStrategy(extension.getPartitionKeyStrategy());
         }
 
         return handler;
@@ -66,25 +113,118 @@ public class EventHubMessageChannelBinder extends
     @Override
     protected MessageProducer createConsumerEndpoint(ConsumerDestination destination, String group,
             ExtendedConsumerProperties<EventHubConsumerProperties> properties) {
-        this.eventHubOperation.setStartPosition(properties.getExtension().getStartPosition());
-        CheckpointConfig checkpointConfig =
-                CheckpointConfig.builder().checkpointMode(properties.getExtension().getCheckpointMode())
-                                .checkpointCount(properties.getExtension().getCheckpointCount()).build();
-        this.eventHubOperation.setCheckpointConfig(checkpointConfig);
+        if (properties.getExtension().getTransport() == EventHubTransport.KAFKA) {
+            return createKafkaConsumerEndpoint(destination, group, properties);
+        }
+
+        // Each binding has its own operation sharing client connections, so bindings don't override settings
+        // of each other
+        EventHubOperation operation = this.eventHubOperation.newOperation();
+        this.consumerOperations.add(operation);
+        operation.setStartPosition(properties.getExtension().getStartPosition());
+        operation.setInitialPositionProvider(buildInitialPositionProvider(properties.getExtension()));
+        operation.setCheckpointConfig(buildCheckpointConfig(properties.getExtension()));
+        operation.setListenerMode(properties.getExtension().getListenerMode());
+        operation.setReceiveConfig(
+                ReceiveConfig.builder().prefetchCount(properties.getExtension().getPrefetchCount())
+                             .maxBatchSize(properties.getExtension().getMaxBatchSize())
+                             .receiveTimeout(properties.getExtension().getReceiveTimeout())
+                             .invokeOnTimeout(properties.getExtension().isInvokeOnTimeout())
+                             .targetBatchLatency(properties.getExtension().getTargetBatchLatency())
+                             .lagMetricsEnabled(properties.getExtension().isLagMetricsEnabled()).build());
+        operation.setDrainTimeout(properties.getExtension().getDrainTimeout());
+        if (StringUtils.hasText(properties.getExtension().getSelectorExpression())) {
+            operation.setEventSelector(new ExpressionEventSelector(properties.getExtension().getSelectorExpression()));
+        }
 
         boolean anonymous = !StringUtils.hasText(group);
         if (anonymous) {
             group = "anonymous." + UUID.randomUUID().toString();
-            this.eventHubOperation.setStartPosition(StartPosition.LATEST);
+            operation.setStartPosition(StartPosition.LATEST);
         }
         EventHubInboundChannelAdapter inboundAdapter =
-                new EventHubInboundChannelAdapter(destination.getName(), this.eventHubOperation, group);
+                new EventHubInboundChannelAdapter(destination.getName(), operation, group);
         inboundAdapter.setBeanFactory(getBeanFactory());
         ErrorInfrastructure errorInfrastructure = registerErrorInfrastructure(destination, group, properties);
         inboundAdapter.setErrorChannel(errorInfrastructure.getErrorChannel());
         return inboundAdapter;
     }
 
+    private MessageProducer createKafkaConsumerEndpoint(ConsumerDestination destination, String group,
+            ExtendedConsumerProperties<EventHubConsumerProperties> properties) {
+        EventHubKafkaTemplate operation = getKafkaOperation().newOperation();
+        operation.setCheckpointConfig(buildCheckpointConfig(properties.getExtension()));
+        operation.setListenerMode(properties.getExtension().getListenerMode());
+        if (StringUtils.hasText(properties.getExtension().getSelectorExpression())) {
+            operation.setEventSelector(new ExpressionEventSelector(properties.getExtension().getSelectorExpression()));
+        }
+
+        // Group without committed offsets starts from the start position, like partitions without checkpoint
+        boolean anonymous = !StringUtils.hasText(group);
+        StartPosition startPosition = anonymous ? StartPosition.LATEST : properties.getExtension().getStartPosition();
+        Map<String, Object> consumerProperties = new HashMap<>(operation.getConsumerProperties());
+        consumerProperties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG,
+                startPosition == StartPosition.EARLIEST ? "earliest" : "latest");
+        operation.setConsumerProperties(consumerProperties);
+
+        if (anonymous) {
+            group = "anonymous." + UUID.randomUUID().toString();
+        }
+        EventHubInboundChannelAdapter inboundAdapter =
+                new EventHubInboundChannelAdapter(destination.getName(), operation, group);
+        inboundAdapter.setBeanFactory(getBeanFactory());
+        ErrorInfrastructure errorInfrastructure = registerErrorInfrastructure(destination, group, properties);
+        inboundAdapter.setErrorChannel(errorInfrastructure.getErrorChannel());
+        return inboundAdapter;
+    }
+
+    /**
+     * Converter compressing events of the producer. The given converter is shared by other bindings, so its payload
+     * codecs are copied instead of changing it.
+     */
+    private static EventHubMessageConverter buildMessageConverter(EventHubMessageConverter sharedConverter,
+            EventHubProducerProperties properties) {
+        EventHubMessageConverter converter = new EventHubMessageConverter();
+        converter.setPayloadCodecs(sharedConverter.getPayloadCodecs());
+        converter.setCompressionCodec(properties.getCompression().createCodec());
+        converter.setCompressionThreshold(properties.getCompressionThreshold());
+        return converter;
+    }
+
+    private static CheckpointConfig buildCheckpointConfig(EventHubConsumerProperties properties) {
+        return CheckpointConfig.builder().checkpointMode(properties.getCheckpointMode())
+                               .checkpointCount(properties.getCheckpointCount())
+                               .checkpointInterval(properties.getCheckpointInterval()).build();
+    }
+
+    private EventHubKafkaTemplate getKafkaOperation() {
+        Assert.state(this.kafkaOperation != null,
+                "Kafka transport of event hub binder requires org.apache.kafka:kafka-clients on the classpath");
+        return this.kafkaOperation;
+    }
+
+    private static Function<String, EventPosition> buildInitialPositionProvider(
+            EventHubConsumerProperties properties) {
+        Map<String, String> offsets = properties.getStartOffsets();
+        Map<String, Long> sequenceNumbers = properties.getStartSequenceNumbers();
+        EventPosition enqueuedTimePosition = StringUtils.hasText(properties.getStartEnqueuedTime()) ?
+                EventPosition.fromEnqueuedTime(Instant.parse(properties.getStartEnqueuedTime())) : null;
+
+        if (offsets.isEmpty() && sequenceNumbers.isEmpty() && enqueuedTimePosition == null) {
+            return null;
+        }
+
+        return partitionId -> {
+            if (offsets.containsKey(partitionId)) {
+                return EventPosition.fromOffset(offsets.get(partitionId));
+            } else if (sequenceNumbers.containsKey(partitionId)) {
+                return EventPosition.fromSequenceNumber(sequenceNumbers.get(partitionId));
+            }
+
+            return enqueuedTimePosition;
+        };
+    }
+
     @Override
     public EventHubConsumerProperties getExtendedConsumerProperties(String destination) {
         return this.bindingProperties.getExtendedConsumerProperties(destination);
@@ -105,6 +245,22 @@ public class EventHubMessageChannelBinder extends
         return this.bindingProperties.getExtendedPropertiesEntryClass();
     }
 
+    /**
+     * Metrics of partitions currently owned by all consumer bindings, e.g. to report lag in a health indicator
+     */
+    public List<PartitionMetrics> getPartitionMetrics() {
+        return this.consumerOperations.stream().flatMap(o -> o.getPartitionMetrics().stream())
+                                      .collect(Collectors.toList());
+    }
+
+    /**
+     * Operation used by bindings with {@link EventHubTransport#KAFKA}. Each binding gets its own operation sharing
+     * producers of the given one.
+     */
+    public void setKafkaOperation(EventHubKafkaTemplate kafkaOperation) {
+        this.kafkaOperation = kafkaOperation;
+    }
+
     public void setBindingProperties(EventHubExtendedBindingProperties bindingProperties) {
         this.bindingProperties = bindingProperties;
     }
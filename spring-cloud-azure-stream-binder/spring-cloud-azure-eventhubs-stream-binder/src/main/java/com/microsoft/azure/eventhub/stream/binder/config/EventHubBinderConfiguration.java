@@ -17,7 +17,11 @@ import com.microsoft.azure.spring.cloud.autoconfigure.eventhub.EventHubUtils;
 import com.microsoft.azure.spring.cloud.autoconfigure.telemetry.TelemetryCollector;
 import com.microsoft.azure.spring.cloud.context.core.api.ResourceManagerProvider;
 import com.microsoft.azure.spring.integration.eventhub.api.EventHubOperation;
+import com.microsoft.azure.spring.integration.eventhub.factory.EventHubConnectionStringProvider;
+import com.microsoft.azure.spring.integration.eventhub.kafka.EventHubKafkaTemplate;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.stream.binder.Binder;
@@ -64,10 +68,27 @@ public class EventHubBinderConfiguration {
     @Bean
     @ConditionalOnMissingBean
     public EventHubMessageChannelBinder eventHubBinder(EventHubChannelProvisioner eventHubChannelProvisioner,
-            EventHubOperation eventHubOperation, EventHubExtendedBindingProperties bindingProperties) {
+            EventHubOperation eventHubOperation, EventHubExtendedBindingProperties bindingProperties,
+            ObjectProvider<EventHubKafkaTemplate> kafkaOperation) {
         EventHubMessageChannelBinder binder =
                 new EventHubMessageChannelBinder(null, eventHubChannelProvisioner, eventHubOperation);
         binder.setBindingProperties(bindingProperties);
+        binder.setKafkaOperation(kafkaOperation.getIfAvailable());
         return binder;
     }
+
+    /**
+     * Kafka transport of bindings, available once kafka-clients is on the classpath
+     */
+    @Configuration
+    @ConditionalOnClass(name = "org.apache.kafka.clients.producer.KafkaProducer")
+    static class KafkaTransportConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public EventHubKafkaTemplate eventHubKafkaTemplate(
+                EventHubConnectionStringProvider connectionStringProvider) {
+            return new EventHubKafkaTemplate(connectionStringProvider);
+        }
+    }
 }
@@ -7,9 +7,12 @@
 package com.microsoft.azure.eventhub.stream.binder.properties;
 
 import com.microsoft.azure.spring.integration.core.api.CheckpointMode;
+import com.microsoft.azure.spring.integration.core.api.ListenerMode;
 import com.microsoft.azure.spring.integration.core.api.StartPosition;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * @author Warren Zhu
@@ -48,6 +51,97 @@ public class EventHubConsumerProperties {
      */
     private Duration checkpointInterval = Duration.ofSeconds(5);
 
+    /**
+     * Whether each message holds a single event or all events received from one partition at once.
+     * If {@link ListenerMode#BATCH}, the payload is a list and checkpoint happens once per batch.
+     *
+     * <p>
+     * Default: {@link ListenerMode#RECORD}
+     */
+    private ListenerMode listenerMode = ListenerMode.RECORD;
+
+    /**
+     * Count of events prefetched by receiver of each partition. Non-positive value means sdk default.
+     *
+     * <p>
+     * Default: 0
+     */
+    private int prefetchCount = 0;
+
+    /**
+     * Max count of events received from one partition at once. Non-positive value means sdk default.
+     *
+     * <p>
+     * Default: 0
+     */
+    private int maxBatchSize = 0;
+
+    /**
+     * The time to wait for events in one receive call. {@code null} means sdk default.
+     */
+    private Duration receiveTimeout;
+
+    /**
+     * Whether to invoke the consumer with no event once receive timeout elapses.
+     *
+     * <p>
+     * Default: false
+     */
+    private boolean invokeOnTimeout = false;
+
+    /**
+     * If set, max batch size is adjusted at runtime to keep handling time of one batch under this latency.
+     */
+    private Duration targetBatchLatency;
+
+    /**
+     * Whether each receive also retrieves the last enqueued event of the partition, so partition metrics report
+     * sequence number gap.
+     *
+     * <p>
+     * Default: false
+     */
+    private boolean lagMetricsEnabled = false;
+
+    /**
+     * If set, partitions without checkpoint start from events enqueued after this time, in ISO-8601 format such as
+     * {@code 2019-01-15T10:00:00Z}. Overrides {@link #startPosition}.
+     */
+    private String startEnqueuedTime;
+
+    /**
+     * Start offset of each partition id without checkpoint. Overrides {@link #startSequenceNumbers} and
+     * {@link #startEnqueuedTime}.
+     */
+    private Map<String, String> startOffsets = new HashMap<>();
+
+    /**
+     * Start sequence number of each partition id without checkpoint. Overrides {@link #startEnqueuedTime}.
+     */
+    private Map<String, Long> startSequenceNumbers = new HashMap<>();
+
+    /**
+     * Max time for a closing partition to handle received events before its final checkpoint, when the binding
+     * stops or the partition moves to another instance.
+     *
+     * <p>
+     * Default: 30s
+     */
+    private Duration drainTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Protocol used for consuming. {@code KAFKA} uses Kafka clients against the Kafka endpoint of the namespace.
+     * <p>
+     * Default: AMQP
+     */
+    private EventHubTransport transport = EventHubTransport.AMQP;
+
+    /**
+     * SpEL expression on event properties, e.g. {@code ['type'] == 'order'}. Events it doesn't select are skipped
+     * without being converted, and checkpointed like handled ones.
+     */
+    private String selectorExpression;
+
     public StartPosition getStartPosition() {
         return startPosition;
     }
@@ -79,4 +173,108 @@ public class EventHubConsumerProperties {
     public void setCheckpointInterval(Duration checkpointInterval) {
         this.checkpointInterval = checkpointInterval;
     }
+
+    public ListenerMode getListenerMode() {
+        return listenerMode;
+    }
+
+    public void setListenerMode(ListenerMode listenerMode) {
+        this.listenerMode = listenerMode;
+    }
+
+    public int getPrefetchCount() {
+        return prefetchCount;
+    }
+
+    public void setPrefetchCount(int prefetchCount) {
+        this.prefetchCount = prefetchCount;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public Duration getReceiveTimeout() {
+        return receiveTimeout;
+    }
+
+    public void setReceiveTimeout(Duration receiveTimeout) {
+        this.receiveTimeout = receiveTimeout;
+    }
+
+    public boolean isInvokeOnTimeout() {
+        return invokeOnTimeout;
+    }
+
+    public void setInvokeOnTimeout(boolean invokeOnTimeout) {
+        this.invokeOnTimeout = invokeOnTimeout;
+    }
+
+    public Duration getTargetBatchLatency() {
+        return targetBatchLatency;
+    }
+
+    public void setTargetBatchLatency(Duration targetBatchLatency) {
+        this.targetBatchLatency = targetBatchLatency;
+    }
+
+    public boolean isLagMetricsEnabled() {
+        return lagMetricsEnabled;
+    }
+
+    public void setLagMetricsEnabled(boolean lagMetricsEnabled) {
+        this.lagMetricsEnabled = lagMetricsEnabled;
+    }
+
+    public String getStartEnqueuedTime() {
+        return startEnqueuedTime;
+    }
+
+    public void setStartEnqueuedTime(String startEnqueuedTime) {
+        this.startEnqueuedTime = startEnqueuedTime;
+    }
+
+    public Map<String, String> getStartOffsets() {
+        return startOffsets;
+    }
+
+    public void setStartOffsets(Map<String, String> startOffsets) {
+        this.startOffsets = startOffsets;
+    }
+
+    public Map<String, Long> getStartSequenceNumbers() {
+        return startSequenceNumbers;
+    }
+
+    public void setStartSequenceNumbers(Map<String, Long> startSequenceNumbers) {
+        this.startSequenceNumbers = startSequenceNumbers;
+    }
+
+    public Duration getDrainTimeout() {
+        return drainTimeout;
+    }
+
+    public void setDrainTimeout(Duration drainTimeout) {
+        this.drainTimeout = drainTimeout;
+    }
+
+    public EventHubTransport getTransport() {
+        return transport;
+    }
+
+    public void setTransport(EventHubTransport transport) {
+        this.transport = transport;
+    }
+
+    public String getSelectorExpression() {
+        return selectorExpression;
+    }
+
+    public void setSelectorExpression(String selectorExpression) {
+        this.selectorExpression = selectorExpression;
+    }
 }
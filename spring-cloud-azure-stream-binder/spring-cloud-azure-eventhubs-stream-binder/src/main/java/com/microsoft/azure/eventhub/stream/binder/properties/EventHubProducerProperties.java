@@ -6,6 +6,9 @@
 
 package com.microsoft.azure.eventhub.stream.binder.properties;
 
+import com.microsoft.azure.spring.integration.core.api.PartitionKeyStrategy;
+import com.microsoft.azure.spring.integration.core.converter.CompressionType;
+
 /**
  * @author Warren Zhu
  */
@@ -27,6 +30,63 @@ public class EventHubProducerProperties {
      */
     private long sendTimeout = 10000;
 
+    /**
+     * Max size of one batch in bytes. If positive, messages sent to the same partition are collected into batches,
+     * and each batch is sent as one unit once it's full or linger time elapses.
+     * <p>
+     * Default: 0, which disables batching
+     */
+    private int batchSize;
+
+    /**
+     * Effective only if batchSize is positive.
+     * The amount of time to wait for more messages before sending a batch which is not full, in milliseconds.
+     * <p>
+     * Default: 0, which sends messages of one send call right away
+     */
+    private long lingerMs;
+
+    /**
+     * Effective only if batchSize is positive.
+     * Max count of batches being sent at the same time. Sending more blocks until one completes.
+     * <p>
+     * Default: 0, which means no limit
+     */
+    private int maxInFlightBatches;
+
+    /**
+     * Effective only if producer is not partitioned.
+     * How to route messages without partition key header. {@code ROUND_ROBIN} and {@code STICKY} send to
+     * partitions directly, so batches of each partition get full.
+     * <p>
+     * Default: STICKY if batchSize is positive, since hash of payload would give each message its own batch,
+     * otherwise HASH, which uses hash of payload as partition key
+     */
+    private PartitionKeyStrategy partitionKeyStrategy;
+
+    /**
+     * Protocol used for sending. {@code KAFKA} uses Kafka clients against the Kafka endpoint of the namespace.
+     * <p>
+     * Default: AMQP
+     */
+    private EventHubTransport transport = EventHubTransport.AMQP;
+
+    /**
+     * Compression of message body. Consumers decompress bodies according to their content encoding, whatever their
+     * own compression is.
+     * <p>
+     * Default: NONE
+     */
+    private CompressionType compression = CompressionType.NONE;
+
+    /**
+     * Effective only if compression is not NONE.
+     * Min size of message body in bytes to compress. Smaller bodies are sent as is.
+     * <p>
+     * Default: 1024
+     */
+    private int compressionThreshold = 1024;
+
     public boolean isSync() {
         return sync;
     }
@@ -42,4 +102,64 @@ public class EventHubProducerProperties {
     public void setSendTimeout(long sendTimeout) {
         this.sendTimeout = sendTimeout;
     }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getLingerMs() {
+        return lingerMs;
+    }
+
+    public void setLingerMs(long lingerMs) {
+        this.lingerMs = lingerMs;
+    }
+
+    public int getMaxInFlightBatches() {
+        return maxInFlightBatches;
+    }
+
+    public void setMaxInFlightBatches(int maxInFlightBatches) {
+        this.maxInFlightBatches = maxInFlightBatches;
+    }
+
+    public PartitionKeyStrategy getPartitionKeyStrategy() {
+        if (partitionKeyStrategy != null) {
+            return partitionKeyStrategy;
+        }
+
+        return batchSize > 0 ? PartitionKeyStrategy.STICKY : PartitionKeyStrategy.HASH;
+    }
+
+    public void setPartitionKeyStrategy(PartitionKeyStrategy partitionKeyStrategy) {
+        this.partitionKeyStrategy = partitionKeyStrategy;
+    }
+
+    public EventHubTransport getTransport() {
+        return transport;
+    }
+
+    public void setTransport(EventHubTransport transport) {
+        this.transport = transport;
+    }
+
+    public CompressionType getCompression() {
+        return compression;
+    }
+
+    public void setCompression(CompressionType compression) {
+        this.compression = compression;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
 }
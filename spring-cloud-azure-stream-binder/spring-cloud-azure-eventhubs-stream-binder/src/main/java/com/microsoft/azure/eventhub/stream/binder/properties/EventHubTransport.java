@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.eventhub.stream.binder.properties;
+
+/**
+ * Protocol a binding uses to send to or consume from event hub
+ *
+ * @author Warren Zhu
+ */
+public enum EventHubTransport {
+    /**
+     * Event hub client over AMQP, with event processor host for consumers
+     */
+    AMQP,
+
+    /**
+     * Kafka clients over the Kafka endpoint of event hub namespace. Requires kafka-clients on the classpath.
+     */
+    KAFKA
+}
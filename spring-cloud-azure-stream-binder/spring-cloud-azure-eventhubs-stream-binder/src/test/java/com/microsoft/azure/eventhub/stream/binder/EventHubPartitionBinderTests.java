@@ -8,6 +8,7 @@ package com.microsoft.azure.eventhub.stream.binder;
 
 import com.microsoft.azure.eventhub.stream.binder.properties.EventHubConsumerProperties;
 import com.microsoft.azure.eventhub.stream.binder.properties.EventHubProducerProperties;
+import com.microsoft.azure.eventhubs.EventData;
 import com.microsoft.azure.eventprocessorhost.PartitionContext;
 import com.microsoft.azure.servicebus.stream.binder.test.AzurePartitionBinderTests;
 import com.microsoft.azure.spring.integration.core.api.StartPosition;
@@ -23,6 +24,7 @@ import org.springframework.cloud.stream.binder.HeaderMode;
 
 import java.util.concurrent.CompletableFuture;
 
+import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.when;
 
 /**
@@ -48,7 +50,7 @@ public class EventHubPartitionBinderTests extends
         CompletableFuture<Void> future = new CompletableFuture<>();
         future.complete(null);
         when(this.context.getPartitionId()).thenReturn("1");
-        when(this.context.checkpoint()).thenReturn(future);
+        when(this.context.checkpoint(isA(EventData.class))).thenReturn(future);
         this.binder = new EventHubTestBinder(new EventHubTestOperation(clientFactory, () -> context));
     }
 
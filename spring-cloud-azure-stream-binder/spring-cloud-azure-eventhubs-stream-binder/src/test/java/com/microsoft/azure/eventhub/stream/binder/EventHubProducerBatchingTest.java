@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.eventhub.stream.binder;
+
+import com.microsoft.azure.eventhub.stream.binder.properties.EventHubProducerProperties;
+import com.microsoft.azure.eventhub.stream.binder.provisioning.EventHubChannelProvisioner;
+import com.microsoft.azure.eventhub.stream.binder.provisioning.EventHubProducerDestination;
+import com.microsoft.azure.eventhubs.BatchOptions;
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventDataBatch;
+import com.microsoft.azure.eventhubs.PartitionSender;
+import com.microsoft.azure.spring.integration.core.api.PartitionKeyStrategy;
+import com.microsoft.azure.spring.integration.eventhub.api.EventHubClientFactory;
+import com.microsoft.azure.spring.integration.eventhub.impl.EventHubTemplate;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.cloud.stream.binder.BinderHeaders;
+import org.springframework.cloud.stream.binder.ExtendedProducerProperties;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.integration.handler.AbstractMessageHandler;
+import org.springframework.messaging.support.GenericMessage;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EventHubProducerBatchingTest {
+    private static final String EVENT_HUB = "eventhub";
+
+    @Mock
+    private EventHubClientFactory clientFactory;
+
+    @Mock
+    private PartitionSender sender;
+
+    private EventHubMessageChannelBinder binder;
+
+    @Before
+    public void setUp() {
+        this.binder = new EventHubMessageChannelBinder(BinderHeaders.STANDARD_HEADERS, new EventHubChannelProvisioner(),
+                new EventHubTemplate(this.clientFactory));
+        this.binder.setApplicationContext(new GenericApplicationContext());
+    }
+
+    @Test
+    public void testDefaultStrategyBatchesDistinctPayloads() throws Exception {
+        EventDataBatch batch = mock(EventDataBatch.class);
+        when(this.clientFactory.getPartitionIds(EVENT_HUB)).thenReturn(Arrays.asList("0", "1"));
+        when(this.clientFactory.getOrCreatePartitionSender(eq(EVENT_HUB), anyString())).thenReturn(this.sender);
+        when(this.sender.createBatch(any(BatchOptions.class))).thenReturn(batch);
+        when(batch.tryAdd(any(EventData.class))).thenReturn(true);
+
+        EventHubProducerProperties extension = new EventHubProducerProperties();
+        extension.setBatchSize(1024);
+        extension.setLingerMs(60000);
+        assertEquals(PartitionKeyStrategy.STICKY, extension.getPartitionKeyStrategy());
+
+        AbstractMessageHandler handler = (AbstractMessageHandler) this.binder.createProducerMessageHandler(
+                new EventHubProducerDestination(EVENT_HUB), new ExtendedProducerProperties<>(extension), null);
+        handler.afterPropertiesSet();
+        for (int i = 0; i < 3; i++) {
+            handler.handleMessage(new GenericMessage<>("payload-" + i));
+        }
+
+        // Distinct payloads share one pending batch instead of one batch per payload hash
+        verify(this.sender, times(1)).createBatch(any(BatchOptions.class));
+        verify(batch, times(3)).tryAdd(any(EventData.class));
+    }
+
+    @Test
+    public void testHashStaysDefaultWithoutBatching() {
+        assertEquals(PartitionKeyStrategy.HASH, new EventHubProducerProperties().getPartitionKeyStrategy());
+    }
+}
@@ -10,8 +10,8 @@ import com.microsoft.azure.servicebus.stream.binder.properties.ServiceBusConsume
 import com.microsoft.azure.servicebus.stream.binder.properties.ServiceBusQueueExtendedBindingProperties;
 import com.microsoft.azure.servicebus.stream.binder.provisioning.ServiceBusChannelProvisioner;
 import com.microsoft.azure.spring.integration.core.api.CheckpointConfig;
-import com.microsoft.azure.spring.integration.core.api.SendOperation;
 import com.microsoft.azure.spring.integration.servicebus.ServiceBusClientConfig;
+import com.microsoft.azure.spring.integration.servicebus.ServiceBusSendOperation;
 import com.microsoft.azure.spring.integration.servicebus.inbound.ServiceBusQueueInboundChannelAdapter;
 import com.microsoft.azure.spring.integration.servicebus.queue.ServiceBusQueueOperation;
 import org.springframework.cloud.stream.binder.ExtendedConsumerProperties;
@@ -47,7 +47,7 @@ public class ServiceBusQueueMessageChannelBinder extends
     }
 
     @Override
-    SendOperation getSendOperation() {
+    ServiceBusSendOperation getSendOperation() {
         return this.serviceBusQueueOperation;
     }
 }
@@ -11,16 +11,17 @@ import com.microsoft.azure.servicebus.stream.binder.properties.ServiceBusExtende
 import com.microsoft.azure.servicebus.stream.binder.properties.ServiceBusProducerProperties;
 import com.microsoft.azure.servicebus.stream.binder.provisioning.ServiceBusChannelProvisioner;
 import com.microsoft.azure.spring.integration.core.DefaultMessageHandler;
+import com.microsoft.azure.spring.integration.core.api.BatchConfig;
 import com.microsoft.azure.spring.integration.core.api.CheckpointConfig;
-import com.microsoft.azure.spring.integration.core.api.SendOperation;
 import com.microsoft.azure.spring.integration.servicebus.ServiceBusClientConfig;
+import com.microsoft.azure.spring.integration.servicebus.ServiceBusSendOperation;
 import org.springframework.cloud.stream.binder.*;
 import org.springframework.cloud.stream.provisioning.ProducerDestination;
-import org.springframework.integration.expression.FunctionExpression;
-import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHandler;
 
+import java.time.Duration;
+
 /**
  * @author Warren Zhu
  */
@@ -39,7 +40,16 @@ public abstract class ServiceBusMessageChannelBinder<T extends ServiceBusExtende
     @Override
     protected MessageHandler createProducerMessageHandler(ProducerDestination destination,
             ExtendedProducerProperties<ServiceBusProducerProperties> producerProperties, MessageChannel errorChannel) {
-        DefaultMessageHandler handler = new DefaultMessageHandler(destination.getName(), getSendOperation());
+        ServiceBusProducerProperties extension = producerProperties.getExtension();
+        ServiceBusSendOperation sendOperation = getSendOperation();
+        if (extension.getBatchSize() > 0) {
+            // Send operation is shared by producers of this binder
+            sendOperation.setBatchConfig(BatchConfig.builder().batchSize(extension.getBatchSize())
+                                                    .lingerTime(Duration.ofMillis(extension.getLingerMs()))
+                                                    .maxInFlightBatches(extension.getMaxInFlightBatches()).build());
+        }
+
+        DefaultMessageHandler handler = new DefaultMessageHandler(destination.getName(), sendOperation);
         handler.setBeanFactory(getBeanFactory());
         handler.setSync(producerProperties.getExtension().isSync());
         handler.setSendTimeout(producerProperties.getExtension().getSendTimeout());
@@ -47,7 +57,7 @@ public abstract class ServiceBusMessageChannelBinder<T extends ServiceBusExtende
             handler.setPartitionKeyExpressionString(
                     "'partitionKey-' + headers['" + BinderHeaders.PARTITION_HEADER + "']");
         } else {
-            handler.setPartitionKeyExpression(new FunctionExpression<Message<?>>(m -> m.getPayload().hashCode()));
+            handler.setPartitionKeyStrategy(producerProperties.getExtension().getPartitionKeyStrategy());
         }
 
         return handler;
@@ -86,8 +96,12 @@ public abstract class ServiceBusMessageChannelBinder<T extends ServiceBusExtende
             ExtendedConsumerProperties<ServiceBusConsumerProperties> properties) {
         ServiceBusConsumerProperties consumerProperties = properties.getExtension();
         return ServiceBusClientConfig.builder().setPrefetchCount(consumerProperties.getPrefetchCount())
-                                     .setConcurrency(consumerProperties.getConcurrency()).build();
+                                     .setConcurrency(consumerProperties.getConcurrency())
+                                     .setSettlementBatchSize(consumerProperties.getSettlementBatchSize())
+                                     .setSettlementInterval(consumerProperties.getSettlementInterval())
+                                     .setReceiveBatchSize(consumerProperties.getBatchSize())
+                                     .setReceiveMaxWait(consumerProperties.getMaxWait()).build();
     }
 
-    abstract SendOperation getSendOperation();
+    abstract ServiceBusSendOperation getSendOperation();
 }
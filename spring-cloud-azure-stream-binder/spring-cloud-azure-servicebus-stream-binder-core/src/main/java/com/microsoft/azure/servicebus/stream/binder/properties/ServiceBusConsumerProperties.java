@@ -8,12 +8,18 @@ package com.microsoft.azure.servicebus.stream.binder.properties;
 
 import com.microsoft.azure.spring.integration.core.api.CheckpointMode;
 
+import java.time.Duration;
+
 /**
  * @author Warren Zhu
  */
 public class ServiceBusConsumerProperties {
     private int prefetchCount = 1;
     private int concurrency = 1;
+    private int settlementBatchSize = 1;
+    private Duration settlementInterval = Duration.ofMillis(100);
+    private int batchSize = 0;
+    private Duration maxWait = Duration.ofSeconds(1);
 
     private CheckpointMode checkpointMode = CheckpointMode.RECORD;
 
@@ -53,4 +59,65 @@ public class ServiceBusConsumerProperties {
     public void setConcurrency(int concurrency) {
         this.concurrency = concurrency;
     }
+
+    /**
+     * Max count of settlements issued together in RECORD checkpoint mode. If greater than 1, handled messages are
+     * settled in background once this many are pending, settlement interval elapses, or lock of one of them is about
+     * to expire, and the next message is handled meanwhile.
+     *
+     * <p>
+     * Default : 1, which settles each message before handling the next one
+     */
+    public int getSettlementBatchSize() {
+        return settlementBatchSize;
+    }
+
+    public void setSettlementBatchSize(int settlementBatchSize) {
+        this.settlementBatchSize = settlementBatchSize;
+    }
+
+    /**
+     * Effective only if settlementBatchSize is greater than 1.
+     * Max time to wait for more settlements before issuing pending ones.
+     *
+     * <p>
+     * Default : 100ms
+     */
+    public Duration getSettlementInterval() {
+        return settlementInterval;
+    }
+
+    public void setSettlementInterval(Duration settlementInterval) {
+        this.settlementInterval = settlementInterval;
+    }
+
+    /**
+     * Max count of messages received and handled together. If greater than 0, each of concurrency workers pulls
+     * messages in batch and hands them to message handler as one message with list payload.
+     *
+     * <p>
+     * Default : 0, which pushes messages one by one
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Effective only if batchSize is greater than 0.
+     * Max time to wait for a batch to fill up before handling received messages.
+     *
+     * <p>
+     * Default : 1s
+     */
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    public void setMaxWait(Duration maxWait) {
+        this.maxWait = maxWait;
+    }
 }
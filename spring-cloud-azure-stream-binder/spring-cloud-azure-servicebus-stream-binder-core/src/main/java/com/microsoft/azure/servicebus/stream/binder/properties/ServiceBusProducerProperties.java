@@ -6,6 +6,8 @@
 
 package com.microsoft.azure.servicebus.stream.binder.properties;
 
+import com.microsoft.azure.spring.integration.core.api.PartitionKeyStrategy;
+
 /**
  * @author Warren Zhu
  */
@@ -13,6 +15,41 @@ public class ServiceBusProducerProperties {
     private boolean sync = false;
     private long sendTimeout = 10000;
 
+    /**
+     * Max size of one batch in bytes. If positive, messages sent to the same entity with the same partition key are
+     * collected into batches, and each batch is sent as one unit once it's full or linger time elapses. Size of each
+     * message is estimated. It should not exceed the max message size of the namespace, 256KB for standard tier and
+     * 1MB for premium tier.
+     * <p>
+     * Default: 0, which disables batching
+     */
+    private int batchSize;
+
+    /**
+     * Effective only if batchSize is positive.
+     * The amount of time to wait for more messages before sending a batch which is not full, in milliseconds.
+     * <p>
+     * Default: 0, which sends messages of one send call right away
+     */
+    private long lingerMs;
+
+    /**
+     * Effective only if batchSize is positive.
+     * Max count of batches being sent at the same time. Sending more blocks until one completes.
+     * <p>
+     * Default: 0, which means no limit
+     */
+    private int maxInFlightBatches;
+
+    /**
+     * How to route messages without partition key header when producer is not partitioned. Service Bus distributes
+     * messages without partition key itself, so {@code ROUND_ROBIN} and {@code STICKY} behave as {@code NONE}.
+     * <p>
+     * Default: NONE if batchSize is positive, since hash of payload would give each message its own batch, otherwise
+     * HASH
+     */
+    private PartitionKeyStrategy partitionKeyStrategy;
+
     public boolean isSync() {
         return sync;
     }
@@ -28,4 +65,40 @@ public class ServiceBusProducerProperties {
     public void setSendTimeout(long sendTimeout) {
         this.sendTimeout = sendTimeout;
     }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getLingerMs() {
+        return lingerMs;
+    }
+
+    public void setLingerMs(long lingerMs) {
+        this.lingerMs = lingerMs;
+    }
+
+    public int getMaxInFlightBatches() {
+        return maxInFlightBatches;
+    }
+
+    public void setMaxInFlightBatches(int maxInFlightBatches) {
+        this.maxInFlightBatches = maxInFlightBatches;
+    }
+
+    public PartitionKeyStrategy getPartitionKeyStrategy() {
+        if (partitionKeyStrategy != null) {
+            return partitionKeyStrategy;
+        }
+
+        return batchSize > 0 ? PartitionKeyStrategy.NONE : PartitionKeyStrategy.HASH;
+    }
+
+    public void setPartitionKeyStrategy(PartitionKeyStrategy partitionKeyStrategy) {
+        this.partitionKeyStrategy = partitionKeyStrategy;
+    }
 }
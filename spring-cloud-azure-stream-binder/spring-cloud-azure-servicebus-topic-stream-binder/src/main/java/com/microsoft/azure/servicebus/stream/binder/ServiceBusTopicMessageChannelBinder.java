@@ -10,7 +10,7 @@ import com.microsoft.azure.servicebus.stream.binder.properties.ServiceBusConsume
 import com.microsoft.azure.servicebus.stream.binder.properties.ServiceBusTopicExtendedBindingProperties;
 import com.microsoft.azure.servicebus.stream.binder.provisioning.ServiceBusChannelProvisioner;
 import com.microsoft.azure.spring.integration.core.api.CheckpointConfig;
-import com.microsoft.azure.spring.integration.core.api.SendOperation;
+import com.microsoft.azure.spring.integration.servicebus.ServiceBusSendOperation;
 import com.microsoft.azure.spring.integration.servicebus.inbound.ServiceBusTopicInboundChannelAdapter;
 import com.microsoft.azure.spring.integration.servicebus.topic.ServiceBusTopicOperation;
 import org.springframework.cloud.stream.binder.ExtendedConsumerProperties;
@@ -54,7 +54,7 @@ public class ServiceBusTopicMessageChannelBinder extends
     }
 
     @Override
-    SendOperation getSendOperation() {
+    ServiceBusSendOperation getSendOperation() {
         return this.serviceBusTopicOperation;
     }
 }
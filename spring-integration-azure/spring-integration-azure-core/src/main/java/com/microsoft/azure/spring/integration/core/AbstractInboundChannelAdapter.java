@@ -17,6 +17,12 @@ import org.springframework.util.StringUtils;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Inbound channel adapter subscribing to a destination of its subscribe operation. Listener mode, e.g. whether
+ * messages of a batch are sent downstream as one message, is a setting of the subscribe operation, not the adapter.
+ *
+ * @author Warren Zhu
+ */
 public abstract class AbstractInboundChannelAdapter extends MessageProducerSupport {
     private final String destination;
     private final ListenerMode listenerMode = ListenerMode.RECORD;
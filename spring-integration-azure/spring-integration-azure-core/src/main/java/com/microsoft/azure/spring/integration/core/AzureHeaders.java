@@ -26,4 +26,16 @@ public class AzureHeaders {
      * The {@value CHECKPOINTER} header for checkpoint the specific message.
      */
     public static final String CHECKPOINTER = PREFIX + "checkpointer";
+
+    /**
+     * The {@value BATCH_HEADERS} header of a batch message holds the headers of each record,
+     * in the same order as the records in the payload list.
+     */
+    public static final String BATCH_HEADERS = PREFIX + "batch_headers";
+
+    /**
+     * The {@value CONTENT_ENCODING} header holds the compression of message body, e.g. {@code gzip}. Absent if body
+     * is not compressed.
+     */
+    public static final String CONTENT_ENCODING = PREFIX + "content_encoding";
 }
@@ -6,6 +6,7 @@
 
 package com.microsoft.azure.spring.integration.core;
 
+import com.microsoft.azure.spring.integration.core.api.PartitionKeyStrategy;
 import com.microsoft.azure.spring.integration.core.api.PartitionSupplier;
 import com.microsoft.azure.spring.integration.core.api.SendOperation;
 import org.slf4j.Logger;
@@ -15,6 +16,7 @@ import org.springframework.expression.Expression;
 import org.springframework.expression.common.LiteralExpression;
 import org.springframework.integration.MessageTimeoutException;
 import org.springframework.integration.expression.ExpressionUtils;
+import org.springframework.integration.expression.FunctionExpression;
 import org.springframework.integration.expression.ValueExpression;
 import org.springframework.integration.handler.AbstractMessageProducingHandler;
 import org.springframework.integration.support.DefaultErrorMessageStrategy;
@@ -26,6 +28,7 @@ import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 import org.springframework.util.concurrent.ListenableFutureCallback;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -157,6 +160,30 @@ public class DefaultMessageHandler extends AbstractMessageProducingHandler {
         setPartitionKeyExpression(EXPRESSION_PARSER.parseExpression(partitionKeyExpression));
     }
 
+    /**
+     * Set partition key expression of the given strategy. Only {@link PartitionKeyStrategy#HASH} needs a partition
+     * key, and other strategies are left to the send operation.
+     */
+    public void setPartitionKeyStrategy(PartitionKeyStrategy partitionKeyStrategy) {
+        log.info("DefaultMessageHandler partition key strategy becomes: {}", partitionKeyStrategy);
+        if (partitionKeyStrategy == PartitionKeyStrategy.HASH) {
+            setPartitionKeyExpression(new FunctionExpression<Message<?>>(m -> hashOf(m.getPayload())));
+        } else {
+            setPartitionKeyExpression(null);
+        }
+    }
+
+    /**
+     * Identity hash code of array would give each message a random partition key, so content is hashed instead
+     */
+    private static int hashOf(Object payload) {
+        if (payload instanceof byte[]) {
+            return Arrays.hashCode((byte[]) payload);
+        }
+
+        return payload.hashCode();
+    }
+
     private String toDestination(Message<?> message) {
         if (message.getHeaders().containsKey(AzureHeaders.NAME)) {
             return message.getHeaders().get(AzureHeaders.NAME, String.class);
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.core;
+
+import org.springframework.util.Assert;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Limit count of batches being sent at the same time. Batches beyond the limit wait in submission order and are sent
+ * once earlier ones complete, so threads flushing batches, e.g. a linger timer, never block on the limit. Producers
+ * are slowed down instead by waiting in {@link #awaitCapacity()} before adding to batches.
+ *
+ * @author Warren Zhu
+ */
+public class InFlightBatchLimiter {
+    private final int maxInFlight;
+    private final Queue<Runnable> waiting = new ArrayDeque<>();
+    private int inFlight;
+    private boolean dispatching;
+
+    public InFlightBatchLimiter(int maxInFlight) {
+        Assert.isTrue(maxInFlight > 0, "maxInFlight should be positive");
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Send a batch now if under the limit, otherwise once earlier batches complete. Batches are started in the order
+     * they are submitted.
+     *
+     * @param sender starts sending the batch
+     * @return future completed once the batch is sent
+     */
+    public CompletableFuture<Void> submit(Supplier<CompletableFuture<Void>> sender) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        Runnable task = () -> start(sender, result);
+
+        synchronized (this) {
+            if (this.dispatching || !this.waiting.isEmpty() || this.inFlight >= this.maxInFlight) {
+                this.waiting.add(task);
+                return result;
+            }
+
+            this.inFlight++;
+        }
+
+        task.run();
+        return result;
+    }
+
+    /**
+     * Block until no batch is waiting for the limit
+     */
+    public synchronized void awaitCapacity() throws InterruptedException {
+        while (!this.waiting.isEmpty()) {
+            wait();
+        }
+    }
+
+    public synchronized int getInFlightCount() {
+        return this.inFlight;
+    }
+
+    public synchronized int getWaitingCount() {
+        return this.waiting.size();
+    }
+
+    private void start(Supplier<CompletableFuture<Void>> sender, CompletableFuture<Void> result) {
+        CompletableFuture<Void> sent;
+        try {
+            sent = sender.get();
+        } catch (RuntimeException e) {
+            sent = new CompletableFuture<>();
+            sent.completeExceptionally(e);
+        }
+
+        sent.whenComplete((v, t) -> {
+            onComplete();
+
+            if (t != null) {
+                result.completeExceptionally(t);
+            } else {
+                result.complete(null);
+            }
+        });
+    }
+
+    private void onComplete() {
+        synchronized (this) {
+            this.inFlight--;
+
+            // Only one thread starts waiting batches, so they are started in order
+            if (this.dispatching) {
+                return;
+            }
+
+            this.dispatching = true;
+        }
+
+        while (true) {
+            Runnable next;
+            synchronized (this) {
+                if (this.waiting.isEmpty() || this.inFlight >= this.maxInFlight) {
+                    this.dispatching = false;
+                    notifyAll();
+                    return;
+                }
+
+                next = this.waiting.poll();
+                this.inFlight++;
+                notifyAll();
+            }
+
+            next.run();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.core.api;
+
+import java.time.Duration;
+
+/**
+ * Producer side batching related config
+ *
+ * @author Warren Zhu
+ */
+public class BatchConfig {
+    /**
+     * Max size of one batch in bytes. Non-positive value means the max message size allowed by the service.
+     */
+    private final int batchSize;
+
+    /**
+     * The time to wait for more messages before sending a batch which is not full. Zero means sending once the
+     * messages of one send call are added.
+     */
+    private final Duration lingerTime;
+
+    /**
+     * Max count of batches being sent at the same time. Non-positive value means no limit.
+     */
+    private final int maxInFlightBatches;
+
+    public BatchConfig(int batchSize, Duration lingerTime, int maxInFlightBatches) {
+        this.batchSize = batchSize;
+        this.lingerTime = lingerTime == null ? Duration.ZERO : lingerTime;
+        this.maxInFlightBatches = maxInFlightBatches;
+    }
+
+    public static BatchConfigBuilder builder() {
+        return new BatchConfigBuilder();
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public Duration getLingerTime() {
+        return lingerTime;
+    }
+
+    public int getMaxInFlightBatches() {
+        return maxInFlightBatches;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchConfig{" + "batchSize=" + batchSize + ", lingerTime=" + lingerTime + ", maxInFlightBatches=" +
+                maxInFlightBatches + '}';
+    }
+
+    public static class BatchConfigBuilder {
+        private int batchSize;
+        private Duration lingerTime;
+        private int maxInFlightBatches;
+
+        public BatchConfigBuilder batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public BatchConfigBuilder lingerTime(Duration lingerTime) {
+            this.lingerTime = lingerTime;
+            return this;
+        }
+
+        public BatchConfigBuilder maxInFlightBatches(int maxInFlightBatches) {
+            this.maxInFlightBatches = maxInFlightBatches;
+            return this;
+        }
+
+        public BatchConfig build() {
+            return new BatchConfig(batchSize, lingerTime, maxInFlightBatches);
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.core.api;
+
+/**
+ * How to route messages sent without partition key or partition id.
+ *
+ * @author Warren Zhu
+ */
+public enum PartitionKeyStrategy {
+
+    /**
+     * Use hash of payload as partition key. Content of {@code byte[]} payload is hashed, and other payload uses its
+     * own {@link Object#hashCode()}, so messages with equal payload go to the same partition.
+     */
+    HASH,
+
+    /**
+     * No partition key. Messages are distributed by the service.
+     */
+    NONE,
+
+    /**
+     * Send messages to each partition in turn. Falls back to {@link #NONE} if partitions are unknown to the client.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Send messages to one partition until its batch is sent, then switch to the next one, so batches get full.
+     * Falls back to {@link #NONE} if partitions are unknown to the client.
+     */
+    STICKY,
+}
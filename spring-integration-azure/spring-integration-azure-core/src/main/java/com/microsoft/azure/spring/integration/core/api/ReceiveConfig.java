@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.core.api;
+
+import java.time.Duration;
+
+/**
+ * Consumer side receiving related config
+ *
+ * @author Warren Zhu
+ */
+public class ReceiveConfig {
+    /**
+     * Count of messages prefetched by receiver of each partition. Non-positive value means sdk default.
+     */
+    private final int prefetchCount;
+
+    /**
+     * Max count of messages received at once. Non-positive value means sdk default.
+     */
+    private final int maxBatchSize;
+
+    /**
+     * The time to wait for messages in one receive call. {@code null} means sdk default.
+     */
+    private final Duration receiveTimeout;
+
+    /**
+     * Whether to invoke the handler with no message once receive timeout elapses.
+     */
+    private final boolean invokeOnTimeout;
+
+    /**
+     * If not {@code null}, max batch size is adjusted at runtime to keep handling time of one batch under this
+     * latency, between 1 and prefetch count.
+     */
+    private final Duration targetBatchLatency;
+
+    /**
+     * Whether each receive also retrieves the last enqueued message of the partition, which lag metrics need.
+     * Disabled by default since it adds to every receive.
+     */
+    private final boolean lagMetricsEnabled;
+
+    public ReceiveConfig(int prefetchCount, int maxBatchSize, Duration receiveTimeout, boolean invokeOnTimeout,
+            Duration targetBatchLatency, boolean lagMetricsEnabled) {
+        this.prefetchCount = prefetchCount;
+        this.maxBatchSize = maxBatchSize;
+        this.receiveTimeout = receiveTimeout;
+        this.invokeOnTimeout = invokeOnTimeout;
+        this.targetBatchLatency = targetBatchLatency;
+        this.lagMetricsEnabled = lagMetricsEnabled;
+    }
+
+    public static ReceiveConfigBuilder builder() {
+        return new ReceiveConfigBuilder();
+    }
+
+    public int getPrefetchCount() {
+        return prefetchCount;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public Duration getReceiveTimeout() {
+        return receiveTimeout;
+    }
+
+    public boolean isInvokeOnTimeout() {
+        return invokeOnTimeout;
+    }
+
+    public Duration getTargetBatchLatency() {
+        return targetBatchLatency;
+    }
+
+    public boolean isLagMetricsEnabled() {
+        return lagMetricsEnabled;
+    }
+
+    @Override
+    public String toString() {
+        return "ReceiveConfig{" + "prefetchCount=" + prefetchCount + ", maxBatchSize=" + maxBatchSize +
+                ", receiveTimeout=" + receiveTimeout + ", invokeOnTimeout=" + invokeOnTimeout +
+                ", targetBatchLatency=" + targetBatchLatency + ", lagMetricsEnabled=" + lagMetricsEnabled + '}';
+    }
+
+    public static class ReceiveConfigBuilder {
+        private int prefetchCount;
+        private int maxBatchSize;
+        private Duration receiveTimeout;
+        private boolean invokeOnTimeout;
+        private Duration targetBatchLatency;
+        private boolean lagMetricsEnabled;
+
+        public ReceiveConfigBuilder prefetchCount(int prefetchCount) {
+            this.prefetchCount = prefetchCount;
+            return this;
+        }
+
+        public ReceiveConfigBuilder maxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public ReceiveConfigBuilder receiveTimeout(Duration receiveTimeout) {
+            this.receiveTimeout = receiveTimeout;
+            return this;
+        }
+
+        public ReceiveConfigBuilder invokeOnTimeout(boolean invokeOnTimeout) {
+            this.invokeOnTimeout = invokeOnTimeout;
+            return this;
+        }
+
+        public ReceiveConfigBuilder targetBatchLatency(Duration targetBatchLatency) {
+            this.targetBatchLatency = targetBatchLatency;
+            return this;
+        }
+
+        public ReceiveConfigBuilder lagMetricsEnabled(boolean lagMetricsEnabled) {
+            this.lagMetricsEnabled = lagMetricsEnabled;
+            return this;
+        }
+
+        public ReceiveConfig build() {
+            return new ReceiveConfig(prefetchCount, maxBatchSize, receiveTimeout, invokeOnTimeout,
+                    targetBatchLatency, lagMetricsEnabled);
+        }
+    }
+
+}
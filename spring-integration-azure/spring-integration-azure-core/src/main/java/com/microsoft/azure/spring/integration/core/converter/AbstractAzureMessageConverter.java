@@ -6,17 +6,27 @@
 
 package com.microsoft.azure.spring.integration.core.converter;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.azure.spring.integration.core.AzureHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.util.Assert;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeType;
 
-import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Abstract class handles common conversion logic between <T> and {@link Message}
@@ -24,41 +34,67 @@ import java.util.Map;
  * @author Warren Zhu
  */
 public abstract class AbstractAzureMessageConverter<T> implements AzureMessageConverter<T> {
-    private static ObjectMapper objectMapper = new ObjectMapper();
+    protected static final Charset CHARSET = StandardCharsets.UTF_8;
 
-    private static byte[] toPayload(Object object) {
-        try {
-            return objectMapper.writeValueAsBytes(object);
-        } catch (JsonProcessingException e) {
-            throw new ConversionException("Failed to write JSON: " + object, e);
-        }
-    }
+    private static final Logger log = LoggerFactory.getLogger(AbstractAzureMessageConverter.class);
 
-    private static <U> U fromPayload(byte[] payload, Class<U> payloadType) {
-        try {
-            return objectMapper.readerFor(payloadType).readValue(payload);
-        } catch (IOException e) {
-            throw new ConversionException("Failed to read JSON: " + Arrays.toString(payload), e);
-        }
-    }
+    private static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
+    private List<PayloadCodec> payloadCodecs = Arrays.asList(new ByteBufferPayloadCodec(), new JacksonPayloadCodec());
+
+    private CompressionCodec compressionCodec;
+
+    private int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+
+    // Codecs used for decompression, by content encoding
+    private final Map<String, CompressionCodec> decompressionCodecs = new ConcurrentHashMap<>();
 
     @Override
     public T fromMessage(@NonNull Message<?> message, @NonNull Class<T> targetClass) {
         T azureMessage = internalFromMessage(message, targetClass);
+        String contentEncoding = null;
+
+        if (this.compressionCodec != null && !targetClass.isInstance(message.getPayload())) {
+            byte[] compressed = compress(getPayload(azureMessage));
+            if (compressed != null) {
+                azureMessage = fromByte(compressed);
+                contentEncoding = this.compressionCodec.getEncoding();
+            }
+        }
 
         setCustomHeaders(message.getHeaders(), azureMessage);
 
+        if (contentEncoding != null) {
+            setContentEncoding(azureMessage, contentEncoding);
+        }
+
         return azureMessage;
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public <U> Message<U> toMessage(@NonNull T azureMessage, Map<String, Object> headers,
                                     @NonNull Class<U> targetPayloadClass) {
-        Map<String, Object> mergedHeaders = new HashMap<>();
-        mergedHeaders.putAll(buildCustomHeaders(azureMessage));
-        mergedHeaders.putAll(headers);
-        return (Message<U>) internalToMessage(azureMessage, mergedHeaders, targetPayloadClass);
+        // Headers are resolved on access, so neither headers nor custom headers are copied per message
+        MessageHeaders messageHeaders = new LazyMessageHeaders(headers, () -> getCustomHeadersView(azureMessage));
+        return new GenericMessage<>(toPayload(azureMessage, targetPayloadClass), messageHeaders);
+    }
+
+    /**
+     * Convert a batch of azure messages into one {@link Message} whose payload is the list of converted payloads.
+     * Headers of each azure message are kept in {@link AzureHeaders#BATCH_HEADERS} in the same order.
+     */
+    public <U> Message<List<U>> toBatchMessage(@NonNull List<T> azureMessages, Map<String, Object> headers,
+                                               @NonNull Class<U> targetPayloadClass) {
+        List<U> payloads = new ArrayList<>(azureMessages.size());
+        List<Map<String, Object>> batchHeaders = new ArrayList<>(azureMessages.size());
+
+        for (T azureMessage : azureMessages) {
+            payloads.add(toPayload(azureMessage, targetPayloadClass));
+            batchHeaders.add(buildCustomHeaders(azureMessage));
+        }
+
+        return MessageBuilder.withPayload(payloads).copyHeaders(headers)
+                             .setHeader(AzureHeaders.BATCH_HEADERS, batchHeaders).build();
     }
 
     protected abstract byte[] getPayload(T azureMessage);
@@ -74,6 +110,83 @@ public abstract class AbstractAzureMessageConverter<T> implements AzureMessageCo
         return new HashMap<>();
     }
 
+    /**
+     * Read-only view of custom headers of the given azure message, used by {@link #toMessage}. Subclass can return
+     * underlying properties of azure message directly to avoid copying. Default to {@link #buildCustomHeaders}.
+     */
+    protected Map<String, Object> getCustomHeadersView(T azureMessage) {
+        return buildCustomHeaders(azureMessage);
+    }
+
+    /**
+     * Content encoding of body of the given azure message, or {@code null} if body is not compressed
+     */
+    @Nullable
+    protected String getContentEncoding(T azureMessage) {
+        return null;
+    }
+
+    /**
+     * Record content encoding of compressed body in the given azure message. Only called if
+     * {@link #supportsContentEncoding()}.
+     */
+    protected void setContentEncoding(T azureMessage, String contentEncoding) {
+    }
+
+    /**
+     * Whether azure message can keep content encoding of its body. Subclass returning {@code true} must override
+     * {@link #getContentEncoding} and {@link #setContentEncoding}. Compression codec is rejected otherwise.
+     */
+    protected boolean supportsContentEncoding() {
+        return false;
+    }
+
+    public List<PayloadCodec> getPayloadCodecs() {
+        return payloadCodecs;
+    }
+
+    /**
+     * Codecs of payload other than {@link String} and {@code byte[]}, in order of precedence. The last one is used if
+     * no codec supports content type and payload type. Default to {@link ByteBufferPayloadCodec} and
+     * {@link JacksonPayloadCodec}.
+     */
+    public void setPayloadCodecs(List<PayloadCodec> payloadCodecs) {
+        Assert.notEmpty(payloadCodecs, "payloadCodecs can't be empty");
+        this.payloadCodecs = new ArrayList<>(payloadCodecs);
+    }
+
+    public CompressionCodec getCompressionCodec() {
+        return compressionCodec;
+    }
+
+    /**
+     * Codec to compress body of converted azure messages, or {@code null} to disable compression. Compressed bodies
+     * are decompressed transparently by {@link #toMessage} and {@link #toBatchMessage} according to content encoding,
+     * whichever codec is set. Default to {@code null}.
+     *
+     * @throws UnsupportedOperationException if codec is given but azure message can't keep content encoding
+     */
+    public void setCompressionCodec(@Nullable CompressionCodec compressionCodec) {
+        if (compressionCodec != null && !supportsContentEncoding()) {
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " doesn't support compression");
+        }
+
+        this.compressionCodec = compressionCodec;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * Min size of body in bytes to compress. Smaller bodies are sent as is, since compression barely saves bytes of
+     * them. Default to 1024.
+     */
+    public void setCompressionThreshold(int compressionThreshold) {
+        Assert.isTrue(compressionThreshold >= 0, "compressionThreshold can't be negative");
+        this.compressionThreshold = compressionThreshold;
+    }
+
     private T internalFromMessage(Message<?> message, Class<T> targetClass) {
         Object payload = message.getPayload();
 
@@ -89,24 +202,87 @@ public abstract class AbstractAzureMessageConverter<T> implements AzureMessageCo
             return fromByte((byte[]) payload);
         }
 
-        return fromByte(toPayload(payload));
+        MimeType contentType = toMimeType(message.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        return fromByte(getPayloadCodec(contentType, payload.getClass()).encode(payload));
     }
 
-    private <U> Message<?> internalToMessage(T azureMessage, Map<String, Object> headers, Class<U> targetPayloadClass) {
-        byte[] payload = getPayload(azureMessage);
-
+    @SuppressWarnings("unchecked")
+    private <U> U toPayload(T azureMessage, Class<U> targetPayloadClass) {
         if (targetPayloadClass.isInstance(azureMessage)) {
-            return MessageBuilder.withPayload(azureMessage).copyHeaders(headers).build();
+            return (U) azureMessage;
+        }
+
+        byte[] payload = getPayload(azureMessage);
+        String contentEncoding = getContentEncoding(azureMessage);
+        if (contentEncoding != null) {
+            payload = getDecompressionCodec(contentEncoding).decompress(payload);
         }
 
         if (targetPayloadClass == String.class) {
-            return MessageBuilder.withPayload(new String(payload)).copyHeaders(headers).build();
+            return (U) new String(payload, CHARSET);
         }
 
         if (targetPayloadClass == byte[].class) {
-            return MessageBuilder.withPayload(payload).copyHeaders(headers).build();
+            return (U) payload;
+        }
+
+        MimeType contentType = toMimeType(getCustomHeadersView(azureMessage).get(MessageHeaders.CONTENT_TYPE));
+        return getPayloadCodec(contentType, targetPayloadClass).decode(payload, targetPayloadClass);
+    }
+
+    /**
+     * @return compressed body, or {@code null} if body is below threshold or compression doesn't make it smaller
+     */
+    @Nullable
+    private byte[] compress(byte[] body) {
+        if (body.length < this.compressionThreshold) {
+            return null;
+        }
+
+        byte[] compressed = this.compressionCodec.compress(body);
+        return compressed.length < body.length ? compressed : null;
+    }
+
+    private CompressionCodec getDecompressionCodec(String contentEncoding) {
+        if (this.compressionCodec != null && this.compressionCodec.getEncoding().equalsIgnoreCase(contentEncoding)) {
+            return this.compressionCodec;
+        }
+
+        return this.decompressionCodecs.computeIfAbsent(contentEncoding.toLowerCase(), e -> {
+            CompressionType type = CompressionType.fromEncoding(e);
+            if (type == null) {
+                throw new ConversionException("Unsupported content encoding: " + e);
+            }
+
+            return type.createCodec();
+        });
+    }
+
+    private PayloadCodec getPayloadCodec(@Nullable MimeType contentType, Class<?> payloadType) {
+        for (PayloadCodec codec : this.payloadCodecs) {
+            if (codec.supports(contentType, payloadType)) {
+                return codec;
+            }
+        }
+
+        // Keep converting as before when content type is unknown to all codecs, e.g. JSON payload sent as text/plain
+        return this.payloadCodecs.get(this.payloadCodecs.size() - 1);
+    }
+
+    @Nullable
+    private static MimeType toMimeType(@Nullable Object contentType) {
+        if (contentType instanceof MimeType) {
+            return (MimeType) contentType;
+        }
+
+        if (contentType instanceof String) {
+            try {
+                return MimeType.valueOf((String) contentType);
+            } catch (InvalidMimeTypeException e) {
+                log.warn("Invalid content type '{}', ignored when selecting payload codec", contentType);
+            }
         }
 
-        return MessageBuilder.withPayload(fromPayload(payload, targetPayloadClass)).copyHeaders(headers).build();
+        return null;
     }
 }
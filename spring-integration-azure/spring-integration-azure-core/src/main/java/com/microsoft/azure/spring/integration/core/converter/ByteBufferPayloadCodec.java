@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.core.converter;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Raw {@link PayloadCodec} for {@link ByteBuffer} payload of any content type. Body is wrapped without copy when
+ * decoding, and backing array is used as body when the buffer covers it entirely.
+ *
+ * @author Warren Zhu
+ */
+public class ByteBufferPayloadCodec implements PayloadCodec {
+
+    @Override
+    public boolean supports(@Nullable MimeType contentType, Class<?> payloadType) {
+        return ByteBuffer.class.isAssignableFrom(payloadType);
+    }
+
+    @Override
+    public byte[] encode(Object payload) {
+        ByteBuffer buffer = (ByteBuffer) payload;
+
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0
+                && buffer.remaining() == buffer.array().length) {
+            return buffer.array();
+        }
+
+        byte[] body = new byte[buffer.remaining()];
+        buffer.duplicate().get(body);
+        return body;
+    }
+
+    @Override
+    public <U> U decode(byte[] body, Class<U> payloadType) {
+        return payloadType.cast(ByteBuffer.wrap(body));
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.core.converter;
+
+/**
+ * Strategy to compress body of azure message. {@link AbstractAzureMessageConverter} records {@link #getEncoding()}
+ * in {@link com.microsoft.azure.spring.integration.core.AzureHeaders#CONTENT_ENCODING} of compressed messages, so
+ * receivers pick the matching codec.
+ *
+ * @author Warren Zhu
+ */
+public interface CompressionCodec {
+
+    /**
+     * @return content encoding of compressed body, e.g. {@code gzip}
+     */
+    String getEncoding();
+
+    byte[] compress(byte[] body);
+
+    byte[] decompress(byte[] body);
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.core.converter;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Compression algorithms known by {@link AbstractAzureMessageConverter}, identified by content encoding.
+ *
+ * @author Warren Zhu
+ */
+public enum CompressionType {
+    NONE(null, null),
+    GZIP("gzip", null),
+    /**
+     * Requires {@code org.lz4:lz4-java}
+     */
+    LZ4("lz4", "net.jpountz.lz4.LZ4FrameOutputStream"),
+    /**
+     * Requires {@code org.xerial.snappy:snappy-java}
+     */
+    SNAPPY("snappy", "org.xerial.snappy.Snappy");
+
+    private final String encoding;
+
+    private final String requiredClass;
+
+    CompressionType(String encoding, String requiredClass) {
+        this.encoding = encoding;
+        this.requiredClass = requiredClass;
+    }
+
+    @Nullable
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * @return new codec of this type, or {@code null} for {@link #NONE}
+     */
+    @Nullable
+    public CompressionCodec createCodec() {
+        Assert.state(this.requiredClass == null || ClassUtils.isPresent(this.requiredClass, null),
+                () -> this + " compression requires " + this.requiredClass + " on the classpath");
+
+        switch (this) {
+            case GZIP:
+                return new GzipCompressionCodec();
+            case LZ4:
+                return new Lz4CompressionCodec();
+            case SNAPPY:
+                return new SnappyCompressionCodec();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return type of the given content encoding, or {@code null} if unknown
+     */
+    @Nullable
+    public static CompressionType fromEncoding(String encoding) {
+        for (CompressionType type : values()) {
+            if (type.encoding != null && type.encoding.equalsIgnoreCase(encoding)) {
+                return type;
+            }
+        }
+
+        return null;
+    }
+}
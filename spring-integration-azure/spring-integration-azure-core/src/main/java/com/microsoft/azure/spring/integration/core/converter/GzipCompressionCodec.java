@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.core.converter;
+
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link CompressionCodec} of gzip format, available without extra dependency.
+ *
+ * @author Warren Zhu
+ */
+public class GzipCompressionCodec implements CompressionCodec {
+
+    @Override
+    public String getEncoding() {
+        return CompressionType.GZIP.getEncoding();
+    }
+
+    @Override
+    public byte[] compress(byte[] body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 2 + 32);
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(body);
+        } catch (IOException e) {
+            throw new ConversionException("Failed to compress body with gzip", e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public byte[] decompress(byte[] body) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return StreamUtils.copyToByteArray(in);
+        } catch (IOException e) {
+            throw new ConversionException("Failed to decompress body with gzip", e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.core.converter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JSON {@link PayloadCodec} based on Jackson. Supports any payload type without content type or with JSON content
+ * type. {@link ObjectReader} and {@link ObjectWriter} are cached per payload type.
+ *
+ * @author Warren Zhu
+ */
+public class JacksonPayloadCodec implements PayloadCodec {
+    private static final String JSON_SUFFIX = "+json";
+
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public JacksonPayloadCodec() {
+        this(new ObjectMapper());
+    }
+
+    public JacksonPayloadCodec(ObjectMapper objectMapper) {
+        Assert.notNull(objectMapper, "objectMapper can't be null");
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean supports(@Nullable MimeType contentType, Class<?> payloadType) {
+        if (contentType == null) {
+            return true;
+        }
+
+        String subtype = contentType.getSubtype();
+        return "json".equals(subtype) || subtype.endsWith(JSON_SUFFIX);
+    }
+
+    @Override
+    public byte[] encode(Object payload) {
+        try {
+            return this.writers.computeIfAbsent(payload.getClass(), this.objectMapper::writerFor)
+                               .writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new ConversionException("Failed to write JSON: " + payload, e);
+        }
+    }
+
+    @Override
+    public <U> U decode(byte[] body, Class<U> payloadType) {
+        try {
+            return this.readers.computeIfAbsent(payloadType, this.objectMapper::readerFor).readValue(body);
+        } catch (IOException e) {
+            throw new ConversionException("Failed to read JSON: " + new String(body, StandardCharsets.UTF_8), e);
+        }
+    }
+}
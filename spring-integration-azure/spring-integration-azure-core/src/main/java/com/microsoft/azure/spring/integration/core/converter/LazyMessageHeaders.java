@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.core.converter;
+
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.MessageHeaders;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Read-through {@link MessageHeaders} over the given headers and the custom headers of an azure message.
+ *
+ * <p>
+ * Single header lookup goes to the underlying maps directly, and custom headers are only resolved on first lookup.
+ * A merged copy is built only when the whole header map is needed, e.g. iteration or {@link #size()}. Given headers
+ * take precedence over custom headers, header with {@code null} value is absent, and {@link #ID} and
+ * {@link #TIMESTAMP} of underlying maps are ignored, same as {@code MessageBuilder#copyHeaders}.
+ *
+ * @author Warren Zhu
+ */
+class LazyMessageHeaders extends MessageHeaders {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Map<String, Object> headers;
+    private final transient Supplier<Map<String, Object>> customHeadersSupplier;
+    private final long timestamp = System.currentTimeMillis();
+
+    private transient volatile Map<String, Object> customHeaders;
+    private volatile UUID id;
+    private transient volatile Map<String, Object> mergedHeaders;
+
+    LazyMessageHeaders(Map<String, Object> headers, Supplier<Map<String, Object>> customHeadersSupplier) {
+        super(null, ID_VALUE_NONE, -1L);
+        this.headers = headers;
+        this.customHeadersSupplier = customHeadersSupplier;
+    }
+
+    @Override
+    public UUID getId() {
+        UUID result = this.id;
+        if (result == null) {
+            synchronized (this) {
+                result = this.id;
+                if (result == null) {
+                    result = getIdGenerator().generateId();
+                    this.id = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Long getTimestamp() {
+        return this.timestamp;
+    }
+
+    @Override
+    @Nullable
+    public Object get(Object key) {
+        if (ID.equals(key)) {
+            return getId();
+        }
+
+        if (TIMESTAMP.equals(key)) {
+            return getTimestamp();
+        }
+
+        Object value = this.headers.get(key);
+        if (value != null || this.headers.containsKey(key)) {
+            return value;
+        }
+
+        return getCustomHeaders().get(key);
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        Object value = get(key);
+        if (value == null) {
+            return null;
+        }
+        if (!type.isInstance(value)) {
+            throw new IllegalArgumentException(
+                    "Incorrect type specified for header '" + key + "'. Expected [" + type + "] but actual type is ["
+                            + value.getClass() + "]");
+        }
+        return (T) value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return getMergedHeaders().containsValue(value);
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return getMergedHeaders().entrySet();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        // id and timestamp are always present
+        return false;
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return getMergedHeaders().keySet();
+    }
+
+    @Override
+    public int size() {
+        return getMergedHeaders().size();
+    }
+
+    @Override
+    public Collection<Object> values() {
+        return getMergedHeaders().values();
+    }
+
+    @Override
+    protected Map<String, Object> getRawHeaders() {
+        return getMergedHeaders();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof MessageHeaders && getMergedHeaders().equals(other));
+    }
+
+    @Override
+    public int hashCode() {
+        return getMergedHeaders().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getMergedHeaders().toString();
+    }
+
+    private Object writeReplace() {
+        return new MaterializedMessageHeaders(getMergedHeaders(), getId(), getTimestamp());
+    }
+
+    private Map<String, Object> getCustomHeaders() {
+        Map<String, Object> result = this.customHeaders;
+        if (result == null) {
+            result = this.customHeadersSupplier.get();
+            this.customHeaders = result;
+        }
+        return result;
+    }
+
+    private Map<String, Object> getMergedHeaders() {
+        Map<String, Object> result = this.mergedHeaders;
+        if (result == null) {
+            Map<String, Object> merged = new HashMap<>(getCustomHeaders());
+            merged.putAll(this.headers);
+            merged.values().removeIf(v -> v == null);
+            merged.put(ID, getId());
+            merged.put(TIMESTAMP, getTimestamp());
+            result = Collections.unmodifiableMap(merged);
+            this.mergedHeaders = result;
+        }
+        return result;
+    }
+
+    /**
+     * Plain {@link MessageHeaders} keeping id and timestamp, used as serialized form.
+     */
+    private static class MaterializedMessageHeaders extends MessageHeaders {
+        private static final long serialVersionUID = 1L;
+
+        MaterializedMessageHeaders(Map<String, Object> headers, UUID id, Long timestamp) {
+            super(headers, id, timestamp);
+        }
+    }
+}
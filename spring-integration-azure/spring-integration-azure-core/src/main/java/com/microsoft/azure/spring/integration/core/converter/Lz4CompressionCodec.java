@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.core.converter;
+
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * {@link CompressionCodec} of LZ4 frame format, so body can be decompressed by other LZ4 implementations. Requires
+ * {@code org.lz4:lz4-java} on the classpath.
+ *
+ * @author Warren Zhu
+ */
+public class Lz4CompressionCodec implements CompressionCodec {
+
+    @Override
+    public String getEncoding() {
+        return CompressionType.LZ4.getEncoding();
+    }
+
+    @Override
+    public byte[] compress(byte[] body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 2 + 32);
+        // Default 4MB block buffer is allocated per stream, far larger than an event
+        try (OutputStream out = new LZ4FrameOutputStream(bytes, LZ4FrameOutputStream.BLOCKSIZE.SIZE_64KB)) {
+            out.write(body);
+        } catch (IOException e) {
+            throw new ConversionException("Failed to compress body with lz4", e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public byte[] decompress(byte[] body) {
+        try (InputStream in = new LZ4FrameInputStream(new ByteArrayInputStream(body))) {
+            return StreamUtils.copyToByteArray(in);
+        } catch (IOException e) {
+            throw new ConversionException("Failed to decompress body with lz4", e);
+        }
+    }
+}
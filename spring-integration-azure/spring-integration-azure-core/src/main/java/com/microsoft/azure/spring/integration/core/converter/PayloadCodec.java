@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.core.converter;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+
+/**
+ * Strategy to encode payload of {@link org.springframework.messaging.Message} into body of azure message and decode
+ * it back. {@link AbstractAzureMessageConverter} selects the first codec supporting content type and payload type.
+ *
+ * @author Warren Zhu
+ */
+public interface PayloadCodec {
+
+    /**
+     * @param contentType content type of the message, or {@code null} if absent
+     * @param payloadType type of the payload to encode or decode
+     */
+    boolean supports(@Nullable MimeType contentType, Class<?> payloadType);
+
+    byte[] encode(Object payload);
+
+    <U> U decode(byte[] body, Class<U> payloadType);
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.core.converter;
+
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+
+/**
+ * {@link CompressionCodec} of raw snappy format. Requires {@code org.xerial.snappy:snappy-java} on the classpath.
+ *
+ * @author Warren Zhu
+ */
+public class SnappyCompressionCodec implements CompressionCodec {
+
+    @Override
+    public String getEncoding() {
+        return CompressionType.SNAPPY.getEncoding();
+    }
+
+    @Override
+    public byte[] compress(byte[] body) {
+        try {
+            return Snappy.compress(body);
+        } catch (IOException e) {
+            throw new ConversionException("Failed to compress body with snappy", e);
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] body) {
+        try {
+            return Snappy.uncompress(body);
+        } catch (IOException e) {
+            throw new ConversionException("Failed to decompress body with snappy", e);
+        }
+    }
+}
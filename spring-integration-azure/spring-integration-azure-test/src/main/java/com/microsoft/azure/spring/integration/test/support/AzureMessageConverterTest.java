@@ -12,10 +12,15 @@ import org.junit.Before;
 import org.junit.Test;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 public abstract class AzureMessageConverterTest<T> {
@@ -40,6 +45,11 @@ public abstract class AzureMessageConverterTest<T> {
         convertAndBack(payload.getBytes(), byte[].class);
     }
 
+    @Test
+    public void payloadAsByteBuffer() {
+        convertAndBack(ByteBuffer.wrap(payload.getBytes()), ByteBuffer.class);
+    }
+
     @Test
     public void payloadAsTargetType() {
         convertAndBack(getInstance(), targetClass);
@@ -50,6 +60,27 @@ public abstract class AzureMessageConverterTest<T> {
         convertAndBack(new User(payload), User.class);
     }
 
+    @Test
+    public void headersFromAzureMessageAndGivenHeaders() {
+        Message<String> message = MessageBuilder.withPayload(payload).build();
+        T azureMessage = converter.fromMessage(message, targetClass);
+
+        Map<String, Object> headers = new HashMap<>();
+        headers.put(headerProperties, headerProperties);
+        Message<String> convertedMessage = converter.toMessage(azureMessage, headers, String.class);
+        MessageHeaders convertedHeaders = convertedMessage.getHeaders();
+
+        assertEquals(headerProperties, convertedHeaders.get(headerProperties));
+        assertNotNull(convertedHeaders.getId());
+        assertEquals(convertedHeaders.getId(), convertedHeaders.getId());
+        assertNotNull(convertedHeaders.getTimestamp());
+
+        Message<String> copiedMessage = MessageBuilder.fromMessage(convertedMessage).setHeader("key", "value").build();
+        assertEquals(headerProperties, copiedMessage.getHeaders().get(headerProperties));
+        assertTrue(convertedHeaders.keySet().containsAll(
+                Arrays.asList(headerProperties, MessageHeaders.ID, MessageHeaders.TIMESTAMP)));
+    }
+
     private <U> void convertAndBack(U payload, Class<U> payloadClass) {
         Message<U> message = MessageBuilder.withPayload(payload).setHeader(headerProperties, headerProperties).build();
         T azureMessage = converter.fromMessage(message, targetClass);
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.api;
+
+import com.microsoft.azure.eventprocessorhost.ICheckpointManager;
+import com.microsoft.azure.eventprocessorhost.ILeaseManager;
+
+/**
+ * Provide checkpoint store and lease store of event processor host, replacing the default Azure Storage based ones.
+ *
+ * @author Warren Zhu
+ */
+public interface CheckpointStoreProvider {
+
+    ICheckpointManager getCheckpointStore(String eventHubName, String consumerGroup);
+
+    /**
+     * @param hostName name of the event processor host, which is the owner of leases it acquires
+     */
+    ILeaseManager getLeaseStore(String hostName, String eventHubName, String consumerGroup);
+}
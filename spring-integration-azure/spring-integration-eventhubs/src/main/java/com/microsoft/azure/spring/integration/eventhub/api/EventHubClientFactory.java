@@ -6,6 +6,7 @@
 
 package com.microsoft.azure.spring.integration.eventhub.api;
 
+import java.util.List;
 import java.util.Optional;
 
 import com.microsoft.azure.eventhubs.EventHubClient;
@@ -22,6 +23,11 @@ public interface EventHubClientFactory {
 
     PartitionSender getOrCreatePartitionSender(String eventhub, String partition);
 
+    /**
+     * Partition ids of the event hub, fetched once from its runtime information.
+     */
+    List<String> getPartitionIds(String eventHubName);
+
     EventProcessorHost getOrCreateEventProcessorHost(String name, String consumerGroup);
 
     Optional<EventProcessorHost> getEventProcessorHost(String name, String consumerGroup);
@@ -6,10 +6,28 @@
 
 package com.microsoft.azure.spring.integration.eventhub.api;
 
+import com.microsoft.azure.eventhubs.EventPosition;
+import com.microsoft.azure.spring.integration.core.api.BatchConfig;
 import com.microsoft.azure.spring.integration.core.api.BatchSendOperation;
+import com.microsoft.azure.spring.integration.core.api.ListenerMode;
+import com.microsoft.azure.spring.integration.core.api.PartitionKeyStrategy;
+import com.microsoft.azure.spring.integration.core.api.ReceiveConfig;
 import com.microsoft.azure.spring.integration.core.api.SendOperation;
 import com.microsoft.azure.spring.integration.core.api.StartPosition;
 import com.microsoft.azure.spring.integration.core.api.SubscribeByGroupOperation;
+import com.microsoft.azure.spring.integration.eventhub.converter.EventHubMessageConverter;
+import com.microsoft.azure.spring.integration.eventhub.metrics.PartitionMetrics;
+import com.microsoft.azure.spring.integration.eventhub.metrics.ScanResult;
+import org.springframework.messaging.Message;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Azure event hub operation to support send data asynchronously and subscribe
@@ -19,4 +37,66 @@ import com.microsoft.azure.spring.integration.core.api.SubscribeByGroupOperation
 public interface EventHubOperation extends SendOperation, BatchSendOperation, SubscribeByGroupOperation {
 
     void setStartPosition(StartPosition startPosition);
+
+    void setListenerMode(ListenerMode listenerMode);
+
+    void setBatchConfig(BatchConfig batchConfig);
+
+    void setReceiveConfig(ReceiveConfig receiveConfig);
+
+    void setPartitionKeyStrategy(PartitionKeyStrategy partitionKeyStrategy);
+
+    EventHubMessageConverter getMessageConverter();
+
+    /**
+     * Converter of sent and received events, e.g. with compression enabled. Operations created by
+     * {@link #newOperation()} share the converter until given their own.
+     */
+    void setMessageConverter(EventHubMessageConverter messageConverter);
+
+    /**
+     * Max time for closing partitions to handle pending events before final checkpoint
+     */
+    void setDrainTimeout(Duration drainTimeout);
+
+    /**
+     * Start position of each partition id for consumers subscribed afterwards. Partitions it returns {@code null} for
+     * start from the start position. Only effective for partitions without checkpoint in the consumer group.
+     */
+    void setInitialPositionProvider(Function<String, EventPosition> initialPositionProvider);
+
+    /**
+     * Selector on properties of received events for consumers subscribed afterwards, evaluated before conversion.
+     * Events not selected are only checkpointed. {@code null} selects all events.
+     */
+    void setEventSelector(Predicate<Map<String, Object>> eventSelector);
+
+    /**
+     * Read events enqueued from {@code from} until {@code to} from all partitions in parallel, without checkpoints.
+     * Stops at the last event enqueued when replay starts if {@code to} is {@code null}.
+     *
+     * @return future completed once all partitions are replayed
+     */
+    CompletableFuture<Void> replay(String eventHubName, String consumerGroup, Instant from, Instant to,
+            Consumer<Message<?>> consumer, Class<?> messagePayloadType);
+
+    /**
+     * Read all events from all partitions in parallel until the last event enqueued when scan starts, without
+     * checkpoints. Consumer receives one batch message at a time.
+     *
+     * @return future completed with aggregate throughput once all partitions are scanned
+     */
+    CompletableFuture<ScanResult> scan(String eventHubName, String consumerGroup, Consumer<Message<?>> consumer,
+            Class<?> messagePayloadType);
+
+    /**
+     * Create an operation sharing the client connections of this one. Its settings start as a copy of this one's and
+     * are changed independently afterwards.
+     */
+    EventHubOperation newOperation();
+
+    /**
+     * Metrics of partitions currently owned by consumers subscribed through this operation
+     */
+    List<PartitionMetrics> getPartitionMetrics();
 }
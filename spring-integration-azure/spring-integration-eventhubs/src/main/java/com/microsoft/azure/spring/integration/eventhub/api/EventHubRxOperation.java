@@ -8,7 +8,10 @@ package com.microsoft.azure.spring.integration.eventhub.api;
 
 import com.microsoft.azure.spring.integration.core.api.RxSendOperation;
 import com.microsoft.azure.spring.integration.core.api.RxSubscribeByGroupOperation;
+import com.microsoft.azure.spring.integration.core.api.ListenerMode;
 import com.microsoft.azure.spring.integration.core.api.StartPosition;
+import org.springframework.messaging.Message;
+import reactor.core.publisher.Flux;
 
 /**
  * Azure event hub operation to support send and subscribe in a reactive way
@@ -18,4 +21,14 @@ import com.microsoft.azure.spring.integration.core.api.StartPosition;
 public interface EventHubRxOperation extends RxSendOperation, RxSubscribeByGroupOperation {
 
     void setStartPosition(StartPosition startPosition);
+
+    void setListenerMode(ListenerMode listenerMode);
+
+    /**
+     * Subscribe with backpressure. Receiving of each partition is paused while downstream has no demand, so at most
+     * {@code prefetch} events of each partition are buffered. Use {@code CheckpointMode.MANUAL} to checkpoint only
+     * when downstream acknowledges a message through its checkpointer header.
+     */
+    Flux<Message<?>> subscribeFlux(String destination, String consumerGroup, Class<?> messagePayloadType,
+            int prefetch);
 }
@@ -38,14 +38,15 @@ class BatchCheckpointManager extends CheckpointManager {
 
     @Override
     public void completeBatch(PartitionContext context) {
-        EventData eventData = this.lastEventByPartition.get(context.getPartitionId());
-        context.checkpoint().whenComplete((v, t) -> {
-            if (t != null) {
-                logCheckpointFail(context, eventData, t);
-            } else {
-                logCheckpointSuccess(context, eventData);
-            }
-        });
+        EventData eventData = this.lastEventByPartition.remove(context.getPartitionId());
+        if (eventData != null) {
+            checkpoint(context, eventData);
+        }
+    }
+
+    @Override
+    public void completeBatch(PartitionContext context, EventData lastEvent) {
+        checkpoint(context, lastEvent);
     }
 
     @Override
@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.checkpoint;
+
+import com.microsoft.azure.eventprocessorhost.PartitionContext;
+
+/**
+ * Callback of checkpoints completed by {@link CheckpointManager}
+ *
+ * @author Warren Zhu
+ */
+@FunctionalInterface
+public interface CheckpointListener {
+
+    /**
+     * @param error failure of the checkpoint, or {@code null} if succeeded
+     */
+    void onCheckpoint(PartitionContext context, long elapsedNanos, Throwable error);
+}
@@ -14,6 +14,9 @@ import com.microsoft.azure.spring.integration.eventhub.util.EventDataHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * @author Warren Zhu
  */
@@ -21,7 +24,10 @@ public abstract class CheckpointManager {
     private static final String CHECKPOINT_FAIL_MSG = "Consumer group '%s' failed to checkpoint %s on partition %s";
     private static final String CHECKPOINT_SUCCESS_MSG =
             "Consumer group '%s' checkpointed %s on partition %s in %s " + "mode";
+    private static final long FLUSH_TIMEOUT_MILLIS = 10000;
     final CheckpointConfig checkpointConfig;
+    private final Map<String, PartitionCheckpointWriter> writersByPartition = new ConcurrentHashMap<>();
+    private volatile CheckpointListener checkpointListener;
 
     public static CheckpointManager of(CheckpointConfig checkpointConfig) {
         switch (checkpointConfig.getCheckpointMode()) {
@@ -48,10 +54,97 @@ public abstract class CheckpointManager {
         // no-op
     }
 
+    /**
+     * Handle {@code count} events ending with the given one at once, e.g. events delivered as one batch message.
+     * Default to handle the last event only.
+     */
+    public void onMessages(PartitionContext context, EventData lastEvent, int count) {
+        onMessage(context, lastEvent);
+    }
+
     public void completeBatch(PartitionContext context) {
         // no-op
     }
 
+    /**
+     * Complete a batch whose last event is already known, e.g. when events are handled apart from the receive thread
+     * and the position of {@link PartitionContext} may be ahead of handled events.
+     */
+    public void completeBatch(PartitionContext context, EventData lastEvent) {
+        completeBatch(context);
+    }
+
+    /**
+     * Checkpoint the last handled event of the closing partition, so its next owner continues right after it, then
+     * flush pending checkpoint. Nothing is checkpointed in {@link CheckpointMode#MANUAL}.
+     *
+     * @param lastEvent last handled event, or {@code null} if nothing is handled
+     */
+    public void onClose(PartitionContext context, EventData lastEvent) {
+        if (lastEvent != null && this.checkpointConfig.getCheckpointMode() != CheckpointMode.MANUAL) {
+            checkpoint(context, lastEvent);
+        }
+
+        onClose(context);
+    }
+
+    /**
+     * Flush pending checkpoint of the closing partition
+     */
+    public void onClose(PartitionContext context) {
+        PartitionCheckpointWriter writer = this.writersByPartition.remove(context.getPartitionId());
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            if (!writer.flush(FLUSH_TIMEOUT_MILLIS)) {
+                getLogger().warn("Timed out flushing checkpoint of partition {}", context.getPartitionId());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Drop pending checkpoint of the partition whose lease is lost without writing it, since the partition is owned
+     * by another host, which may have checkpointed a later event already
+     */
+    public void onLeaseLost(PartitionContext context) {
+        PartitionCheckpointWriter writer = this.writersByPartition.remove(context.getPartitionId());
+        if (writer != null) {
+            writer.discard();
+        }
+    }
+
+    /**
+     * Checkpoint the event through the coalescing writer of its partition, so at most one checkpoint of each
+     * partition is in flight and only the newest pending one is kept.
+     */
+    void checkpoint(PartitionContext context, EventData eventData) {
+        this.writersByPartition.computeIfAbsent(context.getPartitionId(),
+                k -> new PartitionCheckpointWriter((e, t, elapsedNanos) -> {
+                    if (t != null) {
+                        logCheckpointFail(context, e, t);
+                    } else {
+                        logCheckpointSuccess(context, e);
+                    }
+
+                    CheckpointListener listener = this.checkpointListener;
+                    if (listener != null) {
+                        listener.onCheckpoint(context, elapsedNanos, t);
+                    }
+                })).write(context, eventData);
+    }
+
+    /**
+     * Listen to completion of checkpoints made by this manager. Checkpoints made by consumer in
+     * {@link CheckpointMode#MANUAL} are not covered.
+     */
+    public void setCheckpointListener(CheckpointListener checkpointListener) {
+        this.checkpointListener = checkpointListener;
+    }
+
     void logCheckpointFail(PartitionContext context, EventData eventData, Throwable t) {
         if (getLogger().isWarnEnabled()) {
             getLogger().warn(String
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.checkpoint;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventprocessorhost.PartitionContext;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Coalescing checkpoint writer of one partition. At most one checkpoint is in flight, and only the newest requested
+ * event is kept pending meanwhile. Older pending requests are dropped, since checkpointing a later event covers them.
+ *
+ * @author Warren Zhu
+ */
+class PartitionCheckpointWriter {
+    private final CompletionCallback completionCallback;
+
+    private PartitionContext pendingContext;
+    private EventData pendingEvent;
+    private CompletableFuture<Void> inFlight;
+    // Event of the in flight or last succeeded checkpoint
+    private EventData writtenEvent;
+
+    /**
+     * @param completionCallback called with the checkpointed event, failure if any and elapsed time, when a
+     * checkpoint completes
+     */
+    PartitionCheckpointWriter(CompletionCallback completionCallback) {
+        this.completionCallback = completionCallback;
+    }
+
+    synchronized void write(PartitionContext context, EventData eventData) {
+        if (eventData == this.writtenEvent && this.pendingEvent == null) {
+            // Already checkpointed or being checkpointed
+            return;
+        }
+
+        this.pendingContext = context;
+        this.pendingEvent = eventData;
+
+        if (this.inFlight == null) {
+            writeNext();
+        }
+    }
+
+    /**
+     * Wait until pending and in flight checkpoints complete, or timeout elapses
+     *
+     * @return whether all checkpoints completed
+     */
+    synchronized boolean flush(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+
+        while (this.inFlight != null) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+
+            wait(remaining);
+        }
+
+        return true;
+    }
+
+    /**
+     * Drop pending checkpoint, e.g. when partition is owned by another host. Checkpoint in flight can't be recalled.
+     */
+    synchronized void discard() {
+        this.pendingEvent = null;
+        this.pendingContext = null;
+    }
+
+    private void writeNext() {
+        EventData eventData = this.pendingEvent;
+        PartitionContext context = this.pendingContext;
+        this.pendingEvent = null;
+        this.pendingContext = null;
+
+        if (eventData == null) {
+            this.inFlight = null;
+            notifyAll();
+            return;
+        }
+
+        // Assign before attaching callback, since checkpoint may be already completed
+        long start = System.nanoTime();
+        this.writtenEvent = eventData;
+        CompletableFuture<Void> checkpoint = context.checkpoint(eventData);
+        this.inFlight = checkpoint;
+        checkpoint.whenComplete((v, t) -> onComplete(checkpoint, eventData, t, System.nanoTime() - start));
+    }
+
+    private synchronized void onComplete(CompletableFuture<Void> checkpoint, EventData eventData, Throwable t,
+            long elapsedNanos) {
+        this.completionCallback.onComplete(eventData, t, elapsedNanos);
+
+        if (t != null && this.writtenEvent == eventData) {
+            // Allow the failed event to be checkpointed again
+            this.writtenEvent = null;
+        }
+
+        if (this.inFlight == checkpoint) {
+            writeNext();
+        }
+    }
+
+    interface CompletionCallback {
+        void onComplete(EventData eventData, Throwable error, long elapsedNanos);
+    }
+}
@@ -34,18 +34,20 @@ class PartitionCountCheckpointManager extends CheckpointManager {
     }
 
     public void onMessage(PartitionContext context, EventData eventData) {
+        onMessages(context, eventData, 1);
+    }
+
+    /**
+     * Count all events of a batch message, so checkpoint count is in events regardless of listener mode
+     */
+    @Override
+    public void onMessages(PartitionContext context, EventData lastEvent, int count) {
         String partitionId = context.getPartitionId();
         this.countByPartition.computeIfAbsent(partitionId, (k) -> new AtomicInteger(0));
-        AtomicInteger count = this.countByPartition.get(partitionId);
-        if (count.incrementAndGet() >= checkpointConfig.getCheckpointCount()) {
-            context.checkpoint(eventData).whenComplete((v, t) -> {
-                if (t != null) {
-                    logCheckpointFail(context, eventData, t);
-                } else {
-                    logCheckpointSuccess(context, eventData);
-                    count.set(0);
-                }
-            });
+        AtomicInteger uncheckpointed = this.countByPartition.get(partitionId);
+        if (uncheckpointed.addAndGet(count) >= checkpointConfig.getCheckpointCount()) {
+            uncheckpointed.set(0);
+            checkpoint(context, lastEvent);
         }
     }
 
@@ -30,13 +30,7 @@ class RecordCheckpointManager extends CheckpointManager {
     }
 
     public void onMessage(PartitionContext context, EventData eventData) {
-        context.checkpoint(eventData).whenComplete((v, t) -> {
-            if (t != null) {
-                logCheckpointFail(context, eventData, t);
-            } else {
-                logCheckpointSuccess(context, eventData);
-            }
-        });
+        checkpoint(context, eventData);
     }
 
     @Override
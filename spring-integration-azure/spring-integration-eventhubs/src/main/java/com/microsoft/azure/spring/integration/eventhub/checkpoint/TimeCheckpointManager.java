@@ -6,6 +6,7 @@
 
 package com.microsoft.azure.spring.integration.eventhub.checkpoint;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.microsoft.azure.eventhubs.EventData;
 import com.microsoft.azure.eventprocessorhost.PartitionContext;
 import com.microsoft.azure.spring.integration.core.api.CheckpointConfig;
@@ -14,43 +15,102 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Do checkpoint when the time since last successful checkpoint exceeds {@link CheckpointConfig#getCheckpointInterval()}
- * for one partition. Effective when {@link CheckpointMode#PARTITION_COUNT}
+ * Do checkpoint of the latest processed event every {@link CheckpointConfig#getCheckpointInterval()} for one
+ * partition. Effective when {@link CheckpointMode#TIME}
+ *
+ * <p>
+ * Checkpoint is driven by a timer of each partition, so handling one event only records it as the latest.
  *
  * @author Warren Zhu
  */
 class TimeCheckpointManager extends CheckpointManager {
     private static final Logger log = LoggerFactory.getLogger(TimeCheckpointManager.class);
-    private final AtomicReference<LocalDateTime> lastCheckpointTime = new AtomicReference<>(LocalDateTime.now());
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("eventhub-checkpoint-timer-%d").setDaemon(true).build());
+    private final Map<String, PartitionTimer> timersByPartition = new ConcurrentHashMap<>();
 
     TimeCheckpointManager(CheckpointConfig checkpointConfig) {
         super(checkpointConfig);
         Assert.isTrue(this.checkpointConfig.getCheckpointMode() == CheckpointMode.TIME,
                 () -> "TimeCheckpointManager should have checkpointMode time");
+        Assert.isTrue(this.checkpointConfig.getCheckpointInterval() != null &&
+                        !this.checkpointConfig.getCheckpointInterval().isNegative() &&
+                        !this.checkpointConfig.getCheckpointInterval().isZero(),
+                () -> "TimeCheckpointManager should have positive checkpointInterval");
     }
 
+    @Override
     public void onMessage(PartitionContext context, EventData eventData) {
-        LocalDateTime now = LocalDateTime.now();
-        if (Duration.between(now, this.lastCheckpointTime.get())
-                    .compareTo(this.checkpointConfig.getCheckpointInterval()) > 0) {
-            context.checkpoint(eventData).whenComplete((v, t) -> {
-                if (t != null) {
-                    logCheckpointFail(context, eventData, t);
-                } else {
-                    logCheckpointSuccess(context, eventData);
-                    lastCheckpointTime.set(now);
-                }
-            });
+        PartitionTimer partitionTimer = this.timersByPartition.get(context.getPartitionId());
+
+        if (partitionTimer == null) {
+            partitionTimer = this.timersByPartition.computeIfAbsent(context.getPartitionId(),
+                    k -> new PartitionTimer(context));
         }
+
+        partitionTimer.latestEvent = eventData;
+    }
+
+    @Override
+    public void onClose(PartitionContext context) {
+        PartitionTimer partitionTimer = this.timersByPartition.remove(context.getPartitionId());
+
+        if (partitionTimer != null) {
+            partitionTimer.cancel();
+            partitionTimer.checkpointLatest();
+        }
+
+        super.onClose(context);
+    }
+
+    @Override
+    public void onLeaseLost(PartitionContext context) {
+        PartitionTimer partitionTimer = this.timersByPartition.remove(context.getPartitionId());
+
+        if (partitionTimer != null) {
+            partitionTimer.cancel();
+        }
+
+        super.onLeaseLost(context);
     }
 
     @Override
     protected Logger getLogger() {
         return log;
     }
+
+    private class PartitionTimer {
+        private final PartitionContext context;
+        private final ScheduledFuture<?> task;
+        private volatile EventData latestEvent;
+        private EventData checkpointedEvent;
+
+        PartitionTimer(PartitionContext context) {
+            this.context = context;
+            long intervalNanos = checkpointConfig.getCheckpointInterval().toNanos();
+            this.task = timer.scheduleAtFixedRate(this::checkpointLatest, intervalNanos, intervalNanos,
+                    TimeUnit.NANOSECONDS);
+        }
+
+        synchronized void checkpointLatest() {
+            EventData eventData = this.latestEvent;
+
+            if (eventData != null && eventData != this.checkpointedEvent) {
+                this.checkpointedEvent = eventData;
+                checkpoint(this.context, eventData);
+            }
+        }
+
+        void cancel() {
+            this.task.cancel(false);
+        }
+    }
 }
@@ -7,15 +7,17 @@
 package com.microsoft.azure.spring.integration.eventhub.converter;
 
 import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.spring.integration.core.AzureHeaders;
 import com.microsoft.azure.spring.integration.core.converter.AbstractAzureMessageConverter;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHeaders;
 
-import java.nio.charset.Charset;
+import java.util.Collections;
 import java.util.Map;
 
 /**
- * A converter to turn a {@link Message} to {@link EventData} and vice versa.
+ * A converter to turn a {@link Message} to {@link EventData} and vice versa. Content encoding of compressed body is
+ * kept in {@link AzureHeaders#CONTENT_ENCODING} property of event.
  *
  * @author Warren Zhu
  */
@@ -28,7 +30,7 @@ public class EventHubMessageConverter extends AbstractAzureMessageConverter<Even
 
     @Override
     protected EventData fromString(String payload) {
-        return EventData.create(payload.getBytes(Charset.defaultCharset()));
+        return EventData.create(payload.getBytes(CHARSET));
     }
 
     @Override
@@ -39,7 +41,9 @@ public class EventHubMessageConverter extends AbstractAzureMessageConverter<Even
     @Override
     protected void setCustomHeaders(MessageHeaders headers, EventData azureMessage) {
         super.setCustomHeaders(headers, azureMessage);
-        headers.entrySet().forEach(e->azureMessage.getProperties().put(e.getKey(), e.getValue().toString()));
+        // Content encoding of received message doesn't apply to its decompressed payload
+        headers.entrySet().stream().filter(e -> !AzureHeaders.CONTENT_ENCODING.equals(e.getKey()))
+               .forEach(e -> azureMessage.getProperties().put(e.getKey(), e.getValue().toString()));
     }
 
     @Override
@@ -48,4 +52,25 @@ public class EventHubMessageConverter extends AbstractAzureMessageConverter<Even
         headers.putAll(azureMessage.getProperties());
         return headers;
     }
+
+    @Override
+    protected String getContentEncoding(EventData azureMessage) {
+        Object contentEncoding = azureMessage.getProperties().get(AzureHeaders.CONTENT_ENCODING);
+        return contentEncoding == null ? null : contentEncoding.toString();
+    }
+
+    @Override
+    protected void setContentEncoding(EventData azureMessage, String contentEncoding) {
+        azureMessage.getProperties().put(AzureHeaders.CONTENT_ENCODING, contentEncoding);
+    }
+
+    @Override
+    protected boolean supportsContentEncoding() {
+        return true;
+    }
+
+    @Override
+    protected Map<String, Object> getCustomHeadersView(EventData azureMessage) {
+        return Collections.unmodifiableMap(azureMessage.getProperties());
+    }
 }
@@ -7,14 +7,22 @@
 package com.microsoft.azure.spring.integration.eventhub.factory;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.microsoft.azure.eventhubs.EventHubClient;
 import com.microsoft.azure.eventhubs.EventHubException;
 import com.microsoft.azure.eventhubs.PartitionSender;
@@ -22,6 +30,7 @@ import com.microsoft.azure.eventhubs.impl.EventHubClientImpl;
 import com.microsoft.azure.eventprocessorhost.EventProcessorHost;
 import com.microsoft.azure.spring.cloud.context.core.util.Memoizer;
 import com.microsoft.azure.spring.cloud.context.core.util.Tuple;
+import com.microsoft.azure.spring.integration.eventhub.api.CheckpointStoreProvider;
 import com.microsoft.azure.spring.integration.eventhub.api.EventHubClientFactory;
 import com.microsoft.azure.spring.integration.eventhub.impl.EventHubRuntimeException;
 import com.microsoft.azure.spring.integration.eventhub.util.HostnameHelper;
@@ -44,38 +53,74 @@ public class DefaultEventHubClientFactory implements EventHubClientFactory, Disp
     private static final String USER_AGENT = "spring-cloud-azure/" + PROJECT_VERSION;
 
     // Maps used for cache and clean up clients
-    private final Map<String, EventHubClient> clientsByName = new ConcurrentHashMap<>();
+    // (eventHubName, connection index) -> eventHubClient
+    private final Map<Tuple<String, Integer>, EventHubClient> clientsByNameAndIndex = new ConcurrentHashMap<>();
     // (eventHubClient, partitionId) -> partitionSender
     private final Map<Tuple<EventHubClient, String>, PartitionSender> partitionSenderMap = new ConcurrentHashMap<>();
     // (eventHubName, consumerGroup) -> eventProcessorHost
     private final Map<Tuple<String, String>, EventProcessorHost> processorHostMap = new ConcurrentHashMap<>();
+    // eventHubName -> partitionIds
+    private final Map<String, List<String>> partitionIdsByName = new ConcurrentHashMap<>();
     private final BiFunction<EventHubClient, String, PartitionSender> partitionSenderCreator =
             Memoizer.memoize(partitionSenderMap, this::createPartitionSender);
     private final String checkpointStorageConnectionString;
+    private final CheckpointStoreProvider checkpointStoreProvider;
     private final EventHubConnectionStringProvider connectionStringProvider;
     // Memoized functional client creator
-    private final Function<String, EventHubClient> eventHubClientCreator =
-            Memoizer.memoize(clientsByName, this::createEventHubClient);
+    private final BiFunction<String, Integer, EventHubClient> eventHubClientCreator =
+            Memoizer.memoize(clientsByNameAndIndex, this::createEventHubClient);
+    private final Function<String, List<String>> partitionIdsResolver =
+            Memoizer.memoize(partitionIdsByName, this::fetchPartitionIds);
     private final BiFunction<String, String, EventProcessorHost> processorHostCreator =
             Memoizer.memoize(processorHostMap, this::createEventProcessorHost);
+    // Shared by all clients instead of one thread per client
+    private final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(
+            Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder().setNameFormat("eventhub-client-%d").setDaemon(true).build());
+    private int connectionsPerEventHub = 1;
+    private Duration shutdownTimeout = Duration.ofSeconds(60);
 
     public DefaultEventHubClientFactory(@NonNull EventHubConnectionStringProvider connectionStringProvider,
             String checkpointConnectionString) {
         Assert.hasText(checkpointConnectionString, "checkpointConnectionString can't be null or empty");
         this.connectionStringProvider = connectionStringProvider;
         this.checkpointStorageConnectionString = checkpointConnectionString;
+        this.checkpointStoreProvider = null;
         EventHubClientImpl.USER_AGENT = USER_AGENT + "/" + EventHubClientImpl.USER_AGENT;
     }
 
-    private EventHubClient createEventHubClient(String eventHubName) {
+    /**
+     * Store checkpoints and leases of event processor hosts with the given provider instead of Azure Storage.
+     */
+    public DefaultEventHubClientFactory(@NonNull EventHubConnectionStringProvider connectionStringProvider,
+            @NonNull CheckpointStoreProvider checkpointStoreProvider) {
+        this.connectionStringProvider = connectionStringProvider;
+        this.checkpointStorageConnectionString = null;
+        this.checkpointStoreProvider = checkpointStoreProvider;
+        EventHubClientImpl.USER_AGENT = USER_AGENT + "/" + EventHubClientImpl.USER_AGENT;
+    }
+
+    private EventHubClient createEventHubClient(String eventHubName, int index) {
         try {
             return EventHubClient.createSync(this.connectionStringProvider.getConnectionString(eventHubName),
-                    Executors.newSingleThreadScheduledExecutor());
+                    this.scheduler);
         } catch (EventHubException | IOException e) {
             throw new EventHubRuntimeException("Error when creating event hub client", e);
         }
     }
 
+    private List<String> fetchPartitionIds(String eventHubName) {
+        try {
+            return Collections.unmodifiableList(Arrays.asList(
+                    getOrCreateClient(eventHubName).getRuntimeInformation().get().getPartitionIds()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EventHubRuntimeException("Interrupted when fetching event hub partition ids", e);
+        } catch (ExecutionException e) {
+            throw new EventHubRuntimeException("Error when fetching event hub partition ids", e.getCause());
+        }
+    }
+
     private PartitionSender createPartitionSender(EventHubClient client, String partitionId) {
         try {
             return client.createPartitionSenderSync(partitionId);
@@ -85,34 +130,61 @@ public class DefaultEventHubClientFactory implements EventHubClientFactory, Disp
     }
 
     private EventProcessorHost createEventProcessorHost(String name, String consumerGroup) {
-        return new EventProcessorHost(EventProcessorHost.createHostName(HostnameHelper.getHostname()), name,
-                consumerGroup, connectionStringProvider.getConnectionString(name), checkpointStorageConnectionString,
-                name);
+        String hostName = EventProcessorHost.createHostName(HostnameHelper.getHostname());
+
+        if (this.checkpointStoreProvider != null) {
+            return new EventProcessorHost(hostName, name, consumerGroup,
+                    connectionStringProvider.getConnectionString(name),
+                    checkpointStoreProvider.getCheckpointStore(name, consumerGroup),
+                    checkpointStoreProvider.getLeaseStore(hostName, name, consumerGroup));
+        }
+
+        return new EventProcessorHost(hostName, name, consumerGroup, connectionStringProvider.getConnectionString(name),
+                checkpointStorageConnectionString, name);
     }
 
-    private <K, V> void close(Map<K, V> map, Function<V, CompletableFuture<Void>> close) {
-        CompletableFuture.allOf(map.values().stream().map(close).toArray(CompletableFuture[]::new))
+    private <K, V> CompletableFuture<Void> close(Map<K, V> map, Function<V, CompletableFuture<Void>> close) {
+        return CompletableFuture.allOf(map.values().stream().map(close).toArray(CompletableFuture[]::new))
         .exceptionally((ex) -> {
             log.warn("Failed to clean event hub client factory", ex);
             return null;
         });
     }
 
+    /**
+     * Processor hosts are unregistered first, so their partitions drain and checkpoint before leases are released.
+     * Senders and clients are closed afterwards.
+     */
     @Override
     public void destroy() throws Exception {
-        close(clientsByName, EventHubClient::close);
-        close(partitionSenderMap, PartitionSender::close);
-        close(processorHostMap, EventProcessorHost::unregisterEventProcessor);
+        try {
+            close(processorHostMap, EventProcessorHost::unregisterEventProcessor)
+                    .get(this.shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Timed out unregistering event processor hosts in {}", this.shutdownTimeout);
+        } finally {
+            close(partitionSenderMap, PartitionSender::close);
+            close(clientsByNameAndIndex, EventHubClient::close).whenComplete((v, t) -> this.scheduler.shutdown());
+        }
     }
 
     @Override
     public EventHubClient getOrCreateClient(String name) {
-        return this.eventHubClientCreator.apply(name);
+        return this.eventHubClientCreator.apply(name, 0);
     }
 
+    /**
+     * Partition senders are spread across {@link #setConnectionsPerEventHub} connections of the event hub.
+     */
     @Override
     public PartitionSender getOrCreatePartitionSender(String eventhub, String partition) {
-        return this.partitionSenderCreator.apply(getOrCreateClient(eventhub), partition);
+        int index = Math.floorMod(partition.hashCode(), this.connectionsPerEventHub);
+        return this.partitionSenderCreator.apply(this.eventHubClientCreator.apply(eventhub, index), partition);
+    }
+
+    @Override
+    public List<String> getPartitionIds(String eventHubName) {
+        return this.partitionIdsResolver.apply(eventHubName);
     }
 
     @Override
@@ -129,4 +201,33 @@ public class DefaultEventHubClientFactory implements EventHubClientFactory, Disp
     public EventProcessorHost removeEventProcessorHost(String name, String consumerGroup) {
         return this.processorHostMap.remove(Tuple.of(name, consumerGroup));
     }
+
+    public int getConnectionsPerEventHub() {
+        return connectionsPerEventHub;
+    }
+
+    /**
+     * Count of AMQP connections per event hub. Senders of partitions are spread across them. Default to 1.
+     */
+    public void setConnectionsPerEventHub(int connectionsPerEventHub) {
+        Assert.isTrue(connectionsPerEventHub > 0, "connectionsPerEventHub should be positive");
+        this.connectionsPerEventHub = connectionsPerEventHub;
+    }
+
+    /**
+     * Max time to wait for processor hosts to unregister when destroyed, before closing clients. Default to 60s.
+     */
+    public void setShutdownTimeout(Duration shutdownTimeout) {
+        Assert.isTrue(shutdownTimeout != null && !shutdownTimeout.isNegative(),
+                "shutdownTimeout should not be negative");
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    /**
+     * Thread count of scheduler shared by all event hub clients. Default to count of available processors.
+     */
+    public void setSchedulerPoolSize(int schedulerPoolSize) {
+        Assert.isTrue(schedulerPoolSize > 0, "schedulerPoolSize should be positive");
+        this.scheduler.setCorePoolSize(schedulerPoolSize);
+    }
 }
@@ -6,16 +6,28 @@
 
 package com.microsoft.azure.spring.integration.eventhub.impl;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.lang.NonNull;
 import org.springframework.messaging.Message;
 import org.springframework.util.Assert;
@@ -24,14 +36,25 @@ import com.google.common.base.Strings;
 import com.microsoft.azure.eventhubs.EventData;
 import com.microsoft.azure.eventhubs.EventHubClient;
 import com.microsoft.azure.eventhubs.EventPosition;
+import com.microsoft.azure.eventhubs.PartitionReceiver;
 import com.microsoft.azure.eventprocessorhost.EventProcessorHost;
 import com.microsoft.azure.eventprocessorhost.EventProcessorOptions;
+import com.microsoft.azure.spring.integration.core.AzureHeaders;
+import com.microsoft.azure.spring.integration.core.api.BatchConfig;
 import com.microsoft.azure.spring.integration.core.api.CheckpointConfig;
 import com.microsoft.azure.spring.integration.core.api.CheckpointMode;
+import com.microsoft.azure.spring.integration.core.api.ListenerMode;
+import com.microsoft.azure.spring.integration.core.api.PartitionKeyStrategy;
 import com.microsoft.azure.spring.integration.core.api.PartitionSupplier;
+import com.microsoft.azure.spring.integration.core.api.ReceiveConfig;
 import com.microsoft.azure.spring.integration.core.api.StartPosition;
 import com.microsoft.azure.spring.integration.eventhub.api.EventHubClientFactory;
 import com.microsoft.azure.spring.integration.eventhub.converter.EventHubMessageConverter;
+import com.microsoft.azure.spring.integration.eventhub.metrics.PartitionMetrics;
+import com.microsoft.azure.spring.integration.eventhub.metrics.PartitionMetricsRegistry;
+import com.microsoft.azure.spring.integration.eventhub.metrics.ScanResult;
+import com.microsoft.azure.spring.integration.eventhub.util.PartitionKeyResolver;
+import reactor.core.publisher.Flux;
 
 /**
  * Abstract base implementation of event hub template.
@@ -41,8 +64,12 @@ import com.microsoft.azure.spring.integration.eventhub.converter.EventHubMessage
  *
  * @author Warren Zhu
  */
-public class AbstractEventHubTemplate {
+public class AbstractEventHubTemplate implements DisposableBean {
     private static final Logger log = LoggerFactory.getLogger(AbstractEventHubTemplate.class);
+    private static final int DEFAULT_REPLAY_PREFETCH_COUNT = 1000;
+    private static final int SCAN_QUEUE_CAPACITY = 64;
+    // Time for flushing final checkpoints and releasing leases after draining
+    private static final long UNREGISTER_MARGIN_MILLIS = 10000;
     private final EventHubClientFactory clientFactory;
 
     private EventHubMessageConverter messageConverter = new EventHubMessageConverter();
@@ -51,18 +78,82 @@ public class AbstractEventHubTemplate {
 
     private CheckpointConfig checkpointConfig = CheckpointConfig.builder().checkpointMode(CheckpointMode.BATCH).build();
 
+    private ListenerMode listenerMode = ListenerMode.RECORD;
+
+    private Executor processorExecutor;
+
+    private int pipelineCapacity = 16;
+
+    private BatchConfig batchConfig;
+
+    private volatile EventDataBatchAccumulator batchAccumulator;
+
+    private boolean clientPartitionRouting = false;
+
+    private PartitionKeyStrategy partitionKeyStrategy = PartitionKeyStrategy.NONE;
+
+    private volatile PartitionSelector partitionSelector;
+
+    private Function<String, EventPosition> initialPositionProvider;
+
+    private ReceiveConfig receiveConfig;
+
+    private Duration drainTimeout = Duration.ofSeconds(30);
+
+    private Predicate<Map<String, Object>> eventSelector;
+
+    private final PartitionMetricsRegistry metricsRegistry = new PartitionMetricsRegistry();
+
+    // Operations created from this one, which are not beans themselves
+    private final List<AbstractEventHubTemplate> derivedOperations = new CopyOnWriteArrayList<>();
+
+    // Operation this one is created from, which forgets it once it's destroyed
+    private volatile AbstractEventHubTemplate parentOperation;
+
     AbstractEventHubTemplate(EventHubClientFactory clientFactory) {
         this.clientFactory = clientFactory;
     }
 
-    private static EventProcessorOptions buildEventProcessorOptions(StartPosition startPosition) {
+    private EventProcessorOptions buildEventProcessorOptions(int prefetchCount) {
         EventProcessorOptions options = EventProcessorOptions.getDefaultOptions();
 
-        if (startPosition == StartPosition.EARLIEST) {
-            options.setInitialPositionProvider((s) -> EventPosition.fromStartOfStream());
+        EventPosition defaultPosition;
+        if (this.startPosition == StartPosition.EARLIEST) {
+            defaultPosition = EventPosition.fromStartOfStream();
         } else /* StartPosition.LATEST */ {
-            options.setInitialPositionProvider((s) -> EventPosition.fromEndOfStream());
+            defaultPosition = EventPosition.fromEndOfStream();
+        }
+
+        Function<String, EventPosition> positionProvider = this.initialPositionProvider;
+        if (positionProvider == null) {
+            options.setInitialPositionProvider((s) -> defaultPosition);
+        } else {
+            options.setInitialPositionProvider((s) -> {
+                EventPosition position = positionProvider.apply(s);
+                return position == null ? defaultPosition : position;
+            });
+        }
+
+        ReceiveConfig config = this.receiveConfig;
+        if (config != null) {
+            if (config.getPrefetchCount() > 0) {
+                options.setPrefetchCount(config.getPrefetchCount());
+            }
+            if (config.getMaxBatchSize() > 0) {
+                options.setMaxBatchSize(config.getMaxBatchSize());
+            }
+            if (config.getReceiveTimeout() != null) {
+                options.setReceiveTimeOut(config.getReceiveTimeout());
+            }
+            options.setInvokeProcessorAfterReceiveTimeout(config.isInvokeOnTimeout());
+            // Last enqueued sequence number of each partition is needed for lag metrics
+            options.setReceiverRuntimeMetricEnabled(config.isLagMetricsEnabled());
+        }
+
+        if (prefetchCount > 0) {
+            options.setPrefetchCount(prefetchCount);
         }
+        options.setMaxBatchSize(Math.min(options.getMaxBatchSize(), options.getPrefetchCount()));
 
         return options;
     }
@@ -83,6 +174,19 @@ public class AbstractEventHubTemplate {
     private CompletableFuture<Void> doSend(String eventHubName, PartitionSupplier partitionSupplier,
             List<EventData> eventData) {
         try {
+            partitionSupplier = resolvePartition(eventHubName, partitionSupplier);
+            partitionSupplier = selectPartition(eventHubName, partitionSupplier);
+
+            EventDataBatchAccumulator accumulator = this.batchAccumulator;
+            if (accumulator != null) {
+                return accumulator.send(eventHubName, partitionSupplier, eventData);
+            }
+
+            if (partitionSupplier != null && !Strings.isNullOrEmpty(partitionSupplier.getPartitionId())) {
+                // Without batching producer, events of each send call are one batch
+                onBatchSent(eventHubName, partitionSupplier.getPartitionId());
+            }
+
             EventHubClient client = this.clientFactory.getOrCreateClient(eventHubName);
 
             if (partitionSupplier == null) {
@@ -103,9 +207,159 @@ public class AbstractEventHubTemplate {
         }
     }
 
+    /**
+     * Replace partition key with partition id resolved on client side, if enabled and partition ids are known
+     */
+    private PartitionSupplier resolvePartition(String eventHubName, PartitionSupplier partitionSupplier) {
+        if (!this.clientPartitionRouting || partitionSupplier == null ||
+                !Strings.isNullOrEmpty(partitionSupplier.getPartitionId()) ||
+                Strings.isNullOrEmpty(partitionSupplier.getPartitionKey())) {
+            return partitionSupplier;
+        }
+
+        List<String> partitionIds = this.clientFactory.getPartitionIds(eventHubName);
+        if (partitionIds == null || partitionIds.isEmpty()) {
+            return partitionSupplier;
+        }
+
+        PartitionSupplier resolved = new PartitionSupplier();
+        resolved.setPartitionId(
+                PartitionKeyResolver.resolvePartitionId(partitionSupplier.getPartitionKey(), partitionIds));
+        return resolved;
+    }
+
+    /**
+     * Assign partition id to events sent without partition id or partition key, if partition key strategy is round
+     * robin or sticky and partition ids are known
+     */
+    private PartitionSupplier selectPartition(String eventHubName, PartitionSupplier partitionSupplier) {
+        PartitionSelector selector = this.partitionSelector;
+        if (selector == null || (partitionSupplier != null &&
+                (!Strings.isNullOrEmpty(partitionSupplier.getPartitionId()) ||
+                        !Strings.isNullOrEmpty(partitionSupplier.getPartitionKey())))) {
+            return partitionSupplier;
+        }
+
+        List<String> partitionIds = this.clientFactory.getPartitionIds(eventHubName);
+        if (partitionIds == null || partitionIds.isEmpty()) {
+            return partitionSupplier;
+        }
+
+        PartitionSupplier selected = new PartitionSupplier();
+        selected.setPartitionId(selector.select(eventHubName, partitionIds));
+        return selected;
+    }
+
+    private void onBatchSent(String eventHubName, String partitionId) {
+        PartitionSelector selector = this.partitionSelector;
+        if (selector != null) {
+            selector.onBatchSent(eventHubName, partitionId);
+        }
+    }
+
     protected void register(String name, String consumerGroup, EventHubProcessor eventProcessor) {
+        register(name, consumerGroup, eventProcessor, 0);
+    }
+
+    /**
+     * @param prefetchCount count of events prefetched by receiver of each partition overriding receive config, or 0
+     */
+    protected void register(String name, String consumerGroup, EventHubProcessor eventProcessor,
+            int prefetchCount) {
+        EventProcessorOptions options = buildEventProcessorOptions(prefetchCount);
+        ReceiveConfig config = this.receiveConfig;
+        if (config != null && config.getTargetBatchLatency() != null) {
+            eventProcessor.setBatchSizer(new AdaptiveBatchSizer(options, config.getTargetBatchLatency()));
+        }
+
         EventProcessorHost host = this.clientFactory.getOrCreateEventProcessorHost(name, consumerGroup);
-        host.registerEventProcessorFactory(context -> eventProcessor, buildEventProcessorOptions(startPosition));
+        host.registerEventProcessorFactory(context -> eventProcessor, options);
+    }
+
+    /**
+     * Create {@link Flux} which registers event processor on subscribe and unregisters it on cancel. Receive thread
+     * of each partition blocks while subscriber has no demand, so at most {@code prefetch} events of each partition
+     * are buffered in receiver, and automatic checkpoint only covers events delivered to subscriber.
+     */
+    protected Flux<Message<?>> createFlux(String destination, String consumerGroup, Class<?> messagePayloadType,
+            int prefetch) {
+        Assert.isTrue(prefetch > 0, "prefetch should be positive");
+
+        return Flux.<Message<?>>create(sink -> {
+            DemandGate demand = new DemandGate(sink::requestedFromDownstream);
+            sink.onRequest(n -> demand.onRequest());
+            sink.onDispose(() -> {
+                demand.cancel();
+                unregister(destination, consumerGroup);
+            });
+
+            EventHubProcessor processor =
+                    createProcessor(message -> demand.emit(() -> sink.next(message)), messagePayloadType);
+            register(destination, consumerGroup, processor, prefetch);
+        }).publish(prefetch).refCount();
+    }
+
+    /**
+     * Create event processor with settings of this template, recording metrics of its partitions
+     */
+    protected EventHubProcessor createProcessor(Consumer<Message<?>> consumer, Class<?> messagePayloadType) {
+        EventHubProcessor processor =
+                new EventHubProcessor(consumer, messagePayloadType, getCheckpointConfig(), getMessageConverter(),
+                        getListenerMode(), getProcessorExecutor(), getPipelineCapacity());
+        processor.setMetricsRegistry(this.metricsRegistry);
+        processor.setDrainTimeout(this.drainTimeout);
+        processor.setEventSelector(this.eventSelector);
+        return processor;
+    }
+
+    /**
+     * Read events enqueued in the given time window from all partitions in parallel with partition receivers, without
+     * leases or checkpoints. Each partition is read until the given end time or the last event enqueued when replay
+     * starts, whichever comes first.
+     *
+     * <p>
+     * Consumer group should not be used by registered processors, whose epoch receivers disconnect other receivers.
+     * Consumer is called concurrently for different partitions, and in order for events of one partition.
+     *
+     * @param to enqueued time to stop before, or {@code null} to read until the last enqueued event
+     * @return future completed once all partitions are replayed
+     */
+    public CompletableFuture<Void> replay(String eventHubName, String consumerGroup, @NonNull Instant from, Instant to,
+            Consumer<Message<?>> consumer, Class<?> messagePayloadType) {
+        Assert.isTrue(to == null || from.isBefore(to), "from should be before to");
+        ReceiveConfig config = this.receiveConfig;
+        int prefetchCount = config != null && config.getPrefetchCount() > 0 ? config.getPrefetchCount() :
+                DEFAULT_REPLAY_PREFETCH_COUNT;
+        int maxBatchSize = config != null && config.getMaxBatchSize() > 0 ? config.getMaxBatchSize() : prefetchCount;
+
+        PartitionReader reader = new PartitionReader(this.clientFactory, prefetchCount, maxBatchSize);
+        EventPosition position = EventPosition.fromEnqueuedTime(from);
+        return reader.read(eventHubName, consumerGroup, id -> position, to, (partitionId, events) -> {
+            Map<String, Object> headers = Collections.singletonMap(AzureHeaders.RAW_PARTITION_ID, partitionId);
+            events.forEach(e -> consumer.accept(this.messageConverter.toMessage(e, headers, messagePayloadType)));
+        });
+    }
+
+    /**
+     * Read all events of all partitions from start of stream until the last event enqueued when scan starts, receiving
+     * partitions in parallel with max prefetch. Received batches are delivered through a bounded queue as batch
+     * messages on the common fork-join pool, one at a time.
+     *
+     * <p>
+     * Like {@link #replay}, no leases or checkpoints are involved, so consumer group should not be used by registered
+     * processors.
+     *
+     * @return future completed with event count, byte count and throughput once all partitions are scanned
+     */
+    public CompletableFuture<ScanResult> scan(String eventHubName, String consumerGroup,
+            Consumer<Message<?>> consumer, Class<?> messagePayloadType) {
+        PartitionScanner scanner =
+                new PartitionScanner(this.clientFactory, PartitionReceiver.MAXIMUM_PREFETCH_COUNT, SCAN_QUEUE_CAPACITY,
+                        ForkJoinPool.commonPool());
+        return scanner.scan(eventHubName, consumerGroup, (partitionId, events) -> {
+            Map<String, Object> headers = Collections.singletonMap(AzureHeaders.RAW_PARTITION_ID, partitionId);
+            consumer.accept(this.messageConverter.toBatchMessage(events, headers, messagePayloadType));
+        });
     }
 
     protected void unregister(String name, String consumerGroup) {
@@ -117,20 +371,62 @@ public class AbstractEventHubTemplate {
     private void unregisterEventProcessor(EventProcessorHost eventProcessorHost, String name, String consumerGroup) {
         this.clientFactory.removeEventProcessorHost(name, consumerGroup);
 
-        eventProcessorHost
-        .unregisterEventProcessor()
-        .whenComplete((s, t) -> {
-            if (t != null) {
-                log.warn(String.format("Failed to unregister consumer '%s' with group '%s'", name,
-                        consumerGroup), t);
-            }
-        });
+        // Wait for owned partitions to drain and checkpoint before returning, so a following shutdown doesn't cut them
+        try {
+            eventProcessorHost.unregisterEventProcessor()
+                              .get(this.drainTimeout.toMillis() + UNREGISTER_MARGIN_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.warn(String.format("Failed to unregister consumer '%s' with group '%s'", name, consumerGroup),
+                    e.getCause());
+        } catch (TimeoutException e) {
+            log.warn("Timed out unregistering consumer '{}' with group '{}'", name, consumerGroup);
+        }
+    }
+
+    /**
+     * Copy settings of this template to the given one, which shares the client factory but is configured
+     * independently afterwards. The given one is destroyed with this template, unless destroyed earlier.
+     */
+    protected void copySettingsTo(AbstractEventHubTemplate target) {
+        this.derivedOperations.add(target);
+        target.parentOperation = this;
+        target.messageConverter = this.messageConverter;
+        target.startPosition = this.startPosition;
+        target.checkpointConfig = this.checkpointConfig;
+        target.listenerMode = this.listenerMode;
+        target.processorExecutor = this.processorExecutor;
+        target.pipelineCapacity = this.pipelineCapacity;
+        target.clientPartitionRouting = this.clientPartitionRouting;
+        target.receiveConfig = this.receiveConfig;
+        target.setPartitionKeyStrategy(this.partitionKeyStrategy);
+        target.initialPositionProvider = this.initialPositionProvider;
+        target.drainTimeout = this.drainTimeout;
+        target.eventSelector = this.eventSelector;
+
+        if (this.batchConfig != null) {
+            target.setBatchConfig(this.batchConfig);
+        }
+    }
+
+    protected EventHubClientFactory getClientFactory() {
+        return clientFactory;
     }
 
     protected Map<String, Object> buildPropertiesMap() {
         Map<String, Object> properties = new HashMap<>();
         properties.put("startPosition", this.startPosition);
         properties.put("checkpointConfig", this.getCheckpointConfig());
+        properties.put("listenerMode", this.listenerMode);
+        properties.put("pipelineCapacity", this.pipelineCapacity);
+        properties.put("batchConfig", this.batchConfig);
+        properties.put("clientPartitionRouting", this.clientPartitionRouting);
+        properties.put("receiveConfig", this.receiveConfig);
+        properties.put("partitionKeyStrategy", this.partitionKeyStrategy);
+        properties.put("initialPositionProvider", this.initialPositionProvider);
+        properties.put("drainTimeout", this.drainTimeout);
+        properties.put("eventSelector", this.eventSelector);
 
         return properties;
     }
@@ -160,4 +456,188 @@ public class AbstractEventHubTemplate {
         log.info("EventHubTemplate checkpoint config becomes: {}", checkpointConfig);
         this.checkpointConfig = checkpointConfig;
     }
+
+    public ListenerMode getListenerMode() {
+        return listenerMode;
+    }
+
+    public void setListenerMode(ListenerMode listenerMode) {
+        log.info("EventHubTemplate listener mode becomes: {}", listenerMode);
+        this.listenerMode = listenerMode;
+    }
+
+    public Executor getProcessorExecutor() {
+        return processorExecutor;
+    }
+
+    /**
+     * Executor to handle received events on. By default events are handled on the receive thread. Any executor works,
+     * e.g. a virtual thread per task executor on a newer JDK, since events of one partition are still handled in order.
+     */
+    public void setProcessorExecutor(Executor processorExecutor) {
+        log.info("EventHubTemplate processor executor becomes: {}", processorExecutor);
+        this.processorExecutor = processorExecutor;
+    }
+
+    public int getPipelineCapacity() {
+        return pipelineCapacity;
+    }
+
+    /**
+     * Max count of received batches of each partition waiting for processor executor. Receiving is blocked once full.
+     */
+    public void setPipelineCapacity(int pipelineCapacity) {
+        Assert.isTrue(pipelineCapacity > 0, "pipelineCapacity should be positive");
+        log.info("EventHubTemplate pipeline capacity becomes: {}", pipelineCapacity);
+        this.pipelineCapacity = pipelineCapacity;
+    }
+
+    public BatchConfig getBatchConfig() {
+        return batchConfig;
+    }
+
+    /**
+     * Enable batching producer if not {@code null}. Events sent to the same event hub with the same partition id or
+     * partition key are then sent in batches. Pending batches of previous config are sent right away.
+     */
+    public synchronized void setBatchConfig(BatchConfig batchConfig) {
+        log.info("EventHubTemplate batch config becomes: {}", batchConfig);
+        EventDataBatchAccumulator previous = this.batchAccumulator;
+        this.batchConfig = batchConfig;
+        this.batchAccumulator = batchConfig == null ? null :
+                new EventDataBatchAccumulator(clientFactory, batchConfig, this::onBatchSent);
+
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    public boolean isClientPartitionRouting() {
+        return clientPartitionRouting;
+    }
+
+    /**
+     * Whether to resolve partition of partition key on client side and send to its partition sender directly,
+     * skipping the routing on service side. Partition key is then not kept in system properties of sent events.
+     */
+    public void setClientPartitionRouting(boolean clientPartitionRouting) {
+        log.info("EventHubTemplate client partition routing becomes: {}", clientPartitionRouting);
+        this.clientPartitionRouting = clientPartitionRouting;
+    }
+
+    public Function<String, EventPosition> getInitialPositionProvider() {
+        return initialPositionProvider;
+    }
+
+    /**
+     * Start position of each partition id for processors registered afterwards, e.g. by enqueued time, offset or
+     * sequence number. Partitions it returns {@code null} for start from {@link #getStartPosition()}. Only effective
+     * for partitions without checkpoint in the consumer group, so replaying from an earlier position needs a new
+     * consumer group.
+     */
+    public void setInitialPositionProvider(Function<String, EventPosition> initialPositionProvider) {
+        log.info("EventHubTemplate initial position provider becomes: {}", initialPositionProvider);
+        this.initialPositionProvider = initialPositionProvider;
+    }
+
+    public Duration getDrainTimeout() {
+        return drainTimeout;
+    }
+
+    /**
+     * Max time for closing partitions to handle pending events before final checkpoint, when unsubscribing or after
+     * losing partitions in rebalance. Default to 30s.
+     */
+    public void setDrainTimeout(Duration drainTimeout) {
+        Assert.isTrue(drainTimeout != null && !drainTimeout.isNegative(), "drainTimeout should not be negative");
+        log.info("EventHubTemplate drain timeout becomes: {}", drainTimeout);
+        this.drainTimeout = drainTimeout;
+    }
+
+    public Predicate<Map<String, Object>> getEventSelector() {
+        return eventSelector;
+    }
+
+    /**
+     * Selector on properties of received events for processors registered afterwards, evaluated before conversion.
+     * Events not selected are skipped without being converted, and checkpointed like handled ones. Default to
+     * {@code null}, which selects all events.
+     */
+    public void setEventSelector(Predicate<Map<String, Object>> eventSelector) {
+        log.info("EventHubTemplate event selector becomes: {}", eventSelector);
+        this.eventSelector = eventSelector;
+    }
+
+    public PartitionKeyStrategy getPartitionKeyStrategy() {
+        return partitionKeyStrategy;
+    }
+
+    /**
+     * With {@link PartitionKeyStrategy#ROUND_ROBIN} or {@link PartitionKeyStrategy#STICKY}, events sent without
+     * partition id or partition key are sent to partition senders directly, so batching producer collects them by
+     * partition. Other strategies leave such events to the service.
+     */
+    public void setPartitionKeyStrategy(PartitionKeyStrategy partitionKeyStrategy) {
+        log.info("EventHubTemplate partition key strategy becomes: {}", partitionKeyStrategy);
+        this.partitionKeyStrategy = partitionKeyStrategy;
+        this.partitionSelector = partitionKeyStrategy == PartitionKeyStrategy.ROUND_ROBIN ||
+                partitionKeyStrategy == PartitionKeyStrategy.STICKY ? new PartitionSelector(partitionKeyStrategy) :
+                null;
+    }
+
+    public ReceiveConfig getReceiveConfig() {
+        return receiveConfig;
+    }
+
+    /**
+     * Prefetch count, max batch size and receive timeout of processors registered afterwards. Sdk defaults are used
+     * if {@code null}.
+     */
+    public void setReceiveConfig(ReceiveConfig receiveConfig) {
+        log.info("EventHubTemplate receive config becomes: {}", receiveConfig);
+        this.receiveConfig = receiveConfig;
+    }
+
+    /**
+     * Metrics of partitions currently owned by processors registered by this template
+     */
+    public List<PartitionMetrics> getPartitionMetrics() {
+        return this.metricsRegistry.getAll();
+    }
+
+    /**
+     * Send pending batches without waiting for linger time. No-op if batching producer is not enabled.
+     */
+    public void flush() {
+        EventDataBatchAccumulator accumulator = this.batchAccumulator;
+        if (accumulator != null) {
+            accumulator.flush();
+        }
+    }
+
+    /**
+     * Send pending batches of this template and operations created from it, waiting for them to be sent. Called
+     * before the client factory closes senders, since the factory is destroyed after templates depending on it.
+     */
+    @Override
+    public void destroy() {
+        AbstractEventHubTemplate parent = this.parentOperation;
+        if (parent != null) {
+            parent.derivedOperations.remove(this);
+            this.parentOperation = null;
+        }
+
+        this.derivedOperations.forEach(AbstractEventHubTemplate::destroy);
+        this.derivedOperations.clear();
+
+        EventDataBatchAccumulator accumulator;
+        synchronized (this) {
+            accumulator = this.batchAccumulator;
+            this.batchAccumulator = null;
+        }
+
+        if (accumulator != null) {
+            accumulator.close();
+        }
+    }
 }
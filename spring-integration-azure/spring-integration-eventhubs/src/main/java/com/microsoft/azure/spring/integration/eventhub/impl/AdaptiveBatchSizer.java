@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.impl;
+
+import com.microsoft.azure.eventprocessorhost.EventProcessorOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * Adjust max batch size of registered {@link EventProcessorOptions}, which receivers read before each receive call.
+ *
+ * <p>
+ * Max batch size grows by a quarter after a full batch handled within the target latency, and is halved after a
+ * batch exceeding it. It stays between 1 and the prefetch count.
+ *
+ * @author Warren Zhu
+ */
+class AdaptiveBatchSizer {
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveBatchSizer.class);
+
+    private final EventProcessorOptions options;
+    private final long targetLatencyNanos;
+
+    AdaptiveBatchSizer(EventProcessorOptions options, Duration targetLatency) {
+        this.options = options;
+        this.targetLatencyNanos = targetLatency.toNanos();
+    }
+
+    synchronized void onBatchHandled(int batchSize, long elapsedNanos) {
+        int current = this.options.getMaxBatchSize();
+        int next;
+
+        if (elapsedNanos > this.targetLatencyNanos) {
+            next = Math.max(1, current / 2);
+        } else if (batchSize >= current) {
+            next = Math.min(this.options.getPrefetchCount(), current + Math.max(1, current / 4));
+        } else {
+            return;
+        }
+
+        if (next != current) {
+            this.options.setMaxBatchSize(next);
+            log.debug("Max batch size becomes {} after handling {} events in {} ms", next, batchSize,
+                    elapsedNanos / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.impl;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Gate between receive threads and a reactive subscriber. Receive threads block in {@link #emit} until the
+ * subscriber has outstanding demand, so events are left in the receiver of each partition instead of being buffered
+ * in memory.
+ *
+ * @author Warren Zhu
+ */
+class DemandGate {
+    private final LongSupplier requested;
+    private boolean cancelled;
+
+    /**
+     * @param requested outstanding demand of the subscriber
+     */
+    DemandGate(LongSupplier requested) {
+        this.requested = requested;
+    }
+
+    /**
+     * Wake up receive threads waiting for demand. Should be called once subscriber requests more.
+     */
+    synchronized void onRequest() {
+        notifyAll();
+    }
+
+    synchronized void cancel() {
+        this.cancelled = true;
+        notifyAll();
+    }
+
+    /**
+     * Wait for demand and run the emission while holding the gate, so concurrent receive threads don't emit against
+     * the same demand. Fail if subscriber has cancelled, so the rest of events are not checkpointed.
+     */
+    synchronized void emit(Runnable emission) {
+        while (this.requested.getAsLong() <= 0 && !this.cancelled) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EventHubRuntimeException("Interrupted when waiting for subscriber demand", e);
+            }
+        }
+
+        if (this.cancelled) {
+            throw new EventHubRuntimeException("Subscriber has cancelled");
+        }
+
+        emission.run();
+    }
+}
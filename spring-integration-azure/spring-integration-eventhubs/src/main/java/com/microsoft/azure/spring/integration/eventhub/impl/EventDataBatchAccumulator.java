@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.impl;
+
+import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.microsoft.azure.eventhubs.BatchOptions;
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventDataBatch;
+import com.microsoft.azure.eventhubs.EventHubException;
+import com.microsoft.azure.spring.cloud.context.core.util.Tuple;
+import com.microsoft.azure.spring.integration.core.InFlightBatchLimiter;
+import com.microsoft.azure.spring.integration.core.api.BatchConfig;
+import com.microsoft.azure.spring.integration.core.api.PartitionSupplier;
+import com.microsoft.azure.spring.integration.eventhub.api.EventHubClientFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+/**
+ * Accumulate events sent to the same event hub with the same partition id or partition key into
+ * {@link EventDataBatch}, and send each batch as one unit once it's full or linger time elapses.
+ *
+ * <p>
+ * The future returned by {@link #send} completes when all batches holding its events are sent. Pending batch of a
+ * route is removed once flushed, so routes of many distinct partition keys don't pile up. Batches beyond
+ * {@link BatchConfig#getMaxInFlightBatches()} wait without blocking the flushing thread, and senders wait for them
+ * before adding more events. Events of one call are checked to fit a batch before any of them is added.
+ *
+ * @author Warren Zhu
+ */
+class EventDataBatchAccumulator {
+    private static final Logger log = LoggerFactory.getLogger(EventDataBatchAccumulator.class);
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final EventHubClientFactory clientFactory;
+    private final BatchConfig batchConfig;
+    private final ScheduledExecutorService lingerScheduler;
+    private final InFlightBatchLimiter inFlightLimiter;
+    private final BiConsumer<String, String> batchSentListener;
+
+    // (eventHubName, partition route) -> pending batch
+    private final Map<Tuple<String, String>, PendingBatch> pendingBatches = new ConcurrentHashMap<>();
+
+    EventDataBatchAccumulator(EventHubClientFactory clientFactory, BatchConfig batchConfig) {
+        this(clientFactory, batchConfig, null);
+    }
+
+    /**
+     * @param batchSentListener called with event hub name and partition id when a batch sent to a partition sender
+     * is closed, or {@code null}
+     */
+    EventDataBatchAccumulator(EventHubClientFactory clientFactory, BatchConfig batchConfig,
+            BiConsumer<String, String> batchSentListener) {
+        this.clientFactory = clientFactory;
+        this.batchConfig = batchConfig;
+        this.batchSentListener = batchSentListener;
+        this.lingerScheduler = batchConfig.getLingerTime().isZero() ? null : Executors
+                .newSingleThreadScheduledExecutor(
+                        new ThreadFactoryBuilder().setNameFormat("eventhub-batch-linger-%d").setDaemon(true).build());
+        this.inFlightLimiter = batchConfig.getMaxInFlightBatches() > 0 ?
+                new InFlightBatchLimiter(batchConfig.getMaxInFlightBatches()) : null;
+    }
+
+    CompletableFuture<Void> send(String eventHubName, PartitionSupplier partitionSupplier, List<EventData> events) {
+        String partitionId = partitionSupplier == null ? null : Strings.emptyToNull(partitionSupplier.getPartitionId());
+        String partitionKey =
+                partitionSupplier == null ? null : Strings.emptyToNull(partitionSupplier.getPartitionKey());
+        String route = partitionId != null ? "id:" + partitionId : partitionKey != null ? "key:" + partitionKey : "";
+
+        if (events.size() > 1) {
+            // Rejected before adding any, so no event of the call is sent if one of them never fits a batch
+            checkBatchSize(eventHubName, partitionId, partitionKey, events);
+        }
+
+        awaitInFlight();
+
+        Tuple<String, String> key = Tuple.of(eventHubName, route);
+        PendingBatch pendingBatch = getOrCreatePendingBatch(key, partitionId, partitionKey);
+
+        // Consecutive events usually share the same batch, so only distinct futures are joined
+        Set<CompletableFuture<Void>> futures = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (EventData event : events) {
+            CompletableFuture<Void> future;
+            while ((future = pendingBatch.add(event)) == null) {
+                // Flushed and removed meanwhile
+                pendingBatch = getOrCreatePendingBatch(key, partitionId, partitionKey);
+            }
+            futures.add(future);
+        }
+
+        if (this.lingerScheduler == null) {
+            pendingBatch.flush();
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    private void checkBatchSize(String eventHubName, String partitionId, String partitionKey,
+            List<EventData> events) {
+        for (EventData event : events) {
+            boolean fits;
+            try {
+                fits = createBatch(eventHubName, partitionId, partitionKey).tryAdd(event);
+            } catch (EventHubException e) {
+                throw new EventHubRuntimeException(
+                        String.format("Event is larger than max message size of event hub '%s'", eventHubName), e);
+            }
+
+            if (!fits) {
+                throw new EventHubRuntimeException(
+                        String.format("Event is larger than batch size of event hub '%s'", eventHubName));
+            }
+        }
+    }
+
+    private EventDataBatch createBatch(String eventHubName, String partitionId, String partitionKey) {
+        BatchOptions options = new BatchOptions().with(o -> {
+            o.partitionKey = partitionKey;
+            if (this.batchConfig.getBatchSize() > 0) {
+                o.maxMessageSize = this.batchConfig.getBatchSize();
+            }
+        });
+
+        if (partitionId != null) {
+            return this.clientFactory.getOrCreatePartitionSender(eventHubName, partitionId).createBatch(options);
+        }
+
+        try {
+            return this.clientFactory.getOrCreateClient(eventHubName).createBatch(options);
+        } catch (EventHubException e) {
+            throw new EventHubRuntimeException("Error when creating event data batch", e);
+        }
+    }
+
+    private PendingBatch getOrCreatePendingBatch(Tuple<String, String> key, String partitionId, String partitionKey) {
+        return this.pendingBatches.computeIfAbsent(key, k -> new PendingBatch(k, partitionId, partitionKey));
+    }
+
+    /**
+     * Send all pending batches without waiting for linger time.
+     *
+     * @return future completed once the flushed batches are sent
+     */
+    CompletableFuture<Void> flush() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (PendingBatch pendingBatch : this.pendingBatches.values()) {
+            futures.add(pendingBatch.flush());
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Send all pending batches, wait for them to be sent, and stop linger scheduler. Batches not sent within
+     * {@link #CLOSE_TIMEOUT} are left to fail with their senders.
+     */
+    void close() {
+        if (this.lingerScheduler != null) {
+            this.lingerScheduler.shutdown();
+        }
+
+        try {
+            flush().get(CLOSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            log.warn("Timed out sending pending batches in {}", CLOSE_TIMEOUT);
+        } catch (ExecutionException e) {
+            // Failure is logged and reported to futures of each batch
+        }
+    }
+
+    private class PendingBatch {
+        private final Tuple<String, String> key;
+        private final String eventHubName;
+        private final String partitionId;
+        private final String partitionKey;
+
+        private EventDataBatch batch;
+        private CompletableFuture<Void> batchFuture;
+        private ScheduledFuture<?> lingerTask;
+        private boolean removed;
+
+        PendingBatch(Tuple<String, String> key, String partitionId, String partitionKey) {
+            this.key = key;
+            this.eventHubName = key.getFirst();
+            this.partitionId = partitionId;
+            this.partitionKey = partitionKey;
+        }
+
+        /**
+         * @return future completed once batch holding the event is sent, or {@code null} if this pending batch is
+         * removed and the event should be added to a new one
+         */
+        synchronized CompletableFuture<Void> add(EventData event) {
+            if (this.removed) {
+                return null;
+            }
+
+            if (this.batch == null) {
+                open();
+            }
+
+            if (!tryAdd(event)) {
+                sendBatch();
+                open();
+
+                if (!tryAdd(event)) {
+                    throw new EventHubRuntimeException(
+                            String.format("Event is larger than batch size of event hub '%s'", this.eventHubName));
+                }
+            }
+
+            return this.batchFuture;
+        }
+
+        /**
+         * Send current batch and remove this pending batch from its route
+         */
+        synchronized CompletableFuture<Void> flush() {
+            CompletableFuture<Void> sendingFuture = this.batchFuture;
+            sendBatch();
+
+            this.removed = true;
+            pendingBatches.remove(this.key, this);
+            return sendingFuture == null ? CompletableFuture.completedFuture(null) : sendingFuture;
+        }
+
+        private void sendBatch() {
+            if (this.batch == null) {
+                return;
+            }
+
+            EventDataBatch sendingBatch = this.batch;
+            CompletableFuture<Void> sendingFuture = this.batchFuture;
+            this.batch = null;
+            this.batchFuture = null;
+
+            if (this.lingerTask != null) {
+                this.lingerTask.cancel(false);
+                this.lingerTask = null;
+            }
+
+            if (sendingBatch.getSize() == 0) {
+                sendingFuture.complete(null);
+                return;
+            }
+
+            if (this.partitionId != null && batchSentListener != null) {
+                batchSentListener.accept(this.eventHubName, this.partitionId);
+            }
+
+            // Batches of the same route are submitted in order while holding the lock, and started in that order
+            CompletableFuture<Void> sent;
+            if (inFlightLimiter != null) {
+                sent = inFlightLimiter.submit(() -> doSend(sendingBatch));
+            } else {
+                try {
+                    sent = doSend(sendingBatch);
+                } catch (RuntimeException e) {
+                    sent = new CompletableFuture<>();
+                    sent.completeExceptionally(e);
+                }
+            }
+
+            sent.whenComplete((v, t) -> {
+                if (t != null) {
+                    log.error(String.format("Failed to send batch of %d events to '%s'", sendingBatch.getSize(),
+                            this.eventHubName), t);
+                    sendingFuture.completeExceptionally(t);
+                } else {
+                    sendingFuture.complete(null);
+                }
+            });
+        }
+
+        private void open() {
+            this.batch = createBatch(this.eventHubName, this.partitionId, this.partitionKey);
+            this.batchFuture = new CompletableFuture<>();
+
+            if (lingerScheduler != null) {
+                this.lingerTask = lingerScheduler
+                        .schedule(this::flush, batchConfig.getLingerTime().toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private boolean tryAdd(EventData event) {
+            try {
+                return this.batch.tryAdd(event);
+            } catch (EventHubException e) {
+                throw new EventHubRuntimeException(
+                        String.format("Event is larger than max message size of event hub '%s'", this.eventHubName),
+                        e);
+            }
+        }
+
+        private CompletableFuture<Void> doSend(EventDataBatch sendingBatch) {
+            if (this.partitionId != null) {
+                return clientFactory.getOrCreatePartitionSender(this.eventHubName, this.partitionId)
+                                    .send(sendingBatch);
+            }
+
+            return clientFactory.getOrCreateClient(this.eventHubName).send(sendingBatch);
+        }
+    }
+
+    /**
+     * Wait for batches beyond max in-flight batches to be started, so senders don't outpace sending
+     */
+    private void awaitInFlight() {
+        if (this.inFlightLimiter == null) {
+            return;
+        }
+
+        try {
+            this.inFlightLimiter.awaitCapacity();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EventHubRuntimeException("Interrupted when waiting for in-flight batches", e);
+        }
+    }
+
+    /**
+     * Count of routes with a pending batch
+     */
+    int getPendingRouteCount() {
+        return this.pendingBatches.size();
+    }
+}
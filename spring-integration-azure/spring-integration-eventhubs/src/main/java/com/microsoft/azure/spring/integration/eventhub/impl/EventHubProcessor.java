@@ -15,67 +15,365 @@ import com.microsoft.azure.spring.integration.core.AzureHeaders;
 import com.microsoft.azure.spring.integration.core.api.CheckpointConfig;
 import com.microsoft.azure.spring.integration.core.api.CheckpointMode;
 import com.microsoft.azure.spring.integration.core.api.Checkpointer;
+import com.microsoft.azure.spring.integration.core.api.ListenerMode;
 import com.microsoft.azure.spring.integration.eventhub.checkpoint.CheckpointManager;
 import com.microsoft.azure.spring.integration.eventhub.converter.EventHubMessageConverter;
+import com.microsoft.azure.spring.integration.eventhub.metrics.PartitionMetrics;
+import com.microsoft.azure.spring.integration.eventhub.metrics.PartitionMetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.messaging.Message;
-import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.Assert;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Implementation of {@link IEventProcessor} to be registered via event hub sdk.
  * <p>
- * Mainly handle message conversion and checkpoint
+ * Mainly handle message conversion and checkpoint. In {@link ListenerMode#BATCH}, all events of one
+ * {@link #onEvents} call are delivered as a single {@link Message} whose payload is a {@link List}.
+ * <p>
+ * If a pipeline executor is given, events are handed over to a bounded {@link PartitionPipeline} of each partition
+ * and handled on that executor, so a slow consumer doesn't hold the receive thread. Events of one partition are still
+ * handled in order, and only the last handled event is checkpointed.
+ * <p>
+ * When a partition closes, e.g. on shutdown or rebalance, pending batches are handled within the drain timeout and
+ * the last handled event is checkpointed before the lease is released, so the next owner doesn't handle it again.
+ * <p>
+ * If an event selector is given, events whose properties it rejects are skipped before conversion and only move the
+ * checkpoint position forward.
  *
  * @author Warren Zhu
  */
 public class EventHubProcessor implements IEventProcessor {
     private static final Logger log = LoggerFactory.getLogger(EventHubProcessor.class);
+    private static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(30);
     private final Consumer<Message<?>> consumer;
     private final Class<?> payloadType;
     private final CheckpointConfig checkpointConfig;
     private final EventHubMessageConverter messageConverter;
     private final CheckpointManager checkpointManager;
+    private final ListenerMode listenerMode;
+    private final Executor pipelineExecutor;
+    private final int pipelineCapacity;
+    private final Map<String, PartitionPipeline> pipelinesByPartition = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Object>> headersByPartition = new ConcurrentHashMap<>();
+    private final Map<String, PartitionMetrics> metricsByPartition = new ConcurrentHashMap<>();
+    private final Map<String, EventData> lastEventsByPartition = new ConcurrentHashMap<>();
+    private volatile Duration drainTimeout = DEFAULT_DRAIN_TIMEOUT;
+    private volatile AdaptiveBatchSizer batchSizer;
+    private volatile PartitionMetricsRegistry metricsRegistry;
+    private volatile Predicate<Map<String, Object>> eventSelector;
 
     public EventHubProcessor(Consumer<Message<?>> consumer, Class<?> payloadType, CheckpointConfig checkpointConfig,
             EventHubMessageConverter messageConverter) {
+        this(consumer, payloadType, checkpointConfig, messageConverter, ListenerMode.RECORD);
+    }
+
+    public EventHubProcessor(Consumer<Message<?>> consumer, Class<?> payloadType, CheckpointConfig checkpointConfig,
+            EventHubMessageConverter messageConverter, ListenerMode listenerMode) {
+        this(consumer, payloadType, checkpointConfig, messageConverter, listenerMode, null, 0);
+    }
+
+    /**
+     * @param pipelineExecutor executor to run consumer on, or {@code null} to run consumer on the receive thread
+     * @param pipelineCapacity max count of received batches of each partition waiting to be handled
+     */
+    public EventHubProcessor(Consumer<Message<?>> consumer, Class<?> payloadType, CheckpointConfig checkpointConfig,
+            EventHubMessageConverter messageConverter, ListenerMode listenerMode, Executor pipelineExecutor,
+            int pipelineCapacity) {
+        Assert.isTrue(pipelineExecutor == null || pipelineCapacity > 0, "pipelineCapacity should be positive");
         this.consumer = consumer;
         this.payloadType = payloadType;
         this.checkpointConfig = checkpointConfig;
         this.messageConverter = messageConverter;
         this.checkpointManager = CheckpointManager.of(checkpointConfig);
+        this.listenerMode = listenerMode;
+        this.pipelineExecutor = pipelineExecutor;
+        this.pipelineCapacity = pipelineCapacity;
     }
 
     @Override
     public void onOpen(PartitionContext context) throws Exception {
         log.info("Partition {} is opening", context.getPartitionId());
+        openMetrics(context);
     }
 
     @Override
     public void onClose(PartitionContext context, CloseReason reason) throws Exception {
         log.info("Partition {} is closing for reason {}", context.getPartitionId(), reason);
+        PartitionPipeline pipeline = this.pipelinesByPartition.remove(context.getPartitionId());
+        if (pipeline != null) {
+            pipeline.close();
+            if (!pipeline.awaitDrained(this.drainTimeout.toMillis())) {
+                log.warn("Timed out draining {} events of partition {}", pipeline.getLag(), context.getPartitionId());
+            }
+        }
+
+        this.headersByPartition.remove(context.getPartitionId());
+        EventData lastEvent = this.lastEventsByPartition.remove(context.getPartitionId());
+        if (reason == CloseReason.LeaseLost) {
+            // Checkpoint would fail without lease, and the new owner may be ahead already
+            this.checkpointManager.onLeaseLost(context);
+        } else {
+            this.checkpointManager.onClose(context, lastEvent);
+        }
+        closeMetrics(context);
     }
 
     @Override
     public void onEvents(PartitionContext context, Iterable<EventData> events) throws Exception {
-        Map<String, Object> headers = new HashMap<>();
-        headers.put(AzureHeaders.RAW_PARTITION_ID, context.getPartitionId());
+        if (events == null) {
+            // Invoked after receive timeout without events
+            events = Collections.emptyList();
+        }
+
+        if (this.pipelineExecutor == null) {
+            processEvents(context, events);
+            return;
+        }
+
+        // Events are copied since the iterable is only valid during this call
+        List<EventData> batch = new ArrayList<>();
+        events.forEach(batch::add);
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        PartitionPipeline pipeline = this.pipelinesByPartition.computeIfAbsent(context.getPartitionId(),
+                k -> new PartitionPipeline(this.pipelineExecutor, this.pipelineCapacity));
+        boolean accepted = pipeline.submit(batch.size(), () -> {
+            try {
+                processEvents(context, batch);
+            } catch (Exception e) {
+                onError(context, e);
+            }
+        });
+
+        if (!accepted) {
+            // Not checkpointed, so received again by the next owner
+            log.debug("Partition {} is closing, dropped {} events", context.getPartitionId(), batch.size());
+        }
+    }
+
+    /**
+     * Count of received batches of the given partition waiting to be handled. Always 0 without pipeline executor.
+     */
+    public int getQueueDepth(String partitionId) {
+        PartitionPipeline pipeline = this.pipelinesByPartition.get(partitionId);
+        return pipeline == null ? 0 : pipeline.getQueueDepth();
+    }
+
+    /**
+     * Count of received events of the given partition not handled yet. Always 0 without pipeline executor.
+     */
+    public long getLag(String partitionId) {
+        PartitionPipeline pipeline = this.pipelinesByPartition.get(partitionId);
+        return pipeline == null ? 0 : pipeline.getLag();
+    }
+
+    private void processEvents(PartitionContext context, Iterable<EventData> events) {
+        // Opened before handling, so checkpoints of this batch are recorded as well
+        PartitionMetrics metrics = getMetrics(context);
+        long start = System.nanoTime();
+        int count = this.listenerMode == ListenerMode.BATCH ? onBatchEvents(context, events) :
+                onRecordEvents(context, events);
+        long elapsedNanos = System.nanoTime() - start;
+
+        AdaptiveBatchSizer sizer = this.batchSizer;
+        if (sizer != null && count > 0) {
+            sizer.onBatchHandled(count, elapsedNanos);
+        }
 
+        if (metrics != null) {
+            metrics.recordBatch(events, elapsedNanos, context.getRuntimeInformation());
+        }
+    }
+
+    private int onRecordEvents(PartitionContext context, Iterable<EventData> events) {
+        // Headers shared by all events of this partition are reused instead of being built per event
+        Map<String, Object> partitionHeaders = this.headersByPartition.computeIfAbsent(context.getPartitionId(),
+                k -> Collections.singletonMap(AzureHeaders.RAW_PARTITION_ID, k));
+        boolean manualCheckpoint = this.checkpointConfig.getCheckpointMode() == CheckpointMode.MANUAL;
+
+        int count = 0;
+        int filtered = 0;
+        EventData lastEvent = null;
         for (EventData e : events) {
-            Checkpointer checkpointer = new AzureCheckpointer(() -> context.checkpoint(e));
-            if (this.checkpointConfig.getCheckpointMode() == CheckpointMode.MANUAL) {
-                headers.put(AzureHeaders.CHECKPOINTER, checkpointer);
+            if (isSelected(e)) {
+                Map<String, Object> headers = partitionHeaders;
+                if (manualCheckpoint) {
+                    Checkpointer checkpointer = new AzureCheckpointer(() -> checkpoint(context, e));
+                    headers = new HashMap<>(partitionHeaders);
+                    headers.put(AzureHeaders.CHECKPOINTER, checkpointer);
+                }
+                this.consumer.accept(messageConverter.toMessage(e, headers, payloadType));
+            } else {
+                filtered++;
             }
-            this.consumer.accept(messageConverter.toMessage(e, new MessageHeaders(headers), payloadType));
 
             this.checkpointManager.onMessage(context, e);
+            lastEvent = e;
+            count++;
+        }
+
+        recordFiltered(context, filtered);
+        completeBatch(context, lastEvent);
+        return count;
+    }
+
+    private int onBatchEvents(PartitionContext context, Iterable<EventData> events) {
+        List<EventData> batch = new ArrayList<>();
+        events.forEach(batch::add);
+
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, Object> headers = new HashMap<>();
+        headers.put(AzureHeaders.RAW_PARTITION_ID, context.getPartitionId());
+
+        // Only the last event of the batch is checkpointed, so each batch leads to at most one checkpoint
+        EventData lastEvent = batch.get(batch.size() - 1);
+        if (this.checkpointConfig.getCheckpointMode() == CheckpointMode.MANUAL) {
+            headers.put(AzureHeaders.CHECKPOINTER, new AzureCheckpointer(() -> checkpoint(context, lastEvent)));
+        }
+
+        List<EventData> selected = batch;
+        if (this.eventSelector != null) {
+            selected = new ArrayList<>(batch.size());
+            for (EventData e : batch) {
+                if (isSelected(e)) {
+                    selected.add(e);
+                }
+            }
+            recordFiltered(context, batch.size() - selected.size());
+        }
+
+        // Batch without selected events is skipped, and checkpointed like a handled one
+        if (!selected.isEmpty()) {
+            this.consumer.accept(messageConverter.toBatchMessage(selected, headers, payloadType));
+        }
+
+        // Checkpoint count is in events, not batches
+        this.checkpointManager.onMessages(context, lastEvent, batch.size());
+        completeBatch(context, lastEvent);
+        return batch.size();
+    }
+
+    /**
+     * Report handling time of each batch to the given sizer, which adjusts max batch size of receivers.
+     */
+    void setBatchSizer(AdaptiveBatchSizer batchSizer) {
+        this.batchSizer = batchSizer;
+    }
+
+    /**
+     * Max time to wait for pending batches of a closing partition to be handled. Default to 30s.
+     */
+    void setDrainTimeout(Duration drainTimeout) {
+        Assert.isTrue(drainTimeout != null && !drainTimeout.isNegative(), "drainTimeout should not be negative");
+        this.drainTimeout = drainTimeout;
+    }
+
+    /**
+     * Selector on properties of received events, evaluated before conversion, or {@code null} to handle all events
+     */
+    void setEventSelector(Predicate<Map<String, Object>> eventSelector) {
+        this.eventSelector = eventSelector;
+    }
+
+    /**
+     * Record metrics of owned partitions to the given registry, including checkpoint latency and failures.
+     */
+    void setMetricsRegistry(PartitionMetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+        this.checkpointManager.setCheckpointListener(this::onCheckpoint);
+    }
+
+    private PartitionMetrics openMetrics(PartitionContext context) {
+        PartitionMetricsRegistry registry = this.metricsRegistry;
+        if (registry == null) {
+            return null;
+        }
+
+        PartitionMetrics metrics = registry.getOrCreate(context.getEventHubPath(), context.getConsumerGroupName(),
+                context.getPartitionId());
+        this.metricsByPartition.put(context.getPartitionId(), metrics);
+        return metrics;
+    }
+
+    private void closeMetrics(PartitionContext context) {
+        PartitionMetricsRegistry registry = this.metricsRegistry;
+        if (this.metricsByPartition.remove(context.getPartitionId()) != null && registry != null) {
+            registry.remove(context.getEventHubPath(), context.getConsumerGroupName(), context.getPartitionId());
+        }
+    }
+
+    private PartitionMetrics getMetrics(PartitionContext context) {
+        PartitionMetrics metrics = this.metricsByPartition.get(context.getPartitionId());
+        return metrics == null ? openMetrics(context) : metrics;
+    }
+
+    private boolean isSelected(EventData eventData) {
+        Predicate<Map<String, Object>> selector = this.eventSelector;
+        if (selector == null) {
+            return true;
+        }
+
+        Map<String, Object> properties = eventData.getProperties();
+        return selector.test(properties == null ? Collections.emptyMap() : properties);
+    }
+
+    private void recordFiltered(PartitionContext context, int count) {
+        PartitionMetrics metrics = this.metricsByPartition.get(context.getPartitionId());
+        if (metrics != null && count > 0) {
+            metrics.recordFiltered(count);
+        }
+    }
+
+    private void onCheckpoint(PartitionContext context, long elapsedNanos, Throwable error) {
+        PartitionMetrics metrics = this.metricsByPartition.get(context.getPartitionId());
+        if (metrics != null) {
+            metrics.recordCheckpoint(elapsedNanos, error != null);
+        }
+    }
+
+    /**
+     * Checkpoint requested by consumer in {@link CheckpointMode#MANUAL}
+     */
+    private CompletableFuture<Void> checkpoint(PartitionContext context, EventData eventData) {
+        long start = System.nanoTime();
+        CompletableFuture<Void> future = context.checkpoint(eventData);
+        if (this.metricsRegistry != null) {
+            future.whenComplete((v, t) -> onCheckpoint(context, System.nanoTime() - start, t));
         }
 
-        this.checkpointManager.completeBatch(context);
+        return future;
+    }
+
+    private void completeBatch(PartitionContext context, EventData lastEvent) {
+        if (lastEvent != null) {
+            this.lastEventsByPartition.put(context.getPartitionId(), lastEvent);
+        }
+
+        if (this.pipelineExecutor == null) {
+            this.checkpointManager.completeBatch(context);
+        } else if (lastEvent != null) {
+            // Receive thread may have moved the context ahead, so checkpoint the last handled event explicitly
+            this.checkpointManager.completeBatch(context, lastEvent);
+        }
     }
 
     @Override
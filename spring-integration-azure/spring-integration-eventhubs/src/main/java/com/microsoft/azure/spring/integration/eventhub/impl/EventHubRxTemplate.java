@@ -11,6 +11,7 @@ import com.microsoft.azure.spring.integration.core.api.PartitionSupplier;
 import com.microsoft.azure.spring.integration.eventhub.api.EventHubClientFactory;
 import com.microsoft.azure.spring.integration.eventhub.api.EventHubRxOperation;
 import org.springframework.messaging.Message;
+import reactor.core.publisher.Flux;
 import rx.Observable;
 import rx.subscriptions.Subscriptions;
 
@@ -26,6 +27,8 @@ public class EventHubRxTemplate extends AbstractEventHubTemplate implements Even
 
     private final ConcurrentHashMap<Tuple<String, String>, Observable<Message<?>>> subjectByNameAndGroup =
             new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Tuple<String, String>, Flux<Message<?>>> fluxByNameAndGroup =
+            new ConcurrentHashMap<>();
 
     public EventHubRxTemplate(EventHubClientFactory clientFactory) {
         super(clientFactory);
@@ -52,13 +55,18 @@ public class EventHubRxTemplate extends AbstractEventHubTemplate implements Even
         Tuple<String, String> nameAndConsumerGroup = Tuple.of(destination, consumerGroup);
 
         subjectByNameAndGroup.computeIfAbsent(nameAndConsumerGroup, k -> Observable.<Message<?>>create(subscriber -> {
-            this.register(destination, consumerGroup,
-                    new EventHubProcessor(subscriber::onNext, messagePayloadType, getCheckpointConfig(),
-                            getMessageConverter()));
+            this.register(destination, consumerGroup, createProcessor(subscriber::onNext, messagePayloadType));
             subscriber.add(Subscriptions.create(() -> unregister(destination, consumerGroup)));
         }).share());
 
         return subjectByNameAndGroup.get(nameAndConsumerGroup);
     }
 
+    @Override
+    public Flux<Message<?>> subscribeFlux(String destination, String consumerGroup, Class<?> messagePayloadType,
+            int prefetch) {
+        return fluxByNameAndGroup.computeIfAbsent(Tuple.of(destination, consumerGroup),
+                k -> createFlux(destination, consumerGroup, messagePayloadType, prefetch));
+    }
+
 }
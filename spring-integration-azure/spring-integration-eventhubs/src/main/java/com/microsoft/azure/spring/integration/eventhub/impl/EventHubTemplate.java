@@ -33,12 +33,18 @@ public class EventHubTemplate extends AbstractEventHubTemplate implements EventH
         log.info("Started EventHubTemplate with properties: {}", buildPropertiesMap());
     }
 
+    @Override
+    public EventHubOperation newOperation() {
+        EventHubTemplate template = new EventHubTemplate(getClientFactory());
+        copySettingsTo(template);
+        return template;
+    }
+
     @Override
     public boolean subscribe(String destination, String consumerGroup, Consumer<Message<?>> consumer,
             Class<?> messagePayloadType) {
         if (subscribedNameAndGroup.putIfAbsent(Tuple.of(destination, consumerGroup), true) == null) {
-            this.register(destination, consumerGroup,
-                    new EventHubProcessor(consumer, messagePayloadType, getCheckpointConfig(), getMessageConverter()));
+            this.register(destination, consumerGroup, createProcessor(consumer, messagePayloadType));
             log.info("Consumer subscribed to destination '{}' with consumer group '{}'", destination, consumerGroup);
             return true;
         }
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.impl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded hand-off between the receive thread of one partition and the handler executor.
+ *
+ * <p>
+ * Tasks are run one at a time in submission order, so per-partition ordering is kept no matter how many threads
+ * the executor has. {@link #submit} blocks the receive thread once {@code capacity} tasks are pending.
+ *
+ * <p>
+ * Once closed, new tasks are dropped and {@link #awaitDrained} waits for the pending ones, e.g. before the partition
+ * is handed over to another host.
+ *
+ * @author Warren Zhu
+ */
+class PartitionPipeline {
+    private final BlockingQueue<PipelineTask> queue;
+    private final Executor executor;
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final AtomicLong receivedEvents = new AtomicLong();
+    private final AtomicLong completedEvents = new AtomicLong();
+    private volatile boolean closed = false;
+
+    PartitionPipeline(Executor executor, int capacity) {
+        this.executor = executor;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * @return whether the task is accepted, i.e. the pipeline is not closed
+     */
+    boolean submit(int eventCount, Runnable runnable) throws InterruptedException {
+        if (this.closed) {
+            return false;
+        }
+
+        this.queue.put(new PipelineTask(eventCount, runnable));
+        this.receivedEvents.addAndGet(eventCount);
+        scheduleDrain();
+        return true;
+    }
+
+    /**
+     * Stop accepting tasks. Pending tasks are still run.
+     */
+    void close() {
+        this.closed = true;
+    }
+
+    /**
+     * Wait until all accepted tasks are run, or timeout elapses
+     *
+     * @return whether all accepted tasks are run
+     */
+    synchronized boolean awaitDrained(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+
+        while (getLag() > 0) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+
+            wait(remaining);
+        }
+
+        return true;
+    }
+
+    /**
+     * Number of submitted tasks waiting to be run
+     */
+    int getQueueDepth() {
+        return this.queue.size();
+    }
+
+    /**
+     * Number of received events which are not handled yet
+     */
+    long getLag() {
+        return this.receivedEvents.get() - this.completedEvents.get();
+    }
+
+    private void scheduleDrain() {
+        if (this.draining.compareAndSet(false, true)) {
+            try {
+                this.executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                this.draining.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            PipelineTask task;
+            while ((task = this.queue.poll()) != null) {
+                try {
+                    task.runnable.run();
+                } finally {
+                    this.completedEvents.addAndGet(task.eventCount);
+                    notifyDrained();
+                }
+            }
+        } finally {
+            this.draining.set(false);
+        }
+
+        // A task may be submitted after the last poll but before draining flag is cleared
+        if (!this.queue.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    private synchronized void notifyDrained() {
+        notifyAll();
+    }
+
+    private static class PipelineTask {
+        private final int eventCount;
+        private final Runnable runnable;
+
+        PipelineTask(int eventCount, Runnable runnable) {
+            this.eventCount = eventCount;
+            this.runnable = runnable;
+        }
+    }
+}
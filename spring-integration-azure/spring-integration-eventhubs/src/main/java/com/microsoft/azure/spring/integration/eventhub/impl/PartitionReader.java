@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.impl;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.EventHubException;
+import com.microsoft.azure.eventhubs.EventPosition;
+import com.microsoft.azure.eventhubs.PartitionReceiver;
+import com.microsoft.azure.eventhubs.ReceiverOptions;
+import com.microsoft.azure.spring.integration.eventhub.api.EventHubClientFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Read all partitions of an event hub in parallel with one {@link PartitionReceiver} each, without leases or
+ * checkpoints. Each partition is read from its start position until the last event enqueued when reading starts, or
+ * until the given end time.
+ *
+ * <p>
+ * Next batch of a partition is only received after the handler returns, so a slow handler holds receiving instead of
+ * buffering events in memory.
+ *
+ * @author Warren Zhu
+ */
+class PartitionReader {
+    private static final Logger log = LoggerFactory.getLogger(PartitionReader.class);
+    private static final Duration RECEIVE_TIMEOUT = Duration.ofSeconds(10);
+
+    private final EventHubClientFactory clientFactory;
+    private final int prefetchCount;
+    private final int maxBatchSize;
+    private final Executor handlerExecutor;
+
+    PartitionReader(EventHubClientFactory clientFactory, int prefetchCount, int maxBatchSize) {
+        this(clientFactory, prefetchCount, maxBatchSize, null);
+    }
+
+    /**
+     * @param maxBatchSize max count of events received at once, capped at prefetch count as required by receiver
+     * @param handlerExecutor executor to run handler and next receive on, or {@code null} to run them on the
+     * thread completing the receive
+     */
+    PartitionReader(EventHubClientFactory clientFactory, int prefetchCount, int maxBatchSize,
+            Executor handlerExecutor) {
+        this.clientFactory = clientFactory;
+        this.prefetchCount = prefetchCount;
+        this.maxBatchSize = Math.min(maxBatchSize, prefetchCount);
+        this.handlerExecutor = handlerExecutor;
+    }
+
+    /**
+     * @param from start position of each partition id
+     * @param to enqueued time to stop before, or {@code null} to read until the last enqueued event
+     * @param handler called with partition id and events of each received batch. Batches of one partition are
+     * handled in order, and batches of different partitions concurrently.
+     * @return future completed once all partitions are read
+     */
+    CompletableFuture<Void> read(String eventHubName, String consumerGroup, Function<String, EventPosition> from,
+            Instant to, BiConsumer<String, List<EventData>> handler) {
+        EventHubClient client = this.clientFactory.getOrCreateClient(eventHubName);
+
+        CompletableFuture<?>[] futures = this.clientFactory.getPartitionIds(eventHubName).stream()
+                .map(id -> readPartition(client, consumerGroup, id, from.apply(id), to, handler))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(futures);
+    }
+
+    private CompletableFuture<Void> readPartition(EventHubClient client, String consumerGroup, String partitionId,
+            EventPosition from, Instant to, BiConsumer<String, List<EventData>> handler) {
+        return client.getPartitionRuntimeInformation(partitionId).thenCompose(info -> {
+            if (info.getIsEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            return createReceiver(client, consumerGroup, partitionId, from).thenCompose(
+                    receiver -> receiveUntil(receiver, info.getLastEnqueuedSequenceNumber(), to, handler)
+                            .whenComplete((v, t) -> receiver.close()));
+        });
+    }
+
+    private CompletableFuture<PartitionReceiver> createReceiver(EventHubClient client, String consumerGroup,
+            String partitionId, EventPosition from) {
+        try {
+            ReceiverOptions options = new ReceiverOptions();
+            options.setPrefetchCount(this.prefetchCount);
+            return client.createReceiver(consumerGroup, partitionId, from, options).thenApply(receiver -> {
+                receiver.setReceiveTimeout(RECEIVE_TIMEOUT);
+                return receiver;
+            });
+        } catch (EventHubException e) {
+            throw new EventHubRuntimeException("Error when creating event hub partition receiver", e);
+        }
+    }
+
+    private CompletableFuture<Void> receiveUntil(PartitionReceiver receiver, long lastSequenceNumber, Instant to,
+            BiConsumer<String, List<EventData>> handler) {
+        CompletableFuture<Iterable<EventData>> received = receiver.receive(this.maxBatchSize);
+        Function<Iterable<EventData>, CompletableFuture<Void>> next = events -> {
+            if (events == null) {
+                // Nothing is left before the last enqueued event, e.g. start position is after it
+                log.debug("No more events in partition {}", receiver.getPartitionId());
+                return CompletableFuture.completedFuture(null);
+            }
+
+            List<EventData> batch = new ArrayList<>();
+            boolean reachedEnd = false;
+            for (EventData event : events) {
+                EventData.SystemProperties properties = event.getSystemProperties();
+                if (to != null && !properties.getEnqueuedTime().isBefore(to)) {
+                    reachedEnd = true;
+                    break;
+                }
+
+                batch.add(event);
+                if (properties.getSequenceNumber() >= lastSequenceNumber) {
+                    reachedEnd = true;
+                    break;
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                handler.accept(receiver.getPartitionId(), batch);
+            }
+
+            return reachedEnd ? CompletableFuture.completedFuture(null) :
+                    receiveUntil(receiver, lastSequenceNumber, to, handler);
+        };
+
+        return this.handlerExecutor == null ? received.thenCompose(next) :
+                received.thenComposeAsync(next, this.handlerExecutor);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.impl;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventPosition;
+import com.microsoft.azure.spring.integration.eventhub.api.EventHubClientFactory;
+import com.microsoft.azure.spring.integration.eventhub.metrics.ScanResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Scan all partitions of an event hub from start of stream until the last event enqueued when scanning starts.
+ *
+ * <p>
+ * Partitions are received in parallel with large prefetch. Received batches are put into a bounded queue, which holds
+ * receiving once the handler falls behind, and a single drain task hands them to the handler. So the handler is never
+ * called concurrently and sees batches of one partition in order. All work runs on the given {@link ForkJoinPool}.
+ *
+ * @author Warren Zhu
+ */
+class PartitionScanner {
+    private static final Logger log = LoggerFactory.getLogger(PartitionScanner.class);
+    private static final long QUEUE_TIMEOUT_MILLIS = 100;
+    private static final Batch END = new Batch(null, Collections.emptyList());
+
+    private final PartitionReader reader;
+    private final ForkJoinPool pool;
+    private final int queueCapacity;
+
+    PartitionScanner(EventHubClientFactory clientFactory, int prefetchCount, int queueCapacity, ForkJoinPool pool) {
+        this.reader = new PartitionReader(clientFactory, prefetchCount, prefetchCount, pool);
+        this.pool = pool;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * @param handler called with partition id and events of each received batch, one batch at a time
+     * @return future completed with aggregate throughput once all partitions are scanned and handled
+     */
+    CompletableFuture<ScanResult> scan(String eventHubName, String consumerGroup,
+            BiConsumer<String, List<EventData>> handler) {
+        Scan scan = new Scan(new ArrayBlockingQueue<>(this.queueCapacity), handler);
+        this.pool.execute(scan::drain);
+
+        this.reader.read(eventHubName, consumerGroup, id -> EventPosition.fromStartOfStream(), null, scan::put)
+                   .whenComplete((v, t) -> {
+                       if (t != null) {
+                           scan.fail(t);
+                       } else {
+                           scan.put(END);
+                       }
+                   });
+
+        return scan.result.whenComplete((r, t) -> {
+            if (t != null) {
+                log.warn("Scanning event hub {} in consumer group {} failed", eventHubName, consumerGroup, t);
+            } else {
+                log.info("Scanned event hub {} in consumer group {}: {}", eventHubName, consumerGroup, r);
+            }
+        });
+    }
+
+    private static class Batch {
+        private final String partitionId;
+        private final List<EventData> events;
+
+        Batch(String partitionId, List<EventData> events) {
+            this.partitionId = partitionId;
+            this.events = events;
+        }
+    }
+
+    private static class Scan {
+        private final BlockingQueue<Batch> queue;
+        private final BiConsumer<String, List<EventData>> handler;
+        private final CompletableFuture<ScanResult> result = new CompletableFuture<>();
+        private final long startNanos = System.nanoTime();
+        private long eventCount;
+        private long byteCount;
+
+        Scan(BlockingQueue<Batch> queue, BiConsumer<String, List<EventData>> handler) {
+            this.queue = queue;
+            this.handler = handler;
+        }
+
+        void put(String partitionId, List<EventData> events) {
+            put(new Batch(partitionId, events));
+        }
+
+        /**
+         * Block until the batch is queued, letting the pool compensate for the blocked worker. Gives up once the scan
+         * has failed, so receivers are not held by a queue nobody drains.
+         */
+        void put(Batch batch) {
+            try {
+                ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                    private boolean queued;
+
+                    @Override
+                    public boolean block() throws InterruptedException {
+                        queued = queue.offer(batch, QUEUE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                        return isReleasable();
+                    }
+
+                    @Override
+                    public boolean isReleasable() {
+                        return queued || result.isDone();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EventHubRuntimeException("Interrupted when queueing scanned events", e);
+            }
+
+            if (result.isCompletedExceptionally()) {
+                throw new EventHubRuntimeException("Scan already failed");
+            }
+        }
+
+        void fail(Throwable t) {
+            result.completeExceptionally(t);
+        }
+
+        void drain() {
+            try {
+                while (!result.isDone()) {
+                    Poller poller = new Poller();
+                    ForkJoinPool.managedBlock(poller);
+                    Batch batch = poller.batch;
+                    if (batch == END) {
+                        long elapsed = System.nanoTime() - startNanos;
+                        result.complete(new ScanResult(eventCount, byteCount, Duration.ofNanos(elapsed)));
+                    } else if (batch != null) {
+                        handle(batch);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            } catch (Exception e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Poll the queue as a managed blocker, so the pool compensates for the drain task waiting on receivers
+         */
+        private class Poller implements ForkJoinPool.ManagedBlocker {
+            private Batch batch;
+
+            @Override
+            public boolean block() throws InterruptedException {
+                if (batch == null) {
+                    batch = queue.poll(QUEUE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                return batch != null || (batch = queue.poll()) != null;
+            }
+        }
+
+        private void handle(Batch batch) {
+            for (EventData event : batch.events) {
+                byte[] body = event.getBytes();
+                byteCount += body == null ? 0 : body.length;
+            }
+
+            eventCount += batch.events.size();
+            handler.accept(batch.partitionId, batch.events);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.impl;
+
+import com.microsoft.azure.spring.integration.core.api.PartitionKeyStrategy;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Select partition id of events sent without partition id or partition key, in
+ * {@link PartitionKeyStrategy#ROUND_ROBIN} or {@link PartitionKeyStrategy#STICKY}.
+ *
+ * <p>
+ * In sticky mode, events go to the same partition until a batch of that partition is sent, then to the next
+ * partition in turn.
+ *
+ * @author Warren Zhu
+ */
+class PartitionSelector {
+    private final boolean sticky;
+
+    // eventHubName -> count of selections or switches
+    private final Map<String, AtomicInteger> countersByEventHub = new ConcurrentHashMap<>();
+    // eventHubName -> current sticky partition id
+    private final Map<String, String> stickyPartitions = new ConcurrentHashMap<>();
+
+    PartitionSelector(PartitionKeyStrategy strategy) {
+        this.sticky = strategy == PartitionKeyStrategy.STICKY;
+    }
+
+    String select(String eventHubName, List<String> partitionIds) {
+        if (!this.sticky) {
+            return next(eventHubName, partitionIds);
+        }
+
+        String partitionId = this.stickyPartitions.get(eventHubName);
+        if (partitionId == null) {
+            partitionId = this.stickyPartitions.computeIfAbsent(eventHubName, k -> next(k, partitionIds));
+        }
+
+        return partitionId;
+    }
+
+    /**
+     * Switch to next partition if the sent batch belongs to the current sticky partition
+     */
+    void onBatchSent(String eventHubName, String partitionId) {
+        if (this.sticky) {
+            this.stickyPartitions.remove(eventHubName, partitionId);
+        }
+    }
+
+    private String next(String eventHubName, List<String> partitionIds) {
+        int count = this.countersByEventHub.computeIfAbsent(eventHubName, k -> new AtomicInteger()).getAndIncrement();
+        return partitionIds.get(Math.floorMod(count, partitionIds.size()));
+    }
+}
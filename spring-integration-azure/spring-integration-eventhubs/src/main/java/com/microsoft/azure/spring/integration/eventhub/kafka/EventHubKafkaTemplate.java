@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.kafka;
+
+import com.microsoft.azure.eventhubs.ConnectionStringBuilder;
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.spring.cloud.context.core.util.Tuple;
+import com.microsoft.azure.spring.integration.core.api.CheckpointConfig;
+import com.microsoft.azure.spring.integration.core.api.CheckpointMode;
+import com.microsoft.azure.spring.integration.core.api.ListenerMode;
+import com.microsoft.azure.spring.integration.core.api.PartitionSupplier;
+import com.microsoft.azure.spring.integration.core.api.SendOperation;
+import com.microsoft.azure.spring.integration.core.api.SubscribeByGroupOperation;
+import com.microsoft.azure.spring.integration.eventhub.converter.EventHubMessageConverter;
+import com.microsoft.azure.spring.integration.eventhub.factory.EventHubConnectionStringProvider;
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.config.SaslConfigs;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Send to and consume from event hubs through the Kafka endpoint of the namespace instead of AMQP.
+ *
+ * <p>
+ * Sending relies on batching, compression and idempotence of {@link KafkaProducer}. Consumers are
+ * {@link KafkaConsumer}s of the consumer group polling on their own thread, and checkpoints are mapped to offset
+ * commits according to {@link CheckpointConfig}. Events are converted with {@link EventHubMessageConverter}, and
+ * event properties are carried as record headers.
+ *
+ * @author Warren Zhu
+ */
+public class EventHubKafkaTemplate implements SendOperation, SubscribeByGroupOperation, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(EventHubKafkaTemplate.class);
+    private static final int KAFKA_PORT = 9093;
+    private static final String JAAS_CONFIG_FORMAT =
+            "org.apache.kafka.common.security.plain.PlainLoginModule required username=\"$ConnectionString\" " +
+                    "password=\"%s\";";
+
+    private final EventHubConnectionStringProvider connectionStringProvider;
+
+    // Shared by operations created by newOperation(), and closed by the one they are created from
+    private final Map<String, Producer<String, byte[]>> producersByConnectionString;
+
+    // (eventHubName, consumerGroup) -> subscription
+    private final Map<Tuple<String, String>, KafkaSubscription> subscriptions = new ConcurrentHashMap<>();
+
+    private final boolean sharedProducers;
+
+    private EventHubMessageConverter messageConverter = new EventHubMessageConverter();
+
+    private CheckpointConfig checkpointConfig = CheckpointConfig.builder().checkpointMode(CheckpointMode.BATCH).build();
+
+    private ListenerMode listenerMode = ListenerMode.RECORD;
+
+    private Duration pollTimeout = Duration.ofSeconds(1);
+
+    private Map<String, Object> producerProperties = defaultProducerProperties();
+
+    private Map<String, Object> consumerProperties = new HashMap<>();
+
+    private Predicate<Map<String, Object>> eventSelector;
+
+    public EventHubKafkaTemplate(EventHubConnectionStringProvider connectionStringProvider) {
+        this(connectionStringProvider, new ConcurrentHashMap<>(), false);
+    }
+
+    private EventHubKafkaTemplate(EventHubConnectionStringProvider connectionStringProvider,
+            Map<String, Producer<String, byte[]>> producersByConnectionString, boolean sharedProducers) {
+        this.connectionStringProvider = connectionStringProvider;
+        this.producersByConnectionString = producersByConnectionString;
+        this.sharedProducers = sharedProducers;
+    }
+
+    private static Map<String, Object> defaultProducerProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(ProducerConfig.ACKS_CONFIG, "all");
+        properties.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        properties.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        properties.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "none");
+        return properties;
+    }
+
+    /**
+     * Create an operation sharing producers of this one, with a copy of its settings. Producer properties are fixed
+     * once the first producer is created. Consumer settings of each operation are independent.
+     */
+    public EventHubKafkaTemplate newOperation() {
+        EventHubKafkaTemplate operation =
+                new EventHubKafkaTemplate(this.connectionStringProvider, this.producersByConnectionString, true);
+        operation.messageConverter = this.messageConverter;
+        operation.checkpointConfig = this.checkpointConfig;
+        operation.listenerMode = this.listenerMode;
+        operation.pollTimeout = this.pollTimeout;
+        operation.producerProperties = this.producerProperties;
+        operation.consumerProperties = new HashMap<>(this.consumerProperties);
+        operation.eventSelector = this.eventSelector;
+        return operation;
+    }
+
+    @Override
+    public <T> CompletableFuture<Void> sendAsync(String destination, Message<T> message,
+            PartitionSupplier partitionSupplier) {
+        Assert.hasText(destination, "destination can't be null or empty");
+        EventData eventData = this.messageConverter.fromMessage(message, EventData.class);
+        ProducerRecord<String, byte[]> record = toRecord(destination, eventData, partitionSupplier);
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        getOrCreateProducer(destination).send(record, (metadata, exception) -> {
+            if (exception != null) {
+                future.completeExceptionally(exception);
+            } else {
+                future.complete(null);
+            }
+        });
+
+        return future;
+    }
+
+    private static ProducerRecord<String, byte[]> toRecord(String destination, EventData eventData,
+            PartitionSupplier partitionSupplier) {
+        Integer partition = null;
+        String key = null;
+        if (partitionSupplier != null) {
+            partition = partitionSupplier.getPartitionId() == null ? null :
+                    Integer.valueOf(partitionSupplier.getPartitionId());
+            key = partitionSupplier.getPartitionKey();
+        }
+
+        ProducerRecord<String, byte[]> record =
+                new ProducerRecord<>(destination, partition, key, eventData.getBytes());
+        eventData.getProperties().forEach((k, v) -> {
+            if (v != null) {
+                record.headers().add(k, v.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        });
+
+        return record;
+    }
+
+    private Producer<String, byte[]> getOrCreateProducer(String eventHubName) {
+        String connectionString = this.connectionStringProvider.getConnectionString(eventHubName);
+        return this.producersByConnectionString.computeIfAbsent(connectionString, this::createProducer);
+    }
+
+    private Producer<String, byte[]> createProducer(String connectionString) {
+        Map<String, Object> properties = buildClientProperties(connectionString);
+        properties.putAll(this.producerProperties);
+        log.info("Creating Kafka producer of event hub namespace {}", properties.get(
+                CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG));
+        return new KafkaProducer<>(properties, new StringSerializer(), new ByteArraySerializer());
+    }
+
+    @Override
+    public synchronized boolean subscribe(String destination, String consumerGroup, Consumer<Message<?>> consumer,
+            Class<?> messagePayloadType) {
+        Tuple<String, String> key = Tuple.of(destination, consumerGroup);
+        if (this.subscriptions.containsKey(key)) {
+            return false;
+        }
+
+        Map<String, Object> properties =
+                buildClientProperties(this.connectionStringProvider.getConnectionString(destination));
+        properties.put(ConsumerConfig.GROUP_ID_CONFIG, consumerGroup);
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.putAll(this.consumerProperties);
+
+        KafkaSubscription subscription =
+                new KafkaSubscription(new KafkaConsumer<>(properties, new StringDeserializer(),
+                        new ByteArrayDeserializer()), destination, consumer, messagePayloadType, this.messageConverter,
+                        this.checkpointConfig, this.listenerMode, this.pollTimeout, this.eventSelector,
+                        s -> this.subscriptions.remove(key, s));
+        this.subscriptions.put(key, subscription);
+        subscription.start();
+        return true;
+    }
+
+    @Override
+    public synchronized boolean unsubscribe(String destination, String consumerGroup) {
+        KafkaSubscription subscription = this.subscriptions.remove(Tuple.of(destination, consumerGroup));
+        if (subscription == null) {
+            return false;
+        }
+
+        subscription.stop();
+        return true;
+    }
+
+    /**
+     * Kafka client properties connecting to the namespace of the given event hub connection string
+     */
+    static Map<String, Object> buildClientProperties(String connectionString) {
+        ConnectionStringBuilder builder = new ConnectionStringBuilder(connectionString);
+        // Kafka clients use the namespace connection string, without entity path
+        String namespaceConnectionString = connectionString.replaceAll(";?EntityPath=[^;]*", "");
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG,
+                builder.getEndpoint().getHost() + ":" + KAFKA_PORT);
+        properties.put(CommonClientConfigs.SECURITY_PROTOCOL_CONFIG, "SASL_SSL");
+        properties.put(SaslConfigs.SASL_MECHANISM, "PLAIN");
+        properties.put(SaslConfigs.SASL_JAAS_CONFIG, String.format(JAAS_CONFIG_FORMAT, namespaceConnectionString));
+        return properties;
+    }
+
+    @Override
+    public void destroy() {
+        this.subscriptions.keySet().forEach(k -> unsubscribe(k.getFirst(), k.getSecond()));
+
+        if (!this.sharedProducers) {
+            this.producersByConnectionString.values().forEach(Producer::close);
+            this.producersByConnectionString.clear();
+        }
+    }
+
+    public EventHubMessageConverter getMessageConverter() {
+        return messageConverter;
+    }
+
+    public void setMessageConverter(EventHubMessageConverter messageConverter) {
+        this.messageConverter = messageConverter;
+    }
+
+    @Override
+    public CheckpointConfig getCheckpointConfig() {
+        return checkpointConfig;
+    }
+
+    /**
+     * Offsets are committed in the given mode for consumers subscribed afterwards
+     */
+    @Override
+    public void setCheckpointConfig(CheckpointConfig checkpointConfig) {
+        log.info("EventHubKafkaTemplate checkpoint config becomes: {}", checkpointConfig);
+        this.checkpointConfig = checkpointConfig;
+    }
+
+    public ListenerMode getListenerMode() {
+        return listenerMode;
+    }
+
+    public void setListenerMode(ListenerMode listenerMode) {
+        log.info("EventHubKafkaTemplate listener mode becomes: {}", listenerMode);
+        this.listenerMode = listenerMode;
+    }
+
+    public Predicate<Map<String, Object>> getEventSelector() {
+        return eventSelector;
+    }
+
+    /**
+     * Selector on record headers of consumers subscribed afterwards, evaluated before conversion. Records not
+     * selected are committed without being converted. Default to {@code null}, which selects all records.
+     */
+    public void setEventSelector(Predicate<Map<String, Object>> eventSelector) {
+        log.info("EventHubKafkaTemplate event selector becomes: {}", eventSelector);
+        this.eventSelector = eventSelector;
+    }
+
+    public Duration getPollTimeout() {
+        return pollTimeout;
+    }
+
+    /**
+     * Max time of one poll of consumers. Default to 1s.
+     */
+    public void setPollTimeout(Duration pollTimeout) {
+        Assert.isTrue(pollTimeout != null && !pollTimeout.isNegative(), "pollTimeout should not be negative");
+        this.pollTimeout = pollTimeout;
+    }
+
+    public Map<String, Object> getProducerProperties() {
+        return producerProperties;
+    }
+
+    /**
+     * Kafka producer properties overriding the defaults, e.g. {@code compression.type}, {@code linger.ms} or
+     * {@code batch.size}. Defaults are {@code acks=all}, {@code enable.idempotence=true}, {@code linger.ms=5} and
+     * {@code compression.type=none}. Only effective before the first send.
+     */
+    public void setProducerProperties(Map<String, Object> producerProperties) {
+        Map<String, Object> properties = defaultProducerProperties();
+        properties.putAll(producerProperties);
+        log.info("EventHubKafkaTemplate producer properties becomes: {}", properties);
+        this.producerProperties = properties;
+    }
+
+    public Map<String, Object> getConsumerProperties() {
+        return consumerProperties;
+    }
+
+    /**
+     * Kafka consumer properties of consumers subscribed afterwards, e.g. {@code max.poll.records} or
+     * {@code auto.offset.reset}
+     */
+    public void setConsumerProperties(Map<String, Object> consumerProperties) {
+        log.info("EventHubKafkaTemplate consumer properties becomes: {}", consumerProperties);
+        this.consumerProperties = new HashMap<>(consumerProperties);
+    }
+}
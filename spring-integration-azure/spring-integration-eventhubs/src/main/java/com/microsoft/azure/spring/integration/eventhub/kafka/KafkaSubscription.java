@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.kafka;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.spring.integration.core.AzureCheckpointer;
+import com.microsoft.azure.spring.integration.core.AzureHeaders;
+import com.microsoft.azure.spring.integration.core.api.CheckpointConfig;
+import com.microsoft.azure.spring.integration.core.api.CheckpointMode;
+import com.microsoft.azure.spring.integration.core.api.ListenerMode;
+import com.microsoft.azure.spring.integration.eventhub.converter.EventHubMessageConverter;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Poll loop of one {@link Consumer} on its own thread. Checkpoints are mapped to offset commits of the consumer:
+ * <ul>
+ * <li>{@link CheckpointMode#RECORD} commits after each handled record</li>
+ * <li>{@link CheckpointMode#BATCH} commits after all records of one poll are handled</li>
+ * <li>{@link CheckpointMode#PARTITION_COUNT} commits a partition once {@code checkpointCount} records of it are
+ * handled</li>
+ * <li>{@link CheckpointMode#TIME} commits once {@code checkpointInterval} elapses since the last commit</li>
+ * <li>{@link CheckpointMode#MANUAL} commits offsets requested through {@link AzureHeaders#CHECKPOINTER} before the
+ * next poll, since consumer can only be used by the poll thread</li>
+ * </ul>
+ * Handled offsets of revoked partitions are committed before rebalance completes, and all handled offsets are
+ * committed when stopped, except in {@link CheckpointMode#MANUAL}. Records rejected by event selector are committed
+ * without being converted. Records failing to convert are treated like records failing to be handled. Only failure of
+ * polling or committing stops the loop, which is then reported to the failure listener.
+ *
+ * @author Warren Zhu
+ */
+class KafkaSubscription implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(KafkaSubscription.class);
+
+    private final Consumer<String, byte[]> kafkaConsumer;
+    private final String topic;
+    private final java.util.function.Consumer<Message<?>> consumer;
+    private final Class<?> payloadType;
+    private final EventHubMessageConverter messageConverter;
+    private final CheckpointConfig checkpointConfig;
+    private final ListenerMode listenerMode;
+    private final Duration pollTimeout;
+    private final Predicate<Map<String, Object>> eventSelector;
+    private final java.util.function.Consumer<KafkaSubscription> failureListener;
+
+    // Offsets handled but not committed yet, only accessed by poll thread
+    private final Map<TopicPartition, OffsetAndMetadata> uncommitted = new HashMap<>();
+    private final Map<TopicPartition, Integer> uncommittedCounts = new HashMap<>();
+    // Offsets requested by consumer in manual mode
+    private final Map<TopicPartition, OffsetAndMetadata> requested = new ConcurrentHashMap<>();
+    private final CompletableFuture<Void> stopped = new CompletableFuture<>();
+    private long lastCommitNanos = System.nanoTime();
+    private volatile boolean running = true;
+    private Thread thread;
+
+    KafkaSubscription(Consumer<String, byte[]> kafkaConsumer, String topic,
+            java.util.function.Consumer<Message<?>> consumer, Class<?> payloadType,
+            EventHubMessageConverter messageConverter, CheckpointConfig checkpointConfig, ListenerMode listenerMode,
+            Duration pollTimeout, Predicate<Map<String, Object>> eventSelector,
+            java.util.function.Consumer<KafkaSubscription> failureListener) {
+        this.kafkaConsumer = kafkaConsumer;
+        this.topic = topic;
+        this.consumer = consumer;
+        this.payloadType = payloadType;
+        this.messageConverter = messageConverter;
+        this.checkpointConfig = checkpointConfig;
+        this.listenerMode = listenerMode;
+        this.pollTimeout = pollTimeout;
+        this.eventSelector = eventSelector;
+        this.failureListener = failureListener;
+    }
+
+    void start() {
+        this.thread = new Thread(this, "eventhub-kafka-" + this.topic);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Stop polling and wait for the poll loop to commit and close the consumer
+     */
+    void stop() {
+        this.running = false;
+        this.kafkaConsumer.wakeup();
+
+        if (this.thread != null && this.thread != Thread.currentThread()) {
+            this.stopped.join();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            this.kafkaConsumer.subscribe(Collections.singletonList(this.topic), new CommitOnRevoke());
+
+            while (this.running) {
+                commitRequested();
+                ConsumerRecords<String, byte[]> records = this.kafkaConsumer.poll(this.pollTimeout);
+                for (TopicPartition partition : records.partitions()) {
+                    handle(partition, records.records(partition));
+                }
+
+                if (shouldCommitAfterPoll()) {
+                    commit(new HashMap<>(this.uncommitted));
+                }
+            }
+        } catch (WakeupException e) {
+            if (this.running) {
+                log.warn("Kafka consumer of event hub {} is woken up unexpectedly", this.topic, e);
+            }
+        } catch (Exception e) {
+            log.error("Kafka consumer of event hub {} stopped by error", this.topic, e);
+            close();
+            this.failureListener.accept(this);
+            return;
+        }
+
+        close();
+    }
+
+    private boolean shouldCommitAfterPoll() {
+        switch (this.checkpointConfig.getCheckpointMode()) {
+            case BATCH:
+                return true;
+            case TIME:
+                long elapsedNanos = System.nanoTime() - this.lastCommitNanos;
+                return elapsedNanos >= this.checkpointConfig.getCheckpointInterval().toNanos();
+            default:
+                return false;
+        }
+    }
+
+    private void handle(TopicPartition partition, List<ConsumerRecord<String, byte[]>> records) {
+        Map<String, Object> headers = new HashMap<>();
+        headers.put(AzureHeaders.RAW_PARTITION_ID, String.valueOf(partition.partition()));
+
+        if (this.listenerMode == ListenerMode.BATCH) {
+            List<EventData> batch = new ArrayList<>(records.size());
+            records.stream().map(KafkaSubscription::toEventData).filter(this::isSelected).forEach(batch::add);
+            ConsumerRecord<String, byte[]> last = records.get(records.size() - 1);
+            if (this.checkpointConfig.getCheckpointMode() == CheckpointMode.MANUAL) {
+                headers.put(AzureHeaders.CHECKPOINTER, checkpointer(partition, last));
+            }
+
+            if (batch.isEmpty() ||
+                    accept(partition, () -> this.messageConverter.toBatchMessage(batch, headers, this.payloadType))) {
+                onHandled(partition, last, records.size());
+            }
+            return;
+        }
+
+        for (ConsumerRecord<String, byte[]> record : records) {
+            EventData eventData = toEventData(record);
+            if (!isSelected(eventData)) {
+                onHandled(partition, record, 1);
+                continue;
+            }
+
+            Map<String, Object> recordHeaders = headers;
+            if (this.checkpointConfig.getCheckpointMode() == CheckpointMode.MANUAL) {
+                recordHeaders = new HashMap<>(headers);
+                recordHeaders.put(AzureHeaders.CHECKPOINTER, checkpointer(partition, record));
+            }
+
+            Map<String, Object> messageHeaders = recordHeaders;
+            if (accept(partition,
+                    () -> this.messageConverter.toMessage(eventData, messageHeaders, this.payloadType))) {
+                onHandled(partition, record, 1);
+            }
+        }
+    }
+
+    /**
+     * @return whether the message is converted and handled without exception. Failed messages are not committed by
+     * themselves, like failed batches of AMQP consumers.
+     */
+    private boolean accept(TopicPartition partition, Supplier<Message<?>> messageSupplier) {
+        Message<?> message = null;
+        try {
+            message = messageSupplier.get();
+            this.consumer.accept(message);
+            return true;
+        } catch (Exception e) {
+            if (message == null) {
+                log.error("Failed to convert message of event hub {} partition {}", this.topic,
+                        partition.partition(), e);
+            } else {
+                log.error("Failed to handle message of event hub {}: {}", this.topic, message, e);
+            }
+            return false;
+        }
+    }
+
+    private boolean isSelected(EventData eventData) {
+        return this.eventSelector == null || this.eventSelector.test(eventData.getProperties());
+    }
+
+    private AzureCheckpointer checkpointer(TopicPartition partition, ConsumerRecord<String, byte[]> record) {
+        return new AzureCheckpointer(() -> {
+            this.requested.merge(partition, new OffsetAndMetadata(record.offset() + 1),
+                    (a, b) -> a.offset() >= b.offset() ? a : b);
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    private void onHandled(TopicPartition partition, ConsumerRecord<String, byte[]> last, int count) {
+        if (this.checkpointConfig.getCheckpointMode() == CheckpointMode.MANUAL) {
+            return;
+        }
+
+        this.uncommitted.put(partition, new OffsetAndMetadata(last.offset() + 1));
+
+        if (this.checkpointConfig.getCheckpointMode() == CheckpointMode.RECORD) {
+            commit(Collections.singletonMap(partition, this.uncommitted.get(partition)));
+        } else if (this.checkpointConfig.getCheckpointMode() == CheckpointMode.PARTITION_COUNT) {
+            int handled = this.uncommittedCounts.merge(partition, count, Integer::sum);
+            if (handled >= this.checkpointConfig.getCheckpointCount()) {
+                commit(Collections.singletonMap(partition, this.uncommitted.get(partition)));
+            }
+        }
+    }
+
+    private void commitRequested() {
+        if (this.requested.isEmpty()) {
+            return;
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>(this.requested);
+        offsets.forEach(this.requested::remove);
+        commit(offsets);
+    }
+
+    private void commit(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        this.lastCommitNanos = System.nanoTime();
+        if (offsets.isEmpty()) {
+            return;
+        }
+
+        offsets.keySet().forEach(p -> {
+            this.uncommitted.remove(p);
+            this.uncommittedCounts.remove(p);
+        });
+        this.kafkaConsumer.commitAsync(offsets, (o, e) -> {
+            if (e != null) {
+                log.warn("Consumer group failed to commit offsets {} of event hub {}", o, this.topic, e);
+            }
+        });
+    }
+
+    private void close() {
+        try {
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>(this.uncommitted);
+            offsets.putAll(this.requested);
+            if (!offsets.isEmpty()) {
+                this.kafkaConsumer.commitSync(offsets);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to commit offsets of event hub {} when closing", this.topic, e);
+        } finally {
+            this.kafkaConsumer.close();
+            this.stopped.complete(null);
+        }
+    }
+
+    private static EventData toEventData(ConsumerRecord<String, byte[]> record) {
+        EventData eventData = EventData.create(record.value() == null ? new byte[0] : record.value());
+        for (Header header : record.headers()) {
+            eventData.getProperties().put(header.key(), new String(header.value(), StandardCharsets.UTF_8));
+        }
+
+        return eventData;
+    }
+
+    /**
+     * Commit handled offsets of revoked partitions, so their next owner continues right after them
+     */
+    private class CommitOnRevoke implements ConsumerRebalanceListener {
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+            partitions.forEach(p -> {
+                OffsetAndMetadata offset = uncommitted.remove(p);
+                uncommittedCounts.remove(p);
+                OffsetAndMetadata requestedOffset = requested.remove(p);
+                if (requestedOffset != null) {
+                    offset = requestedOffset;
+                }
+
+                if (offset != null) {
+                    offsets.put(p, offset);
+                }
+            });
+
+            if (!offsets.isEmpty()) {
+                kafkaConsumer.commitSync(offsets);
+            }
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            log.info("Partitions {} of event hub {} are assigned", partitions, topic);
+        }
+    }
+}
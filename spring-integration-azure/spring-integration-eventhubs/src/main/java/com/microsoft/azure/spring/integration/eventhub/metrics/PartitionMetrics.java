@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.metrics;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.ReceiverRuntimeInformation;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput and lag of one partition consumed by one consumer group.
+ *
+ * <p>
+ * Updated once per handled batch and once per completed checkpoint without allocating per event, so it can stay
+ * enabled on the consume path. Rates are computed over windows of one second.
+ *
+ * @author Warren Zhu
+ */
+public class PartitionMetrics {
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long[] HANDLER_LATENCY_BOUNDS_MILLIS = {1, 5, 10, 50, 100, 500, 1000, 5000, 10000};
+
+    private final String eventHubName;
+    private final String consumerGroup;
+    private final String partitionId;
+
+    private final LongAdder eventCount = new LongAdder();
+    private final LongAdder byteCount = new LongAdder();
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder filteredEventCount = new LongAdder();
+    private final LongAdder handlerNanos = new LongAdder();
+    private final AtomicLong maxHandlerNanos = new AtomicLong();
+    // Counts of handler latency not greater than each bound, and the last one beyond all bounds
+    private final AtomicLongArray handlerLatencyCounts = new AtomicLongArray(HANDLER_LATENCY_BOUNDS_MILLIS.length + 1);
+
+    private final LongAdder checkpointCount = new LongAdder();
+    private final LongAdder checkpointFailures = new LongAdder();
+    private final LongAdder checkpointNanos = new LongAdder();
+
+    private volatile long enqueueToProcessMillis = -1;
+    private volatile long lastSequenceNumber = -1;
+    private volatile long lastEnqueuedSequenceNumber = -1;
+
+    private long windowStartNanos = System.nanoTime();
+    private long windowEvents;
+    private long windowBytes;
+    private volatile long lastBatchNanos = System.nanoTime();
+    private volatile double eventsPerSecond;
+    private volatile double bytesPerSecond;
+
+    public PartitionMetrics(String eventHubName, String consumerGroup, String partitionId) {
+        this.eventHubName = eventHubName;
+        this.consumerGroup = consumerGroup;
+        this.partitionId = partitionId;
+    }
+
+    /**
+     * Record a handled batch. Events are iterated again to sum up body size, so they should still be valid.
+     *
+     * @param runtimeInformation receiver runtime information of the partition, or {@code null} if not available
+     */
+    public synchronized void recordBatch(Iterable<EventData> events, long elapsedNanos,
+            ReceiverRuntimeInformation runtimeInformation) {
+        long now = System.nanoTime();
+        int count = 0;
+        long bytes = 0;
+        EventData lastEvent = null;
+        for (EventData event : events) {
+            byte[] body = event.getBytes();
+            bytes += body == null ? 0 : body.length;
+            lastEvent = event;
+            count++;
+        }
+
+        if (count > 0) {
+            this.eventCount.add(count);
+            this.byteCount.add(bytes);
+            this.batchCount.increment();
+            this.handlerNanos.add(elapsedNanos);
+            this.maxHandlerNanos.accumulateAndGet(elapsedNanos, Math::max);
+            this.handlerLatencyCounts.incrementAndGet(bucketOf(TimeUnit.NANOSECONDS.toMillis(elapsedNanos)));
+            this.windowEvents += count;
+            this.windowBytes += bytes;
+            this.lastBatchNanos = now;
+        }
+
+        if (lastEvent != null && lastEvent.getSystemProperties() != null) {
+            EventData.SystemProperties properties = lastEvent.getSystemProperties();
+            this.lastSequenceNumber = properties.getSequenceNumber();
+            Instant enqueuedTime = properties.getEnqueuedTime();
+            if (enqueuedTime != null) {
+                this.enqueueToProcessMillis = Math.max(0, System.currentTimeMillis() - enqueuedTime.toEpochMilli());
+            }
+        }
+
+        if (runtimeInformation != null && runtimeInformation.getRetrievalTime() != null) {
+            this.lastEnqueuedSequenceNumber = runtimeInformation.getLastEnqueuedSequenceNumber();
+        }
+
+        long elapsedWindow = now - this.windowStartNanos;
+        if (elapsedWindow >= RATE_WINDOW_NANOS) {
+            this.eventsPerSecond = this.windowEvents * (double) RATE_WINDOW_NANOS / elapsedWindow;
+            this.bytesPerSecond = this.windowBytes * (double) RATE_WINDOW_NANOS / elapsedWindow;
+            this.windowStartNanos = now;
+            this.windowEvents = 0;
+            this.windowBytes = 0;
+        }
+    }
+
+    /**
+     * Record events skipped by event selector without being converted. They are counted by {@link #recordBatch} as
+     * well.
+     */
+    public void recordFiltered(int count) {
+        this.filteredEventCount.add(count);
+    }
+
+    /**
+     * Record a completed checkpoint
+     */
+    public void recordCheckpoint(long elapsedNanos, boolean failed) {
+        if (failed) {
+            this.checkpointFailures.increment();
+        } else {
+            this.checkpointCount.increment();
+            this.checkpointNanos.add(elapsedNanos);
+        }
+    }
+
+    private static int bucketOf(long millis) {
+        for (int i = 0; i < HANDLER_LATENCY_BOUNDS_MILLIS.length; i++) {
+            if (millis <= HANDLER_LATENCY_BOUNDS_MILLIS[i]) {
+                return i;
+            }
+        }
+
+        return HANDLER_LATENCY_BOUNDS_MILLIS.length;
+    }
+
+    public String getEventHubName() {
+        return eventHubName;
+    }
+
+    public String getConsumerGroup() {
+        return consumerGroup;
+    }
+
+    public String getPartitionId() {
+        return partitionId;
+    }
+
+    public long getEventCount() {
+        return eventCount.sum();
+    }
+
+    public long getByteCount() {
+        return byteCount.sum();
+    }
+
+    /**
+     * Count of received events skipped by event selector, included in {@link #getEventCount()}
+     */
+    public long getFilteredEventCount() {
+        return filteredEventCount.sum();
+    }
+
+    /**
+     * Events handled per second in the last complete window, or 0 if nothing was handled in the last two windows
+     */
+    public double getEventsPerSecond() {
+        return isIdle() ? 0 : eventsPerSecond;
+    }
+
+    /**
+     * Event body bytes handled per second in the last complete window, or 0 if nothing was handled in the last two
+     * windows
+     */
+    public double getBytesPerSecond() {
+        return isIdle() ? 0 : bytesPerSecond;
+    }
+
+    private boolean isIdle() {
+        return System.nanoTime() - this.lastBatchNanos > 2 * RATE_WINDOW_NANOS;
+    }
+
+    public long getAverageHandlerLatencyMillis() {
+        long batches = batchCount.sum();
+        return batches == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(handlerNanos.sum() / batches);
+    }
+
+    public long getMaxHandlerLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxHandlerNanos.get());
+    }
+
+    /**
+     * Upper bounds in milliseconds of handler latency buckets
+     */
+    public static long[] getHandlerLatencyBoundsMillis() {
+        return HANDLER_LATENCY_BOUNDS_MILLIS.clone();
+    }
+
+    /**
+     * Count of handled batches in each bucket of {@link #getHandlerLatencyBoundsMillis()}. The extra last element
+     * counts batches slower than all bounds.
+     */
+    public long[] getHandlerLatencyCounts() {
+        long[] counts = new long[handlerLatencyCounts.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = handlerLatencyCounts.get(i);
+        }
+
+        return counts;
+    }
+
+    /**
+     * Time from last handled event being enqueued to being handled, or -1 if unknown
+     */
+    public long getEnqueueToProcessMillis() {
+        return enqueueToProcessMillis;
+    }
+
+    public long getCheckpointCount() {
+        return checkpointCount.sum();
+    }
+
+    public long getCheckpointFailures() {
+        return checkpointFailures.sum();
+    }
+
+    public long getAverageCheckpointLatencyMillis() {
+        long checkpoints = checkpointCount.sum();
+        return checkpoints == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(checkpointNanos.sum() / checkpoints);
+    }
+
+    public long getLastSequenceNumber() {
+        return lastSequenceNumber;
+    }
+
+    public long getLastEnqueuedSequenceNumber() {
+        return lastEnqueuedSequenceNumber;
+    }
+
+    /**
+     * Count of events enqueued to the partition but not handled yet, or -1 if unknown, e.g. lag metrics are not
+     * enabled by {@link com.microsoft.azure.spring.integration.core.api.ReceiveConfig#isLagMetricsEnabled()}
+     */
+    public long getSequenceNumberGap() {
+        long lastEnqueued = this.lastEnqueuedSequenceNumber;
+        long last = this.lastSequenceNumber;
+        if (lastEnqueued < 0 || last < 0) {
+            return -1;
+        }
+
+        return Math.max(0, lastEnqueued - last);
+    }
+
+    @Override
+    public String toString() {
+        return "PartitionMetrics{" + "eventHubName='" + eventHubName + '\'' + ", consumerGroup='" + consumerGroup +
+                '\'' + ", partitionId='" + partitionId + '\'' + ", eventCount=" + getEventCount() +
+                ", filteredEventCount=" + getFilteredEventCount() + ", eventsPerSecond=" + getEventsPerSecond() +
+                ", enqueueToProcessMillis=" + enqueueToProcessMillis + ", sequenceNumberGap=" + getSequenceNumberGap() +
+                ", checkpointFailures=" + getCheckpointFailures() + '}';
+    }
+}
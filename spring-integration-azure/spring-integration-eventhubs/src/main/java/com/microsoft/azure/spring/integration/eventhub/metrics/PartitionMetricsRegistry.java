@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Metrics of partitions currently owned by consumers. Metrics of a partition are registered when it is opened and
+ * removed when it is closed, e.g. after its lease is taken by another host.
+ *
+ * @author Warren Zhu
+ */
+public class PartitionMetricsRegistry {
+    // eventHubName/consumerGroup/partitionId -> metrics
+    private final Map<String, PartitionMetrics> metricsByPartition = new ConcurrentHashMap<>();
+
+    public PartitionMetrics getOrCreate(String eventHubName, String consumerGroup, String partitionId) {
+        return this.metricsByPartition.computeIfAbsent(keyOf(eventHubName, consumerGroup, partitionId),
+                k -> new PartitionMetrics(eventHubName, consumerGroup, partitionId));
+    }
+
+    public void remove(String eventHubName, String consumerGroup, String partitionId) {
+        this.metricsByPartition.remove(keyOf(eventHubName, consumerGroup, partitionId));
+    }
+
+    public List<PartitionMetrics> getAll() {
+        return new ArrayList<>(this.metricsByPartition.values());
+    }
+
+    private static String keyOf(String eventHubName, String consumerGroup, String partitionId) {
+        return eventHubName + "/" + consumerGroup + "/" + partitionId;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.metrics;
+
+import java.time.Duration;
+
+/**
+ * Aggregate throughput of scanning all partitions of an event hub
+ *
+ * @author Warren Zhu
+ */
+public class ScanResult {
+    private static final double BYTES_PER_MB = 1024 * 1024;
+
+    private final long eventCount;
+    private final long byteCount;
+    private final Duration elapsed;
+
+    public ScanResult(long eventCount, long byteCount, Duration elapsed) {
+        this.eventCount = eventCount;
+        this.byteCount = byteCount;
+        this.elapsed = elapsed;
+    }
+
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Total size of event bodies
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    public double getMegabytesPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : byteCount / BYTES_PER_MB * 1_000_000_000 / nanos;
+    }
+
+    public double getEventsPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : eventCount * 1_000_000_000d / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ScanResult{" + "eventCount=" + eventCount + ", byteCount=" + byteCount + ", elapsed=" + elapsed +
+                ", megabytesPerSecond=" + String.format("%.2f", getMegabytesPerSecond()) + '}';
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.store;
+
+import com.microsoft.azure.eventprocessorhost.Checkpoint;
+import com.microsoft.azure.eventprocessorhost.CompleteLease;
+import com.microsoft.azure.eventprocessorhost.ICheckpointManager;
+import com.microsoft.azure.spring.integration.eventhub.impl.EventHubRuntimeException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link ICheckpointManager} keeping checkpoints of one consumer group in memory and writing them to a local file
+ * in batch. Checkpoint updated after the last {@link #flush()} is lost if the process crashes, so its events are
+ * received again on restart.
+ *
+ * <p>
+ * Each line of the file is {@code partitionId=offset:sequenceNumber}. The file is replaced atomically on each write.
+ *
+ * @author Warren Zhu
+ */
+class FileCheckpointStore implements ICheckpointManager {
+    private static final String SEPARATOR = ":";
+
+    private final Path file;
+    private final Map<String, Checkpoint> checkpointsByPartition = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+    FileCheckpointStore(Path file) {
+        this.file = file;
+        load();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> checkpointStoreExists() {
+        return CompletableFuture.completedFuture(Files.exists(this.file));
+    }
+
+    @Override
+    public CompletableFuture<Void> createCheckpointStoreIfNotExists() {
+        try {
+            Files.createDirectories(this.file.getParent());
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return failed(new EventHubRuntimeException("Error when creating checkpoint store " + this.file, e));
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteCheckpointStore() {
+        this.checkpointsByPartition.clear();
+        this.dirty.set(false);
+
+        try {
+            Files.deleteIfExists(this.file);
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return failed(new EventHubRuntimeException("Error when deleting checkpoint store " + this.file, e));
+        }
+    }
+
+    @Override
+    public CompletableFuture<Checkpoint> getCheckpoint(String partitionId) {
+        Checkpoint checkpoint = this.checkpointsByPartition.get(partitionId);
+        return CompletableFuture.completedFuture(checkpoint == null ? null : new Checkpoint(checkpoint));
+    }
+
+    @Override
+    public CompletableFuture<Void> createAllCheckpointsIfNotExists(List<String> partitionIds) {
+        // Partition without checkpoint starts from initial position, so nothing to create
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> updateCheckpoint(CompleteLease lease, Checkpoint checkpoint) {
+        this.checkpointsByPartition.put(checkpoint.getPartitionId(), new Checkpoint(checkpoint));
+        this.dirty.set(true);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteCheckpoint(String partitionId) {
+        if (this.checkpointsByPartition.remove(partitionId) != null) {
+            this.dirty.set(true);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Write all checkpoints to file if any checkpoint changed since last write.
+     */
+    synchronized void flush() {
+        if (!this.dirty.compareAndSet(true, false)) {
+            return;
+        }
+
+        Properties properties = new Properties();
+        this.checkpointsByPartition.forEach((partitionId, checkpoint) -> properties
+                .setProperty(partitionId, checkpoint.getOffset() + SEPARATOR + checkpoint.getSequenceNumber()));
+
+        try {
+            Files.createDirectories(this.file.getParent());
+            Path tmp = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                properties.store(out, null);
+            }
+            Files.move(tmp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            this.dirty.set(true);
+            throw new EventHubRuntimeException("Error when writing checkpoint store " + this.file, e);
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(this.file)) {
+            return;
+        }
+
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(this.file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new EventHubRuntimeException("Error when reading checkpoint store " + this.file, e);
+        }
+
+        for (String partitionId : properties.stringPropertyNames()) {
+            String value = properties.getProperty(partitionId);
+            int index = value.lastIndexOf(SEPARATOR);
+            this.checkpointsByPartition.put(partitionId, new Checkpoint(partitionId, value.substring(0, index),
+                    Long.parseLong(value.substring(index + 1))));
+        }
+    }
+
+    private static CompletableFuture<Void> failed(Throwable t) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(t);
+        return future;
+    }
+}
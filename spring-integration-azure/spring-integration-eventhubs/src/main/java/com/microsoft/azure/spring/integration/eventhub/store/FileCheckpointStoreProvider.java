@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.store;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.microsoft.azure.eventprocessorhost.ICheckpointManager;
+import com.microsoft.azure.eventprocessorhost.ILeaseManager;
+import com.microsoft.azure.spring.cloud.context.core.util.Memoizer;
+import com.microsoft.azure.spring.cloud.context.core.util.Tuple;
+import com.microsoft.azure.spring.integration.eventhub.api.CheckpointStoreProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.NonNull;
+import org.springframework.util.Assert;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * {@link CheckpointStoreProvider} storing checkpoints in local files and leases in memory, for running and
+ * benchmarking consumers without a storage account. Only one process should consume each consumer group.
+ *
+ * <p>
+ * Checkpoints of each consumer group are written to {@code <directory>/<eventHubName>/<consumerGroup>.checkpoint}
+ * at most once per flush interval, instead of one remote call per checkpoint.
+ *
+ * @author Warren Zhu
+ */
+public class FileCheckpointStoreProvider implements CheckpointStoreProvider, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(FileCheckpointStoreProvider.class);
+    private static final int DEFAULT_LEASE_DURATION_IN_MILLIS = 30_000;
+
+    private final Path directory;
+    private final ScheduledExecutorService flushScheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("eventhub-checkpoint-flush-%d").setDaemon(true).build());
+
+    // (eventHubName, consumerGroup) -> checkpoint store
+    private final Map<Tuple<String, String>, FileCheckpointStore> checkpointStores = new ConcurrentHashMap<>();
+    // (eventHubName, consumerGroup) -> lease states shared by all hosts
+    private final Map<Tuple<String, String>, Map<String, LocalLeaseStore.LeaseState>> leaseStates =
+            new ConcurrentHashMap<>();
+    private final BiFunction<String, String, FileCheckpointStore> checkpointStoreCreator =
+            Memoizer.memoize(checkpointStores, this::createCheckpointStore);
+    private final BiFunction<String, String, Map<String, LocalLeaseStore.LeaseState>> leaseStatesCreator =
+            Memoizer.memoize(leaseStates, (name, group) -> new HashMap<>());
+
+    private final ScheduledFuture<?> flushTask;
+
+    public FileCheckpointStoreProvider(@NonNull Path directory) {
+        this(directory, Duration.ofSeconds(1));
+    }
+
+    /**
+     * @param flushInterval interval to write changed checkpoints to files
+     */
+    public FileCheckpointStoreProvider(@NonNull Path directory, @NonNull Duration flushInterval) {
+        Assert.isTrue(!flushInterval.isNegative() && !flushInterval.isZero(), "flushInterval should be positive");
+        this.directory = directory;
+        this.flushTask = this.flushScheduler.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(),
+                flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private FileCheckpointStore createCheckpointStore(String eventHubName, String consumerGroup) {
+        return new FileCheckpointStore(this.directory.resolve(eventHubName).resolve(consumerGroup + ".checkpoint"));
+    }
+
+    @Override
+    public ICheckpointManager getCheckpointStore(String eventHubName, String consumerGroup) {
+        return this.checkpointStoreCreator.apply(eventHubName, consumerGroup);
+    }
+
+    @Override
+    public ILeaseManager getLeaseStore(String hostName, String eventHubName, String consumerGroup) {
+        return new LocalLeaseStore(hostName, DEFAULT_LEASE_DURATION_IN_MILLIS,
+                this.leaseStatesCreator.apply(eventHubName, consumerGroup));
+    }
+
+    /**
+     * Write changed checkpoints of all consumer groups to files.
+     */
+    public void flush() {
+        this.checkpointStores.values().forEach(store -> {
+            try {
+                store.flush();
+            } catch (RuntimeException e) {
+                log.warn("Failed to flush checkpoint store", e);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        this.flushTask.cancel(false);
+        this.flushScheduler.shutdown();
+        flush();
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.store;
+
+import com.microsoft.azure.eventprocessorhost.BaseLease;
+import com.microsoft.azure.eventprocessorhost.CompleteLease;
+import com.microsoft.azure.eventprocessorhost.ILeaseManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * {@link ILeaseManager} keeping leases of one consumer group in memory. Leases are only shared by hosts of this
+ * process, so consumers of the same consumer group in other processes are not balanced against.
+ *
+ * @author Warren Zhu
+ */
+class LocalLeaseStore implements ILeaseManager {
+    private final String hostName;
+    private final int leaseDurationInMillis;
+    private final Map<String, LeaseState> leasesByPartition;
+
+    LocalLeaseStore(String hostName, int leaseDurationInMillis, Map<String, LeaseState> leasesByPartition) {
+        this.hostName = hostName;
+        this.leaseDurationInMillis = leaseDurationInMillis;
+        this.leasesByPartition = leasesByPartition;
+    }
+
+    @Override
+    public int getLeaseDurationInMilliseconds() {
+        return this.leaseDurationInMillis;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> leaseStoreExists() {
+        return CompletableFuture.completedFuture(true);
+    }
+
+    @Override
+    public CompletableFuture<Void> createLeaseStoreIfNotExists() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteLeaseStore() {
+        synchronized (this.leasesByPartition) {
+            this.leasesByPartition.clear();
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<CompleteLease> getLease(String partitionId) {
+        synchronized (this.leasesByPartition) {
+            LeaseState state = this.leasesByPartition.get(partitionId);
+            return CompletableFuture.completedFuture(state == null ? null : toLease(partitionId, state));
+        }
+    }
+
+    @Override
+    public CompletableFuture<List<BaseLease>> getAllLeases() {
+        synchronized (this.leasesByPartition) {
+            List<BaseLease> leases = this.leasesByPartition.entrySet().stream()
+                                                           .map(e -> toLease(e.getKey(), e.getValue()))
+                                                           .collect(Collectors.toList());
+            return CompletableFuture.completedFuture(leases);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> createAllLeasesIfNotExists(List<String> partitionIds) {
+        synchronized (this.leasesByPartition) {
+            partitionIds.forEach(id -> this.leasesByPartition.putIfAbsent(id, new LeaseState()));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteLease(CompleteLease lease) {
+        synchronized (this.leasesByPartition) {
+            this.leasesByPartition.remove(lease.getPartitionId());
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Acquire lease no matter who owns it, since event processor host only acquires unowned lease or the lease it
+     * decides to steal.
+     */
+    @Override
+    public CompletableFuture<Boolean> acquireLease(CompleteLease lease) {
+        synchronized (this.leasesByPartition) {
+            LeaseState state = this.leasesByPartition.get(lease.getPartitionId());
+            if (state == null) {
+                return CompletableFuture.completedFuture(false);
+            }
+
+            state.owner = this.hostName;
+            state.expirationTime = System.currentTimeMillis() + this.leaseDurationInMillis;
+            lease.setOwner(this.hostName);
+            lease.setIsOwned(true);
+            return CompletableFuture.completedFuture(true);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> renewLease(CompleteLease lease) {
+        synchronized (this.leasesByPartition) {
+            LeaseState state = this.leasesByPartition.get(lease.getPartitionId());
+            if (!isOwnedByThisHost(state)) {
+                return CompletableFuture.completedFuture(false);
+            }
+
+            state.expirationTime = System.currentTimeMillis() + this.leaseDurationInMillis;
+            return CompletableFuture.completedFuture(true);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> releaseLease(CompleteLease lease) {
+        synchronized (this.leasesByPartition) {
+            LeaseState state = this.leasesByPartition.get(lease.getPartitionId());
+            if (isOwnedByThisHost(state)) {
+                state.owner = null;
+                state.expirationTime = 0;
+            }
+            lease.setOwner("");
+            lease.setIsOwned(false);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateLease(CompleteLease lease) {
+        synchronized (this.leasesByPartition) {
+            LeaseState state = this.leasesByPartition.get(lease.getPartitionId());
+            if (!isOwnedByThisHost(state)) {
+                return CompletableFuture.completedFuture(false);
+            }
+
+            state.epoch = lease.getEpoch();
+            state.expirationTime = System.currentTimeMillis() + this.leaseDurationInMillis;
+            return CompletableFuture.completedFuture(true);
+        }
+    }
+
+    private boolean isOwnedByThisHost(LeaseState state) {
+        return state != null && this.hostName.equals(state.owner) && !state.isExpired();
+    }
+
+    private static CompleteLease toLease(String partitionId, LeaseState state) {
+        CompleteLease lease = new CompleteLease(partitionId);
+        boolean owned = state.owner != null && !state.isExpired();
+        lease.setOwner(owned ? state.owner : "");
+        lease.setIsOwned(owned);
+        lease.setEpoch(state.epoch);
+        return lease;
+    }
+
+    /**
+     * Lease state of one partition, shared by lease stores of all hosts of the same consumer group.
+     */
+    static class LeaseState {
+        private String owner;
+        private long epoch;
+        private long expirationTime;
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= this.expirationTime;
+        }
+    }
+}
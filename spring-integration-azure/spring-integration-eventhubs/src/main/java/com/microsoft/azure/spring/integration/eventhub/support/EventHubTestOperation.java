@@ -13,6 +13,7 @@ import com.microsoft.azure.eventprocessorhost.PartitionContext;
 import com.microsoft.azure.spring.integration.core.api.PartitionSupplier;
 import com.microsoft.azure.spring.integration.core.api.StartPosition;
 import com.microsoft.azure.spring.integration.eventhub.api.EventHubClientFactory;
+import com.microsoft.azure.spring.integration.eventhub.api.EventHubOperation;
 import com.microsoft.azure.spring.integration.eventhub.impl.EventHubProcessor;
 import com.microsoft.azure.spring.integration.eventhub.impl.EventHubTemplate;
 import org.springframework.messaging.Message;
@@ -24,16 +25,35 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 public class EventHubTestOperation extends EventHubTemplate {
-    private final Multimap<String, EventData> eventHubsByName = ArrayListMultimap.create();
-    private final Map<String, Map<String, EventHubProcessor>> processorsByNameAndGroup = new ConcurrentHashMap<>();
+    private final Multimap<String, EventData> eventHubsByName;
+    private final Map<String, Map<String, EventHubProcessor>> processorsByNameAndGroup;
     private final Supplier<PartitionContext> partitionContextSupplier;
 
     public EventHubTestOperation(EventHubClientFactory clientFactory,
             Supplier<PartitionContext> partitionContextSupplier) {
         super(clientFactory);
+        this.eventHubsByName = ArrayListMultimap.create();
+        this.processorsByNameAndGroup = new ConcurrentHashMap<>();
         this.partitionContextSupplier = partitionContextSupplier;
     }
 
+    /**
+     * Share in-memory event hubs with the given operation
+     */
+    private EventHubTestOperation(EventHubTestOperation shared) {
+        super(shared.getClientFactory());
+        this.eventHubsByName = shared.eventHubsByName;
+        this.processorsByNameAndGroup = shared.processorsByNameAndGroup;
+        this.partitionContextSupplier = shared.partitionContextSupplier;
+    }
+
+    @Override
+    public EventHubOperation newOperation() {
+        EventHubTestOperation operation = new EventHubTestOperation(this);
+        copySettingsTo(operation);
+        return operation;
+    }
+
     @Override
     public <U> CompletableFuture<Void> sendAsync(String name, Message<U> message, PartitionSupplier partitionSupplier) {
         CompletableFuture<Void> future = new CompletableFuture<>();
@@ -55,7 +75,8 @@ public class EventHubTestOperation extends EventHubTemplate {
     }
 
     @Override
-    protected synchronized void register(String name, String group, EventHubProcessor eventProcessor) {
+    protected synchronized void register(String name, String group, EventHubProcessor eventProcessor,
+            int prefetchCount) {
         processorsByNameAndGroup.putIfAbsent(name, new ConcurrentHashMap<>());
 
         processorsByNameAndGroup.get(name).putIfAbsent(group, eventProcessor);
@@ -71,6 +92,11 @@ public class EventHubTestOperation extends EventHubTemplate {
         }
     }
 
+    @Override
+    protected void unregister(String name, String consumerGroup) {
+        processorsByNameAndGroup.get(name).remove(consumerGroup);
+    }
+
     @Override
     public boolean unsubscribe(String name, String consumerGroup) {
         processorsByNameAndGroup.get(name).remove(consumerGroup);
@@ -11,8 +11,8 @@ import com.microsoft.azure.spring.cloud.context.core.util.Tuple;
 import com.microsoft.azure.spring.integration.core.api.PartitionSupplier;
 import com.microsoft.azure.spring.integration.eventhub.api.EventHubClientFactory;
 import com.microsoft.azure.spring.integration.eventhub.api.EventHubRxOperation;
-import com.microsoft.azure.spring.integration.eventhub.impl.EventHubProcessor;
 import org.springframework.messaging.Message;
+import reactor.core.publisher.Flux;
 import rx.Observable;
 import rx.subscriptions.Subscriptions;
 
@@ -23,6 +23,8 @@ import java.util.function.Supplier;
 public class RxEventHubTestOperation extends EventHubTestOperation implements EventHubRxOperation {
     private final ConcurrentHashMap<Tuple<String, String>, Observable<Message<?>>> subjectByNameAndGroup =
             new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Tuple<String, String>, Flux<Message<?>>> fluxByNameAndGroup =
+            new ConcurrentHashMap<>();
 
     public RxEventHubTestOperation(EventHubClientFactory clientFactory,
             Supplier<PartitionContext> partitionContextSupplier) {
@@ -50,13 +52,18 @@ public class RxEventHubTestOperation extends EventHubTestOperation implements Ev
         Tuple<String, String> nameAndConsumerGroup = Tuple.of(destination, consumerGroup);
 
         subjectByNameAndGroup.computeIfAbsent(nameAndConsumerGroup, k -> Observable.<Message<?>>create(subscriber -> {
-            this.register(destination, consumerGroup,
-                    new EventHubProcessor(subscriber::onNext, messagePayloadType, getCheckpointConfig(),
-                            getMessageConverter()));
+            this.register(destination, consumerGroup, createProcessor(subscriber::onNext, messagePayloadType));
             subscriber.add(Subscriptions.create(() -> unregister(destination, consumerGroup)));
         }).share());
 
         return subjectByNameAndGroup.get(nameAndConsumerGroup);
     }
+
+    @Override
+    public Flux<Message<?>> subscribeFlux(String destination, String consumerGroup, Class<?> messagePayloadType,
+            int prefetch) {
+        return fluxByNameAndGroup.computeIfAbsent(Tuple.of(destination, consumerGroup),
+                k -> createFlux(destination, consumerGroup, messagePayloadType, prefetch));
+    }
 }
 
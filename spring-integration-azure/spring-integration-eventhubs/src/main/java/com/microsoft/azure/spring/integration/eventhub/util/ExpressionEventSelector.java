@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.util;
+
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.SimpleEvaluationContext;
+import org.springframework.util.Assert;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Event selector of a SpEL expression evaluated against event properties, e.g. {@code ['type'] == 'order'}. Missing
+ * properties are {@code null}. The expression is compiled once it has been evaluated a few times, and only read-only
+ * data binding is allowed.
+ *
+ * @author Warren Zhu
+ */
+public class ExpressionEventSelector implements Predicate<Map<String, Object>> {
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.MIXED, ExpressionEventSelector.class.getClassLoader()));
+
+    private final EvaluationContext evaluationContext = SimpleEvaluationContext.forReadOnlyDataBinding().build();
+
+    private final String expressionString;
+
+    private final Expression expression;
+
+    public ExpressionEventSelector(String expressionString) {
+        Assert.hasText(expressionString, "expressionString can't be null or empty");
+        this.expressionString = expressionString;
+        this.expression = PARSER.parseExpression(expressionString);
+    }
+
+    @Override
+    public boolean test(Map<String, Object> properties) {
+        return Boolean.TRUE.equals(this.expression.getValue(this.evaluationContext, properties, Boolean.class));
+    }
+
+    @Override
+    public String toString() {
+        return "ExpressionEventSelector{" + "expression='" + expressionString + '\'' + '}';
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Resolve partition id of partition key on client side, using the same Jenkins lookup3 based hashing as Event Hubs
+ * service, so events with the same partition key land in the same partition either way.
+ *
+ * @author Warren Zhu
+ */
+public class PartitionKeyResolver {
+
+    public static String resolvePartitionId(String partitionKey, List<String> partitionIds) {
+        short hash = hash(partitionKey);
+        return partitionIds.get(Math.abs(hash % partitionIds.size()));
+    }
+
+    static short hash(String partitionKey) {
+        byte[] data = (partitionKey == null ? "" : partitionKey).getBytes(StandardCharsets.UTF_8);
+        long hash = computeHash(data, 0, 0);
+        return (short) ((int) (hash >>> 32) ^ (int) hash);
+    }
+
+    /**
+     * Jenkins lookup3 hashlittle2. Returns primary hash in high 32 bits and secondary hash in low 32 bits.
+     */
+    static long computeHash(byte[] data, int seed1, int seed2) {
+        int a;
+        int b;
+        int c;
+        a = b = c = 0xdeadbeef + data.length + seed1;
+        c += seed2;
+
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        int index = 0;
+        int size = data.length;
+
+        while (size > 12) {
+            a += buffer.getInt(index);
+            b += buffer.getInt(index + 4);
+            c += buffer.getInt(index + 8);
+
+            a -= c;
+            a ^= Integer.rotateLeft(c, 4);
+            c += b;
+            b -= a;
+            b ^= Integer.rotateLeft(a, 6);
+            a += c;
+            c -= b;
+            c ^= Integer.rotateLeft(b, 8);
+            b += a;
+            a -= c;
+            a ^= Integer.rotateLeft(c, 16);
+            c += b;
+            b -= a;
+            b ^= Integer.rotateLeft(a, 19);
+            a += c;
+            c -= b;
+            c ^= Integer.rotateLeft(b, 4);
+            b += a;
+
+            index += 12;
+            size -= 12;
+        }
+
+        switch (size) {
+            case 12:
+                c += buffer.getInt(index + 8);
+                b += buffer.getInt(index + 4);
+                a += buffer.getInt(index);
+                break;
+            case 11:
+                c += (data[index + 10] & 0xff) << 16;
+                // fall through
+            case 10:
+                c += (data[index + 9] & 0xff) << 8;
+                // fall through
+            case 9:
+                c += data[index + 8] & 0xff;
+                // fall through
+            case 8:
+                b += buffer.getInt(index + 4);
+                a += buffer.getInt(index);
+                break;
+            case 7:
+                b += (data[index + 6] & 0xff) << 16;
+                // fall through
+            case 6:
+                b += (data[index + 5] & 0xff) << 8;
+                // fall through
+            case 5:
+                b += data[index + 4] & 0xff;
+                // fall through
+            case 4:
+                a += buffer.getInt(index);
+                break;
+            case 3:
+                a += (data[index + 2] & 0xff) << 16;
+                // fall through
+            case 2:
+                a += (data[index + 1] & 0xff) << 8;
+                // fall through
+            case 1:
+                a += data[index] & 0xff;
+                break;
+            default:
+                // Zero length requires no mixing
+                return toLong(c, b);
+        }
+
+        c ^= b;
+        c -= Integer.rotateLeft(b, 14);
+        a ^= c;
+        a -= Integer.rotateLeft(c, 11);
+        b ^= a;
+        b -= Integer.rotateLeft(a, 25);
+        c ^= b;
+        c -= Integer.rotateLeft(b, 16);
+        a ^= c;
+        a -= Integer.rotateLeft(c, 4);
+        b ^= a;
+        b -= Integer.rotateLeft(a, 14);
+        c ^= b;
+        c -= Integer.rotateLeft(b, 24);
+
+        return toLong(c, b);
+    }
+
+    private static long toLong(int high, int low) {
+        return ((long) high << 32) | (low & 0xffffffffL);
+    }
+}
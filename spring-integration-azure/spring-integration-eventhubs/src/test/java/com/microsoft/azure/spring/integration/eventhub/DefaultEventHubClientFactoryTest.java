@@ -6,10 +6,13 @@
 
 package com.microsoft.azure.spring.integration.eventhub;
 
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import com.microsoft.azure.AzureEnvironment;
 import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.EventHubRuntimeInformation;
 import com.microsoft.azure.eventhubs.PartitionSender;
 import com.microsoft.azure.eventprocessorhost.EventProcessorHost;
 import com.microsoft.azure.management.storage.StorageAccount;
@@ -36,7 +39,7 @@ import static org.powermock.api.mockito.PowerMockito.*;
 
 @RunWith(PowerMockRunner.class)
 @PrepareForTest({EventHubClient.class, StorageConnectionStringProvider.class,
-    EventProcessorHost.class, DefaultEventHubClientFactory.class })
+    EventProcessorHost.class, DefaultEventHubClientFactory.class, EventHubRuntimeInformation.class })
 public class DefaultEventHubClientFactoryTest {
 
     @Mock
@@ -54,6 +57,9 @@ public class DefaultEventHubClientFactoryTest {
     @Mock
     EventProcessorHost eventProcessorHost;
 
+    @Mock
+    EventHubRuntimeInformation runtimeInformation;
+
     @Mock
     StorageAccount storageAccount;
 
@@ -106,6 +112,28 @@ public class DefaultEventHubClientFactoryTest {
         assertEquals(sender, another);
     }
 
+    @Test
+    public void testGetPartitionSenderWithConnectionPool() throws Exception {
+        ((DefaultEventHubClientFactory) clientFactory).setConnectionsPerEventHub(2);
+        clientFactory.getOrCreatePartitionSender(eventHubName, "0");
+        clientFactory.getOrCreatePartitionSender(eventHubName, partitionId);
+        clientFactory.getOrCreateClient(eventHubName);
+
+        verifyStatic(EventHubClient.class, times(2));
+        EventHubClient.createSync(eq(connectionString), any());
+    }
+
+    @Test
+    public void testGetPartitionIds() throws Exception {
+        when(runtimeInformation.getPartitionIds()).thenReturn(new String[]{"0", "1"});
+        when(eventHubClient.getRuntimeInformation()).thenReturn(CompletableFuture.completedFuture(runtimeInformation));
+
+        assertEquals(Arrays.asList("0", "1"), clientFactory.getPartitionIds(eventHubName));
+        clientFactory.getPartitionIds(eventHubName);
+
+        verify(eventHubClient, times(1)).getRuntimeInformation();
+    }
+
     @Test
     public void testGetEventProcessorHost() throws Exception {
         clientFactory.getOrCreateEventProcessorHost(eventHubName, consumerGroup);
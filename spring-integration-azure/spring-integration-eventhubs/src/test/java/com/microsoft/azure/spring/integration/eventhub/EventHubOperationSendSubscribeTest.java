@@ -12,18 +12,25 @@ import com.microsoft.azure.spring.integration.core.AzureHeaders;
 import com.microsoft.azure.spring.integration.core.api.CheckpointConfig;
 import com.microsoft.azure.spring.integration.core.api.CheckpointMode;
 import com.microsoft.azure.spring.integration.core.api.Checkpointer;
+import com.microsoft.azure.spring.integration.core.api.ListenerMode;
 import com.microsoft.azure.spring.integration.core.api.StartPosition;
 import com.microsoft.azure.spring.integration.eventhub.api.EventHubOperation;
+import com.microsoft.azure.spring.integration.eventhub.converter.EventHubMessageConverter;
+import com.microsoft.azure.spring.integration.eventhub.metrics.PartitionMetrics;
 import com.microsoft.azure.spring.integration.eventhub.support.EventHubTestOperation;
 import com.microsoft.azure.spring.integration.test.support.SendSubscribeByGroupOperationTest;
 import com.microsoft.azure.spring.integration.test.support.pojo.User;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.messaging.Message;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import static org.junit.Assert.*;
@@ -42,7 +49,6 @@ public class EventHubOperationSendSubscribeTest extends SendSubscribeByGroupOper
         CompletableFuture<Void> future = new CompletableFuture<>();
         future.complete(null);
         when(this.context.getPartitionId()).thenReturn("1");
-        when(this.context.checkpoint()).thenReturn(future);
         when(this.context.checkpoint(isA(EventData.class))).thenReturn(future);
 
         this.sendSubscribeOperation = new EventHubTestOperation(null, () -> context);
@@ -55,7 +61,7 @@ public class EventHubOperationSendSubscribeTest extends SendSubscribeByGroupOper
 
     @Override
     protected void verifyCheckpointBatchSuccessCalled(int times) {
-        verify(this.context, times(times)).checkpoint();
+        verify(this.context, times(times)).checkpoint(isA(EventData.class));
     }
 
     @Override
@@ -76,6 +82,97 @@ public class EventHubOperationSendSubscribeTest extends SendSubscribeByGroupOper
     private void batchCheckpointHandler(Message<?> message) {
     }
 
+    @Test
+    public void testSendReceiveWithBatchListenerMode() {
+        sendSubscribeOperation
+                .setCheckpointConfig(CheckpointConfig.builder().checkpointMode(CheckpointMode.RECORD).build());
+        sendSubscribeOperation.setListenerMode(ListenerMode.BATCH);
+        sendSubscribeOperation.setStartPosition(StartPosition.EARLIEST);
+        messages.forEach(m -> sendSubscribeOperation.sendAsync(destination, m));
+        sendSubscribeOperation.subscribe(destination, consumerGroup, this::batchListenerHandler, User.class);
+        verifyCheckpointSuccessCalled(1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void batchListenerHandler(Message<?> message) {
+        assertTrue(message.getPayload() instanceof List);
+        List<User> users = (List<User>) message.getPayload();
+        assertEquals(messages.size(), users.size());
+        for (int i = 0; i < users.size(); i++) {
+            assertEquals(messages.get(i).getPayload(), users.get(i));
+        }
+
+        List<Map<String, Object>> batchHeaders =
+                (List<Map<String, Object>>) message.getHeaders().get(AzureHeaders.BATCH_HEADERS);
+        assertNotNull(batchHeaders);
+        assertEquals(messages.size(), batchHeaders.size());
+        assertEquals(this.partitionId, message.getHeaders().get(AzureHeaders.RAW_PARTITION_ID, String.class));
+    }
+
+    @Test
+    public void testSendReceiveWithProcessorExecutor() {
+        EventHubTestOperation operation = (EventHubTestOperation) sendSubscribeOperation;
+        operation.setProcessorExecutor(Runnable::run);
+        operation.setCheckpointConfig(CheckpointConfig.builder().checkpointMode(CheckpointMode.BATCH).build());
+        operation.setStartPosition(StartPosition.EARLIEST);
+        messages.forEach(m -> operation.sendAsync(destination, m));
+        operation.subscribe(destination, consumerGroup, this::batchCheckpointHandler, User.class);
+
+        // Last handled event is checkpointed instead of current position of partition context
+        verifyCheckpointSuccessCalled(1);
+        verify(this.context, never()).checkpoint();
+    }
+
+    @Test
+    public void testCheckpointsAreCoalescedWhileInFlight() {
+        CompletableFuture<Void> inFlight = new CompletableFuture<>();
+        when(this.context.checkpoint(isA(EventData.class))).thenReturn(inFlight);
+        sendSubscribeOperation
+                .setCheckpointConfig(CheckpointConfig.builder().checkpointMode(CheckpointMode.RECORD).build());
+        sendSubscribeOperation.setStartPosition(StartPosition.EARLIEST);
+        messages.forEach(m -> sendSubscribeOperation.sendAsync(destination, m));
+        sendSubscribeOperation.subscribe(destination, consumerGroup, this::batchCheckpointHandler, User.class);
+
+        // Only the first checkpoint is written while it's in flight, and only the newest pending one afterwards
+        verifyCheckpointSuccessCalled(1);
+        inFlight.complete(null);
+        verifyCheckpointSuccessCalled(2);
+    }
+
+    @Test
+    public void testSendReceiveWithTimeCheckpointMode() {
+        sendSubscribeOperation.setCheckpointConfig(CheckpointConfig.builder().checkpointMode(CheckpointMode.TIME)
+                                                                   .checkpointInterval(Duration.ofMillis(50))
+                                                                   .build());
+        sendSubscribeOperation.setStartPosition(StartPosition.EARLIEST);
+        messages.forEach(m -> sendSubscribeOperation.sendAsync(destination, m));
+        sendSubscribeOperation.subscribe(destination, consumerGroup, this::batchCheckpointHandler, User.class);
+
+        // Only the latest event is checkpointed once, however many intervals elapse
+        ArgumentCaptor<EventData> captor = ArgumentCaptor.forClass(EventData.class);
+        verify(this.context, after(500).times(1)).checkpoint(captor.capture());
+        EventHubMessageConverter converter = ((EventHubTestOperation) sendSubscribeOperation).getMessageConverter();
+        User checkpointedUser = converter.toMessage(captor.getValue(), User.class).getPayload();
+        assertEquals(messages.get(messages.size() - 1).getPayload(), checkpointedUser);
+    }
+
+    @Test
+    public void testPartitionMetricsRecorded() {
+        EventHubTestOperation operation = (EventHubTestOperation) sendSubscribeOperation;
+        operation.setCheckpointConfig(CheckpointConfig.builder().checkpointMode(CheckpointMode.BATCH).build());
+        operation.setStartPosition(StartPosition.EARLIEST);
+        messages.forEach(m -> operation.sendAsync(destination, m));
+        operation.subscribe(destination, consumerGroup, this::batchCheckpointHandler, User.class);
+
+        List<PartitionMetrics> metrics = operation.getPartitionMetrics();
+        assertEquals(1, metrics.size());
+        assertEquals(this.partitionId, metrics.get(0).getPartitionId());
+        assertEquals(messages.size(), metrics.get(0).getEventCount());
+        assertTrue(metrics.get(0).getByteCount() > 0);
+        assertEquals(1, metrics.get(0).getCheckpointCount());
+        assertEquals(0, metrics.get(0).getCheckpointFailures());
+    }
+
     @Test
     public void testHasPartitionIdHeader() {
         sendSubscribeOperation.subscribe(destination, consumerGroup, this::partitionIdHandler, User.class);
@@ -21,8 +21,19 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import org.reactivestreams.Subscription;
+import org.springframework.messaging.Message;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.*;
@@ -39,7 +50,6 @@ public class EventHubRxOperationSendSubscribeTest extends RxSendSubscribeByGroup
         CompletableFuture<Void> future = new CompletableFuture<>();
         future.complete(null);
         when(this.context.getPartitionId()).thenReturn("1");
-        when(this.context.checkpoint()).thenReturn(future);
         when(this.context.checkpoint(isA(EventData.class))).thenReturn(future);
 
         this.sendSubscribeOperation = new RxEventHubTestOperation(null, () -> context);
@@ -52,7 +62,7 @@ public class EventHubRxOperationSendSubscribeTest extends RxSendSubscribeByGroup
 
     @Override
     protected void verifyCheckpointBatchSuccessCalled(int times) {
-        verify(this.context, times(times)).checkpoint();
+        verify(this.context, times(times)).checkpoint(isA(EventData.class));
     }
 
     @Test
@@ -81,6 +91,50 @@ public class EventHubRxOperationSendSubscribeTest extends RxSendSubscribeByGroup
         verifyCheckpointSuccessCalled(messages.length);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSubscribeFlux() {
+        sendSubscribeOperation
+                .setCheckpointConfig(CheckpointConfig.builder().checkpointMode(CheckpointMode.BATCH).build());
+        sendSubscribeOperation.setStartPosition(StartPosition.EARLIEST);
+        Arrays.stream(messages).forEach(m -> sendSubscribeOperation.sendRx(destination, m));
+
+        List<Message<?>> received = sendSubscribeOperation.subscribeFlux(destination, consumerGroup, User.class, 10)
+                                                          .take(messages.length).collectList()
+                                                          .block(Duration.ofSeconds(5));
+
+        assertEquals(messages.length, received.size());
+        verifyCheckpointBatchSuccessCalled(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSubscribeFluxWaitsForDemand() throws InterruptedException {
+        sendSubscribeOperation
+                .setCheckpointConfig(CheckpointConfig.builder().checkpointMode(CheckpointMode.BATCH).build());
+        sendSubscribeOperation.setStartPosition(StartPosition.EARLIEST);
+        Arrays.stream(messages).forEach(m -> sendSubscribeOperation.sendRx(destination, m));
+
+        List<Message<?>> received = new CopyOnWriteArrayList<>();
+        AtomicReference<Subscription> subscription = new AtomicReference<>();
+        Flux<Message<?>> flux = sendSubscribeOperation.subscribeFlux(destination, consumerGroup, User.class, 1);
+
+        // Subscribing registers the processor, which receives on the subscribing thread in this test
+        Thread subscriber = new Thread(() -> flux.subscribe(received::add, null, null, subscription::set));
+        subscriber.start();
+        subscriber.join(500);
+
+        assertTrue(subscriber.isAlive());
+        assertEquals(0, received.size());
+        verify(this.context, never()).checkpoint(isA(EventData.class));
+
+        subscription.get().request(Long.MAX_VALUE);
+        subscriber.join(5000);
+
+        assertEquals(messages.length, received.size());
+        verifyCheckpointBatchSuccessCalled(1);
+    }
+
     @Test
     public void testHasPartitionIdHeader() {
         sendSubscribeOperation.subscribe(destination, consumerGroup, User.class);
@@ -6,18 +6,37 @@
 
 package com.microsoft.azure.spring.integration.eventhub;
 
+import com.microsoft.azure.eventhubs.BatchOptions;
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventDataBatch;
 import com.microsoft.azure.eventhubs.EventHubClient;
 import com.microsoft.azure.eventhubs.PartitionSender;
+import com.microsoft.azure.spring.integration.core.api.BatchConfig;
+import com.microsoft.azure.spring.integration.core.api.PartitionKeyStrategy;
+import com.microsoft.azure.spring.integration.core.api.PartitionSupplier;
 import com.microsoft.azure.spring.integration.eventhub.api.EventHubClientFactory;
 import com.microsoft.azure.spring.integration.eventhub.api.EventHubOperation;
 import com.microsoft.azure.spring.integration.eventhub.impl.EventHubRuntimeException;
 import com.microsoft.azure.spring.integration.eventhub.impl.EventHubTemplate;
+import com.microsoft.azure.spring.integration.eventhub.util.PartitionKeyResolver;
 import com.microsoft.azure.spring.integration.test.support.SendOperationTest;
 import org.junit.Before;
+import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
-
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -46,6 +65,152 @@ public class EventHubTemplateSendTest extends SendOperationTest<EventHubOperatio
         this.sendOperation = new EventHubTemplate(mockClientFactory);
     }
 
+    @Test
+    public void testSendInBatch() throws Exception {
+        this.future.complete(null);
+        EventDataBatch batch = mock(EventDataBatch.class);
+        when(this.mockClient.createBatch(any(BatchOptions.class))).thenReturn(batch);
+        when(batch.tryAdd(any(EventData.class))).thenReturn(true);
+        when(batch.getSize()).thenReturn(2);
+        when(this.mockClient.send(any(EventDataBatch.class))).thenReturn(this.future);
+
+        this.sendOperation.setBatchConfig(BatchConfig.builder().build());
+        Message<String> stringMessage = new GenericMessage<>(payload);
+        CompletableFuture<Void> future = this.sendOperation
+                .sendAsync(destination, Arrays.asList(stringMessage, stringMessage), new PartitionSupplier());
+
+        assertNull(future.get());
+        // One batch checking size of each event, and one sent
+        verify(this.mockClient, times(3)).createBatch(any(BatchOptions.class));
+        verify(this.mockClient, times(1)).send(batch);
+        verify(this.mockClient, never()).send(anyCollection());
+    }
+
+    @Test
+    public void testSendInBatchWhenBatchIsFull() throws Exception {
+        this.future.complete(null);
+        EventDataBatch batch = mock(EventDataBatch.class);
+        when(this.mockClient.createBatch(any(BatchOptions.class))).thenReturn(batch);
+        // Both events fit an empty batch, but not the same one
+        when(batch.tryAdd(any(EventData.class))).thenReturn(true, true, true, false, true);
+        when(batch.getSize()).thenReturn(1);
+        when(this.mockClient.send(any(EventDataBatch.class))).thenReturn(this.future);
+
+        this.sendOperation.setBatchConfig(BatchConfig.builder().batchSize(1024).build());
+        Message<String> stringMessage = new GenericMessage<>(payload);
+        CompletableFuture<Void> future = this.sendOperation
+                .sendAsync(destination, Arrays.asList(stringMessage, stringMessage), new PartitionSupplier());
+
+        assertNull(future.get());
+        verify(this.mockClient, times(4)).createBatch(any(BatchOptions.class));
+        verify(this.mockClient, times(2)).send(batch);
+    }
+
+    @Test
+    public void testSendInBatchWithLingerTime() throws Exception {
+        this.future.complete(null);
+        PartitionSupplier partitionSupplier = new PartitionSupplier();
+        partitionSupplier.setPartitionKey(partitionKey);
+        EventDataBatch batch = mock(EventDataBatch.class);
+        when(this.mockClient.createBatch(any(BatchOptions.class))).thenReturn(batch);
+        when(batch.tryAdd(any(EventData.class))).thenReturn(true);
+        when(batch.getSize()).thenReturn(2);
+        when(this.mockClient.send(any(EventDataBatch.class))).thenReturn(this.future);
+
+        this.sendOperation.setBatchConfig(BatchConfig.builder().lingerTime(Duration.ofMinutes(1)).build());
+        CompletableFuture<Void> first = this.sendOperation.sendAsync(destination, message, partitionSupplier);
+        CompletableFuture<Void> second = this.sendOperation.sendAsync(destination, message, partitionSupplier);
+
+        assertFalse(first.isDone());
+        verify(this.mockClient, never()).send(any(EventDataBatch.class));
+
+        ((EventHubTemplate) this.sendOperation).flush();
+
+        assertNull(first.get());
+        assertNull(second.get());
+        verify(this.mockClient, times(1)).send(batch);
+    }
+
+    @Test
+    public void testDestroySendsLingeredBatches() throws Exception {
+        this.future.complete(null);
+        EventDataBatch batch = mock(EventDataBatch.class);
+        when(this.mockClient.createBatch(any(BatchOptions.class))).thenReturn(batch);
+        when(batch.tryAdd(any(EventData.class))).thenReturn(true);
+        when(batch.getSize()).thenReturn(1);
+        when(this.mockClient.send(any(EventDataBatch.class))).thenReturn(this.future);
+
+        EventHubTemplate template = (EventHubTemplate) this.sendOperation;
+        template.setBatchConfig(BatchConfig.builder().lingerTime(Duration.ofMinutes(1)).build());
+        EventHubOperation derived = template.newOperation();
+        CompletableFuture<Void> first = template.sendAsync(destination, message, new PartitionSupplier());
+        CompletableFuture<Void> second = derived.sendAsync(destination, message, new PartitionSupplier());
+        verify(this.mockClient, never()).send(any(EventDataBatch.class));
+
+        template.destroy();
+
+        assertTrue(first.isDone());
+        assertTrue(second.isDone());
+        verify(this.mockClient, times(2)).send(batch);
+    }
+
+    @Test
+    public void testSendWithClientPartitionRouting() throws Exception {
+        this.future.complete(null);
+        List<String> partitionIds = Arrays.asList("0", "1", "2", "3");
+        when(this.mockClientFactory.getPartitionIds(this.destination)).thenReturn(partitionIds);
+        PartitionSupplier partitionSupplier = new PartitionSupplier();
+        partitionSupplier.setPartitionKey(partitionKey);
+
+        ((EventHubTemplate) this.sendOperation).setClientPartitionRouting(true);
+        CompletableFuture<Void> future = this.sendOperation.sendAsync(destination, message, partitionSupplier);
+
+        assertNull(future.get());
+        verify(this.mockClientFactory, times(1)).getOrCreatePartitionSender(this.destination,
+                PartitionKeyResolver.resolvePartitionId(partitionKey, partitionIds));
+        verify(this.mockClient, never()).send(anyCollection(), eq(partitionKey));
+    }
+
+    @Test
+    public void testSendWithRoundRobinPartitions() throws Exception {
+        this.future.complete(null);
+        when(this.mockClientFactory.getPartitionIds(this.destination)).thenReturn(Arrays.asList("0", "1", "2"));
+
+        this.sendOperation.setPartitionKeyStrategy(PartitionKeyStrategy.ROUND_ROBIN);
+        for (int i = 0; i < 4; i++) {
+            assertNull(this.sendOperation.sendAsync(destination, message, new PartitionSupplier()).get());
+        }
+
+        verify(this.mockClientFactory, times(2)).getOrCreatePartitionSender(this.destination, "0");
+        verify(this.mockClientFactory, times(1)).getOrCreatePartitionSender(this.destination, "1");
+        verify(this.mockClientFactory, times(1)).getOrCreatePartitionSender(this.destination, "2");
+        verify(this.mockClient, never()).send(anyCollection());
+    }
+
+    @Test
+    public void testSendWithStickyPartitionUntilBatchIsSent() throws Exception {
+        this.future.complete(null);
+        when(this.mockClientFactory.getPartitionIds(this.destination)).thenReturn(Arrays.asList("0", "1"));
+        EventDataBatch batch = mock(EventDataBatch.class);
+        when(this.mockSender.createBatch(any(BatchOptions.class))).thenReturn(batch);
+        when(batch.tryAdd(any(EventData.class))).thenReturn(true);
+        when(batch.getSize()).thenReturn(1);
+        when(this.mockSender.send(any(EventDataBatch.class))).thenReturn(this.future);
+
+        this.sendOperation.setPartitionKeyStrategy(PartitionKeyStrategy.STICKY);
+        this.sendOperation.setBatchConfig(BatchConfig.builder().lingerTime(Duration.ofMinutes(1)).build());
+        this.sendOperation.sendAsync(destination, message, new PartitionSupplier());
+        this.sendOperation.sendAsync(destination, message, new PartitionSupplier());
+        ((EventHubTemplate) this.sendOperation).flush();
+        this.sendOperation.sendAsync(destination, message, new PartitionSupplier());
+        ((EventHubTemplate) this.sendOperation).flush();
+
+        // Both events before the first batch is sent stick to partition 0, and the next one switches to partition 1
+        verify(this.mockClientFactory, times(2)).getOrCreatePartitionSender(this.destination, "0");
+        verify(this.mockClientFactory, times(2)).getOrCreatePartitionSender(this.destination, "1");
+        verify(this.mockSender, times(2)).send(batch);
+    }
+
     @Override
     protected void verifySendCalled(int times) {
         verify(this.mockClient, times(times)).send(anyCollection());
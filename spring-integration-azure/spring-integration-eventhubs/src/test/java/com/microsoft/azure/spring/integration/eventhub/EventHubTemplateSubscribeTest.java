@@ -6,21 +6,29 @@
 
 package com.microsoft.azure.spring.integration.eventhub;
 
+import java.time.Duration;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
+import com.microsoft.azure.eventhubs.EventPosition;
 import com.microsoft.azure.eventprocessorhost.EventProcessorHost;
 import com.microsoft.azure.eventprocessorhost.EventProcessorOptions;
 import com.microsoft.azure.eventprocessorhost.IEventProcessorFactory;
+import com.microsoft.azure.spring.integration.core.api.ReceiveConfig;
 import com.microsoft.azure.spring.integration.eventhub.api.EventHubClientFactory;
 import com.microsoft.azure.spring.integration.eventhub.api.EventHubOperation;
 import com.microsoft.azure.spring.integration.eventhub.impl.EventHubTemplate;
 import com.microsoft.azure.spring.integration.test.support.SubscribeByGroupOperationTest;
 import org.junit.Before;
+import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -46,6 +54,60 @@ public class EventHubTemplateSubscribeTest extends SubscribeByGroupOperationTest
         when(this.host.unregisterEventProcessor()).thenReturn(future);
     }
 
+    @Test
+    public void testReceiveConfigAppliedToProcessorOptions() {
+        this.subscribeByGroupOperation.setReceiveConfig(
+                ReceiveConfig.builder().prefetchCount(50).maxBatchSize(100).receiveTimeout(Duration.ofSeconds(3))
+                             .invokeOnTimeout(true).lagMetricsEnabled(true).build());
+        this.subscribeByGroupOperation.subscribe(destination, consumerGroup, m -> {
+        });
+
+        ArgumentCaptor<EventProcessorOptions> captor = ArgumentCaptor.forClass(EventProcessorOptions.class);
+        verify(this.host).registerEventProcessorFactory(isA(IEventProcessorFactory.class), captor.capture());
+
+        assertEquals(50, captor.getValue().getPrefetchCount());
+        // Max batch size is capped by prefetch count
+        assertEquals(50, captor.getValue().getMaxBatchSize());
+        assertEquals(Duration.ofSeconds(3), captor.getValue().getReceiveTimeOut());
+        assertTrue(captor.getValue().getInvokeProcessorAfterReceiveTimeout());
+        assertTrue(captor.getValue().getReceiverRuntimeMetricEnabled());
+    }
+
+    @Test
+    public void testInitialPositionProviderAppliedToProcessorOptions() {
+        EventPosition position = EventPosition.fromSequenceNumber(100L);
+        this.subscribeByGroupOperation.setInitialPositionProvider(id -> "0".equals(id) ? position : null);
+        this.subscribeByGroupOperation.subscribe(destination, consumerGroup, m -> {
+        });
+
+        ArgumentCaptor<EventProcessorOptions> captor = ArgumentCaptor.forClass(EventProcessorOptions.class);
+        verify(this.host).registerEventProcessorFactory(isA(IEventProcessorFactory.class), captor.capture());
+
+        assertEquals(position, captor.getValue().getInitialPositionProvider().apply("0"));
+        // Runtime metric is only retrieved if lag metrics are enabled
+        assertFalse(captor.getValue().getReceiverRuntimeMetricEnabled());
+        // Other partitions fall back to start position, which is LATEST by default
+        assertEquals(EventPosition.fromEndOfStream().toString(),
+                captor.getValue().getInitialPositionProvider().apply("1").toString());
+    }
+
+    @Test
+    public void testNewOperationSharesClientFactoryWithIndependentSettings() {
+        this.subscribeByGroupOperation.setReceiveConfig(ReceiveConfig.builder().prefetchCount(50).build());
+        EventHubOperation operation = this.subscribeByGroupOperation.newOperation();
+        operation.setReceiveConfig(ReceiveConfig.builder().prefetchCount(100).build());
+
+        operation.subscribe(destination, consumerGroup, m -> {
+        });
+        this.subscribeByGroupOperation.subscribe(destination, anotherConsumerGroup, m -> {
+        });
+
+        ArgumentCaptor<EventProcessorOptions> captor = ArgumentCaptor.forClass(EventProcessorOptions.class);
+        verify(this.host, times(2)).registerEventProcessorFactory(isA(IEventProcessorFactory.class), captor.capture());
+        assertEquals(100, captor.getAllValues().get(0).getPrefetchCount());
+        assertEquals(50, captor.getAllValues().get(1).getPrefetchCount());
+    }
+
     @Override
     protected void verifySubscriberCreatorCalled() {
         verify(this.mockClientFactory, atLeastOnce()).getOrCreateEventProcessorHost(anyString(), anyString());
@@ -7,10 +7,23 @@
 package com.microsoft.azure.spring.integration.eventhub.converter;
 
 import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.spring.integration.core.AzureHeaders;
 import com.microsoft.azure.spring.integration.core.converter.AzureMessageConverter;
+import com.microsoft.azure.spring.integration.core.converter.CompressionType;
 import com.microsoft.azure.spring.integration.test.support.AzureMessageConverterTest;
+import org.junit.Test;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class EventHubMessageConverterTest extends AzureMessageConverterTest<EventData> {
+    private static final String LARGE_PAYLOAD = String.join(",", Collections.nCopies(200, "{\"key\":\"value\"}"));
+
     @Override
     protected EventData getInstance() {
         return EventData.create(this.payload.getBytes());
@@ -25,4 +38,45 @@ public class EventHubMessageConverterTest extends AzureMessageConverterTest<Even
     protected Class<EventData> getTargetClass() {
         return EventData.class;
     }
+
+    @Test
+    public void testCompressedBodyDecompressedByAnyConverter() {
+        for (CompressionType type : new CompressionType[]{CompressionType.GZIP, CompressionType.LZ4,
+                CompressionType.SNAPPY}) {
+            EventHubMessageConverter converter = new EventHubMessageConverter();
+            converter.setCompressionCodec(type.createCodec());
+
+            EventData eventData = converter.fromMessage(MessageBuilder.withPayload(LARGE_PAYLOAD).build(),
+                    EventData.class);
+
+            assertTrue(eventData.getBytes().length < LARGE_PAYLOAD.length());
+            assertEquals(type.getEncoding(), eventData.getProperties().get(AzureHeaders.CONTENT_ENCODING));
+            assertEquals(LARGE_PAYLOAD, new EventHubMessageConverter().toMessage(eventData, String.class).getPayload());
+        }
+    }
+
+    @Test
+    public void testBodyBelowThresholdNotCompressed() {
+        EventHubMessageConverter converter = new EventHubMessageConverter();
+        converter.setCompressionCodec(CompressionType.GZIP.createCodec());
+
+        EventData eventData = converter.fromMessage(MessageBuilder.withPayload(this.payload).build(), EventData.class);
+
+        assertEquals(this.payload, new String(eventData.getBytes()));
+        assertFalse(eventData.getProperties().containsKey(AzureHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    public void testContentEncodingOfReceivedMessageNotForwarded() {
+        EventHubMessageConverter converter = new EventHubMessageConverter();
+        converter.setCompressionCodec(CompressionType.GZIP.createCodec());
+        Message<String> received = converter.toMessage(
+                converter.fromMessage(MessageBuilder.withPayload(LARGE_PAYLOAD).build(), EventData.class),
+                String.class);
+
+        EventData forwarded = new EventHubMessageConverter().fromMessage(received, EventData.class);
+
+        assertEquals(LARGE_PAYLOAD, new String(forwarded.getBytes()));
+        assertFalse(forwarded.getProperties().containsKey(AzureHeaders.CONTENT_ENCODING));
+    }
 }
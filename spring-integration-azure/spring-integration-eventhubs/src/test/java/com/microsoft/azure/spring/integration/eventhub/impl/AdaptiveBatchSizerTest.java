@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.impl;
+
+import com.microsoft.azure.eventprocessorhost.EventProcessorOptions;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class AdaptiveBatchSizerTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private EventProcessorOptions options;
+    private AdaptiveBatchSizer sizer;
+
+    @Before
+    public void setUp() {
+        this.options = EventProcessorOptions.getDefaultOptions();
+        this.options.setPrefetchCount(20);
+        this.options.setMaxBatchSize(8);
+        this.sizer = new AdaptiveBatchSizer(this.options, Duration.ofMillis(100));
+    }
+
+    @Test
+    public void testGrowAfterFullBatchWithinTarget() {
+        this.sizer.onBatchHandled(8, FAST);
+        assertEquals(10, this.options.getMaxBatchSize());
+    }
+
+    @Test
+    public void testKeepAfterPartialBatchWithinTarget() {
+        this.sizer.onBatchHandled(3, FAST);
+        assertEquals(8, this.options.getMaxBatchSize());
+    }
+
+    @Test
+    public void testShrinkAfterBatchExceedingTarget() {
+        this.sizer.onBatchHandled(8, SLOW);
+        assertEquals(4, this.options.getMaxBatchSize());
+    }
+
+    @Test
+    public void testStayBetweenOneAndPrefetchCount() {
+        for (int i = 0; i < 10; i++) {
+            this.sizer.onBatchHandled(this.options.getMaxBatchSize(), FAST);
+        }
+        assertEquals(20, this.options.getMaxBatchSize());
+
+        for (int i = 0; i < 10; i++) {
+            this.sizer.onBatchHandled(1, SLOW);
+        }
+        assertEquals(1, this.options.getMaxBatchSize());
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.impl;
+
+import com.microsoft.azure.eventhubs.BatchOptions;
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventDataBatch;
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.spring.integration.core.api.BatchConfig;
+import com.microsoft.azure.spring.integration.core.api.PartitionSupplier;
+import com.microsoft.azure.spring.integration.eventhub.api.EventHubClientFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EventDataBatchAccumulatorTest {
+    private static final String EVENT_HUB = "eventhub";
+
+    @Mock
+    private EventHubClientFactory clientFactory;
+
+    @Mock
+    private EventHubClient client;
+
+    private EventDataBatch batch;
+
+    private EventDataBatchAccumulator accumulator;
+
+    @Before
+    public void setUp() throws Exception {
+        EventDataBatch batch = mock(EventDataBatch.class);
+        this.batch = batch;
+        when(this.clientFactory.getOrCreateClient(EVENT_HUB)).thenReturn(this.client);
+        when(this.client.createBatch(any(BatchOptions.class))).thenReturn(batch);
+        when(batch.tryAdd(any(EventData.class))).thenReturn(true);
+        when(batch.getSize()).thenReturn(1);
+    }
+
+    @After
+    public void tearDown() {
+        this.accumulator.close();
+    }
+
+    @Test
+    public void testFlushedRoutesAreRemoved() throws Exception {
+        when(this.client.send(any(EventDataBatch.class))).thenReturn(CompletableFuture.completedFuture(null));
+        this.accumulator = new EventDataBatchAccumulator(this.clientFactory,
+                BatchConfig.builder().lingerTime(Duration.ofMinutes(1)).build());
+
+        for (int i = 0; i < 100; i++) {
+            send("key-" + i);
+        }
+        assertEquals(100, this.accumulator.getPendingRouteCount());
+
+        assertNull(this.accumulator.flush().get(5, TimeUnit.SECONDS));
+        assertEquals(0, this.accumulator.getPendingRouteCount());
+
+        // Route is created again for events sent afterwards
+        assertFalse(send("key-0").isDone());
+        assertEquals(1, this.accumulator.getPendingRouteCount());
+    }
+
+    @Test
+    public void testLingerFlushNotBlockedByInFlightLimit() throws Exception {
+        CompletableFuture<Void> stuck = new CompletableFuture<>();
+        when(this.client.send(any(EventDataBatch.class))).thenReturn(stuck)
+                                                         .thenReturn(CompletableFuture.completedFuture(null));
+        this.accumulator = new EventDataBatchAccumulator(this.clientFactory,
+                BatchConfig.builder().lingerTime(Duration.ofMillis(50)).maxInFlightBatches(1).build());
+
+        CompletableFuture<Void> first = send("a");
+        verify(this.client, timeout(5000)).send(any(EventDataBatch.class));
+
+        // Both batches are flushed by the linger timer while the first one holds the only slot
+        CompletableFuture<Void> second = send("b");
+        CompletableFuture<Void> third = send("c");
+        waitForEmptyRoutes();
+        assertFalse(second.isDone());
+        assertFalse(third.isDone());
+
+        stuck.complete(null);
+        assertNull(first.get(5, TimeUnit.SECONDS));
+        assertNull(second.get(5, TimeUnit.SECONDS));
+        assertNull(third.get(5, TimeUnit.SECONDS));
+        verify(this.client, times(3)).send(any(EventDataBatch.class));
+    }
+
+    @Test
+    public void testNoEventSentIfOneOfThemNeverFitsBatch() throws Exception {
+        EventData small = EventData.create("small".getBytes());
+        EventData large = EventData.create("large".getBytes());
+        when(this.batch.tryAdd(large)).thenReturn(false);
+        this.accumulator = new EventDataBatchAccumulator(this.clientFactory,
+                BatchConfig.builder().lingerTime(Duration.ZERO).build());
+
+        try {
+            this.accumulator.send(EVENT_HUB, new PartitionSupplier(), Arrays.asList(small, large));
+            fail("Event larger than batch size should be rejected");
+        } catch (EventHubRuntimeException e) {
+            // Expected
+        }
+
+        verify(this.client, never()).send(any(EventDataBatch.class));
+        assertEquals(0, this.accumulator.getPendingRouteCount());
+    }
+
+    private CompletableFuture<Void> send(String partitionKey) {
+        PartitionSupplier partitionSupplier = new PartitionSupplier();
+        partitionSupplier.setPartitionKey(partitionKey);
+        return this.accumulator.send(EVENT_HUB, partitionSupplier,
+                Collections.singletonList(EventData.create(partitionKey.getBytes())));
+    }
+
+    private void waitForEmptyRoutes() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (this.accumulator.getPendingRouteCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, this.accumulator.getPendingRouteCount());
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.impl;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventprocessorhost.CloseReason;
+import com.microsoft.azure.eventprocessorhost.PartitionContext;
+import com.microsoft.azure.spring.integration.core.api.CheckpointConfig;
+import com.microsoft.azure.spring.integration.core.api.CheckpointMode;
+import com.microsoft.azure.spring.integration.core.api.ListenerMode;
+import com.microsoft.azure.spring.integration.eventhub.converter.EventHubMessageConverter;
+import com.microsoft.azure.spring.integration.eventhub.util.ExpressionEventSelector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.messaging.Message;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EventHubProcessorTest {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private final AtomicInteger handled = new AtomicInteger();
+
+    @Mock
+    private PartitionContext context;
+
+    private EventHubProcessor processor;
+
+    @Before
+    public void setUp() {
+        when(this.context.getPartitionId()).thenReturn("1");
+        // Slow consumer, so events are still pending when partition closes
+        Consumer<Message<?>> consumer = m -> {
+            sleep();
+            this.handled.incrementAndGet();
+        };
+        CheckpointConfig checkpointConfig =
+                CheckpointConfig.builder().checkpointMode(CheckpointMode.PARTITION_COUNT).checkpointCount(10).build();
+        this.processor = new EventHubProcessor(consumer, String.class, checkpointConfig, new EventHubMessageConverter(),
+                ListenerMode.RECORD, this.executor, 4);
+    }
+
+    @After
+    public void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    public void testDrainAndCheckpointLastEventOnClose() throws Exception {
+        when(this.context.checkpoint(any(EventData.class))).thenReturn(CompletableFuture.completedFuture(null));
+        List<EventData> events = Arrays.asList(event(), event(), event());
+
+        this.processor.onEvents(this.context, events);
+        this.processor.onClose(this.context, CloseReason.Shutdown);
+
+        assertEquals(3, this.handled.get());
+        verify(this.context, times(1)).checkpoint(any(EventData.class));
+        verify(this.context).checkpoint(events.get(2));
+    }
+
+    @Test
+    public void testNoCheckpointOnLeaseLost() throws Exception {
+        this.processor.onEvents(this.context, Arrays.asList(event(), event()));
+        this.processor.onClose(this.context, CloseReason.LeaseLost);
+
+        assertEquals(2, this.handled.get());
+        verify(this.context, never()).checkpoint(any(EventData.class));
+    }
+
+    @Test
+    public void testNoCheckpointOnLeaseLostInTimeMode() throws Exception {
+        CheckpointConfig checkpointConfig = CheckpointConfig.builder().checkpointMode(CheckpointMode.TIME)
+                                                            .checkpointInterval(Duration.ofHours(1)).build();
+        EventHubProcessor timeProcessor =
+                new EventHubProcessor(m -> this.handled.incrementAndGet(), String.class, checkpointConfig,
+                        new EventHubMessageConverter(), ListenerMode.RECORD);
+
+        timeProcessor.onEvents(this.context, Arrays.asList(event(null), event(null)));
+        timeProcessor.onClose(this.context, CloseReason.LeaseLost);
+
+        assertEquals(2, this.handled.get());
+        verify(this.context, never()).checkpoint(any(EventData.class));
+    }
+
+    @Test
+    public void testEventsNotSelectedOnlyMoveCheckpointForward() throws Exception {
+        when(this.context.checkpoint(any(EventData.class))).thenReturn(CompletableFuture.completedFuture(null));
+        this.processor.setEventSelector(new ExpressionEventSelector("['type'] == 'order'"));
+        List<EventData> events = Arrays.asList(event("order"), event("payment"), event(null));
+
+        this.processor.onEvents(this.context, events);
+        this.processor.onClose(this.context, CloseReason.Shutdown);
+
+        assertEquals(1, this.handled.get());
+        verify(this.context).checkpoint(events.get(2));
+    }
+
+    @Test
+    public void testPartitionCountCountsEventsOfBatch() throws Exception {
+        when(this.context.checkpoint(any(EventData.class))).thenReturn(CompletableFuture.completedFuture(null));
+        CheckpointConfig checkpointConfig =
+                CheckpointConfig.builder().checkpointMode(CheckpointMode.PARTITION_COUNT).checkpointCount(10).build();
+        EventHubProcessor batchProcessor =
+                new EventHubProcessor(m -> this.handled.incrementAndGet(), String.class, checkpointConfig,
+                        new EventHubMessageConverter(), ListenerMode.BATCH);
+        List<EventData> first = Arrays.asList(event(null), event(null), event(null), event(null), event(null));
+        List<EventData> second = Arrays.asList(event(null), event(null), event(null), event(null), event(null));
+
+        batchProcessor.onEvents(this.context, first);
+        verify(this.context, never()).checkpoint(any(EventData.class));
+
+        batchProcessor.onEvents(this.context, second);
+        assertEquals(2, this.handled.get());
+        verify(this.context).checkpoint(second.get(4));
+    }
+
+    private static EventData event(String type) {
+        EventData event = EventData.create("payload".getBytes());
+        if (type != null) {
+            event.getProperties().put("type", type);
+        }
+        return event;
+    }
+
+    private static EventData event() {
+        EventData event = mock(EventData.class);
+        when(event.getBytes()).thenReturn("payload".getBytes());
+        return event;
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.impl;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.EventPosition;
+import com.microsoft.azure.eventhubs.PartitionReceiver;
+import com.microsoft.azure.eventhubs.PartitionRuntimeInformation;
+import com.microsoft.azure.eventhubs.ReceiverOptions;
+import com.microsoft.azure.spring.integration.eventhub.api.EventHubClientFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PartitionReaderTest {
+    private static final Instant START = Instant.parse("2019-01-15T10:00:00Z");
+
+    @Mock
+    private EventHubClientFactory clientFactory;
+
+    @Mock
+    private EventHubClient client;
+
+    @Mock
+    private PartitionReceiver receiver;
+
+    private final List<Long> received = new ArrayList<>();
+
+    private PartitionReader reader;
+
+    @Before
+    public void setUp() throws Exception {
+        when(this.clientFactory.getOrCreateClient("eventHub")).thenReturn(this.client);
+        when(this.clientFactory.getPartitionIds("eventHub")).thenReturn(Collections.singletonList("0"));
+        when(this.client.getPartitionRuntimeInformation("0")).thenReturn(CompletableFuture.completedFuture(
+                new PartitionRuntimeInformation("eventHub", "0", 0, 5, "500", START.plusSeconds(5), false)));
+        when(this.client.createReceiver(eq("group"), eq("0"), any(EventPosition.class), any(ReceiverOptions.class)))
+                .thenReturn(CompletableFuture.completedFuture(this.receiver));
+        when(this.receiver.getPartitionId()).thenReturn("0");
+        when(this.receiver.close()).thenReturn(CompletableFuture.completedFuture(null));
+        this.reader = new PartitionReader(this.clientFactory, 100, 3);
+    }
+
+    @Test
+    public void testReadUntilLastEnqueuedEvent() {
+        CompletableFuture<Iterable<EventData>> first = batch(0, 3);
+        CompletableFuture<Iterable<EventData>> second = batch(3, 6);
+        CompletableFuture<Iterable<EventData>> third = batch(6, 7);
+        when(this.receiver.receive(anyInt())).thenReturn(first).thenReturn(second).thenReturn(third);
+
+        this.reader.read("eventHub", "group", id -> EventPosition.fromStartOfStream(), null, this::handle).join();
+
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L, 5L), this.received);
+        verify(this.receiver).close();
+    }
+
+    @Test
+    public void testReadUntilEndTime() {
+        CompletableFuture<Iterable<EventData>> first = batch(0, 3);
+        CompletableFuture<Iterable<EventData>> second = batch(3, 6);
+        when(this.receiver.receive(anyInt())).thenReturn(first).thenReturn(second);
+
+        this.reader.read("eventHub", "group", id -> EventPosition.fromStartOfStream(), START.plusSeconds(4),
+                this::handle).join();
+
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L), this.received);
+        verify(this.receiver).close();
+    }
+
+    @Test
+    public void testStopWhenNoMoreEvents() {
+        CompletableFuture<Iterable<EventData>> first = batch(0, 2);
+        when(this.receiver.receive(anyInt())).thenReturn(first)
+                                                 .thenReturn(CompletableFuture.completedFuture(null));
+
+        this.reader.read("eventHub", "group", id -> EventPosition.fromStartOfStream(), null, this::handle).join();
+
+        assertEquals(Arrays.asList(0L, 1L), this.received);
+        verify(this.receiver).close();
+    }
+
+    private void handle(String partitionId, List<EventData> events) {
+        events.forEach(e -> this.received.add(e.getSystemProperties().getSequenceNumber()));
+    }
+
+    /**
+     * Events with sequence numbers in the given range, each enqueued one second after {@link #START} per sequence
+     */
+    private static CompletableFuture<Iterable<EventData>> batch(long from, long to) {
+        return CompletableFuture.completedFuture(
+                LongStream.range(from, to).mapToObj(PartitionReaderTest::event).collect(Collectors.toList()));
+    }
+
+    private static EventData event(long sequenceNumber) {
+        HashMap<String, Object> properties = new HashMap<>();
+        properties.put("x-opt-sequence-number", sequenceNumber);
+        properties.put("x-opt-enqueued-time", Date.from(START.plusSeconds(sequenceNumber)));
+        EventData event = mock(EventData.class);
+        when(event.getSystemProperties()).thenReturn(new EventData.SystemProperties(properties));
+        return event;
+    }
+}
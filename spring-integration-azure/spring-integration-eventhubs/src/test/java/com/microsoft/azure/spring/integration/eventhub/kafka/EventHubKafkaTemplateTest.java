@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.kafka;
+
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.common.config.SaslConfigs;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventHubKafkaTemplateTest {
+    private static final String CONNECTION_STRING =
+            "Endpoint=sb://namespace.servicebus.windows.net/;SharedAccessKeyName=key;SharedAccessKey=secret;" +
+                    "EntityPath=eventHub";
+
+    @Test
+    public void testClientPropertiesOfConnectionString() {
+        Map<String, Object> properties = EventHubKafkaTemplate.buildClientProperties(CONNECTION_STRING);
+
+        assertEquals("namespace.servicebus.windows.net:9093",
+                properties.get(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG));
+        assertEquals("SASL_SSL", properties.get(CommonClientConfigs.SECURITY_PROTOCOL_CONFIG));
+        assertEquals("PLAIN", properties.get(SaslConfigs.SASL_MECHANISM));
+        String jaasConfig = (String) properties.get(SaslConfigs.SASL_JAAS_CONFIG);
+        assertTrue(jaasConfig.contains("SharedAccessKey=secret"));
+        assertFalse(jaasConfig.contains("EntityPath"));
+    }
+}
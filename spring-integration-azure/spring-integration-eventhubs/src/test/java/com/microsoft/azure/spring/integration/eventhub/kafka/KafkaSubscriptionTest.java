@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.kafka;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.spring.integration.core.AzureHeaders;
+import com.microsoft.azure.spring.integration.core.api.CheckpointConfig;
+import com.microsoft.azure.spring.integration.core.api.CheckpointMode;
+import com.microsoft.azure.spring.integration.core.api.Checkpointer;
+import com.microsoft.azure.spring.integration.core.api.ListenerMode;
+import com.microsoft.azure.spring.integration.core.converter.ConversionException;
+import com.microsoft.azure.spring.integration.eventhub.converter.EventHubMessageConverter;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.messaging.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class KafkaSubscriptionTest {
+    private static final String EVENT_HUB = "eventHub";
+    private static final TopicPartition PARTITION = new TopicPartition(EVENT_HUB, 1);
+
+    private final List<Message<?>> received = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch latch = new CountDownLatch(3);
+
+    private volatile boolean closed;
+
+    private MockConsumer<String, byte[]> kafkaConsumer;
+
+    @Before
+    public void setUp() {
+        // Keep consumer usable after subscription closes it, so committed offsets can be checked
+        this.kafkaConsumer = new MockConsumer<String, byte[]>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized void close() {
+                closed = true;
+            }
+        };
+        this.kafkaConsumer.schedulePollTask(() -> {
+            this.kafkaConsumer.rebalance(Collections.singletonList(PARTITION));
+            this.kafkaConsumer.updateBeginningOffsets(Collections.singletonMap(PARTITION, 0L));
+            for (long offset = 0; offset < 3; offset++) {
+                this.kafkaConsumer.addRecord(new ConsumerRecord<>(EVENT_HUB, PARTITION.partition(), offset, null,
+                        ("event" + offset).getBytes(StandardCharsets.UTF_8)));
+            }
+        });
+    }
+
+    @Test
+    public void testBatchModeCommitsAfterPoll() throws Exception {
+        KafkaSubscription subscription = subscribe(CheckpointMode.BATCH, m -> {});
+
+        assertTrue(this.latch.await(5, TimeUnit.SECONDS));
+        subscription.stop();
+
+        assertEquals("event0", this.received.get(0).getPayload());
+        assertEquals("1", this.received.get(0).getHeaders().get(AzureHeaders.RAW_PARTITION_ID));
+        assertEquals(3, this.kafkaConsumer.committed(PARTITION).offset());
+        assertTrue(this.closed);
+    }
+
+    @Test
+    public void testManualModeCommitsRequestedOffset() throws Exception {
+        KafkaSubscription subscription = subscribe(CheckpointMode.MANUAL, m -> {
+            if ("event1".equals(m.getPayload())) {
+                m.getHeaders().get(AzureHeaders.CHECKPOINTER, Checkpointer.class).success();
+            }
+        });
+
+        assertTrue(this.latch.await(5, TimeUnit.SECONDS));
+        subscription.stop();
+
+        assertEquals(2, this.kafkaConsumer.committed(PARTITION).offset());
+    }
+
+    @Test
+    public void testConversionFailureDoesNotStopLoop() throws Exception {
+        CountDownLatch handled = new CountDownLatch(2);
+        EventHubMessageConverter converter = new EventHubMessageConverter() {
+            @Override
+            public <U> Message<U> toMessage(EventData eventData, Map<String, Object> headers, Class<U> payloadType) {
+                if ("event1".equals(new String(eventData.getBytes(), StandardCharsets.UTF_8))) {
+                    throw new ConversionException("Undecodable payload");
+                }
+
+                return super.toMessage(eventData, headers, payloadType);
+            }
+        };
+        KafkaSubscription subscription = new KafkaSubscription(this.kafkaConsumer, EVENT_HUB, m -> {
+            this.received.add(m);
+            handled.countDown();
+        }, String.class, converter, CheckpointConfig.builder().checkpointMode(CheckpointMode.BATCH).build(),
+                ListenerMode.RECORD, Duration.ofMillis(10), null, s -> fail("Loop should keep running"));
+        subscription.start();
+
+        assertTrue(handled.await(5, TimeUnit.SECONDS));
+        assertFalse(this.closed);
+        subscription.stop();
+
+        assertEquals("event0", this.received.get(0).getPayload());
+        assertEquals("event2", this.received.get(1).getPayload());
+    }
+
+    @Test
+    public void testPollFailureReportedToListener() throws Exception {
+        CountDownLatch failed = new CountDownLatch(1);
+        this.kafkaConsumer.setException(new KafkaException("Poll failed"));
+        KafkaSubscription subscription = new KafkaSubscription(this.kafkaConsumer, EVENT_HUB, this.received::add,
+                String.class, new EventHubMessageConverter(),
+                CheckpointConfig.builder().checkpointMode(CheckpointMode.BATCH).build(), ListenerMode.RECORD,
+                Duration.ofMillis(10), null, s -> failed.countDown());
+        subscription.start();
+
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        assertTrue(this.closed);
+    }
+
+    private KafkaSubscription subscribe(CheckpointMode checkpointMode, Consumer<Message<?>> handler) {
+        Consumer<Message<?>> consumer = m -> {
+            handler.accept(m);
+            this.received.add(m);
+            this.latch.countDown();
+        };
+        KafkaSubscription subscription = new KafkaSubscription(this.kafkaConsumer, EVENT_HUB, consumer, String.class,
+                new EventHubMessageConverter(), CheckpointConfig.builder().checkpointMode(checkpointMode).build(),
+                ListenerMode.RECORD, Duration.ofMillis(10), null, s -> {});
+        subscription.start();
+        return subscription;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.metrics;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.ReceiverRuntimeInformation;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PartitionMetricsTest {
+
+    private final PartitionMetrics metrics = new PartitionMetrics("eventHub", "group", "0");
+
+    @Test
+    public void testSequenceNumberGapAndEnqueueTime() {
+        assertEquals(-1, metrics.getSequenceNumberGap());
+        assertEquals(-1, metrics.getEnqueueToProcessMillis());
+
+        ReceiverRuntimeInformation runtimeInformation = new ReceiverRuntimeInformation("0");
+        runtimeInformation.setRuntimeInformation(100L, Instant.now(), "1000");
+        metrics.recordBatch(Arrays.asList(event(new byte[3], 40L), event(new byte[5], 41L)), 1_000_000L,
+                runtimeInformation);
+
+        assertEquals(2, metrics.getEventCount());
+        assertEquals(8, metrics.getByteCount());
+        assertEquals(41L, metrics.getLastSequenceNumber());
+        assertEquals(59L, metrics.getSequenceNumberGap());
+        assertTrue(metrics.getEnqueueToProcessMillis() >= 0);
+    }
+
+    @Test
+    public void testHandlerLatencyHistogram() {
+        metrics.recordBatch(Collections.singletonList(event(new byte[1], 1L)), 3_000_000L, null);
+        metrics.recordBatch(Collections.singletonList(event(new byte[1], 2L)), 60_000_000_000L, null);
+        metrics.recordBatch(Collections.emptyList(), 100_000_000L, null);
+
+        long[] counts = metrics.getHandlerLatencyCounts();
+        assertEquals(PartitionMetrics.getHandlerLatencyBoundsMillis().length + 1, counts.length);
+        assertEquals(1, counts[1]);
+        assertEquals(1, counts[counts.length - 1]);
+        assertEquals(60_000, metrics.getMaxHandlerLatencyMillis());
+        assertEquals(2, Arrays.stream(counts).sum());
+    }
+
+    @Test
+    public void testCheckpointLatencyAndFailures() {
+        metrics.recordCheckpoint(2_000_000L, false);
+        metrics.recordCheckpoint(4_000_000L, false);
+        metrics.recordCheckpoint(1_000_000L, true);
+
+        assertEquals(2, metrics.getCheckpointCount());
+        assertEquals(1, metrics.getCheckpointFailures());
+        assertEquals(3, metrics.getAverageCheckpointLatencyMillis());
+    }
+
+    private static EventData event(byte[] body, long sequenceNumber) {
+        HashMap<String, Object> properties = new HashMap<>();
+        properties.put("x-opt-sequence-number", sequenceNumber);
+        properties.put("x-opt-enqueued-time", new Date());
+        EventData event = mock(EventData.class);
+        when(event.getBytes()).thenReturn(body);
+        when(event.getSystemProperties()).thenReturn(new EventData.SystemProperties(properties));
+        return event;
+    }
+}
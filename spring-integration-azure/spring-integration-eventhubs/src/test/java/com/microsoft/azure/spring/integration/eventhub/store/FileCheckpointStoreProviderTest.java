@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.store;
+
+import com.microsoft.azure.eventprocessorhost.BaseLease;
+import com.microsoft.azure.eventprocessorhost.Checkpoint;
+import com.microsoft.azure.eventprocessorhost.CompleteLease;
+import com.microsoft.azure.eventprocessorhost.ICheckpointManager;
+import com.microsoft.azure.eventprocessorhost.ILeaseManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FileCheckpointStoreProviderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileCheckpointStoreProvider provider;
+
+    @Before
+    public void setUp() {
+        this.provider = new FileCheckpointStoreProvider(folder.getRoot().toPath(), Duration.ofHours(1));
+    }
+
+    @After
+    public void tearDown() {
+        this.provider.destroy();
+    }
+
+    @Test
+    public void testCheckpointIsWrittenOnFlush() {
+        ICheckpointManager store = this.provider.getCheckpointStore("eventHub", "group");
+        store.createCheckpointStoreIfNotExists().join();
+        assertNull(store.getCheckpoint("0").join());
+
+        store.updateCheckpoint(new CompleteLease("0"), new Checkpoint("0", "100", 10L)).join();
+        assertEquals("100", store.getCheckpoint("0").join().getOffset());
+        assertFalse(store.checkpointStoreExists().join());
+
+        this.provider.flush();
+        assertTrue(store.checkpointStoreExists().join());
+
+        FileCheckpointStoreProvider restarted =
+                new FileCheckpointStoreProvider(folder.getRoot().toPath(), Duration.ofHours(1));
+        Checkpoint checkpoint = restarted.getCheckpointStore("eventHub", "group").getCheckpoint("0").join();
+        restarted.destroy();
+
+        assertEquals("100", checkpoint.getOffset());
+        assertEquals(10L, checkpoint.getSequenceNumber());
+    }
+
+    @Test
+    public void testCheckpointIsWrittenOnDestroy() {
+        ICheckpointManager store = this.provider.getCheckpointStore("eventHub", "group");
+        store.updateCheckpoint(new CompleteLease("1"), new Checkpoint("1", "200", 20L)).join();
+
+        this.provider.destroy();
+
+        assertTrue(store.checkpointStoreExists().join());
+    }
+
+    @Test
+    public void testLeaseIsOwnedByAcquiringHost() {
+        ILeaseManager host1 = this.provider.getLeaseStore("host1", "eventHub", "group");
+        ILeaseManager host2 = this.provider.getLeaseStore("host2", "eventHub", "group");
+        host1.createAllLeasesIfNotExists(Arrays.asList("0", "1")).join();
+
+        CompleteLease lease = host1.getLease("0").join();
+        assertFalse(lease.getIsOwned());
+        assertTrue(host1.acquireLease(lease).join());
+
+        List<BaseLease> leases = host2.getAllLeases().join();
+        assertEquals(2, leases.size());
+        assertTrue(leases.stream().anyMatch(l -> l.isOwnedBy("host1")));
+        assertFalse(host2.renewLease(host2.getLease("0").join()).join());
+        assertTrue(host1.renewLease(lease).join());
+
+        host1.releaseLease(lease).join();
+        assertFalse(host2.getLease("0").join().getIsOwned());
+    }
+}
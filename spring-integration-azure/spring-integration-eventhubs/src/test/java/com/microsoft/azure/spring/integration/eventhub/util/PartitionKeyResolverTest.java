@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.eventhub.util;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PartitionKeyResolverTest {
+
+    private static final byte[] FOUR_SCORE = "Four score and seven years ago".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testHashOfEmptyData() {
+        assertEquals(0xdeadbeefdeadbeefL, PartitionKeyResolver.computeHash(new byte[0], 0, 0));
+        assertEquals(0xbd5b7ddedeadbeefL, PartitionKeyResolver.computeHash(new byte[0], 0, 0xdeadbeef));
+        assertEquals(0x9c093ccdbd5b7ddeL, PartitionKeyResolver.computeHash(new byte[0], 0xdeadbeef, 0xdeadbeef));
+    }
+
+    @Test
+    public void testHashOfData() {
+        assertEquals(0x17770551ce7226e6L, PartitionKeyResolver.computeHash(FOUR_SCORE, 0, 0));
+        assertEquals(0xe3607caebd371de4L, PartitionKeyResolver.computeHash(FOUR_SCORE, 0, 1));
+        assertEquals(0xcd6281616cbea4b3L, PartitionKeyResolver.computeHash(FOUR_SCORE, 1, 0));
+    }
+
+    @Test
+    public void testResolveIsStableAndInRange() {
+        List<String> partitionIds = Arrays.asList("0", "1", "2", "3");
+
+        for (int i = 0; i < 100; i++) {
+            String key = "key-" + i;
+            String partitionId = PartitionKeyResolver.resolvePartitionId(key, partitionIds);
+            assertTrue(partitionIds.contains(partitionId));
+            assertEquals(partitionId, PartitionKeyResolver.resolvePartitionId(key, partitionIds));
+        }
+    }
+}
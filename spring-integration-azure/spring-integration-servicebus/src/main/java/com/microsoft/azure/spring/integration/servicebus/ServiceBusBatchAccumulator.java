@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.servicebus;
+
+import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.microsoft.azure.servicebus.IMessage;
+import com.microsoft.azure.servicebus.IMessageSender;
+import com.microsoft.azure.spring.cloud.context.core.util.Tuple;
+import com.microsoft.azure.spring.integration.core.InFlightBatchLimiter;
+import com.microsoft.azure.spring.integration.core.api.BatchConfig;
+import com.microsoft.azure.spring.integration.servicebus.factory.ServiceBusSenderFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Accumulate messages sent to the same entity with the same partition key, and send them with
+ * {@link IMessageSender#sendBatchAsync} once the batch is full or linger time elapses.
+ *
+ * <p>
+ * Service bus client cannot measure a batch before sending it, so size of each message is estimated from its body,
+ * properties and system properties. The future returned by {@link #send} completes when all batches holding its
+ * messages are sent. Pending batch of a route is removed once flushed, so routes of many distinct partition keys don't
+ * pile up. Batches beyond {@link BatchConfig#getMaxInFlightBatches()} wait without blocking the flushing thread, and
+ * senders wait for them before adding more messages.
+ *
+ * @author Warren Zhu
+ */
+class ServiceBusBatchAccumulator {
+    private static final Logger log = LoggerFactory.getLogger(ServiceBusBatchAccumulator.class);
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * Max message size of standard tier. Premium tier allows 1MB, which has to be configured explicitly.
+     */
+    static final int DEFAULT_MAX_BATCH_SIZE = 256 * 1024;
+
+    // Encoding of one message and batch envelope beyond the estimated fields
+    private static final int MESSAGE_OVERHEAD = 64;
+    private static final int BATCH_OVERHEAD = 1024;
+
+    private final ServiceBusSenderFactory senderFactory;
+    private final BatchConfig batchConfig;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService lingerScheduler;
+    private final InFlightBatchLimiter inFlightLimiter;
+
+    // (entityName, partitionKey) -> pending batch
+    private final Map<Tuple<String, String>, PendingBatch> pendingBatches = new ConcurrentHashMap<>();
+
+    ServiceBusBatchAccumulator(ServiceBusSenderFactory senderFactory, BatchConfig batchConfig) {
+        this.senderFactory = senderFactory;
+        this.batchConfig = batchConfig;
+        this.maxBatchSize =
+                (batchConfig.getBatchSize() > 0 ? batchConfig.getBatchSize() : DEFAULT_MAX_BATCH_SIZE) - BATCH_OVERHEAD;
+        this.lingerScheduler = batchConfig.getLingerTime().isZero() ? null : Executors
+                .newSingleThreadScheduledExecutor(
+                        new ThreadFactoryBuilder().setNameFormat("servicebus-batch-linger-%d").setDaemon(true)
+                                                  .build());
+        this.inFlightLimiter = batchConfig.getMaxInFlightBatches() > 0 ?
+                new InFlightBatchLimiter(batchConfig.getMaxInFlightBatches()) : null;
+    }
+
+    CompletableFuture<Void> send(String entityName, String partitionKey, List<IMessage> messages) {
+        awaitInFlight();
+
+        Tuple<String, String> key = Tuple.of(entityName, Strings.nullToEmpty(partitionKey));
+        PendingBatch pendingBatch = getOrCreatePendingBatch(key);
+
+        // Consecutive messages usually share the same batch, so only distinct futures are joined
+        Set<CompletableFuture<Void>> futures = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (IMessage message : messages) {
+            CompletableFuture<Void> future;
+            while ((future = pendingBatch.add(message)) == null) {
+                // Flushed and removed meanwhile
+                pendingBatch = getOrCreatePendingBatch(key);
+            }
+            futures.add(future);
+        }
+
+        if (this.lingerScheduler == null) {
+            pendingBatch.flush();
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    private PendingBatch getOrCreatePendingBatch(Tuple<String, String> key) {
+        return this.pendingBatches.computeIfAbsent(key, PendingBatch::new);
+    }
+
+    /**
+     * Send all pending batches without waiting for linger time.
+     *
+     * @return future completed once the flushed batches are sent
+     */
+    CompletableFuture<Void> flush() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (PendingBatch pendingBatch : this.pendingBatches.values()) {
+            futures.add(pendingBatch.flush());
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Send all pending batches, wait for them to be sent, and stop linger scheduler. Batches not sent within
+     * {@link #CLOSE_TIMEOUT} are left to fail with their senders.
+     */
+    void close() {
+        if (this.lingerScheduler != null) {
+            this.lingerScheduler.shutdown();
+        }
+
+        try {
+            flush().get(CLOSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            log.warn("Timed out sending pending batches in {}", CLOSE_TIMEOUT);
+        } catch (ExecutionException e) {
+            // Failure is logged and reported to futures of each batch
+        }
+    }
+
+    /**
+     * Count of routes with a pending batch
+     */
+    int getPendingRouteCount() {
+        return this.pendingBatches.size();
+    }
+
+    static int estimateSize(IMessage message) {
+        int size = MESSAGE_OVERHEAD + (message.getBody() == null ? 0 : message.getBody().length);
+        size += length(message.getMessageId()) + length(message.getContentType()) +
+                length(message.getPartitionKey()) + length(message.getSessionId()) + length(message.getLabel()) +
+                length(message.getCorrelationId()) + length(message.getReplyTo()) + length(message.getTo());
+
+        if (message.getProperties() != null) {
+            for (Map.Entry<String, String> property : message.getProperties().entrySet()) {
+                size += length(property.getKey()) + length(property.getValue());
+            }
+        }
+
+        return size;
+    }
+
+    private static int length(String value) {
+        // Upper bound of utf-8 encoded size without encoding it
+        return value == null ? 0 : value.length() * 3;
+    }
+
+    private class PendingBatch {
+        private final Tuple<String, String> key;
+        private final String entityName;
+
+        private List<IMessage> batch;
+        private int batchSize;
+        private CompletableFuture<Void> batchFuture;
+        private ScheduledFuture<?> lingerTask;
+        private boolean removed;
+
+        PendingBatch(Tuple<String, String> key) {
+            this.key = key;
+            this.entityName = key.getFirst();
+        }
+
+        /**
+         * @return future completed once batch holding the message is sent, or {@code null} if this pending batch is
+         * removed and the message should be added to a new one
+         */
+        synchronized CompletableFuture<Void> add(IMessage message) {
+            if (this.removed) {
+                return null;
+            }
+
+            int messageSize = estimateSize(message);
+
+            if (this.batch != null && this.batchSize + messageSize > maxBatchSize) {
+                sendBatch();
+            }
+
+            if (this.batch == null) {
+                open();
+            }
+
+            // Message estimated larger than batch size is sent alone, so the service decides whether it fits
+            this.batch.add(message);
+            this.batchSize += messageSize;
+            return this.batchFuture;
+        }
+
+        /**
+         * Send current batch and remove this pending batch from its route
+         */
+        synchronized CompletableFuture<Void> flush() {
+            CompletableFuture<Void> sendingFuture = this.batchFuture;
+            sendBatch();
+
+            this.removed = true;
+            pendingBatches.remove(this.key, this);
+            return sendingFuture == null ? CompletableFuture.completedFuture(null) : sendingFuture;
+        }
+
+        private void sendBatch() {
+            if (this.batch == null) {
+                return;
+            }
+
+            List<IMessage> sendingBatch = this.batch;
+            CompletableFuture<Void> sendingFuture = this.batchFuture;
+            this.batch = null;
+            this.batchSize = 0;
+            this.batchFuture = null;
+
+            if (this.lingerTask != null) {
+                this.lingerTask.cancel(false);
+                this.lingerTask = null;
+            }
+
+            // Batches of the same route are submitted in order while holding the lock, and started in that order
+            CompletableFuture<Void> sent;
+            if (inFlightLimiter != null) {
+                sent = inFlightLimiter.submit(() -> doSend(sendingBatch));
+            } else {
+                try {
+                    sent = doSend(sendingBatch);
+                } catch (RuntimeException e) {
+                    sent = new CompletableFuture<>();
+                    sent.completeExceptionally(e);
+                }
+            }
+
+            sent.whenComplete((v, t) -> {
+                if (t != null) {
+                    log.error(String.format("Failed to send batch of %d messages to '%s'", sendingBatch.size(),
+                            this.entityName), t);
+                    sendingFuture.completeExceptionally(t);
+                } else {
+                    sendingFuture.complete(null);
+                }
+            });
+        }
+
+        private void open() {
+            this.batch = new ArrayList<>();
+            this.batchFuture = new CompletableFuture<>();
+
+            if (lingerScheduler != null) {
+                this.lingerTask = lingerScheduler
+                        .schedule(this::flush, batchConfig.getLingerTime().toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private CompletableFuture<Void> doSend(List<IMessage> sendingBatch) {
+            return senderFactory.getOrCreateSender(this.entityName).sendBatchAsync(sendingBatch);
+        }
+    }
+
+    /**
+     * Wait for batches beyond max in-flight batches to be started, so senders don't outpace sending
+     */
+    private void awaitInFlight() {
+        if (this.inFlightLimiter == null) {
+            return;
+        }
+
+        try {
+            this.inFlightLimiter.awaitCapacity();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusRuntimeException("Interrupted when waiting for in-flight batches", e);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.servicebus;
+
+import com.microsoft.azure.servicebus.IMessage;
+import com.microsoft.azure.servicebus.IMessageReceiver;
+import com.microsoft.azure.spring.integration.core.AzureCheckpointer;
+import com.microsoft.azure.spring.integration.core.AzureHeaders;
+import com.microsoft.azure.spring.integration.core.api.CheckpointConfig;
+import com.microsoft.azure.spring.integration.core.api.CheckpointMode;
+import com.microsoft.azure.spring.integration.core.api.Checkpointer;
+import com.microsoft.azure.spring.integration.servicebus.converter.ServiceBusMessageConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * Pull based consumer of one {@link IMessageReceiver}. Each of {@code concurrency} workers receives up to
+ * {@code batchSize} messages within {@code maxWait}, and hands them to consumer as one {@code Message<List<U>>}.
+ * In {@link CheckpointMode#RECORD}, all messages of a batch are completed once consumer returns, or abandoned if it
+ * throws. In {@link CheckpointMode#MANUAL}, {@link AzureHeaders#CHECKPOINTER} settles all messages of the batch.
+ * Batches failing to convert are abandoned in any mode, and workers keep receiving after any failure.
+ *
+ * @author Warren Zhu
+ */
+public class ServiceBusBatchReceiver<U> {
+    private static final Logger log = LoggerFactory.getLogger(ServiceBusBatchReceiver.class);
+    private final IMessageReceiver receiver;
+    private final Consumer<Message<List<U>>> consumer;
+    private final Class<U> payloadType;
+    private final CheckpointConfig checkpointConfig;
+    private final ServiceBusMessageConverter messageConverter;
+    private final int batchSize;
+    private final Duration maxWait;
+    private final SettlementAccumulator settlementAccumulator;
+    private volatile boolean running = false;
+
+    /**
+     * @param settlementAccumulator accumulator to settle messages through, or {@code null} to settle each batch
+     * before receiving the next one
+     */
+    public ServiceBusBatchReceiver(IMessageReceiver receiver, Consumer<Message<List<U>>> consumer,
+            Class<U> payloadType, CheckpointConfig checkpointConfig, ServiceBusMessageConverter messageConverter,
+            int batchSize, Duration maxWait, @Nullable SettlementAccumulator settlementAccumulator) {
+        this.receiver = receiver;
+        this.consumer = consumer;
+        this.payloadType = payloadType;
+        this.checkpointConfig = checkpointConfig;
+        this.messageConverter = messageConverter;
+        this.batchSize = batchSize;
+        this.maxWait = maxWait;
+        this.settlementAccumulator = settlementAccumulator;
+    }
+
+    /**
+     * Start {@code concurrency} receive loops on given executor
+     */
+    public void start(ExecutorService executor, int concurrency) {
+        this.running = true;
+        for (int i = 0; i < concurrency; i++) {
+            executor.execute(this::receiveLoop);
+        }
+    }
+
+    /**
+     * Stop receive loops once their current batch is handled
+     */
+    public void stop() {
+        this.running = false;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void receiveLoop() {
+        while (this.running && !Thread.currentThread().isInterrupted()) {
+            Collection<IMessage> messages;
+            try {
+                messages = this.receiver.receiveBatchAsync(this.batchSize, this.maxWait).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                log.warn("Failed to receive messages from {}", this.receiver.getEntityPath(), e.getCause());
+                // Back off, so a broken connection is not polled in a tight loop
+                sleep(this.maxWait);
+                continue;
+            }
+
+            if (messages == null || messages.isEmpty()) {
+                continue;
+            }
+
+            try {
+                handle(new ArrayList<>(messages));
+            } catch (RuntimeException e) {
+                // Keep this worker receiving, its messages are redelivered once their locks expire
+                log.error("Failed to handle batch of {} messages from {}", messages.size(),
+                        this.receiver.getEntityPath(), e);
+            }
+        }
+    }
+
+    void handle(List<IMessage> serviceBusMessages) {
+        Map<String, Object> headers = new HashMap<>();
+
+        Checkpointer checkpointer = new AzureCheckpointer(() -> this.complete(serviceBusMessages),
+                () -> this.abandon(serviceBusMessages));
+        if (checkpointConfig.getCheckpointMode() == CheckpointMode.MANUAL) {
+            headers.put(AzureHeaders.CHECKPOINTER, checkpointer);
+        }
+
+        Message<List<U>> message;
+        try {
+            message = messageConverter.toBatchMessage(serviceBusMessages, headers, payloadType);
+        } catch (Exception e) {
+            log.error("Failed to convert batch of {} messages from {}", serviceBusMessages.size(),
+                    this.receiver.getEntityPath(), e);
+            // Consumer never sees the batch, so it's abandoned in any checkpoint mode
+            await(checkpointer.failure(), serviceBusMessages);
+            return;
+        }
+
+        try {
+            consumer.accept(message);
+        } catch (Exception e) {
+            log.error("Failed to handle batch of {} messages from {}", serviceBusMessages.size(),
+                    this.receiver.getEntityPath(), e);
+            if (checkpointConfig.getCheckpointMode() == CheckpointMode.RECORD) {
+                await(checkpointer.failure(), serviceBusMessages);
+            }
+            return;
+        }
+
+        if (checkpointConfig.getCheckpointMode() == CheckpointMode.RECORD) {
+            await(checkpointer.success(), serviceBusMessages);
+        }
+    }
+
+    private void await(CompletableFuture<Void> settlement, List<IMessage> serviceBusMessages) {
+        CompletableFuture<Void> future = settlement.whenComplete((v, t) -> {
+            if (t != null) {
+                log.warn("Failed to settle batch of {} messages from {}", serviceBusMessages.size(),
+                        this.receiver.getEntityPath(), t);
+            } else if (log.isDebugEnabled()) {
+                log.debug("Settled batch of {} messages from {} in {} mode", serviceBusMessages.size(),
+                        this.receiver.getEntityPath(), checkpointConfig.getCheckpointMode());
+            }
+        });
+
+        // Accumulated settlement is issued before locks expire, so next batch can be received meanwhile
+        if (this.settlementAccumulator == null) {
+            future.exceptionally(t -> null).join();
+        }
+    }
+
+    private CompletableFuture<Void> complete(List<IMessage> serviceBusMessages) {
+        CompletableFuture<?>[] futures = serviceBusMessages.stream().map(m -> {
+            if (this.settlementAccumulator == null) {
+                return this.receiver.completeAsync(m.getLockToken());
+            }
+            return this.settlementAccumulator.complete(m.getLockToken(), m.getLockedUntilUtc());
+        }).toArray(CompletableFuture[]::new);
+
+        return CompletableFuture.allOf(futures);
+    }
+
+    private CompletableFuture<Void> abandon(List<IMessage> serviceBusMessages) {
+        CompletableFuture<?>[] futures = serviceBusMessages.stream().map(m -> {
+            if (this.settlementAccumulator == null) {
+                return this.receiver.abandonAsync(m.getLockToken());
+            }
+            return this.settlementAccumulator.abandon(m.getLockToken(), m.getLockedUntilUtc());
+        }).toArray(CompletableFuture[]::new);
+
+        return CompletableFuture.allOf(futures);
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
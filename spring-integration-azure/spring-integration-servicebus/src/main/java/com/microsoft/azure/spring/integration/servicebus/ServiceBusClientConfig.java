@@ -5,6 +5,8 @@
  */
 package com.microsoft.azure.spring.integration.servicebus;
 
+import java.time.Duration;
+
 /**
  * Service bus client related config
  *
@@ -16,9 +18,22 @@ public class ServiceBusClientConfig {
 
     private final int concurrency;
 
-    private ServiceBusClientConfig(int prefetchCount, int concurrency) {
+    private final int settlementBatchSize;
+
+    private final Duration settlementInterval;
+
+    private final int receiveBatchSize;
+
+    private final Duration receiveMaxWait;
+
+    private ServiceBusClientConfig(int prefetchCount, int concurrency, int settlementBatchSize,
+            Duration settlementInterval, int receiveBatchSize, Duration receiveMaxWait) {
         this.prefetchCount = prefetchCount;
         this.concurrency = concurrency;
+        this.settlementBatchSize = settlementBatchSize;
+        this.settlementInterval = settlementInterval;
+        this.receiveBatchSize = receiveBatchSize;
+        this.receiveMaxWait = receiveMaxWait;
     }
 
     public int getPrefetchCount() {
@@ -29,6 +44,35 @@ public class ServiceBusClientConfig {
         return concurrency;
     }
 
+    /**
+     * Max count of settlements of one client issued together. Settlements are issued one by one if not greater than 1.
+     */
+    public int getSettlementBatchSize() {
+        return settlementBatchSize;
+    }
+
+    /**
+     * Max time to wait for more settlements before issuing pending ones
+     */
+    public Duration getSettlementInterval() {
+        return settlementInterval;
+    }
+
+    /**
+     * Max count of messages received and handled together by each of {@link #getConcurrency()} workers. Messages are
+     * pushed one by one to registered message handler if not greater than 0.
+     */
+    public int getReceiveBatchSize() {
+        return receiveBatchSize;
+    }
+
+    /**
+     * Max time to wait for a batch to fill up before handling received messages
+     */
+    public Duration getReceiveMaxWait() {
+        return receiveMaxWait;
+    }
+
     public static ServiceBusClientConfigBuilder builder(){
         return new ServiceBusClientConfigBuilder();
     }
@@ -36,6 +80,10 @@ public class ServiceBusClientConfig {
     public static class ServiceBusClientConfigBuilder {
         private int prefetchCount = 1;
         private int concurrency = 1;
+        private int settlementBatchSize = 1;
+        private Duration settlementInterval = Duration.ofMillis(100);
+        private int receiveBatchSize = 0;
+        private Duration receiveMaxWait = Duration.ofSeconds(1);
 
         public ServiceBusClientConfigBuilder setPrefetchCount(int prefetchCount) {
             this.prefetchCount = prefetchCount;
@@ -47,8 +95,29 @@ public class ServiceBusClientConfig {
             return this;
         }
 
+        public ServiceBusClientConfigBuilder setSettlementBatchSize(int settlementBatchSize) {
+            this.settlementBatchSize = settlementBatchSize;
+            return this;
+        }
+
+        public ServiceBusClientConfigBuilder setSettlementInterval(Duration settlementInterval) {
+            this.settlementInterval = settlementInterval;
+            return this;
+        }
+
+        public ServiceBusClientConfigBuilder setReceiveBatchSize(int receiveBatchSize) {
+            this.receiveBatchSize = receiveBatchSize;
+            return this;
+        }
+
+        public ServiceBusClientConfigBuilder setReceiveMaxWait(Duration receiveMaxWait) {
+            this.receiveMaxWait = receiveMaxWait;
+            return this;
+        }
+
         public ServiceBusClientConfig build() {
-            return new ServiceBusClientConfig(prefetchCount, concurrency);
+            return new ServiceBusClientConfig(prefetchCount, concurrency, settlementBatchSize, settlementInterval,
+                    receiveBatchSize, receiveMaxWait);
         }
     }
 }
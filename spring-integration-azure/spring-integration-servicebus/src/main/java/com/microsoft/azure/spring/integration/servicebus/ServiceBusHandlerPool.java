@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.servicebus;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread pool shared by message handlers of all subscriptions of one template. The pool grows with total concurrency
+ * of subscriptions, up to max pool size if positive, and idle threads exit after keep alive time.
+ *
+ * <p>
+ * Each subscription gets its own {@link java.util.concurrent.ExecutorService} view, which runs at most its
+ * concurrency of tasks at the same time. Its other tasks wait in its own queue, so one busy subscription cannot
+ * starve the others. Shutting down a view releases its share of the pool, and leaves the pool running. Tasks are
+ * expected to return once their message is handled; long running loops, e.g. of batch receivers, would hold pool
+ * threads for good and belong on dedicated threads.
+ *
+ * @author Warren Zhu
+ */
+public class ServiceBusHandlerPool {
+    private static final Logger log = LoggerFactory.getLogger(ServiceBusHandlerPool.class);
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final ThreadPoolExecutor executor;
+    private final int maxPoolSize;
+    private final Map<String, SubscriptionExecutor> subscriptionExecutors = new ConcurrentHashMap<>();
+    private int totalConcurrency;
+
+    /**
+     * @param maxPoolSize max count of threads, or non-positive to follow total concurrency of subscriptions
+     * @param threadFactory factory of pool threads, e.g. of virtual threads on runtimes supporting them
+     */
+    public ServiceBusHandlerPool(int maxPoolSize, ThreadFactory threadFactory) {
+        this.maxPoolSize = maxPoolSize;
+        this.executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                threadFactory);
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Return executor of given subscription, which runs at most {@code concurrency} tasks at the same time. Previous
+     * executor of the same name keeps its share of the pool until it's shut down, e.g. while its client is closing.
+     */
+    public synchronized SubscriptionExecutor newExecutor(String name, int concurrency) {
+        Assert.isTrue(concurrency > 0, "concurrency should be positive");
+        Assert.state(!this.executor.isShutdown(), "Service bus handler pool is shut down");
+
+        SubscriptionExecutor subscriptionExecutor = new SubscriptionExecutor(name, concurrency);
+        this.subscriptionExecutors.put(name, subscriptionExecutor);
+        this.totalConcurrency += concurrency;
+        resize();
+        return subscriptionExecutor;
+    }
+
+    private synchronized void release(SubscriptionExecutor subscriptionExecutor) {
+        if (subscriptionExecutor.released) {
+            return;
+        }
+
+        subscriptionExecutor.released = true;
+        this.subscriptionExecutors.remove(subscriptionExecutor.name, subscriptionExecutor);
+        this.totalConcurrency -= subscriptionExecutor.concurrency;
+        resize();
+    }
+
+    private void resize() {
+        int size = Math.max(1, this.maxPoolSize > 0 ? Math.min(this.totalConcurrency, this.maxPoolSize) :
+                this.totalConcurrency);
+
+        // Core size can't exceed max size at any time
+        if (size > this.executor.getMaximumPoolSize()) {
+            this.executor.setMaximumPoolSize(size);
+            this.executor.setCorePoolSize(size);
+        } else {
+            this.executor.setCorePoolSize(size);
+            this.executor.setMaximumPoolSize(size);
+        }
+
+        log.info("Service bus handler pool size becomes: {}", size);
+    }
+
+    /**
+     * Shut down executors of all subscriptions and the pool. Running tasks and waiting tasks are completed.
+     */
+    public void shutdown() {
+        new ArrayList<>(this.subscriptionExecutors.values()).forEach(SubscriptionExecutor::shutdown);
+        this.executor.shutdown();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Current count of threads in the pool
+     */
+    public int getPoolSize() {
+        return this.executor.getPoolSize();
+    }
+
+    /**
+     * Max count of threads the pool grows to with current subscriptions
+     */
+    public int getMaximumPoolSize() {
+        return this.executor.getMaximumPoolSize();
+    }
+
+    /**
+     * Count of threads running handlers
+     */
+    public int getActiveCount() {
+        return this.executor.getActiveCount();
+    }
+
+    /**
+     * Count of tasks waiting for a thread, including tasks waiting for concurrency of their subscription
+     */
+    public int getQueueDepth() {
+        int queueDepth = this.executor.getQueue().size();
+        for (SubscriptionExecutor subscriptionExecutor : this.subscriptionExecutors.values()) {
+            queueDepth += subscriptionExecutor.getQueueDepth();
+        }
+
+        return queueDepth;
+    }
+
+    /**
+     * Executors of current subscriptions by name
+     */
+    public Map<String, SubscriptionExecutor> getSubscriptionExecutors() {
+        return new HashMap<>(this.subscriptionExecutors);
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceBusHandlerPool{" + "poolSize=" + getPoolSize() + ", maximumPoolSize=" + getMaximumPoolSize() +
+                ", activeCount=" + getActiveCount() + ", queueDepth=" + getQueueDepth() + ", subscriptions=" +
+                this.subscriptionExecutors.size() + '}';
+    }
+
+    /**
+     * Executor of one subscription backed by the shared pool. Concurrency limit is enforced by a semaphore, and
+     * tasks beyond it wait in its own queue instead of blocking the caller.
+     */
+    public class SubscriptionExecutor extends AbstractExecutorService {
+        private final String name;
+        private final int concurrency;
+        private final Semaphore permits;
+        private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+        private volatile boolean shutdown = false;
+        // Guarded by the pool
+        private boolean released = false;
+
+        SubscriptionExecutor(String name, int concurrency) {
+            this.name = name;
+            this.concurrency = concurrency;
+            this.permits = new Semaphore(concurrency);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (this.shutdown) {
+                throw new RejectedExecutionException(
+                        String.format("Executor of service bus subscription '%s' is shut down", this.name));
+            }
+
+            this.pending.add(command);
+            dispatch();
+        }
+
+        private void dispatch() {
+            while (!this.pending.isEmpty() && this.permits.tryAcquire()) {
+                Runnable next = this.pending.poll();
+                if (next == null) {
+                    this.permits.release();
+                    continue;
+                }
+
+                try {
+                    executor.execute(() -> run(next));
+                } catch (RejectedExecutionException e) {
+                    this.permits.release();
+                    log.warn("Task of service bus subscription '{}' is rejected by shut down pool", this.name);
+                    throw e;
+                }
+            }
+        }
+
+        private void run(Runnable task) {
+            try {
+                task.run();
+            } finally {
+                this.permits.release();
+                try {
+                    dispatch();
+                } catch (RejectedExecutionException e) {
+                    log.warn("Dropped {} waiting tasks of service bus subscription '{}'", shutdownNow().size(),
+                            this.name);
+                }
+
+                if (this.shutdown) {
+                    synchronized (this) {
+                        notifyAll();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            this.shutdown = true;
+            release(this);
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown();
+            List<Runnable> dropped = new ArrayList<>();
+            Runnable task;
+            while ((task = this.pending.poll()) != null) {
+                dropped.add(task);
+            }
+
+            return dropped;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return this.shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return this.shutdown && this.pending.isEmpty() && this.permits.availablePermits() == this.concurrency;
+        }
+
+        @Override
+        public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (!isTerminated()) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+
+                wait(remainingMillis);
+            }
+
+            return true;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        /**
+         * Count of tasks of this subscription running in the pool, or waiting for a thread of it
+         */
+        public int getRunningCount() {
+            return this.concurrency - this.permits.availablePermits();
+        }
+
+        /**
+         * Count of tasks waiting for concurrency of this subscription
+         */
+        public int getQueueDepth() {
+            return this.pending.size();
+        }
+    }
+}
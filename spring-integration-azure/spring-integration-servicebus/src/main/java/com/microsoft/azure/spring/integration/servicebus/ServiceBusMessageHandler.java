@@ -17,36 +17,106 @@ import com.microsoft.azure.spring.integration.core.api.Checkpointer;
 import com.microsoft.azure.spring.integration.servicebus.converter.ServiceBusMessageConverter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHeaders;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
+/**
+ * Handler of messages pumped by a queue or subscription client. Once stopped, messages still delivered by the pump
+ * are abandoned right away instead of being handed to consumer, so they are redelivered without waiting for lock
+ * expiry.
+ *
+ * @author Warren Zhu
+ */
 public abstract class ServiceBusMessageHandler<U> implements IMessageHandler {
     private static final Logger log = LoggerFactory.getLogger(ServiceBusMessageHandler.class);
     private final Consumer<Message<U>> consumer;
     private final Class<U> payloadType;
     private final CheckpointConfig checkpointConfig;
     private final ServiceBusMessageConverter messageConverter;
+    private final SettlementAccumulator settlementAccumulator;
+    private boolean stopped = false;
+    private int handling = 0;
 
     public ServiceBusMessageHandler(Consumer<Message<U>> consumer, Class<U> payloadType,
             CheckpointConfig checkpointConfig, ServiceBusMessageConverter messageConverter) {
+        this(consumer, payloadType, checkpointConfig, messageConverter, null);
+    }
+
+    /**
+     * @param settlementAccumulator accumulator to settle messages through, or {@code null} to settle each message
+     * right away
+     */
+    public ServiceBusMessageHandler(Consumer<Message<U>> consumer, Class<U> payloadType,
+            CheckpointConfig checkpointConfig, ServiceBusMessageConverter messageConverter,
+            @Nullable SettlementAccumulator settlementAccumulator) {
         this.consumer = consumer;
         this.payloadType = payloadType;
         this.checkpointConfig = checkpointConfig;
         this.messageConverter = messageConverter;
+        this.settlementAccumulator = settlementAccumulator;
     }
 
     @Override
     public CompletableFuture<Void> onMessageAsync(IMessage serviceBusMessage) {
+        synchronized (this) {
+            // Checked under the lock, so a message is either abandoned or awaited by awaitHandled
+            if (this.stopped) {
+                return failure(serviceBusMessage.getLockToken());
+            }
+
+            this.handling++;
+        }
+
+        try {
+            return handle(serviceBusMessage);
+        } finally {
+            synchronized (this) {
+                this.handling--;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Stop handing messages to consumer. Messages delivered afterwards are abandoned.
+     */
+    public synchronized void stop() {
+        this.stopped = true;
+    }
+
+    /**
+     * Wait for messages handed to consumer before {@link #stop()} to be handled
+     *
+     * @return {@code true} if all were handled within timeout
+     */
+    public synchronized boolean awaitHandled(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (this.handling > 0) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                return false;
+            }
+
+            wait(remainingMillis);
+        }
+
+        return true;
+    }
+
+    private CompletableFuture<Void> handle(IMessage serviceBusMessage) {
         Map<String, Object> headers = new HashMap<>();
 
-        Checkpointer checkpointer = new AzureCheckpointer(() -> this.success(serviceBusMessage.getLockToken()),
-                () -> this.failure(serviceBusMessage.getLockToken()));
+        Checkpointer checkpointer = new AzureCheckpointer(() -> this.complete(serviceBusMessage),
+                () -> this.abandon(serviceBusMessage));
         if (checkpointConfig.getCheckpointMode() == CheckpointMode.MANUAL) {
             headers.put(AzureHeaders.CHECKPOINTER, checkpointer);
         }
@@ -55,11 +125,32 @@ public abstract class ServiceBusMessageHandler<U> implements IMessageHandler {
         consumer.accept(message);
 
         if (checkpointConfig.getCheckpointMode() == CheckpointMode.RECORD) {
-            return checkpointer.success().whenComplete((v, t) -> checkpointHandler(message, t));
+            CompletableFuture<Void> future =
+                    checkpointer.success().whenComplete((v, t) -> checkpointHandler(message, t));
+            // Accumulated settlement is issued before lock expires, so next message can be handled meanwhile
+            return this.settlementAccumulator == null ? future : CompletableFuture.completedFuture(null);
         }
         return CompletableFuture.completedFuture(null);
     }
 
+    private CompletableFuture<Void> complete(IMessage serviceBusMessage) {
+        if (this.settlementAccumulator == null) {
+            return success(serviceBusMessage.getLockToken());
+        }
+
+        return this.settlementAccumulator
+                .complete(serviceBusMessage.getLockToken(), serviceBusMessage.getLockedUntilUtc());
+    }
+
+    private CompletableFuture<Void> abandon(IMessage serviceBusMessage) {
+        if (this.settlementAccumulator == null) {
+            return failure(serviceBusMessage.getLockToken());
+        }
+
+        return this.settlementAccumulator
+                .abandon(serviceBusMessage.getLockToken(), serviceBusMessage.getLockedUntilUtc());
+    }
+
     @Override
     public void notifyException(Throwable exception, ExceptionPhase phase) {
         log.error(String.format("Exception encountered in phase %s", phase), exception);
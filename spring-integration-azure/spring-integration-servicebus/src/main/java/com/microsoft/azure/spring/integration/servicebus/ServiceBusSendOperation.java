@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.servicebus;
+
+import com.microsoft.azure.spring.integration.core.api.BatchConfig;
+import com.microsoft.azure.spring.integration.core.api.BatchSendOperation;
+import com.microsoft.azure.spring.integration.core.api.SendOperation;
+
+/**
+ * Azure service bus operation to support send one or a batch of {@link org.springframework.messaging.Message}
+ * asynchronously
+ *
+ * @author Warren Zhu
+ */
+public interface ServiceBusSendOperation extends SendOperation, BatchSendOperation {
+
+    /**
+     * Enable batching producer if not {@code null}. Messages sent to the same entity with the same partition key are
+     * then sent in batches.
+     */
+    void setBatchConfig(BatchConfig batchConfig);
+}
@@ -8,33 +8,56 @@ package com.microsoft.azure.spring.integration.servicebus;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.microsoft.azure.servicebus.IMessage;
+import com.microsoft.azure.servicebus.IMessageReceiver;
 import com.microsoft.azure.servicebus.MessageHandlerOptions;
+import com.microsoft.azure.servicebus.primitives.ServiceBusException;
+import com.microsoft.azure.spring.integration.core.api.BatchConfig;
 import com.microsoft.azure.spring.integration.core.api.CheckpointConfig;
 import com.microsoft.azure.spring.integration.core.api.CheckpointMode;
 import com.microsoft.azure.spring.integration.core.api.PartitionSupplier;
-import com.microsoft.azure.spring.integration.core.api.SendOperation;
 import com.microsoft.azure.spring.integration.servicebus.converter.ServiceBusMessageConverter;
 import com.microsoft.azure.spring.integration.servicebus.factory.ServiceBusSenderFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.lang.NonNull;
 import org.springframework.messaging.Message;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Azure service bus template to support send {@link Message} asynchronously
  *
  * @author Warren Zhu
  */
-public class ServiceBusTemplate<T extends ServiceBusSenderFactory> implements SendOperation {
+public class ServiceBusTemplate<T extends ServiceBusSenderFactory> implements ServiceBusSendOperation, DisposableBean {
     private static final Logger log = LoggerFactory.getLogger(ServiceBusTemplate.class);
+
+    /**
+     * Max time to wait for running handlers when a subscription is released
+     */
+    protected static final Duration HANDLER_DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
     protected final T senderFactory;
 
     protected ServiceBusClientConfig clientConfig = ServiceBusClientConfig.builder().build();
@@ -44,6 +67,29 @@ public class ServiceBusTemplate<T extends ServiceBusSenderFactory> implements Se
 
     protected ServiceBusMessageConverter messageConverter = new ServiceBusMessageConverter();
 
+    private final List<SettlementAccumulator> settlementAccumulators = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService settlementScheduler;
+
+    private BatchConfig batchConfig;
+
+    private volatile ServiceBusBatchAccumulator batchAccumulator;
+
+    private int handlerPoolSize = 0;
+
+    private ThreadFactory handlerThreadFactory =
+            new ThreadFactoryBuilder().setNameFormat("servicebus-handler-%d").build();
+
+    private ServiceBusHandlerPool handlerPool;
+
+    private final Map<String, ExecutorService> handlerExecutors = new ConcurrentHashMap<>();
+
+    private final Map<String, ServiceBusBatchReceiver<?>> batchReceivers = new ConcurrentHashMap<>();
+
+    private final Map<String, ServiceBusMessageHandler<?>> messageHandlers = new ConcurrentHashMap<>();
+
+    private final Map<String, Object> subscriptionLocks = new ConcurrentHashMap<>();
+
     public ServiceBusTemplate(@NonNull T senderFactory) {
         this.senderFactory = senderFactory;
         log.info("Started ServiceBusTemplate with properties: {}", checkpointConfig);
@@ -54,13 +100,40 @@ public class ServiceBusTemplate<T extends ServiceBusSenderFactory> implements Se
             PartitionSupplier partitionSupplier) {
         Assert.hasText(destination, "destination can't be null or empty");
         String partitionKey = getPartitionKey(partitionSupplier);
+        IMessage serviceBusMessage = toServiceBusMessage(message, partitionKey);
+
+        ServiceBusBatchAccumulator accumulator = this.batchAccumulator;
+        if (accumulator != null) {
+            return accumulator.send(destination, partitionKey, Collections.singletonList(serviceBusMessage));
+        }
+
+        return this.senderFactory.getOrCreateSender(destination).sendAsync(serviceBusMessage);
+    }
+
+    @Override
+    public <U> CompletableFuture<Void> sendAsync(String destination, @NonNull Collection<Message<U>> messages,
+            PartitionSupplier partitionSupplier) {
+        Assert.hasText(destination, "destination can't be null or empty");
+        String partitionKey = getPartitionKey(partitionSupplier);
+        List<IMessage> serviceBusMessages =
+                messages.stream().map(m -> toServiceBusMessage(m, partitionKey)).collect(Collectors.toList());
+
+        ServiceBusBatchAccumulator accumulator = this.batchAccumulator;
+        if (accumulator != null) {
+            return accumulator.send(destination, partitionKey, serviceBusMessages);
+        }
+
+        return this.senderFactory.getOrCreateSender(destination).sendBatchAsync(serviceBusMessages);
+    }
+
+    private IMessage toServiceBusMessage(Message<?> message, String partitionKey) {
         IMessage serviceBusMessage = messageConverter.fromMessage(message, IMessage.class);
 
         if (StringUtils.hasText(partitionKey)) {
             serviceBusMessage.setPartitionKey(partitionKey);
         }
 
-        return this.senderFactory.getOrCreateSender(destination).sendAsync(serviceBusMessage);
+        return serviceBusMessage;
     }
 
     public void setCheckpointConfig(CheckpointConfig checkpointConfig) {
@@ -74,10 +147,181 @@ public class ServiceBusTemplate<T extends ServiceBusSenderFactory> implements Se
         return new MessageHandlerOptions(this.clientConfig.getConcurrency(), false, Duration.ofMinutes(5));
     }
 
-    protected ExecutorService buildHandlerExecutors(String threadPrefix){
-        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat
-                (threadPrefix + "-%d").build();
-        return Executors.newFixedThreadPool(this.clientConfig.getConcurrency(), threadFactory);
+    /**
+     * Build executor of given subscription backed by shared handler pool, which runs at most
+     * {@link ServiceBusClientConfig#getConcurrency()} handlers at the same time. The message handler is stopped
+     * when the subscription is released.
+     */
+    protected ExecutorService buildHandlerExecutors(String subscriptionName,
+            ServiceBusMessageHandler<?> messageHandler) {
+        ExecutorService executor = getHandlerPool().newExecutor(subscriptionName, this.clientConfig.getConcurrency());
+        this.handlerExecutors.put(subscriptionName, executor);
+        this.messageHandlers.put(subscriptionName, messageHandler);
+        return executor;
+    }
+
+    /**
+     * Stop receiving of given subscription, wait up to {@link #HANDLER_DRAIN_TIMEOUT} for handlers already started,
+     * issue pending settlements of the subscription, then close its client with the given closer.
+     *
+     * <p>
+     * Message pump of a client can only be stopped by closing the client, so it keeps delivering until then. Those
+     * messages are abandoned by the stopped message handler right away, and the executor is shut down only once the
+     * client is closed, so no delivery is rejected and left to lock expiry.
+     */
+    /**
+     * Lock held while subscribing or unsubscribing given subscription. Subscribing again waits until the previous
+     * subscription is released and its client removed, so it never registers on the client being closed.
+     */
+    protected Object getSubscriptionLock(String subscriptionName) {
+        return this.subscriptionLocks.computeIfAbsent(subscriptionName, k -> new Object());
+    }
+
+    protected void releaseSubscription(String subscriptionName, Supplier<CompletableFuture<Void>> clientCloser) {
+        ServiceBusBatchReceiver<?> batchReceiver = this.batchReceivers.remove(subscriptionName);
+        ServiceBusMessageHandler<?> messageHandler = this.messageHandlers.remove(subscriptionName);
+        ExecutorService executor = this.handlerExecutors.remove(subscriptionName);
+
+        if (batchReceiver != null) {
+            batchReceiver.stop();
+        }
+
+        if (messageHandler != null) {
+            messageHandler.stop();
+            awaitHandlers(subscriptionName, messageHandler::awaitHandled);
+        } else if (executor != null) {
+            // Nothing but receive loops of batch receiver is submitted to its executor
+            executor.shutdown();
+            awaitHandlers(subscriptionName,
+                    timeout -> executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS));
+        }
+
+        for (SettlementAccumulator accumulator : this.settlementAccumulators) {
+            if (subscriptionName.equals(accumulator.getEntityName())) {
+                accumulator.flush();
+                this.settlementAccumulators.remove(accumulator);
+            }
+        }
+
+        CompletableFuture<Void> closed = clientCloser.get();
+        if (executor != null) {
+            closed.whenComplete((v, t) -> executor.shutdown());
+        }
+    }
+
+    private static void awaitHandlers(String subscriptionName, HandlerAwaiter awaiter) {
+        try {
+            if (!awaiter.await(HANDLER_DRAIN_TIMEOUT)) {
+                log.warn("Handlers of service bus subscription '{}' are still running after {}", subscriptionName,
+                        HANDLER_DRAIN_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface HandlerAwaiter {
+        boolean await(Duration timeout) throws InterruptedException;
+    }
+
+    /**
+     * Pool of threads running message handlers of all subscriptions, e.g. to report thread count and queue depth
+     */
+    public synchronized ServiceBusHandlerPool getHandlerPool() {
+        if (this.handlerPool == null) {
+            this.handlerPool = new ServiceBusHandlerPool(this.handlerPoolSize, this.handlerThreadFactory);
+        }
+
+        return this.handlerPool;
+    }
+
+    /**
+     * Max count of threads shared by message handlers of all subscriptions. Non-positive value means total
+     * concurrency of subscriptions. Receive loops of batch receivers run on their own threads, so they don't count
+     * towards it. Effective only if set before the first subscription.
+     */
+    public void setHandlerPoolSize(int handlerPoolSize) {
+        log.info("ServiceBusTemplate handler pool size becomes: {}", handlerPoolSize);
+        this.handlerPoolSize = handlerPoolSize;
+    }
+
+    /**
+     * Factory of threads running message handlers and batch receivers, e.g. of virtual threads on runtimes supporting
+     * them. Effective only if set before the first subscription.
+     */
+    public void setHandlerThreadFactory(@NonNull ThreadFactory handlerThreadFactory) {
+        log.info("ServiceBusTemplate handler thread factory becomes: {}", handlerThreadFactory);
+        this.handlerThreadFactory = handlerThreadFactory;
+    }
+
+    /**
+     * Build accumulator of settlements of the given client if {@link ServiceBusClientConfig#getSettlementBatchSize()}
+     * is greater than 1, otherwise return {@code null} so each message is settled right away
+     */
+    protected SettlementAccumulator buildSettlementAccumulator(String entityName,
+            Function<UUID, CompletableFuture<Void>> completer, Function<UUID, CompletableFuture<Void>> abandoner) {
+        if (this.clientConfig.getSettlementBatchSize() <= 1) {
+            return null;
+        }
+
+        SettlementAccumulator accumulator =
+                new SettlementAccumulator(entityName, completer, abandoner, this.clientConfig.getSettlementBatchSize(),
+                        this.clientConfig.getSettlementInterval(), getSettlementScheduler());
+        this.settlementAccumulators.add(accumulator);
+        return accumulator;
+    }
+
+    /**
+     * Start receiving messages of given receiver in batch of {@link ServiceBusClientConfig#getReceiveBatchSize()},
+     * handled by {@link ServiceBusClientConfig#getConcurrency()} workers. Prefetch count of receiver is raised to
+     * batch size, so one batch does not take several round trips. Each worker holds its thread for the life of the
+     * subscription, so workers get dedicated threads instead of the shared handler pool, which they would starve.
+     */
+    @SuppressWarnings("unchecked")
+    protected ServiceBusBatchReceiver<?> startBatchReceiver(IMessageReceiver receiver, Consumer<Message<?>> consumer,
+            Class<?> payloadType, String subscriptionName) {
+        try {
+            receiver.setPrefetchCount(
+                    Math.max(this.clientConfig.getPrefetchCount(), this.clientConfig.getReceiveBatchSize()));
+        } catch (ServiceBusException e) {
+            throw new ServiceBusRuntimeException("Failed to set prefetch count of service bus receiver", e);
+        }
+
+        ServiceBusBatchReceiver<?> batchReceiver =
+                new ServiceBusBatchReceiver(receiver, consumer, payloadType, this.checkpointConfig,
+                        this.messageConverter, this.clientConfig.getReceiveBatchSize(),
+                        this.clientConfig.getReceiveMaxWait(),
+                        buildSettlementAccumulator(receiver.getEntityPath(), receiver::completeAsync,
+                                receiver::abandonAsync));
+        batchReceiver.start(buildBatchReceiverExecutor(subscriptionName), this.clientConfig.getConcurrency());
+        this.batchReceivers.put(subscriptionName, batchReceiver);
+        return batchReceiver;
+    }
+
+    private ExecutorService buildBatchReceiverExecutor(String subscriptionName) {
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("servicebus-batch-receiver-%d")
+                                                                .setThreadFactory(this.handlerThreadFactory).build();
+        ExecutorService executor = Executors.newFixedThreadPool(this.clientConfig.getConcurrency(), threadFactory);
+        this.handlerExecutors.put(subscriptionName, executor);
+        return executor;
+    }
+
+    private synchronized ScheduledExecutorService getSettlementScheduler() {
+        if (this.settlementScheduler == null) {
+            ThreadFactory threadFactory =
+                    new ThreadFactoryBuilder().setNameFormat("servicebus-settlement-%d").setDaemon(true).build();
+            this.settlementScheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        }
+
+        return this.settlementScheduler;
+    }
+
+    /**
+     * Accumulators of subscribed clients with settlement batching, e.g. to report settlements issued per flush
+     */
+    public Collection<SettlementAccumulator> getSettlementAccumulators() {
+        return new ArrayList<>(this.settlementAccumulators);
     }
 
     private String getPartitionKey(PartitionSupplier partitionSupplier) {
@@ -101,6 +345,61 @@ public class ServiceBusTemplate<T extends ServiceBusSenderFactory> implements Se
                 checkpointConfig.getCheckpointMode() == CheckpointMode.RECORD;
     }
 
+    public BatchConfig getBatchConfig() {
+        return batchConfig;
+    }
+
+    /**
+     * Enable batching producer if not {@code null}. Messages sent to the same entity with the same partition key are
+     * then sent in batches of estimated size up to {@link BatchConfig#getBatchSize()}, 256KB by default. Pending
+     * batches of previous config are sent right away.
+     */
+    @Override
+    public synchronized void setBatchConfig(BatchConfig batchConfig) {
+        log.info("ServiceBusTemplate batch config becomes: {}", batchConfig);
+        ServiceBusBatchAccumulator previous = this.batchAccumulator;
+        this.batchConfig = batchConfig;
+        this.batchAccumulator = batchConfig == null ? null : new ServiceBusBatchAccumulator(senderFactory, batchConfig);
+
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Send pending batches without waiting for linger time. No-op if batching producer is not enabled.
+     */
+    public void flush() {
+        ServiceBusBatchAccumulator accumulator = this.batchAccumulator;
+        if (accumulator != null) {
+            accumulator.flush();
+        }
+    }
+
+    /**
+     * Stop receiving of all subscriptions, send pending batches and settlements, and shut down handler pool
+     */
+    @Override
+    public void destroy() {
+        new ArrayList<>(this.handlerExecutors.keySet())
+                .forEach(s -> releaseSubscription(s, () -> CompletableFuture.completedFuture(null)));
+
+        synchronized (this) {
+            if (this.handlerPool != null) {
+                this.handlerPool.shutdown();
+            }
+
+            if (this.batchAccumulator != null) {
+                this.batchAccumulator.close();
+            }
+
+            this.settlementAccumulators.forEach(SettlementAccumulator::flush);
+            if (this.settlementScheduler != null) {
+                this.settlementScheduler.shutdown();
+            }
+        }
+    }
+
     public CheckpointConfig getCheckpointConfig() {
         return checkpointConfig;
     }
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.servicebus;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Accumulate settlements of messages received by one queue or subscription client and issue them together, once
+ * {@code batchSize} settlements are pending or {@code interval} elapses since the first pending one. Pending
+ * settlements are issued before lock of any of their messages expires, so settled messages are not redelivered.
+ * <p>
+ * Service bus client settles one lock token per call, so each settlement is still its own disposition. Accumulating
+ * them only moves settling off the handler threads and issues them together on the scheduler.
+ *
+ * @author Warren Zhu
+ */
+public class SettlementAccumulator {
+    private static final Logger log = LoggerFactory.getLogger(SettlementAccumulator.class);
+
+    // Pending settlements are issued this long before lock of their message expires
+    private static final long LOCK_EXPIRY_MARGIN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final String entityName;
+    private final Function<UUID, CompletableFuture<Void>> completer;
+    private final Function<UUID, CompletableFuture<Void>> abandoner;
+    private final int batchSize;
+    private final long intervalNanos;
+    private final ScheduledExecutorService scheduler;
+
+    private final LongAdder flushCount = new LongAdder();
+    private final LongAdder settledCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+
+    private List<Settlement> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private long flushDeadlineNanos;
+
+    /**
+     * @param completer completes message of the given lock token, e.g. {@code queueClient::completeAsync}
+     * @param abandoner abandons message of the given lock token, e.g. {@code queueClient::abandonAsync}
+     * @param scheduler scheduler to issue settlements on once interval elapses
+     */
+    public SettlementAccumulator(String entityName, Function<UUID, CompletableFuture<Void>> completer,
+            Function<UUID, CompletableFuture<Void>> abandoner, int batchSize, Duration interval,
+            ScheduledExecutorService scheduler) {
+        Assert.isTrue(batchSize > 0, "batchSize should be positive");
+        Assert.isTrue(interval != null && !interval.isNegative(), "interval should not be negative");
+        this.entityName = entityName;
+        this.completer = completer;
+        this.abandoner = abandoner;
+        this.batchSize = batchSize;
+        this.intervalNanos = interval.toNanos();
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @param lockedUntil lock expiry of the message, or {@code null} if unknown
+     * @return future completed once the message is completed
+     */
+    public CompletableFuture<Void> complete(UUID lockToken, @Nullable Instant lockedUntil) {
+        return add(new Settlement(lockToken, true, lockedUntil));
+    }
+
+    /**
+     * @param lockedUntil lock expiry of the message, or {@code null} if unknown
+     * @return future completed once the message is abandoned
+     */
+    public CompletableFuture<Void> abandon(UUID lockToken, @Nullable Instant lockedUntil) {
+        return add(new Settlement(lockToken, false, lockedUntil));
+    }
+
+    /**
+     * Issue all pending settlements now
+     */
+    public void flush() {
+        List<Settlement> settlements;
+        synchronized (this) {
+            settlements = drain();
+        }
+
+        settle(settlements);
+    }
+
+    private CompletableFuture<Void> add(Settlement settlement) {
+        List<Settlement> settlements = null;
+        synchronized (this) {
+            this.pending.add(settlement);
+            if (this.pending.size() >= this.batchSize) {
+                settlements = drain();
+            } else {
+                scheduleFlush(settlement);
+            }
+        }
+
+        if (settlements != null) {
+            settle(settlements);
+        }
+
+        return settlement.result;
+    }
+
+    private void scheduleFlush(Settlement settlement) {
+        long now = System.nanoTime();
+        long deadline = this.scheduledFlush == null ? now + this.intervalNanos : this.flushDeadlineNanos;
+        if (settlement.lockedUntil != null) {
+            long lockLeftNanos = Duration.between(Instant.now(), settlement.lockedUntil).toNanos();
+            deadline = Math.min(deadline, now + lockLeftNanos - LOCK_EXPIRY_MARGIN_NANOS);
+        }
+
+        if (this.scheduledFlush != null) {
+            if (deadline >= this.flushDeadlineNanos) {
+                return;
+            }
+
+            // Lock of the new message expires before the scheduled flush
+            this.scheduledFlush.cancel(false);
+        }
+
+        this.flushDeadlineNanos = deadline;
+        this.scheduledFlush = this.scheduler.schedule(this::flush, Math.max(0, deadline - now), TimeUnit.NANOSECONDS);
+    }
+
+    private List<Settlement> drain() {
+        if (this.scheduledFlush != null) {
+            this.scheduledFlush.cancel(false);
+            this.scheduledFlush = null;
+        }
+
+        List<Settlement> settlements = this.pending;
+        this.pending = new ArrayList<>();
+        return settlements;
+    }
+
+    private void settle(List<Settlement> settlements) {
+        if (settlements.isEmpty()) {
+            return;
+        }
+
+        this.flushCount.increment();
+        this.settledCount.add(settlements.size());
+
+        for (Settlement settlement : settlements) {
+            CompletableFuture<Void> future;
+            try {
+                future = (settlement.complete ? this.completer : this.abandoner).apply(settlement.lockToken);
+            } catch (Exception e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+
+            future.whenComplete((v, t) -> {
+                if (t == null) {
+                    settlement.result.complete(null);
+                    return;
+                }
+
+                this.failedCount.increment();
+                log.warn("Failed to settle message of lock token {} in '{}'", settlement.lockToken, this.entityName, t);
+                settlement.result.completeExceptionally(t);
+            });
+        }
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    /**
+     * Count of times pending settlements are issued together
+     */
+    public long getFlushCount() {
+        return flushCount.sum();
+    }
+
+    public long getSettledCount() {
+        return settledCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    /**
+     * Average count of settlements issued per flush of this accumulator, or 0 before the first flush
+     */
+    public double getAverageSettlementsPerFlush() {
+        long flushes = getFlushCount();
+        return flushes == 0 ? 0 : (double) getSettledCount() / flushes;
+    }
+
+    @Override
+    public String toString() {
+        return "SettlementAccumulator{" + "entityName='" + entityName + '\'' + ", flushCount=" + getFlushCount() +
+                ", settledCount=" + getSettledCount() + ", failedCount=" + getFailedCount() +
+                ", averageSettlementsPerFlush=" + getAverageSettlementsPerFlush() + '}';
+    }
+
+    private static class Settlement {
+        private final UUID lockToken;
+        private final boolean complete;
+        private final Instant lockedUntil;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        Settlement(UUID lockToken, boolean complete, Instant lockedUntil) {
+            this.lockToken = lockToken;
+            this.complete = complete;
+            this.lockedUntil = lockedUntil;
+        }
+    }
+}
@@ -24,7 +24,8 @@ import java.util.UUID;
 
 /**
  * A converter to turn a {@link org.springframework.messaging.Message} to {@link IMessage}
- * and vice versa.
+ * and vice versa. Content encoding of compressed body is kept in {@link AzureHeaders#CONTENT_ENCODING} property of
+ * message.
  *
  * @author Warren Zhu
  */
@@ -67,7 +68,9 @@ public class ServiceBusMessageConverter extends AbstractAzureMessageConverter<IM
             serviceBusMessage.setReplyTo(headers.get(MessageHeaders.REPLY_CHANNEL, String.class));
         }
 
-        headers.entrySet().forEach(e->serviceBusMessage.getProperties().put(e.getKey(), e.getValue().toString()));
+        // Content encoding of received message doesn't apply to its decompressed payload
+        headers.entrySet().stream().filter(e -> !AzureHeaders.CONTENT_ENCODING.equals(e.getKey()))
+               .forEach(e -> serviceBusMessage.getProperties().put(e.getKey(), e.getValue().toString()));
     }
 
     @Override
@@ -96,4 +99,20 @@ public class ServiceBusMessageConverter extends AbstractAzureMessageConverter<IM
 
         return Collections.unmodifiableMap(headers);
     }
+
+    @Override
+    protected String getContentEncoding(IMessage azureMessage) {
+        Object contentEncoding = azureMessage.getProperties().get(AzureHeaders.CONTENT_ENCODING);
+        return contentEncoding == null ? null : contentEncoding.toString();
+    }
+
+    @Override
+    protected void setContentEncoding(IMessage azureMessage, String contentEncoding) {
+        azureMessage.getProperties().put(AzureHeaders.CONTENT_ENCODING, contentEncoding);
+    }
+
+    @Override
+    protected boolean supportsContentEncoding() {
+        return true;
+    }
 }
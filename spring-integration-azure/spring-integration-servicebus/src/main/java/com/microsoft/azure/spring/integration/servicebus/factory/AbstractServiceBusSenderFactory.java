@@ -6,7 +6,12 @@
 
 package com.microsoft.azure.spring.integration.servicebus.factory;
 
+import com.microsoft.azure.servicebus.ICloseable;
 import com.microsoft.azure.spring.cloud.context.core.api.ResourceManagerProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Base class of service bus client factory to provide connection string
@@ -14,6 +19,7 @@ import com.microsoft.azure.spring.cloud.context.core.api.ResourceManagerProvider
  * @author Warren Zhu
  */
 abstract class AbstractServiceBusSenderFactory implements ServiceBusSenderFactory {
+    private static final Logger log = LoggerFactory.getLogger(AbstractServiceBusSenderFactory.class);
     protected final String connectionString;
     protected String namespace;
     protected ResourceManagerProvider resourceManagerProvider;
@@ -29,4 +35,25 @@ abstract class AbstractServiceBusSenderFactory implements ServiceBusSenderFactor
     public void setNamespace(String namespace) {
         this.namespace = namespace;
     }
+
+    /**
+     * Close removed client without waiting, so its link stops receiving and prefetched messages are released
+     *
+     * @return future completed once client is closed, or failed to close
+     */
+    protected static CompletableFuture<Void> close(ICloseable client, String entityPath) {
+        if (client == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return client.closeAsync().handle((v, t) -> {
+            if (t != null) {
+                log.warn("Failed to close service bus client of '{}'", entityPath, t);
+            } else {
+                log.info("Closed service bus client of '{}'", entityPath);
+            }
+
+            return null;
+        });
+    }
 }
@@ -7,6 +7,8 @@
 package com.microsoft.azure.spring.integration.servicebus.factory;
 
 import com.microsoft.azure.management.servicebus.ServiceBusNamespace;
+import com.microsoft.azure.servicebus.ClientFactory;
+import com.microsoft.azure.servicebus.IMessageReceiver;
 import com.microsoft.azure.servicebus.IMessageSender;
 import com.microsoft.azure.servicebus.IQueueClient;
 import com.microsoft.azure.servicebus.QueueClient;
@@ -18,6 +20,9 @@ import com.microsoft.azure.spring.cloud.context.core.util.Tuple;
 import com.microsoft.azure.spring.integration.servicebus.ServiceBusRuntimeException;
 import org.springframework.util.StringUtils;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 /**
@@ -29,18 +34,20 @@ import java.util.function.Function;
 public class DefaultServiceBusQueueClientFactory extends AbstractServiceBusSenderFactory
         implements ServiceBusQueueClientFactory {
 
-    private final Function<String, IQueueClient> queueClientCreator = Memoizer.memoize(this::createQueueClient);
+    private final Map<String, IQueueClient> queueClients = new ConcurrentHashMap<>();
+    private final Map<String, IMessageReceiver> receivers = new ConcurrentHashMap<>();
+    private final Function<String, IQueueClient> queueClientCreator =
+            Memoizer.memoize(this.queueClients, this::createQueueClient);
+    private final Function<String, IMessageReceiver> receiverCreator =
+            Memoizer.memoize(this.receivers, this::createReceiver);
+    private final Function<String, IMessageSender> senderCreator = Memoizer.memoize(this::createSender);
 
     public DefaultServiceBusQueueClientFactory(String connectionString) {
         super(connectionString);
     }
 
     private IQueueClient createQueueClient(String destination) {
-        if (resourceManagerProvider != null && StringUtils.hasText(namespace)) {
-            ServiceBusNamespace serviceBusNamespace =
-                    resourceManagerProvider.getServiceBusNamespaceManager().getOrCreate(namespace);
-            resourceManagerProvider.getServiceBusQueueManager().getOrCreate(Tuple.of(serviceBusNamespace, destination));
-        }
+        createQueueIfMissing(destination);
 
         try {
             return new QueueClient(new ConnectionStringBuilder(connectionString, destination), ReceiveMode.PEEKLOCK);
@@ -49,13 +56,55 @@ public class DefaultServiceBusQueueClientFactory extends AbstractServiceBusSende
         }
     }
 
+    private IMessageReceiver createReceiver(String destination) {
+        createQueueIfMissing(destination);
+
+        try {
+            return ClientFactory.createMessageReceiverFromConnectionStringBuilder(
+                    new ConnectionStringBuilder(connectionString, destination), ReceiveMode.PEEKLOCK);
+        } catch (InterruptedException | ServiceBusException e) {
+            throw new ServiceBusRuntimeException("Failed to create service bus queue receiver", e);
+        }
+    }
+
+    private IMessageSender createSender(String destination) {
+        createQueueIfMissing(destination);
+
+        try {
+            return ClientFactory
+                    .createMessageSenderFromConnectionStringBuilder(new ConnectionStringBuilder(connectionString,
+                            destination));
+        } catch (InterruptedException | ServiceBusException e) {
+            throw new ServiceBusRuntimeException("Failed to create service bus queue sender", e);
+        }
+    }
+
+    private void createQueueIfMissing(String destination) {
+        if (resourceManagerProvider != null && StringUtils.hasText(namespace)) {
+            ServiceBusNamespace serviceBusNamespace =
+                    resourceManagerProvider.getServiceBusNamespaceManager().getOrCreate(namespace);
+            resourceManagerProvider.getServiceBusQueueManager().getOrCreate(Tuple.of(serviceBusNamespace, destination));
+        }
+    }
+
     @Override
     public IQueueClient getOrCreateClient(String name) {
         return this.queueClientCreator.apply(name);
     }
 
+    @Override
+    public IMessageReceiver getOrCreateReceiver(String name) {
+        return this.receiverCreator.apply(name);
+    }
+
+    @Override
+    public CompletableFuture<Void> removeClient(String name) {
+        return CompletableFuture.allOf(close(this.queueClients.remove(name), name),
+                close(this.receivers.remove(name), name));
+    }
+
     @Override
     public IMessageSender getOrCreateSender(String name) {
-        return getOrCreateClient(name);
+        return this.senderCreator.apply(name);
     }
 }
@@ -16,6 +16,9 @@ import com.microsoft.azure.spring.cloud.context.core.util.Tuple;
 import com.microsoft.azure.spring.integration.servicebus.ServiceBusRuntimeException;
 import org.springframework.util.StringUtils;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
@@ -28,8 +31,12 @@ import java.util.function.Function;
 public class DefaultServiceBusTopicClientFactory extends AbstractServiceBusSenderFactory
         implements ServiceBusTopicClientFactory {
     private static final String SUBSCRIPTION_PATH = "%s/subscriptions/%s";
+    private final Map<Tuple<String, String>, ISubscriptionClient> subscriptionClients = new ConcurrentHashMap<>();
+    private final Map<Tuple<String, String>, IMessageReceiver> subscriptionReceivers = new ConcurrentHashMap<>();
     private final BiFunction<String, String, ISubscriptionClient> subscriptionClientCreator =
-            Memoizer.memoize(this::createSubscriptionClient);
+            Memoizer.memoize(this.subscriptionClients, this::createSubscriptionClient);
+    private final BiFunction<String, String, IMessageReceiver> subscriptionReceiverCreator =
+            Memoizer.memoize(this.subscriptionReceivers, this::createSubscriptionReceiver);
     private final Function<String, ? extends IMessageSender> sendCreator = Memoizer.memoize(this::createTopicClient);
 
     public DefaultServiceBusTopicClientFactory(String connectionString) {
@@ -37,14 +44,7 @@ public class DefaultServiceBusTopicClientFactory extends AbstractServiceBusSende
     }
 
     private ISubscriptionClient createSubscriptionClient(String topicName, String subscription) {
-
-        if (resourceManagerProvider != null && StringUtils.hasText(namespace)) {
-            ServiceBusNamespace serviceBusNamespace =
-                    resourceManagerProvider.getServiceBusNamespaceManager().getOrCreate(namespace);
-            Topic topic = resourceManagerProvider.getServiceBusTopicManager()
-                                                 .getOrCreate(Tuple.of(serviceBusNamespace, topicName));
-            resourceManagerProvider.getServiceBusTopicSubscriptionManager().getOrCreate(Tuple.of(topic, subscription));
-        }
+        createSubscriptionIfMissing(topicName, subscription);
 
         String subscriptionPath = String.format(SUBSCRIPTION_PATH, topicName, subscription);
         try {
@@ -55,6 +55,28 @@ public class DefaultServiceBusTopicClientFactory extends AbstractServiceBusSende
         }
     }
 
+    private IMessageReceiver createSubscriptionReceiver(String topicName, String subscription) {
+        createSubscriptionIfMissing(topicName, subscription);
+
+        String subscriptionPath = String.format(SUBSCRIPTION_PATH, topicName, subscription);
+        try {
+            return ClientFactory.createMessageReceiverFromConnectionStringBuilder(
+                    new ConnectionStringBuilder(connectionString, subscriptionPath), ReceiveMode.PEEKLOCK);
+        } catch (InterruptedException | ServiceBusException e) {
+            throw new ServiceBusRuntimeException("Failed to create service bus subscription receiver", e);
+        }
+    }
+
+    private void createSubscriptionIfMissing(String topicName, String subscription) {
+        if (resourceManagerProvider != null && StringUtils.hasText(namespace)) {
+            ServiceBusNamespace serviceBusNamespace =
+                    resourceManagerProvider.getServiceBusNamespaceManager().getOrCreate(namespace);
+            Topic topic = resourceManagerProvider.getServiceBusTopicManager()
+                                                 .getOrCreate(Tuple.of(serviceBusNamespace, topicName));
+            resourceManagerProvider.getServiceBusTopicSubscriptionManager().getOrCreate(Tuple.of(topic, subscription));
+        }
+    }
+
     private IMessageSender createTopicClient(String topicName) {
         if (resourceManagerProvider != null && StringUtils.hasText(namespace)) {
             ServiceBusNamespace serviceBusNamespace =
@@ -74,6 +96,19 @@ public class DefaultServiceBusTopicClientFactory extends AbstractServiceBusSende
         return this.subscriptionClientCreator.apply(topic, subscription);
     }
 
+    @Override
+    public IMessageReceiver getOrCreateSubscriptionReceiver(String topic, String subscription) {
+        return this.subscriptionReceiverCreator.apply(topic, subscription);
+    }
+
+    @Override
+    public CompletableFuture<Void> removeSubscriptionClient(String topic, String subscription) {
+        Tuple<String, String> key = Tuple.of(topic, subscription);
+        String subscriptionPath = String.format(SUBSCRIPTION_PATH, topic, subscription);
+        return CompletableFuture.allOf(close(this.subscriptionClients.remove(key), subscriptionPath),
+                close(this.subscriptionReceivers.remove(key), subscriptionPath));
+    }
+
     @Override
     public IMessageSender getOrCreateSender(String name) {
         return this.sendCreator.apply(name);
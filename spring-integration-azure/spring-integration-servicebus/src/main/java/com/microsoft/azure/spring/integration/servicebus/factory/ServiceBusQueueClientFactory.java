@@ -6,8 +6,11 @@
 
 package com.microsoft.azure.spring.integration.servicebus.factory;
 
+import com.microsoft.azure.servicebus.IMessageReceiver;
 import com.microsoft.azure.servicebus.IQueueClient;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Factory to return functional creator of service bus queue client
  *
@@ -18,4 +21,17 @@ public interface ServiceBusQueueClientFactory extends ServiceBusSenderFactory {
      * Return a function which accepts service bus queue name, then returns {@link IQueueClient}
      */
     IQueueClient getOrCreateClient(String name);
+
+    /**
+     * Return {@link IMessageReceiver} of service bus queue, which receives messages in batch
+     */
+    IMessageReceiver getOrCreateReceiver(String name);
+
+    /**
+     * Close and remove cached {@link IQueueClient} and {@link IMessageReceiver} of service bus queue, so they stop
+     * receiving and are created again on next call. Sender of the queue is not affected.
+     *
+     * @return future completed once they are closed
+     */
+    CompletableFuture<Void> removeClient(String name);
 }
@@ -6,8 +6,11 @@
 
 package com.microsoft.azure.spring.integration.servicebus.factory;
 
+import com.microsoft.azure.servicebus.IMessageReceiver;
 import com.microsoft.azure.servicebus.ISubscriptionClient;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Factory to return functional creator of service bus topic and subscription client
  *
@@ -18,4 +21,17 @@ public interface ServiceBusTopicClientFactory extends ServiceBusSenderFactory {
      * Return a function which accepts service bus topic and subscription name, then returns {@link ISubscriptionClient}
      */
     ISubscriptionClient getOrCreateSubscriptionClient(String topic, String subscription);
+
+    /**
+     * Return {@link IMessageReceiver} of service bus topic subscription, which receives messages in batch
+     */
+    IMessageReceiver getOrCreateSubscriptionReceiver(String topic, String subscription);
+
+    /**
+     * Close and remove cached {@link ISubscriptionClient} and {@link IMessageReceiver} of service bus topic
+     * subscription, so they stop receiving and are created again on next call
+     *
+     * @return future completed once they are closed
+     */
+    CompletableFuture<Void> removeSubscriptionClient(String topic, String subscription);
 }
@@ -6,9 +6,9 @@
 
 package com.microsoft.azure.spring.integration.servicebus.queue;
 
-import com.microsoft.azure.spring.integration.core.api.SendOperation;
 import com.microsoft.azure.spring.integration.core.api.SubscribeOperation;
 import com.microsoft.azure.spring.integration.servicebus.ServiceBusClientConfig;
+import com.microsoft.azure.spring.integration.servicebus.ServiceBusSendOperation;
 
 /**
  * Azure service bus queue operation to support send
@@ -16,6 +16,6 @@ import com.microsoft.azure.spring.integration.servicebus.ServiceBusClientConfig;
  *
  * @author Warren Zhu
  */
-public interface ServiceBusQueueOperation extends SendOperation, SubscribeOperation {
+public interface ServiceBusQueueOperation extends ServiceBusSendOperation, SubscribeOperation {
     void setClientConfig(ServiceBusClientConfig clientConfig);
 }
@@ -20,6 +20,7 @@ import org.springframework.lang.NonNull;
 import org.springframework.messaging.Message;
 import org.springframework.util.Assert;
 
+import java.util.ArrayList;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -47,36 +48,57 @@ public class ServiceBusQueueTemplate extends ServiceBusTemplate<ServiceBusQueueC
             @NonNull Class<?> targetPayloadClass) {
         Assert.hasText(destination, "destination can't be null or empty");
 
-        if (subscribedQueues.contains(destination)) {
-            return false;
-        }
-
-        subscribedQueues.add(destination);
-
-        internalSubscribe(destination, consumer, targetPayloadClass);
+        synchronized (getSubscriptionLock(destination)) {
+            if (!subscribedQueues.add(destination)) {
+                return false;
+            }
 
-        return true;
+            internalSubscribe(destination, consumer, targetPayloadClass);
+            return true;
+        }
     }
 
+    /**
+     * Stop receiving from the queue, wait for running handlers, then close its client so prefetched messages are
+     * released. Messages delivered until the client is closed are abandoned. Subscribing again waits until the client
+     * is removed, then creates a new one.
+     */
     @Override
     public boolean unsubscribe(String destination) {
+        synchronized (getSubscriptionLock(destination)) {
+            if (!subscribedQueues.contains(destination)) {
+                return false;
+            }
+
+            releaseSubscription(destination, () -> this.senderFactory.removeClient(destination));
+            subscribedQueues.remove(destination);
+            return true;
+        }
+    }
 
-        //TODO: unregister message handler but service bus sdk unsupported
-
-        return subscribedQueues.remove(destination);
+    /**
+     * Unsubscribe all queues, then shut down shared resources
+     */
+    @Override
+    public void destroy() {
+        new ArrayList<>(this.subscribedQueues).forEach(this::unsubscribe);
+        super.destroy();
     }
 
     @SuppressWarnings("unchecked")
     protected void internalSubscribe(String name, Consumer<Message<?>> consumer, Class<?> payloadType) {
+        if (this.clientConfig.getReceiveBatchSize() > 0) {
+            startBatchReceiver(this.senderFactory.getOrCreateReceiver(name), consumer, payloadType, name);
+            return;
+        }
 
         IQueueClient queueClient = this.senderFactory.getOrCreateClient(name);
 
-        String threadPrefix = String.format("%s-handler", name);
-
         try {
             queueClient.setPrefetchCount(this.clientConfig.getPrefetchCount());
-            queueClient.registerMessageHandler(new QueueMessageHandler(consumer, payloadType, queueClient),
-                    buildHandlerOptions(), buildHandlerExecutors(threadPrefix));
+            QueueMessageHandler<?> messageHandler = new QueueMessageHandler(consumer, payloadType, queueClient);
+            queueClient.registerMessageHandler(messageHandler, buildHandlerOptions(),
+                    buildHandlerExecutors(name, messageHandler));
         } catch (ServiceBusException | InterruptedException e) {
             log.error("Failed to register queue message handler", e);
             throw new ServiceBusRuntimeException("Failed to register queue message handler", e);
@@ -93,7 +115,9 @@ public class ServiceBusQueueTemplate extends ServiceBusTemplate<ServiceBusQueueC
 
         public QueueMessageHandler(Consumer<Message<U>> consumer, Class<U> payloadType, IQueueClient queueClient) {
             super(consumer, payloadType, ServiceBusQueueTemplate.this.getCheckpointConfig(), ServiceBusQueueTemplate
-                    .this.getMessageConverter());
+                    .this.getMessageConverter(), ServiceBusQueueTemplate.this
+                    .buildSettlementAccumulator(queueClient.getQueueName(), queueClient::completeAsync,
+                            queueClient::abandonAsync));
             this.queueClient = queueClient;
         }
 
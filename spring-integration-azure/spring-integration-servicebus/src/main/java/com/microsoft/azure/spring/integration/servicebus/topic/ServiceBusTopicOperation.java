@@ -8,9 +8,9 @@ package com.microsoft.azure.spring.integration.servicebus.topic;
 
 import com.microsoft.azure.management.servicebus.ServiceBusSubscription;
 import com.microsoft.azure.spring.integration.core.api.CheckpointMode;
-import com.microsoft.azure.spring.integration.core.api.SendOperation;
 import com.microsoft.azure.spring.integration.core.api.SubscribeByGroupOperation;
 import com.microsoft.azure.spring.integration.servicebus.ServiceBusClientConfig;
+import com.microsoft.azure.spring.integration.servicebus.ServiceBusSendOperation;
 
 /**
  * Azure service bus topic operation to support send {@link org.springframework.messaging.Message} asynchronously
@@ -18,6 +18,6 @@ import com.microsoft.azure.spring.integration.servicebus.ServiceBusClientConfig;
  *
  * @author Warren Zhu
  */
-public interface ServiceBusTopicOperation extends SendOperation, SubscribeByGroupOperation {
+public interface ServiceBusTopicOperation extends ServiceBusSendOperation, SubscribeByGroupOperation {
     void setClientConfig(ServiceBusClientConfig clientConfig);
 }
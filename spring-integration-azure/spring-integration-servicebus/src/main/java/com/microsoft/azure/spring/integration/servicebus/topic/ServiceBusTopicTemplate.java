@@ -21,6 +21,7 @@ import org.springframework.lang.NonNull;
 import org.springframework.messaging.Message;
 import org.springframework.util.Assert;
 
+import java.util.ArrayList;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -34,6 +35,7 @@ import java.util.function.Consumer;
 public class ServiceBusTopicTemplate extends ServiceBusTemplate<ServiceBusTopicClientFactory>
         implements ServiceBusTopicOperation {
     private static final Logger log = LoggerFactory.getLogger(ServiceBusTopicTemplate.class);
+    private static final String SUBSCRIPTION_NAME = "%s/subscriptions/%s";
     private static final String MSG_FAIL_CHECKPOINT = "Consumer group '%s' of topic '%s' failed to checkpoint %s";
     private static final String MSG_SUCCESS_CHECKPOINT = "Consumer group '%s' of topic '%s' checkpointed %s in %s mode";
     private Set<Tuple<String, String>> nameAndConsumerGroups = Sets.newConcurrentHashSet();
@@ -49,35 +51,65 @@ public class ServiceBusTopicTemplate extends ServiceBusTemplate<ServiceBusTopicC
 
         Tuple<String, String> nameAndConsumerGroup = Tuple.of(destination, consumerGroup);
 
-        if (nameAndConsumerGroups.contains(nameAndConsumerGroup)) {
-            return false;
-        }
-
-        nameAndConsumerGroups.add(nameAndConsumerGroup);
+        synchronized (getSubscriptionLock(String.format(SUBSCRIPTION_NAME, destination, consumerGroup))) {
+            if (!nameAndConsumerGroups.add(nameAndConsumerGroup)) {
+                return false;
+            }
 
-        internalSubscribe(destination, consumerGroup, consumer, payloadType);
-        return true;
+            internalSubscribe(destination, consumerGroup, consumer, payloadType);
+            return true;
+        }
     }
 
+    /**
+     * Stop receiving from the subscription, wait for running handlers, then close its client so prefetched messages
+     * are released. Messages delivered until the client is closed are abandoned. Subscribing again waits until the
+     * client is removed, then creates a new one.
+     */
     @Override
     public boolean unsubscribe(String destination, String consumerGroup) {
-        //TODO: unregister message handler but service bus sdk unsupported
+        Tuple<String, String> nameAndConsumerGroup = Tuple.of(destination, consumerGroup);
+        String subscriptionName = String.format(SUBSCRIPTION_NAME, destination, consumerGroup);
 
-        return nameAndConsumerGroups.remove(Tuple.of(destination, consumerGroup));
+        synchronized (getSubscriptionLock(subscriptionName)) {
+            if (!nameAndConsumerGroups.contains(nameAndConsumerGroup)) {
+                return false;
+            }
+
+            releaseSubscription(subscriptionName,
+                    () -> this.senderFactory.removeSubscriptionClient(destination, consumerGroup));
+            nameAndConsumerGroups.remove(nameAndConsumerGroup);
+            return true;
+        }
+    }
+
+    /**
+     * Unsubscribe all subscriptions, then shut down shared resources
+     */
+    @Override
+    public void destroy() {
+        new ArrayList<>(this.nameAndConsumerGroups).forEach(t -> unsubscribe(t.getFirst(), t.getSecond()));
+        super.destroy();
     }
 
     @SuppressWarnings("unchecked")
     protected void internalSubscribe(String name, String consumerGroup, Consumer<Message<?>> consumer,
             Class<?> payloadType) {
-        ISubscriptionClient subscriptionClient = this.senderFactory.getOrCreateSubscriptionClient(name, consumerGroup);
+        String subscriptionName = String.format(SUBSCRIPTION_NAME, name, consumerGroup);
 
-        String threadPrefix = String.format("%s-%s-handler", name, consumerGroup);
+        if (this.clientConfig.getReceiveBatchSize() > 0) {
+            startBatchReceiver(this.senderFactory.getOrCreateSubscriptionReceiver(name, consumerGroup), consumer,
+                    payloadType, subscriptionName);
+            return;
+        }
+
+        ISubscriptionClient subscriptionClient = this.senderFactory.getOrCreateSubscriptionClient(name, consumerGroup);
 
         try {
             subscriptionClient.setPrefetchCount(this.clientConfig.getPrefetchCount());
-            subscriptionClient
-                    .registerMessageHandler(new TopicMessageHandler(consumer, payloadType, subscriptionClient),
-                            buildHandlerOptions(), buildHandlerExecutors(threadPrefix));
+            TopicMessageHandler<?> messageHandler = new TopicMessageHandler(consumer, payloadType, subscriptionClient);
+            subscriptionClient.registerMessageHandler(messageHandler, buildHandlerOptions(),
+                    buildHandlerExecutors(subscriptionName, messageHandler));
         } catch (ServiceBusException | InterruptedException e) {
             log.error("Failed to register topic message handler", e);
             throw new ServiceBusRuntimeException("Failed to register topic message handler", e);
@@ -95,7 +127,9 @@ public class ServiceBusTopicTemplate extends ServiceBusTemplate<ServiceBusTopicC
         public TopicMessageHandler(Consumer<Message<U>> consumer, Class<U> payloadType,
                 ISubscriptionClient subscriptionClient) {
             super(consumer, payloadType, ServiceBusTopicTemplate.this.getCheckpointConfig(), ServiceBusTopicTemplate
-                    .this.getMessageConverter());
+                    .this.getMessageConverter(), ServiceBusTopicTemplate.this
+                    .buildSettlementAccumulator(subscriptionClient.getEntityPath(), subscriptionClient::completeAsync,
+                            subscriptionClient::abandonAsync));
             this.subscriptionClient = subscriptionClient;
         }
 
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.servicebus;
+
+import com.microsoft.azure.servicebus.IMessage;
+import com.microsoft.azure.servicebus.IMessageSender;
+import com.microsoft.azure.servicebus.Message;
+import com.microsoft.azure.spring.integration.core.api.BatchConfig;
+import com.microsoft.azure.spring.integration.servicebus.factory.ServiceBusSenderFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ServiceBusBatchAccumulatorTest {
+    private static final String ENTITY = "queue";
+
+    @Mock
+    private ServiceBusSenderFactory senderFactory;
+
+    @Mock
+    private IMessageSender sender;
+
+    private ServiceBusBatchAccumulator accumulator;
+
+    @Before
+    public void setUp() {
+        when(this.senderFactory.getOrCreateSender(ENTITY)).thenReturn(this.sender);
+    }
+
+    @After
+    public void tearDown() {
+        this.accumulator.close();
+    }
+
+    @Test
+    public void testFlushedRoutesAreRemoved() throws Exception {
+        when(this.sender.sendBatchAsync(anyCollection())).thenReturn(CompletableFuture.completedFuture(null));
+        this.accumulator = new ServiceBusBatchAccumulator(this.senderFactory,
+                BatchConfig.builder().lingerTime(Duration.ofMinutes(1)).build());
+
+        for (int i = 0; i < 100; i++) {
+            send("key-" + i);
+        }
+        assertEquals(100, this.accumulator.getPendingRouteCount());
+
+        assertNull(this.accumulator.flush().get(5, TimeUnit.SECONDS));
+        assertEquals(0, this.accumulator.getPendingRouteCount());
+
+        // Route is created again for messages sent afterwards
+        assertFalse(send("key-0").isDone());
+        assertEquals(1, this.accumulator.getPendingRouteCount());
+    }
+
+    @Test
+    public void testLingerFlushNotBlockedByInFlightLimit() throws Exception {
+        CompletableFuture<Void> stuck = new CompletableFuture<>();
+        when(this.sender.sendBatchAsync(anyCollection())).thenReturn(stuck)
+                                                         .thenReturn(CompletableFuture.completedFuture(null));
+        this.accumulator = new ServiceBusBatchAccumulator(this.senderFactory,
+                BatchConfig.builder().lingerTime(Duration.ofMillis(50)).maxInFlightBatches(1).build());
+
+        CompletableFuture<Void> first = send("a");
+        verify(this.sender, timeout(5000)).sendBatchAsync(anyCollection());
+
+        // Both batches are flushed by the linger timer while the first one holds the only slot
+        CompletableFuture<Void> second = send("b");
+        CompletableFuture<Void> third = send("c");
+        waitForEmptyRoutes();
+        assertFalse(second.isDone());
+        assertFalse(third.isDone());
+
+        stuck.complete(null);
+        assertNull(first.get(5, TimeUnit.SECONDS));
+        assertNull(second.get(5, TimeUnit.SECONDS));
+        assertNull(third.get(5, TimeUnit.SECONDS));
+        verify(this.sender, times(3)).sendBatchAsync(anyCollection());
+    }
+
+    @Test
+    public void testCloseSendsLingeredBatches() {
+        when(this.sender.sendBatchAsync(anyCollection())).thenReturn(CompletableFuture.completedFuture(null));
+        this.accumulator = new ServiceBusBatchAccumulator(this.senderFactory,
+                BatchConfig.builder().lingerTime(Duration.ofMinutes(1)).build());
+
+        CompletableFuture<Void> future = send("a");
+        this.accumulator.close();
+
+        assertNull(future.join());
+        assertEquals(0, this.accumulator.getPendingRouteCount());
+    }
+
+    private CompletableFuture<Void> send(String partitionKey) {
+        IMessage message = new Message(partitionKey.getBytes());
+        return this.accumulator.send(ENTITY, partitionKey, Collections.singletonList(message));
+    }
+
+    private void waitForEmptyRoutes() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (this.accumulator.getPendingRouteCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, this.accumulator.getPendingRouteCount());
+    }
+}
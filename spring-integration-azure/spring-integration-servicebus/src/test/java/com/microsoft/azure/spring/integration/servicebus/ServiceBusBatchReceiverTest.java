@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.servicebus;
+
+import com.microsoft.azure.servicebus.IMessage;
+import com.microsoft.azure.servicebus.IMessageReceiver;
+import com.microsoft.azure.spring.integration.core.AzureHeaders;
+import com.microsoft.azure.spring.integration.core.api.CheckpointConfig;
+import com.microsoft.azure.spring.integration.core.api.CheckpointMode;
+import com.microsoft.azure.spring.integration.core.api.Checkpointer;
+import com.microsoft.azure.spring.integration.core.converter.ConversionException;
+import com.microsoft.azure.spring.integration.servicebus.converter.ServiceBusMessageConverter;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ServiceBusBatchReceiverTest {
+    private final List<org.springframework.messaging.Message<List<String>>> received = new CopyOnWriteArrayList<>();
+
+    @Mock
+    private IMessageReceiver receiver;
+
+    private List<IMessage> messages;
+
+    @Before
+    public void setUp() {
+        this.messages = Arrays.asList(message("a"), message("b"), message("c"));
+    }
+
+    @Test
+    public void testBatchReceivedAndCompletedTogether() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        CompletableFuture<Collection<IMessage>> empty = new CompletableFuture<>();
+        when(this.receiver.receiveBatchAsync(eq(10), any(Duration.class)))
+                .thenReturn(CompletableFuture.completedFuture(this.messages)).thenReturn(empty);
+        when(this.receiver.completeAsync(any(UUID.class))).thenReturn(CompletableFuture.completedFuture(null));
+        ServiceBusBatchReceiver<String> batchReceiver = batchReceiver(CheckpointMode.RECORD, m -> latch.countDown());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        batchReceiver.start(executor, 1);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        this.messages.forEach(m -> verify(this.receiver, timeout(5000)).completeAsync(m.getLockToken()));
+        batchReceiver.stop();
+        executor.shutdownNow();
+
+        assertEquals(1, this.received.size());
+        assertEquals(Arrays.asList("a", "b", "c"), this.received.get(0).getPayload());
+        assertEquals(3, this.received.get(0).getHeaders().get(AzureHeaders.BATCH_HEADERS, List.class).size());
+    }
+
+    @Test
+    public void testBatchAbandonedWhenHandlerFails() {
+        when(this.receiver.abandonAsync(any(UUID.class))).thenReturn(CompletableFuture.completedFuture(null));
+        ServiceBusBatchReceiver<String> batchReceiver = batchReceiver(CheckpointMode.RECORD, m -> {
+            throw new IllegalStateException("failed");
+        });
+
+        batchReceiver.handle(this.messages);
+
+        this.messages.forEach(m -> verify(this.receiver).abandonAsync(m.getLockToken()));
+        verify(this.receiver, never()).completeAsync(any(UUID.class));
+    }
+
+    @Test
+    public void testBatchFailingToConvertAbandonedAndWorkerKeepsReceiving() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        when(this.receiver.receiveBatchAsync(eq(10), any(Duration.class)))
+                .thenReturn(CompletableFuture.completedFuture(this.messages))
+                .thenReturn(CompletableFuture.completedFuture(this.messages)).thenReturn(new CompletableFuture<>());
+        when(this.receiver.abandonAsync(any(UUID.class))).thenReturn(CompletableFuture.completedFuture(null));
+        when(this.receiver.completeAsync(any(UUID.class))).thenReturn(CompletableFuture.completedFuture(null));
+        AtomicInteger conversions = new AtomicInteger();
+        ServiceBusMessageConverter converter = new ServiceBusMessageConverter() {
+            @Override
+            public <T> org.springframework.messaging.Message<List<T>> toBatchMessage(List<IMessage> azureMessages,
+                    Map<String, Object> headers, Class<T> targetPayloadClass) {
+                if (conversions.getAndIncrement() == 0) {
+                    throw new ConversionException("Undecodable payload");
+                }
+
+                return super.toBatchMessage(azureMessages, headers, targetPayloadClass);
+            }
+        };
+        ServiceBusBatchReceiver<String> batchReceiver = new ServiceBusBatchReceiver<>(this.receiver,
+                m -> latch.countDown(), String.class,
+                CheckpointConfig.builder().checkpointMode(CheckpointMode.RECORD).build(), converter, 10,
+                Duration.ofMillis(100), null);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        batchReceiver.start(executor, 1);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        this.messages.forEach(m -> verify(this.receiver, timeout(5000)).completeAsync(m.getLockToken()));
+        batchReceiver.stop();
+        executor.shutdownNow();
+
+        this.messages.forEach(m -> verify(this.receiver).abandonAsync(m.getLockToken()));
+    }
+
+    @Test
+    public void testManualCheckpointSettlesWholeBatch() {
+        when(this.receiver.completeAsync(any(UUID.class))).thenReturn(CompletableFuture.completedFuture(null));
+        ServiceBusBatchReceiver<String> batchReceiver = batchReceiver(CheckpointMode.MANUAL,
+                m -> m.getHeaders().get(AzureHeaders.CHECKPOINTER, Checkpointer.class).success());
+
+        batchReceiver.handle(this.messages);
+
+        this.messages.forEach(m -> verify(this.receiver).completeAsync(m.getLockToken()));
+        verify(this.receiver, never()).receiveBatchAsync(anyInt(), any(Duration.class));
+    }
+
+    private ServiceBusBatchReceiver<String> batchReceiver(CheckpointMode checkpointMode,
+            Consumer<org.springframework.messaging.Message<List<String>>> handler) {
+        Consumer<org.springframework.messaging.Message<List<String>>> consumer = m -> {
+            this.received.add(m);
+            handler.accept(m);
+        };
+        return new ServiceBusBatchReceiver<>(this.receiver, consumer, String.class,
+                CheckpointConfig.builder().checkpointMode(checkpointMode).build(), new ServiceBusMessageConverter(),
+                10, Duration.ofMillis(100), null);
+    }
+
+    private static IMessage message(String payload) {
+        IMessage message = mock(IMessage.class);
+        when(message.getBody()).thenReturn(payload.getBytes());
+        when(message.getProperties()).thenReturn(new HashMap<>());
+        when(message.getLockToken()).thenReturn(UUID.randomUUID());
+        return message;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.servicebus;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ServiceBusHandlerPoolTest {
+    private ServiceBusHandlerPool pool;
+
+    @After
+    public void tearDown() {
+        this.pool.shutdown();
+    }
+
+    @Test
+    public void testConcurrencyLimitOfSubscription() throws Exception {
+        this.pool = newPool(0);
+        ExecutorService executor = this.pool.newExecutor("queue", 2);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(5);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                started.countDown();
+                await(release);
+                running.decrementAndGet();
+                completed.countDown();
+            });
+        }
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(3, this.pool.getQueueDepth());
+        release.countDown();
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    public void testPoolSizeFollowsTotalConcurrency() {
+        this.pool = newPool(4);
+        ExecutorService queue = this.pool.newExecutor("queue", 2);
+        this.pool.newExecutor("topic/subscriptions/group", 3);
+        assertEquals(4, this.pool.getMaximumPoolSize());
+
+        queue.shutdown();
+        assertEquals(3, this.pool.getMaximumPoolSize());
+        assertEquals(1, this.pool.getSubscriptionExecutors().size());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testShutdownSubscriptionCompletesWaitingTasks() throws Exception {
+        this.pool = newPool(0);
+        ExecutorService executor = this.pool.newExecutor("queue", 1);
+        AtomicInteger completed = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            executor.execute(completed::incrementAndGet);
+        }
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(3, completed.get());
+
+        executor.execute(completed::incrementAndGet);
+    }
+
+    private static ServiceBusHandlerPool newPool(int maxPoolSize) {
+        return new ServiceBusHandlerPool(maxPoolSize,
+                new ThreadFactoryBuilder().setNameFormat("handler-%d").setDaemon(true).build());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
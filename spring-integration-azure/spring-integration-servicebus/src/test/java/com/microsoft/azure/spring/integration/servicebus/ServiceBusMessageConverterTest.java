@@ -10,14 +10,23 @@ import com.microsoft.azure.servicebus.IMessage;
 import com.microsoft.azure.servicebus.Message;
 import com.microsoft.azure.spring.integration.core.AzureHeaders;
 import com.microsoft.azure.spring.integration.core.converter.AzureMessageConverter;
+import com.microsoft.azure.spring.integration.core.converter.CompressionType;
 import com.microsoft.azure.spring.integration.servicebus.converter.ServiceBusMessageConverter;
 import com.microsoft.azure.spring.integration.test.support.AzureMessageConverterTest;
+import org.junit.Test;
+import org.springframework.integration.support.MessageBuilder;
 import org.springframework.messaging.MessageHeaders;
 
+import java.util.Collections;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class ServiceBusMessageConverterTest extends AzureMessageConverterTest<IMessage> {
+    private static final String LARGE_PAYLOAD = String.join(",", Collections.nCopies(200, "{\"key\":\"value\"}"));
+
     @Override
     protected IMessage getInstance() {
         return new Message(this.payload.getBytes());
@@ -45,4 +54,30 @@ public class ServiceBusMessageConverterTest extends AzureMessageConverterTest<IM
         assertEquals(serviceBusMessage.getProperties().get(headerProperties),
                 message.getHeaders().get(headerProperties, String.class));
     }
+
+    @Test
+    public void testCompressedBodyDecompressedByAnyConverter() {
+        ServiceBusMessageConverter converter = new ServiceBusMessageConverter();
+        converter.setCompressionCodec(CompressionType.GZIP.createCodec());
+
+        IMessage message = converter.fromMessage(MessageBuilder.withPayload(LARGE_PAYLOAD).build(), IMessage.class);
+
+        assertTrue(message.getBody().length < LARGE_PAYLOAD.length());
+        assertEquals(CompressionType.GZIP.getEncoding(), message.getProperties().get(AzureHeaders.CONTENT_ENCODING));
+        assertEquals(LARGE_PAYLOAD, new ServiceBusMessageConverter().toMessage(message, String.class).getPayload());
+    }
+
+    @Test
+    public void testContentEncodingOfReceivedMessageNotForwarded() {
+        ServiceBusMessageConverter converter = new ServiceBusMessageConverter();
+        converter.setCompressionCodec(CompressionType.GZIP.createCodec());
+        org.springframework.messaging.Message<String> received = converter.toMessage(
+                converter.fromMessage(MessageBuilder.withPayload(LARGE_PAYLOAD).build(), IMessage.class),
+                String.class);
+
+        IMessage forwarded = new ServiceBusMessageConverter().fromMessage(received, IMessage.class);
+
+        assertEquals(LARGE_PAYLOAD, new String(forwarded.getBody()));
+        assertFalse(forwarded.getProperties().containsKey(AzureHeaders.CONTENT_ENCODING));
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.servicebus;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SettlementAccumulatorTest {
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private final List<UUID> completed = new CopyOnWriteArrayList<>();
+
+    private final List<UUID> abandoned = new CopyOnWriteArrayList<>();
+
+    @After
+    public void tearDown() {
+        this.scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testSettleTogetherOnceBatchIsFull() {
+        SettlementAccumulator accumulator = accumulator(3, Duration.ofHours(1));
+
+        CompletableFuture<Void> first = accumulator.complete(UUID.randomUUID(), null);
+        accumulator.abandon(UUID.randomUUID(), null);
+        assertFalse(first.isDone());
+        accumulator.complete(UUID.randomUUID(), null);
+
+        assertTrue(first.isDone());
+        assertEquals(2, this.completed.size());
+        assertEquals(1, this.abandoned.size());
+        assertEquals(1, accumulator.getFlushCount());
+        assertEquals(3.0, accumulator.getAverageSettlementsPerFlush(), 0);
+    }
+
+    @Test
+    public void testSettleAfterInterval() throws Exception {
+        SettlementAccumulator accumulator = accumulator(10, Duration.ofMillis(50));
+
+        accumulator.complete(UUID.randomUUID(), null);
+        accumulator.complete(UUID.randomUUID(), null).get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, this.completed.size());
+        assertEquals(1, accumulator.getFlushCount());
+    }
+
+    @Test
+    public void testSettleBeforeLockExpires() throws Exception {
+        SettlementAccumulator accumulator = accumulator(10, Duration.ofHours(1));
+
+        accumulator.complete(UUID.randomUUID(), Instant.now().plusSeconds(60));
+        accumulator.complete(UUID.randomUUID(), Instant.now().plusMillis(1200)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, this.completed.size());
+    }
+
+    private SettlementAccumulator accumulator(int batchSize, Duration interval) {
+        return new SettlementAccumulator("queue", t -> {
+            this.completed.add(t);
+            return CompletableFuture.completedFuture(null);
+        }, t -> {
+            this.abandoned.add(t);
+            return CompletableFuture.completedFuture(null);
+        }, batchSize, interval, this.scheduler);
+    }
+}
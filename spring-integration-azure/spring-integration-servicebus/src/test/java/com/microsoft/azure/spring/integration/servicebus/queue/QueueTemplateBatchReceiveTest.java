@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See LICENSE in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.spring.integration.servicebus.queue;
+
+import com.microsoft.azure.servicebus.IMessage;
+import com.microsoft.azure.servicebus.IMessageReceiver;
+import com.microsoft.azure.spring.integration.servicebus.ServiceBusClientConfig;
+import com.microsoft.azure.spring.integration.servicebus.factory.ServiceBusQueueClientFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class QueueTemplateBatchReceiveTest {
+
+    @Mock
+    private ServiceBusQueueClientFactory mockClientFactory;
+
+    @Mock
+    private IMessageReceiver firstReceiver;
+
+    @Mock
+    private IMessageReceiver secondReceiver;
+
+    private ServiceBusQueueTemplate template;
+
+    @Before
+    public void setUp() {
+        when(this.mockClientFactory.getOrCreateReceiver("first")).thenReturn(this.firstReceiver);
+        when(this.mockClientFactory.getOrCreateReceiver("second")).thenReturn(this.secondReceiver);
+        whenReceiveBatch(this.firstReceiver);
+        whenReceiveBatch(this.secondReceiver);
+        when(this.mockClientFactory.removeClient(anyString())).thenReturn(CompletableFuture.completedFuture(null));
+
+        this.template = new ServiceBusQueueTemplate(this.mockClientFactory);
+        this.template.setClientConfig(ServiceBusClientConfig.builder().setReceiveBatchSize(10)
+                                                            .setReceiveMaxWait(Duration.ofMillis(10)).build());
+    }
+
+    @After
+    public void tearDown() {
+        this.template.destroy();
+    }
+
+    @Test
+    public void testBatchReceiversNotStarvedBySmallHandlerPool() {
+        // One pool thread for two subscriptions, each with one receive loop
+        this.template.setHandlerPoolSize(1);
+
+        assertTrue(this.template.subscribe("first", m -> {
+        }, String.class));
+        assertTrue(this.template.subscribe("second", m -> {
+        }, String.class));
+
+        verify(this.firstReceiver, timeout(5000).atLeastOnce()).receiveBatchAsync(anyInt(), any(Duration.class));
+        verify(this.secondReceiver, timeout(5000).atLeastOnce()).receiveBatchAsync(anyInt(), any(Duration.class));
+    }
+
+    private static void whenReceiveBatch(IMessageReceiver receiver) {
+        when(receiver.receiveBatchAsync(anyInt(), any(Duration.class))).thenAnswer(invocation -> {
+            // Wait like an empty receive within max wait does
+            Thread.sleep(10);
+            return CompletableFuture.<Collection<IMessage>>completedFuture(Collections.emptyList());
+        });
+    }
+}
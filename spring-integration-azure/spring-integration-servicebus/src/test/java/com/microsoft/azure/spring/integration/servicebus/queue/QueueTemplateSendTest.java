@@ -8,15 +8,32 @@ package com.microsoft.azure.spring.integration.servicebus.queue;
 
 import com.microsoft.azure.servicebus.IMessage;
 import com.microsoft.azure.servicebus.IQueueClient;
+import com.microsoft.azure.spring.integration.core.api.BatchConfig;
+import com.microsoft.azure.spring.integration.core.api.PartitionSupplier;
 import com.microsoft.azure.spring.integration.servicebus.ServiceBusTemplateSendTest;
 import com.microsoft.azure.spring.integration.servicebus.factory.ServiceBusQueueClientFactory;
 import org.junit.Before;
+import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -32,4 +49,57 @@ public class QueueTemplateSendTest extends ServiceBusTemplateSendTest<ServiceBus
 
         this.sendOperation = new ServiceBusQueueTemplate(mockClientFactory);
     }
+
+    @Test
+    public void testSendInBatch() throws Exception {
+        this.future.complete(null);
+        when(this.mockClient.sendBatchAsync(anyCollection())).thenReturn(this.future);
+
+        ((ServiceBusQueueTemplate) this.sendOperation).setBatchConfig(BatchConfig.builder().build());
+        Message<String> stringMessage = new GenericMessage<>(payload);
+        CompletableFuture<Void> future = ((ServiceBusQueueTemplate) this.sendOperation)
+                .sendAsync(destination, Arrays.asList(stringMessage, stringMessage), new PartitionSupplier());
+
+        assertNull(future.get());
+        verify(this.mockClient, times(1)).sendBatchAsync(argThat(c -> c.size() == 2));
+        verify(this.mockClient, never()).sendAsync(any(IMessage.class));
+    }
+
+    @Test
+    public void testSendInBatchWhenBatchIsFull() throws Exception {
+        this.future.complete(null);
+        when(this.mockClient.sendBatchAsync(anyCollection())).thenReturn(this.future);
+
+        // Room for one message beyond batch envelope
+        ((ServiceBusQueueTemplate) this.sendOperation)
+                .setBatchConfig(BatchConfig.builder().batchSize(1024 + 500).build());
+        Message<String> stringMessage = new GenericMessage<>(payload);
+        CompletableFuture<Void> future = ((ServiceBusQueueTemplate) this.sendOperation)
+                .sendAsync(destination, Arrays.asList(stringMessage, stringMessage), new PartitionSupplier());
+
+        assertNull(future.get());
+        verify(this.mockClient, times(2)).sendBatchAsync(argThat(c -> c.size() == 1));
+    }
+
+    @Test
+    public void testSendInBatchWithLingerTime() throws Exception {
+        this.future.complete(null);
+        when(this.mockClient.sendBatchAsync(anyCollection())).thenReturn(this.future);
+        PartitionSupplier partitionSupplier = new PartitionSupplier();
+        partitionSupplier.setPartitionKey(partitionKey);
+
+        ServiceBusQueueTemplate template = (ServiceBusQueueTemplate) this.sendOperation;
+        template.setBatchConfig(BatchConfig.builder().lingerTime(Duration.ofMinutes(1)).build());
+        CompletableFuture<Void> first = template.sendAsync(destination, message, partitionSupplier);
+        CompletableFuture<Void> second = template.sendAsync(destination, message, partitionSupplier);
+
+        assertFalse(first.isDone());
+        verify(this.mockClient, never()).sendBatchAsync(anyCollection());
+
+        template.flush();
+
+        assertNull(first.get());
+        assertNull(second.get());
+        verify(this.mockClient, times(1)).sendBatchAsync(argThat(c -> c.size() == 2));
+    }
 }
@@ -6,18 +6,29 @@
 
 package com.microsoft.azure.spring.integration.servicebus.queue;
 
+import com.microsoft.azure.servicebus.IMessage;
 import com.microsoft.azure.servicebus.IMessageHandler;
+import com.microsoft.azure.servicebus.Message;
 import com.microsoft.azure.servicebus.QueueClient;
 import com.microsoft.azure.servicebus.primitives.ServiceBusException;
 import com.microsoft.azure.spring.integration.servicebus.factory.ServiceBusQueueClientFactory;
 import com.microsoft.azure.spring.integration.test.support.SubscribeOperationTest;
 import org.junit.Before;
+import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -38,6 +49,7 @@ public class QueueTemplateSubscribeTest extends SubscribeOperationTest<ServiceBu
         this.subscribeOperation = new ServiceBusQueueTemplate(mockClientFactory);
         when(this.mockClientFactory.getOrCreateClient(anyString())).thenReturn(queueClient);
         whenRegisterMessageHandler(this.queueClient);
+        when(this.mockClientFactory.removeClient(anyString())).thenReturn(CompletableFuture.completedFuture(null));
     }
 
     @Override
@@ -62,6 +74,89 @@ public class QueueTemplateSubscribeTest extends SubscribeOperationTest<ServiceBu
 
     @Override
     protected void verifySubscriberUnregistered(int times) {
+        verify(this.mockClientFactory, times(times)).removeClient(anyString());
+    }
+
+    @Test
+    public void testResubscribeCreatesClientAgain() {
+        assertTrue(this.subscribeOperation.subscribe("queue", m -> {
+        }));
+        assertTrue(this.subscribeOperation.unsubscribe("queue"));
+        assertTrue(this.subscribeOperation.subscribe("queue", m -> {
+        }));
+
+        verify(this.mockClientFactory).removeClient("queue");
+        verify(this.mockClientFactory, times(2)).getOrCreateClient("queue");
+        verifySubscriberRegistered(2);
+    }
+
+    @Test
+    public void testDeliveriesAbandonedUntilClientClosed() throws Exception {
+        CompletableFuture<Void> closed = new CompletableFuture<>();
+        when(this.mockClientFactory.removeClient("queue")).thenReturn(closed);
+        assertTrue(this.subscribeOperation.subscribe("queue", m -> fail("Message should not be handled")));
+
+        ArgumentCaptor<IMessageHandler> handler = ArgumentCaptor.forClass(IMessageHandler.class);
+        ArgumentCaptor<ExecutorService> executor = ArgumentCaptor.forClass(ExecutorService.class);
+        verify(this.queueClient).registerMessageHandler(handler.capture(), any(), executor.capture());
+        assertTrue(this.subscribeOperation.unsubscribe("queue"));
+
+        // Pump keeps delivering until client is closed, so executor still accepts deliveries, which are abandoned
+        assertFalse(executor.getValue().isShutdown());
+        IMessage message = mock(IMessage.class);
+        UUID lockToken = UUID.randomUUID();
+        when(message.getLockToken()).thenReturn(lockToken);
+        handler.getValue().onMessageAsync(message);
+        verify(this.queueClient).abandonAsync(lockToken);
+
+        closed.complete(null);
+        assertTrue(executor.getValue().isShutdown());
+    }
+
+    @Test
+    public void testSubscribeRightAfterUnsubscribeWaitsForClientRemoved() throws Exception {
+        CountDownLatch handling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        assertTrue(this.subscribeOperation.subscribe("queue", m -> {
+            handling.countDown();
+            awaitQuietly(release);
+        }));
+
+        ArgumentCaptor<IMessageHandler> handler = ArgumentCaptor.forClass(IMessageHandler.class);
+        verify(this.queueClient).registerMessageHandler(handler.capture(), any(), any(ExecutorService.class));
+        IMessage message = new Message("message");
+        Thread delivery = new Thread(() -> handler.getValue().onMessageAsync(message));
+        delivery.start();
+        assertTrue(handling.await(5, TimeUnit.SECONDS));
+
+        // Unsubscribe waits for the running handler, and subscribe right after it waits for the unsubscribe
+        Thread unsubscriber = new Thread(() -> this.subscribeOperation.unsubscribe("queue"));
+        unsubscriber.start();
+        CompletableFuture<Boolean> subscribed =
+                CompletableFuture.supplyAsync(() -> this.subscribeOperation.subscribe("queue", m -> {
+                }));
+        Thread.sleep(200);
+        assertFalse(subscribed.isDone());
+        verify(this.mockClientFactory).getOrCreateClient("queue");
+
+        release.countDown();
+        assertTrue(subscribed.get(5, TimeUnit.SECONDS));
+        unsubscriber.join(5000);
+        delivery.join(5000);
+
+        InOrder inOrder = inOrder(this.mockClientFactory);
+        inOrder.verify(this.mockClientFactory).getOrCreateClient("queue");
+        inOrder.verify(this.mockClientFactory).removeClient("queue");
+        inOrder.verify(this.mockClientFactory).getOrCreateClient("queue");
+        verifySubscriberRegistered(2);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     private void whenRegisterMessageHandler(QueueClient queueClient) {
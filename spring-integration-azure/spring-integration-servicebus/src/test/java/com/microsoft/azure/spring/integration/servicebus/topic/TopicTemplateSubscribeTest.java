@@ -12,14 +12,18 @@ import com.microsoft.azure.servicebus.primitives.ServiceBusException;
 import com.microsoft.azure.spring.integration.servicebus.factory.ServiceBusTopicClientFactory;
 import com.microsoft.azure.spring.integration.test.support.SubscribeByGroupOperationTest;
 import org.junit.Before;
+import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.*;
@@ -45,6 +49,8 @@ public class TopicTemplateSubscribeTest extends SubscribeByGroupOperationTest<Se
                 .thenReturn(this.anotherSubscriptionClient);
         whenRegisterMessageHandler(this.subscriptionClient);
         whenRegisterMessageHandler(this.anotherSubscriptionClient);
+        when(this.mockClientFactory.removeSubscriptionClient(anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
     }
 
     @Override
@@ -71,6 +77,21 @@ public class TopicTemplateSubscribeTest extends SubscribeByGroupOperationTest<Se
 
     @Override
     protected void verifySubscriberUnregistered(int times) {
+        verify(this.mockClientFactory, times(times))
+                .removeSubscriptionClient(eq(this.destination), eq(this.consumerGroup));
+    }
+
+    @Test
+    public void testResubscribeCreatesClientAgain() {
+        assertTrue(this.subscribeByGroupOperation.subscribe(this.destination, this.consumerGroup, m -> {
+        }));
+        assertTrue(this.subscribeByGroupOperation.unsubscribe(this.destination, this.consumerGroup));
+        assertTrue(this.subscribeByGroupOperation.subscribe(this.destination, this.consumerGroup, m -> {
+        }));
+
+        verifySubscriberUnregistered(1);
+        verify(this.mockClientFactory, times(2)).getOrCreateSubscriptionClient(this.destination, this.consumerGroup);
+        verifySubscriberRegistered(2);
     }
 
     private void whenRegisterMessageHandler(SubscriptionClient subscriptionClient) {
@@ -11,6 +11,12 @@ import com.microsoft.azure.spring.integration.core.converter.ConversionException
 import com.microsoft.azure.storage.StorageException;
 import com.microsoft.azure.storage.queue.CloudQueueMessage;
 
+/**
+ * A converter to turn a {@link org.springframework.messaging.Message} to {@link CloudQueueMessage} and vice versa.
+ * Compression is not supported, since queue message has no property to keep content encoding of body.
+ *
+ * @author Warren Zhu
+ */
 public class StorageQueueMessageConverter extends AbstractAzureMessageConverter<CloudQueueMessage> {
     @Override
     protected byte[] getPayload(CloudQueueMessage azureMessage) {
@@ -30,5 +36,4 @@ public class StorageQueueMessageConverter extends AbstractAzureMessageConverter<
     protected CloudQueueMessage fromByte(byte[] payload) {
         return new CloudQueueMessage(payload);
     }
-
 }
@@ -7,9 +7,11 @@
 package com.microsoft.azure.spring.integration.storage.queue;
 
 import com.microsoft.azure.spring.integration.core.converter.AzureMessageConverter;
+import com.microsoft.azure.spring.integration.core.converter.CompressionType;
 import com.microsoft.azure.spring.integration.storage.queue.converter.StorageQueueMessageConverter;
 import com.microsoft.azure.spring.integration.test.support.AzureMessageConverterTest;
 import com.microsoft.azure.storage.queue.CloudQueueMessage;
+import org.junit.Test;
 
 public class StorageQueueMessageConverterTest extends AzureMessageConverterTest<CloudQueueMessage> {
     @Override
@@ -26,4 +28,9 @@ public class StorageQueueMessageConverterTest extends AzureMessageConverterTest<
     protected Class<CloudQueueMessage> getTargetClass() {
         return CloudQueueMessage.class;
     }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCompressionRejected() {
+        new StorageQueueMessageConverter().setCompressionCodec(CompressionType.GZIP.createCodec());
+    }
 }